@@ -35,6 +35,7 @@ class BPlusTreeLeafIterator<T> extends AbstractIterator<T> {
           throw new NoSuchElementException();
         } else {
           this.nextPageId = this.map.getLeafValues(this.currentValues, this.nextPageId, this.key);
+          this.currentIndex = 0;
         }
       }
       final T value = this.currentValues.get(this.currentIndex++);
@@ -1,6 +1,5 @@
 package com.revolsys.collection.bplus;
 
-import java.io.File;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -11,9 +10,7 @@ import java.util.Set;
 
 import com.revolsys.collection.map.MapKeySetEntrySet;
 import com.revolsys.comparator.Comparators;
-import com.revolsys.io.FileUtil;
-import com.revolsys.io.page.FileMappedPageManager;
-import com.revolsys.io.page.FilePageManager;
+import com.revolsys.io.page.BufferPoolPageManager;
 import com.revolsys.io.page.MemoryPageManager;
 import com.revolsys.io.page.MethodPageValueManager;
 import com.revolsys.io.page.Page;
@@ -70,26 +67,35 @@ public class BPlusTreeMap<K, V> extends AbstractMap<K, V> {
   }
 
   public static <V> Map<Integer, V> newIntSeralizableTempDisk() {
-    final File file = FileUtil.newTempFile("int", ".btree");
-    final PageManager pageManager = new FilePageManager(file);
-    final PageValueManager<Integer> keyManager = PageValueManager.INT;
-    final SerializablePageValueManager<V> valueSerializer = new SerializablePageValueManager<>();
-    final PageValueManager<V> valueManager = BPlusTreePageValueManager
-      .newPageValueManager(pageManager, valueSerializer);
-    final Comparator<Integer> comparator = Comparators.newComparator();
-    return new BPlusTreeMap<>(pageManager, comparator, keyManager, valueManager);
+    final PageValueManager<V> valueSerializer = new SerializablePageValueManager<>();
+    return newIntTempDisk(valueSerializer);
   }
 
   public static <V> Map<Integer, V> newIntSeralizableTempDisk(final Map<Integer, V> values) {
-    final File file = FileUtil.newTempFile("int", ".btree");
-    final PageManager pageManager = new FilePageManager(file);
+    final Map<Integer, V> map = newIntSeralizableTempDisk();
+    map.putAll(values);
+    return map;
+  }
+
+  /**
+   * Construct a new map with int keys stored in a temporary file. The values are stored on separate
+   * data pages so values of any size can be used.
+   *
+   * @param valueSerializer The manager used to convert the values to bytes.
+   * @return The map.
+   */
+  public static <V> Map<Integer, V> newIntTempDisk(final PageValueManager<V> valueSerializer) {
+    final PageManager pageManager = new BufferPoolPageManager();
     final PageValueManager<Integer> keyManager = PageValueManager.INT;
-    final SerializablePageValueManager<V> valueSerializer = new SerializablePageValueManager<>();
     final PageValueManager<V> valueManager = BPlusTreePageValueManager
       .newPageValueManager(pageManager, valueSerializer);
     final Comparator<Integer> comparator = Comparators.newComparator();
-    final BPlusTreeMap<Integer, V> map = new BPlusTreeMap<>(pageManager, comparator, keyManager,
-      valueManager);
+    return new BPlusTreeMap<>(pageManager, comparator, keyManager, valueManager);
+  }
+
+  public static <V> Map<Integer, V> newIntTempDisk(final Map<Integer, V> values,
+    final PageValueManager<V> valueSerializer) {
+    final Map<Integer, V> map = newIntTempDisk(valueSerializer);
     map.putAll(values);
     return map;
   }
@@ -105,49 +111,35 @@ public class BPlusTreeMap<K, V> extends AbstractMap<K, V> {
     return new BPlusTreeMap<>(pages, comparator, keyManager, valueManager);
   }
 
-  public static <K extends Comparable<?>, V> Map<K, V> newTempDisk(final Map<K, V> values,
-    PageValueManager<K> keyManager, PageValueManager<V> valueManager) {
-    final File file = FileUtil.newTempFile("temp", ".bplustree");
-    final PageManager pageManager = new FilePageManager(file);
-
-    if (keyManager instanceof SerializablePageValueManager) {
-      final SerializablePageValueManager<K> serializeableManager = (SerializablePageValueManager<K>)keyManager;
-      keyManager = BPlusTreePageValueManager.newPageValueManager(pageManager, serializeableManager);
-    }
-
+  private static <T> PageValueManager<T> newPageValueManager(final PageManager pageManager,
+    final PageValueManager<T> valueManager) {
     if (valueManager instanceof SerializablePageValueManager) {
-      final SerializablePageValueManager<V> serializeableManager = (SerializablePageValueManager<V>)valueManager;
-      valueManager = BPlusTreePageValueManager.newPageValueManager(pageManager,
-        serializeableManager);
+      return BPlusTreePageValueManager.newPageValueManager(pageManager, valueManager);
+    } else {
+      return valueManager;
     }
+  }
+
+  public static <K, V> Map<K, V> newTempDisk(final Comparator<K> comparator,
+    final PageValueManager<K> keyManager, final PageValueManager<V> valueManager) {
+    final PageManager pageManager = new BufferPoolPageManager();
+    return new BPlusTreeMap<>(pageManager, comparator,
+      newPageValueManager(pageManager, keyManager), newPageValueManager(pageManager, valueManager));
+  }
 
+  @SuppressWarnings("unchecked")
+  public static <K extends Comparable<?>, V> Map<K, V> newTempDisk(final Map<K, V> values,
+    final PageValueManager<K> keyManager, final PageValueManager<V> valueManager) {
     final Comparator<K> comparator = (o1, o2) -> ((Comparable<Object>)o1).compareTo(o2);
-    final BPlusTreeMap<K, V> map = new BPlusTreeMap<>(pageManager, comparator, keyManager,
-      valueManager);
+    final Map<K, V> map = newTempDisk(comparator, keyManager, valueManager);
     map.putAll(values);
     return map;
   }
 
-  public static <K extends Comparable<K>, V> Map<K, V> newTempDisk(PageValueManager<K> keyManager,
-    PageValueManager<V> valueManager) {
-    final File file = FileUtil.newTempFile("temp", ".bplustree");
-    final PageManager pageManager = new FileMappedPageManager(file);
-
-    if (keyManager instanceof SerializablePageValueManager) {
-      final SerializablePageValueManager<K> serializeableManager = (SerializablePageValueManager<K>)keyManager;
-      keyManager = BPlusTreePageValueManager.newPageValueManager(pageManager, serializeableManager);
-    }
-
-    if (valueManager instanceof SerializablePageValueManager) {
-      final SerializablePageValueManager<V> serializeableManager = (SerializablePageValueManager<V>)valueManager;
-      valueManager = BPlusTreePageValueManager.newPageValueManager(pageManager,
-        serializeableManager);
-    }
-
+  public static <K extends Comparable<K>, V> Map<K, V> newTempDisk(
+    final PageValueManager<K> keyManager, final PageValueManager<V> valueManager) {
     final Comparator<K> comparator = Comparators.newComparator();
-    final BPlusTreeMap<K, V> map = new BPlusTreeMap<>(pageManager, comparator, keyManager,
-      valueManager);
-    return map;
+    return newTempDisk(comparator, keyManager, valueManager);
   }
 
   protected static void setNumBytes(final Page page) {
@@ -268,20 +260,22 @@ public class BPlusTreeMap<K, V> extends AbstractMap<K, V> {
   @SuppressWarnings("unchecked")
   <T> int getLeafValues(final List<T> values, int pageIndex, final boolean key) {
     values.clear();
-    final Page page = this.pages.getPage(pageIndex);
+    Page page = this.pages.getPage(pageIndex);
 
-    final byte pageType = page.readByte();
+    byte pageType = page.readByte();
     while (pageType == INTERIOR) {
       page.readShort(); // skip num bytes
       pageIndex = page.readInt();
       this.pages.releasePage(page);
+      page = this.pages.getPage(pageIndex);
+      pageType = page.readByte();
     }
 
     if (pageType != LEAF) {
+      this.pages.releasePage(page);
       throw new IllegalArgumentException("Unknown page type " + pageType);
     }
 
-    // TODO traverse to leaf
     try {
       final int numBytes = page.readShort();
       final int nextPageId = page.readInt();
@@ -370,15 +364,14 @@ public class BPlusTreeMap<K, V> extends AbstractMap<K, V> {
     }
   }
 
-  protected PutResult put(final int pageIndex, final Integer nextPageIndex, final K key,
-    final V value) {
+  protected PutResult put(final int pageIndex, final K key, final V value) {
     PutResult result;
     final Page page = this.pages.getPage(pageIndex);
     final byte pageType = page.readByte();
     if (pageType == INTERIOR) {
       result = putInterior(page, key, value);
     } else if (pageType == LEAF) {
-      result = putLeaf(page, nextPageIndex, key, value);
+      result = putLeaf(page, key, value);
     } else {
       throw new IllegalArgumentException("Unknown page type " + pageType);
     }
@@ -389,7 +382,7 @@ public class BPlusTreeMap<K, V> extends AbstractMap<K, V> {
   @Override
   public V put(final K key, final V value) {
     this.modCount++;
-    final PutResult result = put(this.rootPageIndex, -1, key, value);
+    final PutResult result = put(this.rootPageIndex, key, value);
     if (result.wasSplit()) {
       final Page rootPage = this.pages.getPage(this.rootPageIndex);
       final Page leftPage = this.pages.newPage();
@@ -431,8 +424,7 @@ public class BPlusTreeMap<K, V> extends AbstractMap<K, V> {
         final int compare = this.comparator.compare(currentKey, key);
         if (compare > 0) {
           final int previousPageIndex = MethodPageValueManager.getIntValue(previousPageIndexBytes);
-          final int nextPageIndex = MethodPageValueManager.getIntValue(nextPageIndexBytes);
-          result = put(previousPageIndex, nextPageIndex, key, value);
+          result = put(previousPageIndex, key, value);
           if (result.wasSplit()) {
             pageIndexesBytes.add(result.newPageIndexBytes);
             keysBytes.add(result.newKeyBytes);
@@ -447,7 +439,7 @@ public class BPlusTreeMap<K, V> extends AbstractMap<K, V> {
     }
     if (result == null) {
       final int previousPageIndex = MethodPageValueManager.getIntValue(previousPageIndexBytes);
-      result = put(previousPageIndex, 0, key, value);
+      result = put(previousPageIndex, key, value);
       if (result.wasSplit()) {
         pageIndexesBytes.add(result.newPageIndexBytes);
         keysBytes.add(result.newKeyBytes);
@@ -459,7 +451,7 @@ public class BPlusTreeMap<K, V> extends AbstractMap<K, V> {
     return result;
   }
 
-  private PutResult putLeaf(final Page page, final int nextPageIndex, final K key, final V value) {
+  private PutResult putLeaf(final Page page, final K key, final V value) {
     final PutResult result = new PutResult();
     final byte[] keyBytes = this.keyManager.getBytes(key);
     final List<byte[]> keysBytes = new ArrayList<>();
@@ -468,21 +460,22 @@ public class BPlusTreeMap<K, V> extends AbstractMap<K, V> {
 
     boolean newValueWritten = false;
     final int numBytes = page.readShort();
-    page.readInt();
+    final int nextPageIndex = page.readInt();
     while (page.getOffset() < numBytes) {
       final byte[] currentKeyBytes = this.keyManager.getBytes(page);
       final K currentKey = this.keyManager.getValue(currentKeyBytes);
       final byte[] currentValueBytes = this.valueManager.getBytes(page);
       final int compare = this.comparator.compare(currentKey, key);
 
-      if (compare >= 0) {
+      if (!newValueWritten && compare >= 0) {
         keysBytes.add(keyBytes);
         valuesBytes.add(valueBytes);
         newValueWritten = true;
-        result.hasOldValue = true;
       }
       if (compare == 0) {
+        result.hasOldValue = true;
         result.oldValue = this.valueManager.getValue(currentValueBytes);
+        this.valueManager.disposeBytes(currentValueBytes);
       } else {
         keysBytes.add(currentKeyBytes);
         valuesBytes.add(currentValueBytes);
@@ -557,6 +550,7 @@ public class BPlusTreeMap<K, V> extends AbstractMap<K, V> {
         if (compare == 0) {
           result.oldValue = this.valueManager.getValue(valueBytes);
           result.hasOldValue = true;
+          this.valueManager.disposeBytes(valueBytes);
         } else {
           keysBytes.add(keyBytes);
           valuesBytes.add(valueBytes);
@@ -2,13 +2,44 @@ package com.revolsys.collection.list;
 
 import java.util.AbstractList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+import java.util.function.DoubleConsumer;
 
-// TODO full implementation
-public class DoubleList extends AbstractList<Double> {
-  private double[] values = new double[16];
-
+/**
+ * A growable list of double values stored in a double[] so the values are not boxed. Use the
+ * primitive methods (e.g. {@link #addDouble(double)}, {@link #getDouble(int)}) to avoid boxing.
+ */
+public class DoubleList extends AbstractList<Double> implements RandomAccess {
   private int size = 0;
 
+  private double[] values;
+
+  public DoubleList() {
+    this(16);
+  }
+
+  public DoubleList(final Collection<? extends Number> values) {
+    this(values.size());
+    for (final Number value : values) {
+      addDouble(value.doubleValue());
+    }
+  }
+
+  public DoubleList(final int capacity) {
+    this.values = new double[capacity];
+  }
+
+  /**
+   * Construct a new list using the array to store the values (the array is not copied).
+   *
+   * @param values The values.
+   */
+  public DoubleList(final double... values) {
+    this.values = values;
+    this.size = values.length;
+  }
+
   @Override
   public void add(final int index, final Double value) {
     if (value == null) {
@@ -18,43 +49,141 @@ public class DoubleList extends AbstractList<Double> {
     }
   }
 
-  public boolean addDouble(final double e) {
-    return addDouble(size(), e);
+  public boolean addDouble(final double value) {
+    return addDouble(this.size, value);
   }
 
   public boolean addDouble(final int index, final double value) {
+    if (index < 0 || index > this.size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+    }
     if (this.size == this.values.length) {
-      final int newCapacity = this.values.length + (this.values.length >> 1);
-      this.values = Arrays.copyOf(this.values, newCapacity);
+      ensureCapacity(this.size + 1);
     }
-    if (index == this.size) {
+    if (index < this.size) {
       System.arraycopy(this.values, index, this.values, index + 1, this.size - index);
     }
     this.values[index] = value;
     this.size++;
+    this.modCount++;
     return true;
   }
 
+  @Override
+  public void clear() {
+    this.size = 0;
+    this.modCount++;
+  }
+
+  @Override
+  public boolean contains(final Object value) {
+    return indexOf(value) != -1;
+  }
+
+  public boolean containsDouble(final double value) {
+    return indexOfDouble(value) != -1;
+  }
+
+  public void ensureCapacity(final int capacity) {
+    if (capacity > this.values.length) {
+      final int newCapacity = Math.max(capacity, this.values.length + (this.values.length >> 1));
+      this.values = Arrays.copyOf(this.values, newCapacity);
+    }
+  }
+
+  public void forEachDouble(final DoubleConsumer action) {
+    for (int i = 0; i < this.size; i++) {
+      action.accept(this.values[i]);
+    }
+  }
+
   @Override
   public Double get(final int index) {
     return getDouble(index);
   }
 
   public double getDouble(final int index) {
-    if (index >= 0 && index <= this.size) {
+    if (index >= 0 && index < this.size) {
       return this.values[index];
     } else {
       throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
     }
   }
 
+  @Override
+  public int indexOf(final Object value) {
+    if (value instanceof Double) {
+      return indexOfDouble((Double)value);
+    } else {
+      return -1;
+    }
+  }
+
+  public int indexOfDouble(final double value) {
+    for (int i = 0; i < this.size; i++) {
+      if (Double.compare(this.values[i], value) == 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public Double remove(final int index) {
+    return removeIndex(index);
+  }
+
+  @Override
+  public boolean remove(final Object value) {
+    final int index = indexOf(value);
+    if (index == -1) {
+      return false;
+    } else {
+      removeIndex(index);
+      return true;
+    }
+  }
+
+  /**
+   * Remove the value at the index.
+   *
+   * @param index The index.
+   * @return The value that was removed.
+   */
+  public double removeIndex(final int index) {
+    final double oldValue = getDouble(index);
+    final int moveCount = this.size - index - 1;
+    if (moveCount > 0) {
+      System.arraycopy(this.values, index + 1, this.values, index, moveCount);
+    }
+    this.size--;
+    this.modCount++;
+    return oldValue;
+  }
+
+  /**
+   * Remove the first occurrence of the value.
+   *
+   * @param value The value.
+   * @return True if the value was removed.
+   */
+  public boolean removeDouble(final double value) {
+    final int index = indexOfDouble(value);
+    if (index == -1) {
+      return false;
+    } else {
+      removeIndex(index);
+      return true;
+    }
+  }
+
   @Override
   public Double set(final int index, final Double value) {
     return setDouble(index, value);
   }
 
-  private Double setDouble(final int index, final double value) {
-    if (index >= 0 && index <= this.size) {
+  public double setDouble(final int index, final double value) {
+    if (index >= 0 && index < this.size) {
       final double oldValue = this.values[index];
       this.values[index] = value;
       return oldValue;
@@ -67,4 +196,18 @@ public class DoubleList extends AbstractList<Double> {
   public int size() {
     return this.size;
   }
+
+  public void sort() {
+    Arrays.sort(this.values, 0, this.size);
+  }
+
+  public double[] toDoubleArray() {
+    return Arrays.copyOf(this.values, this.size);
+  }
+
+  public void trimToSize() {
+    if (this.size < this.values.length) {
+      this.values = Arrays.copyOf(this.values, this.size);
+    }
+  }
 }
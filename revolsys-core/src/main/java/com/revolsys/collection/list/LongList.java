@@ -0,0 +1,213 @@
+package com.revolsys.collection.list;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+import java.util.function.LongConsumer;
+
+/**
+ * A growable list of long values stored in a long[] so the values are not boxed. Use the
+ * primitive methods (e.g. {@link #addLong(long)}, {@link #getLong(int)}) to avoid boxing.
+ */
+public class LongList extends AbstractList<Long> implements RandomAccess {
+  private int size = 0;
+
+  private long[] values;
+
+  public LongList() {
+    this(16);
+  }
+
+  public LongList(final Collection<? extends Number> values) {
+    this(values.size());
+    for (final Number value : values) {
+      addLong(value.longValue());
+    }
+  }
+
+  public LongList(final int capacity) {
+    this.values = new long[capacity];
+  }
+
+  /**
+   * Construct a new list using the array to store the values (the array is not copied).
+   *
+   * @param values The values.
+   */
+  public LongList(final long... values) {
+    this.values = values;
+    this.size = values.length;
+  }
+
+  @Override
+  public void add(final int index, final Long value) {
+    if (value == null) {
+      throw new IllegalArgumentException("Null values are not supported");
+    } else {
+      addLong(index, value);
+    }
+  }
+
+  public boolean addLong(final long value) {
+    return addLong(this.size, value);
+  }
+
+  public boolean addLong(final int index, final long value) {
+    if (index < 0 || index > this.size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+    }
+    if (this.size == this.values.length) {
+      ensureCapacity(this.size + 1);
+    }
+    if (index < this.size) {
+      System.arraycopy(this.values, index, this.values, index + 1, this.size - index);
+    }
+    this.values[index] = value;
+    this.size++;
+    this.modCount++;
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    this.size = 0;
+    this.modCount++;
+  }
+
+  @Override
+  public boolean contains(final Object value) {
+    return indexOf(value) != -1;
+  }
+
+  public boolean containsLong(final long value) {
+    return indexOfLong(value) != -1;
+  }
+
+  public void ensureCapacity(final int capacity) {
+    if (capacity > this.values.length) {
+      final int newCapacity = Math.max(capacity, this.values.length + (this.values.length >> 1));
+      this.values = Arrays.copyOf(this.values, newCapacity);
+    }
+  }
+
+  public void forEachLong(final LongConsumer action) {
+    for (int i = 0; i < this.size; i++) {
+      action.accept(this.values[i]);
+    }
+  }
+
+  @Override
+  public Long get(final int index) {
+    return getLong(index);
+  }
+
+  public long getLong(final int index) {
+    if (index >= 0 && index < this.size) {
+      return this.values[index];
+    } else {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+    }
+  }
+
+  @Override
+  public int indexOf(final Object value) {
+    if (value instanceof Long) {
+      return indexOfLong((Long)value);
+    } else {
+      return -1;
+    }
+  }
+
+  public int indexOfLong(final long value) {
+    for (int i = 0; i < this.size; i++) {
+      if (this.values[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public Long remove(final int index) {
+    return removeIndex(index);
+  }
+
+  @Override
+  public boolean remove(final Object value) {
+    final int index = indexOf(value);
+    if (index == -1) {
+      return false;
+    } else {
+      removeIndex(index);
+      return true;
+    }
+  }
+
+  /**
+   * Remove the value at the index.
+   *
+   * @param index The index.
+   * @return The value that was removed.
+   */
+  public long removeIndex(final int index) {
+    final long oldValue = getLong(index);
+    final int moveCount = this.size - index - 1;
+    if (moveCount > 0) {
+      System.arraycopy(this.values, index + 1, this.values, index, moveCount);
+    }
+    this.size--;
+    this.modCount++;
+    return oldValue;
+  }
+
+  /**
+   * Remove the first occurrence of the value.
+   *
+   * @param value The value.
+   * @return True if the value was removed.
+   */
+  public boolean removeLong(final long value) {
+    final int index = indexOfLong(value);
+    if (index == -1) {
+      return false;
+    } else {
+      removeIndex(index);
+      return true;
+    }
+  }
+
+  @Override
+  public Long set(final int index, final Long value) {
+    return setLong(index, value);
+  }
+
+  public long setLong(final int index, final long value) {
+    if (index >= 0 && index < this.size) {
+      final long oldValue = this.values[index];
+      this.values[index] = value;
+      return oldValue;
+    } else {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+    }
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  public void sort() {
+    Arrays.sort(this.values, 0, this.size);
+  }
+
+  public long[] toLongArray() {
+    return Arrays.copyOf(this.values, this.size);
+  }
+
+  public void trimToSize() {
+    if (this.size < this.values.length) {
+      this.values = Arrays.copyOf(this.values, this.size);
+    }
+  }
+}
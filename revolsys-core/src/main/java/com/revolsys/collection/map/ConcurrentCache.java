@@ -0,0 +1,532 @@
+package com.revolsys.collection.map;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToLongBiFunction;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jeometry.common.exception.Exceptions;
+
+import com.revolsys.parallel.ThreadInterruptedException;
+
+/**
+ * A thread safe cache limited to a maximum total weight. By default each entry has a weight of 1
+ * so the maximum weight is the maximum number of entries, use a weigher (e.g. the size in bytes)
+ * to limit the memory used.
+ * <p>
+ * The reads don't lock, they set the referenced flag of the entry and record the key in a
+ * frequency sketch. When the cache is over the maximum weight entries are evicted using the clock
+ * (second chance) algorithm. A new entry is only admitted if its key has been used at least as
+ * often as the entry that would be evicted for it (TinyLFU), so a scan of keys that are only
+ * used once doesn't flush the frequently used entries.
+ * </p>
+ * <p>
+ * The {@link #get(Object, Function)} method loads missing values without holding a lock, if
+ * several threads request the same missing key the value is only loaded once. The removal
+ * listener is called after an entry was evicted, replaced or removed (e.g. to close a file)
+ * outside the cache lock. The statistics can be registered with JMX using
+ * {@link #registerMBean(String)}.
+ * </p>
+ *
+ * @param <K> The type of key.
+ * @param <V> The type of value.
+ */
+public class ConcurrentCache<K, V> implements ConcurrentCacheMXBean {
+  private static class Node<K, V> {
+    private boolean added;
+
+    private final K key;
+
+    private volatile boolean referenced;
+
+    private boolean removed;
+
+    private final V value;
+
+    private final long weight;
+
+    private Node(final K key, final V value, final long weight) {
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  public enum RemovalCause {
+    /** Removed to keep the cache under the maximum weight. */
+    EVICTED,
+    /** Removed using {@link ConcurrentCache#remove(Object)} or {@link ConcurrentCache#clear()}. */
+    EXPLICIT,
+    /** Replaced by a different value for the same key. */
+    REPLACED
+  }
+
+  @FunctionalInterface
+  public interface RemovalListener<K, V> {
+    void removed(K key, V value, RemovalCause cause);
+  }
+
+  private static int hash(final Object key) {
+    final int hash = key.hashCode();
+    return hash ^ hash >>> 16;
+  }
+
+  /** The entries in clock order, guarded by synchronizing on the clock. */
+  private final ArrayDeque<Node<K, V>> clock = new ArrayDeque<>();
+
+  /** The number of removed nodes still in the clock. */
+  private int deadCount;
+
+  private final LongAdder evictionCount = new LongAdder();
+
+  private final LongAdder hitCount = new LongAdder();
+
+  private final LongAdder loadCount = new LongAdder();
+
+  private final LongAdder loadFailureCount = new LongAdder();
+
+  private final ConcurrentHashMap<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>();
+
+  private final LongAdder loadTime = new LongAdder();
+
+  private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<>();
+
+  private volatile long maxWeight;
+
+  private final LongAdder missCount = new LongAdder();
+
+  private ObjectName objectName;
+
+  private RemovalListener<? super K, ? super V> removalListener;
+
+  private final FrequencySketch sketch;
+
+  private final ToLongBiFunction<? super K, ? super V> weigher;
+
+  private long weight;
+
+  /**
+   * Construct a new cache limited to the number of entries.
+   *
+   * @param maxSize The maximum number of entries.
+   */
+  public ConcurrentCache(final int maxSize) {
+    this(maxSize, null);
+  }
+
+  /**
+   * Construct a new cache limited to the total weight of the entries.
+   *
+   * @param maxWeight The maximum total weight.
+   * @param weigher The function to calculate the weight of an entry, null for 1 per entry.
+   */
+  public ConcurrentCache(final long maxWeight,
+    final ToLongBiFunction<? super K, ? super V> weigher) {
+    this.maxWeight = Math.max(0, maxWeight);
+    this.weigher = weigher;
+    if (weigher == null) {
+      this.sketch = new FrequencySketch(maxWeight);
+    } else {
+      this.sketch = new FrequencySketch(1024);
+    }
+  }
+
+  /**
+   * Add the new node to the clock, remove the old node and evict entries if the cache is over
+   * the maximum weight. Then call the removal listener.
+   */
+  private void afterWrite(final Node<K, V> node, final Node<K, V> oldNode) {
+    final List<Node<K, V>> evicted = new ArrayList<>();
+    synchronized (this.clock) {
+      if (oldNode != null && removeWeight(oldNode)) {
+        this.deadCount++;
+      }
+      if (node != null && !node.removed) {
+        node.added = true;
+        this.clock.addLast(node);
+        this.weight += node.weight;
+      }
+      evict(node, evicted);
+      if (this.deadCount > 16 && this.deadCount > this.clock.size() / 2) {
+        this.clock.removeIf(clockNode -> clockNode.removed);
+        this.deadCount = 0;
+      }
+      if (this.weigher != null) {
+        this.sketch.ensureCapacity(this.map.size());
+      }
+    }
+    if (oldNode != null && (node == null || oldNode.value != node.value)) {
+      notifyRemoved(oldNode, node == null ? RemovalCause.EXPLICIT : RemovalCause.REPLACED);
+    }
+    for (final Node<K, V> evictedNode : evicted) {
+      notifyRemoved(evictedNode, RemovalCause.EVICTED);
+    }
+  }
+
+  /**
+   * Remove all the entries. The removal listener is called for each entry.
+   */
+  @Override
+  public void clear() {
+    for (final K key : this.map.keySet()) {
+      remove(key);
+    }
+  }
+
+  public boolean containsKey(final K key) {
+    return this.map.containsKey(key);
+  }
+
+  /**
+   * Evict entries until the weight is less than the maximum weight.
+   *
+   * @param candidate The entry that was added or null.
+   * @param evicted The list to add the evicted entries to.
+   */
+  private void evict(Node<K, V> candidate, final List<Node<K, V>> evicted) {
+    while (this.weight > this.maxWeight) {
+      Node<K, V> victim = this.clock.pollFirst();
+      if (victim == null) {
+        return;
+      } else if (victim.removed) {
+        this.deadCount--;
+      } else if (victim.referenced) {
+        victim.referenced = false;
+        this.clock.addLast(victim);
+      } else {
+        if (candidate != null && candidate != victim && !candidate.removed) {
+          final int candidateFrequency = this.sketch.frequency(hash(candidate.key));
+          final int victimFrequency = this.sketch.frequency(hash(victim.key));
+          if (candidateFrequency < victimFrequency) {
+            this.clock.addFirst(victim);
+            victim = candidate;
+            this.deadCount++;
+          }
+          candidate = null;
+        }
+        removeWeight(victim);
+        if (this.map.remove(victim.key, victim)) {
+          evicted.add(victim);
+          this.evictionCount.increment();
+        }
+      }
+    }
+  }
+
+  /**
+   * Call the action for each entry in the cache. The entries aren't marked as used.
+   *
+   * @param action The action.
+   */
+  public void forEach(final BiConsumer<? super K, ? super V> action) {
+    for (final Node<K, V> node : this.map.values()) {
+      action.accept(node.key, node.value);
+    }
+  }
+
+  /**
+   * Get the cached value.
+   *
+   * @param key The key.
+   * @return The value or null if it isn't in the cache.
+   */
+  public V get(final K key) {
+    final Node<K, V> node = getNode(key);
+    if (node == null) {
+      return null;
+    } else {
+      return node.value;
+    }
+  }
+
+  /**
+   * Get the cached value, loading and caching it if it isn't in the cache. The loader is called
+   * without holding a lock. If another thread is already loading the key this thread waits for
+   * that value. Null values are returned but not cached.
+   *
+   * @param key The key.
+   * @param loader The function to load the value.
+   * @return The value.
+   */
+  public V get(final K key, final Function<? super K, ? extends V> loader) {
+    final Node<K, V> node = getNode(key);
+    if (node == null) {
+      return load(key, loader);
+    } else {
+      return node.value;
+    }
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return this.evictionCount.sum();
+  }
+
+  @Override
+  public long getHitCount() {
+    return this.hitCount.sum();
+  }
+
+  @Override
+  public double getHitRate() {
+    final long hitCount = getHitCount();
+    final long requestCount = hitCount + getMissCount();
+    if (requestCount == 0) {
+      return 1;
+    } else {
+      return hitCount / (double)requestCount;
+    }
+  }
+
+  @Override
+  public long getLoadCount() {
+    return this.loadCount.sum();
+  }
+
+  @Override
+  public long getLoadFailureCount() {
+    return this.loadFailureCount.sum();
+  }
+
+  @Override
+  public long getMaxWeight() {
+    return this.maxWeight;
+  }
+
+  @Override
+  public double getMeanLoadTime() {
+    final long loadCount = getLoadCount() + getLoadFailureCount();
+    if (loadCount == 0) {
+      return 0;
+    } else {
+      return this.loadTime.sum() / 1000000.0 / loadCount;
+    }
+  }
+
+  @Override
+  public long getMissCount() {
+    return this.missCount.sum();
+  }
+
+  private Node<K, V> getNode(final K key) {
+    this.sketch.increment(hash(key));
+    final Node<K, V> node = this.map.get(key);
+    if (node == null) {
+      this.missCount.increment();
+    } else {
+      if (!node.referenced) {
+        node.referenced = true;
+      }
+      this.hitCount.increment();
+    }
+    return node;
+  }
+
+  public RemovalListener<? super K, ? super V> getRemovalListener() {
+    return this.removalListener;
+  }
+
+  @Override
+  public int getSize() {
+    return this.map.size();
+  }
+
+  @Override
+  public long getWeight() {
+    synchronized (this.clock) {
+      return this.weight;
+    }
+  }
+
+  public boolean isEmpty() {
+    return this.map.isEmpty();
+  }
+
+  private V load(final K key, final Function<? super K, ? extends V> loader) {
+    final CompletableFuture<V> future = new CompletableFuture<>();
+    final CompletableFuture<V> existingFuture = this.loads.putIfAbsent(key, future);
+    if (existingFuture != null) {
+      try {
+        return existingFuture.get();
+      } catch (final InterruptedException e) {
+        throw new ThreadInterruptedException(e);
+      } catch (final ExecutionException e) {
+        throw Exceptions.wrap(e.getCause());
+      }
+    }
+    try {
+      final Node<K, V> node = this.map.get(key);
+      if (node != null) {
+        future.complete(node.value);
+        return node.value;
+      }
+      final long startTime = System.nanoTime();
+      final V value;
+      try {
+        value = loader.apply(key);
+      } catch (final RuntimeException | Error e) {
+        this.loadTime.add(System.nanoTime() - startTime);
+        this.loadFailureCount.increment();
+        future.completeExceptionally(e);
+        throw e;
+      }
+      this.loadTime.add(System.nanoTime() - startTime);
+      this.loadCount.increment();
+      if (value != null) {
+        put(key, value);
+      }
+      future.complete(value);
+      return value;
+    } finally {
+      this.loads.remove(key, future);
+    }
+  }
+
+  private void notifyRemoved(final Node<K, V> node, final RemovalCause cause) {
+    final RemovalListener<? super K, ? super V> removalListener = this.removalListener;
+    if (removalListener != null) {
+      removalListener.removed(node.key, node.value, cause);
+    }
+  }
+
+  /**
+   * Add the value to the cache, replacing any existing value.
+   *
+   * @param key The key.
+   * @param value The value.
+   * @return The previous value or null if there wasn't one.
+   */
+  public V put(final K key, final V value) {
+    long weight = 1;
+    if (this.weigher != null) {
+      weight = this.weigher.applyAsLong(key, value);
+      if (weight < 0) {
+        throw new IllegalArgumentException("Weight must be >= 0 not " + weight + " for " + key);
+      }
+    }
+    final Node<K, V> node = new Node<>(key, value, weight);
+    final Node<K, V> oldNode = this.map.put(key, node);
+    afterWrite(node, oldNode);
+    if (oldNode == null) {
+      return null;
+    } else {
+      return oldNode.value;
+    }
+  }
+
+  /**
+   * Register the statistics of the cache with the platform MBean server using the object name
+   * <code>com.revolsys:type=Cache,name="&lt;name&gt;"</code>.
+   *
+   * @param name The name of the cache.
+   */
+  public synchronized void registerMBean(final String name) {
+    unregisterMBean();
+    try {
+      final ObjectName objectName = new ObjectName(
+        "com.revolsys:type=Cache,name=" + ObjectName.quote(name));
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+      this.objectName = objectName;
+    } catch (final JMException e) {
+      throw Exceptions.wrap("Unable to register cache MBean: " + name, e);
+    }
+  }
+
+  /**
+   * Remove the value from the cache.
+   *
+   * @param key The key.
+   * @return The value or null if it wasn't in the cache.
+   */
+  public V remove(final K key) {
+    final Node<K, V> node = this.map.remove(key);
+    if (node == null) {
+      return null;
+    } else {
+      afterWrite(null, node);
+      return node.value;
+    }
+  }
+
+  /**
+   * Mark the node as removed and remove its weight, must be called when synchronized on the
+   * clock.
+   *
+   * @return True if the node is still in the clock.
+   */
+  private boolean removeWeight(final Node<K, V> node) {
+    if (node.removed) {
+      return false;
+    } else {
+      node.removed = true;
+      if (node.added) {
+        this.weight -= node.weight;
+        return true;
+      } else {
+        return false;
+      }
+    }
+  }
+
+  @Override
+  public void resetStatistics() {
+    this.evictionCount.reset();
+    this.hitCount.reset();
+    this.loadCount.reset();
+    this.loadFailureCount.reset();
+    this.loadTime.reset();
+    this.missCount.reset();
+  }
+
+  /**
+   * Set the maximum weight, evicting entries if the cache is over the new maximum.
+   *
+   * @param maxWeight The maximum weight.
+   */
+  @Override
+  public void setMaxWeight(final long maxWeight) {
+    this.maxWeight = Math.max(0, maxWeight);
+    if (this.weigher == null) {
+      synchronized (this.clock) {
+        this.sketch.ensureCapacity(maxWeight);
+      }
+    }
+    afterWrite(null, null);
+  }
+
+  public void setRemovalListener(final RemovalListener<? super K, ? super V> removalListener) {
+    this.removalListener = removalListener;
+  }
+
+  @Override
+  public String toString() {
+    return "size=" + getSize() + ", weight=" + getWeight() + ", maxWeight=" + this.maxWeight
+      + ", hitRate=" + Math.round(getHitRate() * 100) + "%, evictions=" + getEvictionCount();
+  }
+
+  public synchronized void unregisterMBean() {
+    final ObjectName objectName = this.objectName;
+    if (objectName != null) {
+      this.objectName = null;
+      try {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(objectName)) {
+          server.unregisterMBean(objectName);
+        }
+      } catch (final JMException e) {
+        throw Exceptions.wrap("Unable to unregister cache MBean: " + objectName, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.revolsys.collection.map;
+
+/**
+ * The statistics and settings of a {@link ConcurrentCache} exposed through JMX. Registered caches
+ * can be read using {@link com.revolsys.jmx.JmxService} with the object name
+ * <code>com.revolsys:type=Cache,name="&lt;name&gt;"</code>.
+ */
+public interface ConcurrentCacheMXBean {
+  void clear();
+
+  long getEvictionCount();
+
+  long getHitCount();
+
+  /**
+   * Get the ratio of hits to requests.
+   *
+   * @return The hit rate from 0 to 1.
+   */
+  double getHitRate();
+
+  long getLoadCount();
+
+  long getLoadFailureCount();
+
+  long getMaxWeight();
+
+  /**
+   * Get the mean time to load a value in milliseconds.
+   *
+   * @return The mean load time.
+   */
+  double getMeanLoadTime();
+
+  long getMissCount();
+
+  int getSize();
+
+  long getWeight();
+
+  void resetStatistics();
+
+  void setMaxWeight(long maxWeight);
+}
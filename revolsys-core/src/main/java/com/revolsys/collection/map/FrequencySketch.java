@@ -0,0 +1,100 @@
+package com.revolsys.collection.map;
+
+/**
+ * A count-min sketch of 4 bit counters used to estimate how often a key has been used. Each long
+ * in the table holds 16 counters and each key uses 4 counters from 4 different longs. When the
+ * number of increments reaches the sample size all the counters are halved so the estimates
+ * favour recent use.
+ * <p>
+ * The counters are not synchronized, a lost update only changes the estimate.
+ * </p>
+ */
+class FrequencySketch {
+  private static final long RESET_MASK = 0x7777777777777777L;
+
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+
+  private int additions;
+
+  private int sampleSize;
+
+  private volatile long[] table = new long[0];
+
+  FrequencySketch(final long capacity) {
+    ensureCapacity(capacity);
+  }
+
+  /**
+   * Resize the table (clearing the counters) if it is too small for the number of keys.
+   *
+   * @param capacity The number of keys.
+   */
+  void ensureCapacity(final long capacity) {
+    final int size = (int)Math.min(Math.max(capacity, 16), 1 << 26);
+    if (size > this.table.length) {
+      int tableSize = 16;
+      while (tableSize < size) {
+        tableSize <<= 1;
+      }
+      this.sampleSize = 10 * tableSize;
+      this.additions = 0;
+      this.table = new long[tableSize];
+    }
+  }
+
+  /**
+   * Get the estimated number of times the key was used.
+   *
+   * @param hash The hash of the key.
+   * @return The frequency from 0 to 15.
+   */
+  int frequency(final int hash) {
+    final long[] table = this.table;
+    final int start = (hash & 3) << 2;
+    int frequency = 15;
+    for (int i = 0; i < 4; i++) {
+      final int index = indexOf(table, hash, i);
+      final int count = (int)(table[index] >>> (start + i << 2) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Increment the counters for the key.
+   *
+   * @param hash The hash of the key.
+   */
+  void increment(final int hash) {
+    final long[] table = this.table;
+    final int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      final int index = indexOf(table, hash, i);
+      final int offset = start + i << 2;
+      final long mask = 0xfL << offset;
+      if ((table[index] & mask) != mask) {
+        table[index] += 1L << offset;
+        added = true;
+      }
+    }
+    if (added && ++this.additions >= this.sampleSize) {
+      reset(table);
+    }
+  }
+
+  private int indexOf(final long[] table, final int hash, final int i) {
+    long h = (hash + SEEDS[i]) * SEEDS[i];
+    h += h >>> 32;
+    return (int)h & table.length - 1;
+  }
+
+  private void reset(final long[] table) {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = table[i] >>> 1 & RESET_MASK;
+    }
+    this.additions = this.additions >>> 1;
+  }
+}
@@ -22,170 +22,186 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.util.AbstractCollection;
 import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
 
-import com.revolsys.collection.ArrayUtil;
+import com.revolsys.collection.list.IntList;
 
 /**
  * This is a int hashmap that has the exact same features and interface as a
  * normal Map except that the key is directly an integer. So no hash is
  * calculated or key object is stored.
+ * <p>
+ * The keys and values are stored in parallel arrays using open addressing with linear probing,
+ * so there is no entry object per mapping. Use the primitive methods (e.g. {@link #get(int)},
+ * {@link #putInt(int, Object)}, {@link #forEachEntry(ObjIntConsumer)}) to avoid boxing the keys.
+ * The {@link IntEntry} objects are only created when iterating over the {@link #entrySet()}.
+ * </p>
  *
  * @author jcompagner
  */
 public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
   private class EntryIterator extends HashIterator<IntEntry<T>> {
-    /**
-     * @see java.util.Iterator#next()
-     */
     @Override
     public IntEntry<T> next() {
-      return nextEntry();
+      final int index = nextIndex();
+      return new IntEntry<>(IntHashMap.this, IntHashMap.this.keyTable[index],
+        toValue(IntHashMap.this.valueTable[index]));
     }
   }
 
   private class EntrySet extends AbstractSet<IntEntry<T>> {
-    /**
-     * @see java.util.AbstractCollection#clear()
-     */
     @Override
     public void clear() {
       IntHashMap.this.clear();
     }
 
-    /**
-     * @see java.util.AbstractCollection#contains(java.lang.Object)
-     */
     @Override
     public boolean contains(final Object o) {
-      if (!(o instanceof IntEntry)) {
-        return false;
+      if (o instanceof Map.Entry) {
+        final Map.Entry<?, ?> e = (Map.Entry<?, ?>)o;
+        final Object key = e.getKey();
+        if (key instanceof Integer) {
+          final int index = indexOf((Integer)key);
+          if (index != -1) {
+            final Object value = toValue(IntHashMap.this.valueTable[index]);
+            final Object otherValue = e.getValue();
+            return value == otherValue || value != null && value.equals(otherValue);
+          }
+        }
       }
-      @SuppressWarnings("unchecked")
-      final IntEntry<T> e = (IntEntry<T>)o;
-      final IntEntry<T> candidate = getEntry(e.getIntKey());
-      return candidate != null && candidate.equals(e);
+      return false;
     }
 
-    /**
-     * @see java.util.AbstractCollection#iterator()
-     */
     @Override
     public Iterator<IntEntry<T>> iterator() {
       return newEntryIterator();
     }
 
-    /**
-     * @see java.util.AbstractCollection#remove(java.lang.Object)
-     */
     @Override
     public boolean remove(final Object o) {
-      return removeMapping(o) != null;
+      if (contains(o)) {
+        final Object key = ((Map.Entry<?, ?>)o).getKey();
+        IntHashMap.this.remove(key);
+        return true;
+      } else {
+        return false;
+      }
     }
 
-    /**
-     * @see java.util.AbstractCollection#size()
-     */
     @Override
     public int size() {
       return IntHashMap.this.size;
     }
   }
 
+  /**
+   * Iterates over the table from the last slot to the first. Removing an entry shifts the
+   * following entries back, if an entry that wasn't visited yet wraps around the end of the
+   * table into the visited slots it is returned after the table has been visited.
+   */
   private abstract class HashIterator<V> implements Iterator<V> {
-    IntEntry<T> current; // current entry
+    private int expectedModCount;
+
+    /** The next slot to test is index - 1. */
+    private int index;
+
+    private int lastIndex = -1;
 
-    int expectedModCount; // For fast-fail
+    private int lastKey;
 
-    int index; // current slot
+    private int remaining;
 
-    IntEntry<T> next; // next entry to return
+    private IntList wrapped;
+
+    private int wrappedIndex;
 
     HashIterator() {
       this.expectedModCount = IntHashMap.this.modCount;
-      final IntEntry<T>[] t = IntHashMap.this.table;
-      int i = t.length;
-      IntEntry<T> n = null;
-      if (IntHashMap.this.size != 0) { // advance to first entry
-        while (i > 0 && (n = t[--i]) == null) {
-          /* NoOp */;
-        }
+      this.index = IntHashMap.this.valueTable.length;
+      this.remaining = IntHashMap.this.size;
+    }
+
+    private void addWrapped(final int key) {
+      if (this.wrapped == null) {
+        this.wrapped = new IntList(2);
       }
-      this.next = n;
-      this.index = i;
+      this.wrapped.addInt(key);
     }
 
-    /**
-     * @see java.util.Iterator#hasNext()
-     */
     @Override
     public boolean hasNext() {
-      return this.next != null;
+      return this.remaining > 0;
     }
 
-    IntEntry<T> nextEntry() {
+    int nextIndex() {
       if (IntHashMap.this.modCount != this.expectedModCount) {
         throw new ConcurrentModificationException();
       }
-      final IntEntry<T> e = this.next;
-      if (e == null) {
+      if (this.remaining == 0) {
         throw new NoSuchElementException();
       }
-
-      IntEntry<T> n = e.next;
-      final IntEntry<T>[] t = IntHashMap.this.table;
-      int i = this.index;
-      while (n == null && i > 0) {
-        n = t[--i];
+      this.remaining--;
+      final Object[] valueTable = IntHashMap.this.valueTable;
+      while (this.index > 0) {
+        final int index = --this.index;
+        if (valueTable[index] != null) {
+          this.lastKey = IntHashMap.this.keyTable[index];
+          this.lastIndex = index;
+          return index;
+        }
       }
-      this.index = i;
-      this.next = n;
-      return this.current = e;
+      final int key = this.wrapped.getInt(this.wrappedIndex++);
+      this.lastKey = key;
+      this.lastIndex = Integer.MAX_VALUE;
+      return indexOf(key);
     }
 
-    /**
-     * @see java.util.Iterator#remove()
-     */
     @Override
     public void remove() {
-      if (this.current == null) {
+      if (this.lastIndex == -1) {
         throw new IllegalStateException();
       }
       if (IntHashMap.this.modCount != this.expectedModCount) {
         throw new ConcurrentModificationException();
       }
-      final int k = this.current.key;
-      this.current = null;
-      IntHashMap.this.removeEntryForKey(k);
+      if (this.lastIndex == Integer.MAX_VALUE) {
+        IntHashMap.this.remove(this.lastKey);
+      } else {
+        removeIndex(this.lastIndex, this);
+      }
+      this.lastIndex = -1;
       this.expectedModCount = IntHashMap.this.modCount;
     }
-
   }
 
   /**
+   * A key/value pair returned by the {@link IntHashMap#entrySet()} iterator. Setting the value
+   * updates the map.
+   *
    * @author jcompagner
    */
   public static class IntEntry<T> implements Entry<Integer, T> {
-    final int key;
+    private final int key;
 
-    IntEntry<T> next;
+    private final IntHashMap<T> map;
 
-    T value;
+    private T value;
 
-    IntEntry(final int k, final T v, final IntEntry<T> n) {
-      this.value = v;
-      this.next = n;
-      this.key = k;
+    IntEntry(final IntHashMap<T> map, final int key, final T value) {
+      this.map = map;
+      this.key = key;
+      this.value = value;
     }
 
-    /**
-     * @see java.lang.Object#equals(java.lang.Object)
-     */
     @Override
     public boolean equals(final Object o) {
       if (!(o instanceof IntEntry)) {
@@ -205,9 +221,6 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
       return false;
     }
 
-    /**
-     * @return The int key of this entry
-     */
     public int getIntKey() {
       return this.key;
     }
@@ -217,36 +230,24 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
       return this.key;
     }
 
-    /**
-     * @return Gets the value object of this entry
-     */
     @Override
     public T getValue() {
       return this.value;
     }
 
-    /**
-     * @see java.lang.Object#hashCode()
-     */
     @Override
     public int hashCode() {
       return this.key ^ (this.value == null ? 0 : this.value.hashCode());
     }
 
-    /**
-     * @param newValue
-     * @return The previous value
-     */
     @Override
     public T setValue(final T newValue) {
       final T oldValue = this.value;
       this.value = newValue;
+      this.map.putInt(this.key, newValue);
       return oldValue;
     }
 
-    /**
-     * @see java.lang.Object#toString()
-     */
     @Override
     public String toString() {
       return getIntKey() + "=" + getValue(); //$NON-NLS-1$
@@ -254,27 +255,18 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
   }
 
   private class KeyIterator extends HashIterator<Integer> {
-    /**
-     * @see java.util.Iterator#next()
-     */
     @Override
     public Integer next() {
-      return nextEntry().getIntKey();
+      return IntHashMap.this.keyTable[nextIndex()];
     }
   }
 
   private class KeySet extends AbstractSet<Integer> {
-    /**
-     * @see java.util.AbstractCollection#clear()
-     */
     @Override
     public void clear() {
       IntHashMap.this.clear();
     }
 
-    /**
-     * @see java.util.AbstractCollection#contains(java.lang.Object)
-     */
     @Override
     public boolean contains(final Object o) {
       if (o instanceof Number) {
@@ -283,28 +275,23 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
       return false;
     }
 
-    /**
-     * @see java.util.AbstractCollection#iterator()
-     */
     @Override
     public Iterator<Integer> iterator() {
       return newKeyIterator();
     }
 
-    /**
-     * @see java.util.AbstractCollection#remove(java.lang.Object)
-     */
     @Override
     public boolean remove(final Object o) {
       if (o instanceof Number) {
-        return IntHashMap.this.removeEntryForKey(((Number)o).intValue()) != null;
+        final int index = indexOf(((Number)o).intValue());
+        if (index != -1) {
+          removeIndex(index, null);
+          return true;
+        }
       }
       return false;
     }
 
-    /**
-     * @see java.util.AbstractCollection#size()
-     */
     @Override
     public int size() {
       return IntHashMap.this.size;
@@ -312,43 +299,28 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
   }
 
   private class ValueIterator extends HashIterator<T> {
-    /**
-     * @see java.util.Iterator#next()
-     */
     @Override
     public T next() {
-      return nextEntry().value;
+      return toValue(IntHashMap.this.valueTable[nextIndex()]);
     }
   }
 
   private class Values extends AbstractCollection<T> {
-    /**
-     * @see java.util.AbstractCollection#clear()
-     */
     @Override
     public void clear() {
       IntHashMap.this.clear();
     }
 
-    /**
-     * @see java.util.AbstractCollection#contains(java.lang.Object)
-     */
     @Override
     public boolean contains(final Object o) {
       return containsValue(o);
     }
 
-    /**
-     * @see java.util.AbstractCollection#iterator()
-     */
     @Override
     public Iterator<T> iterator() {
       return newValueIterator();
     }
 
-    /**
-     * @see java.util.AbstractCollection#size()
-     */
     @Override
     public int size() {
       return IntHashMap.this.size;
@@ -371,23 +343,42 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
    */
   static final int MAXIMUM_CAPACITY = 1 << 30;
 
+  /**
+   * The value stored in the value table for a null value so that null can be used to mark empty
+   * slots.
+   */
+  private static final Object NULL_VALUE = new Object();
+
   private static final long serialVersionUID = 362498820763181265L;
 
   /**
-   * Returns index for hash code h.
+   * Returns index for hash code h. The bits are mixed as keys are often sequential ids.
    *
    * @param h
    * @param length
    * @return The index for the hash integer for the given length
    */
   static int indexFor(final int h, final int length) {
-    return h & length - 1;
+    final int hash = h * 0x9E3779B9;
+    return (hash ^ hash >>> 16) & length - 1;
   }
 
-  // internal utilities
+  private static int tableSizeFor(final int capacity) {
+    int tableSize = 2;
+    while (tableSize < capacity && tableSize < MAXIMUM_CAPACITY) {
+      tableSize <<= 1;
+    }
+    return tableSize;
+  }
 
   private transient Set<IntEntry<T>> entrySet = null;
 
+  /**
+   * The keys, only valid where the valueTable slot is not null. Length MUST Always be a power
+   * of two.
+   */
+  transient int[] keyTable;
+
   transient volatile Set<Integer> keySet = null;
 
   /**
@@ -411,11 +402,6 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
    */
   transient int size;
 
-  /**
-   * The table, resized as necessary. Length MUST Always be a power of two.
-   */
-  transient IntEntry<T>[] table;
-
   /**
    * The next size value at which to resize (capacity * load factor).
    *
@@ -423,18 +409,19 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
    */
   int threshold;
 
+  /**
+   * The values, null for an empty slot and {@link #NULL_VALUE} for a null value.
+   */
+  transient Object[] valueTable;
+
   transient volatile Collection<T> values = null;
 
   /**
    * Constructs an empty <tt>HashMap</tt> with the default initial capacity (16)
    * and the default load factor (0.75).
    */
-  @SuppressWarnings("unchecked")
   public IntHashMap() {
-    this.loadFactor = DEFAULT_LOAD_FACTOR;
-    this.threshold = (int)(DEFAULT_INITIAL_CAPACITY * DEFAULT_LOAD_FACTOR);
-    this.table = ArrayUtil.newArray(IntEntry.class, DEFAULT_INITIAL_CAPACITY);
-    init();
+    this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
   }
 
   /**
@@ -450,59 +437,30 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
 
   /**
    * Constructs an empty <tt>HashMap</tt> with the specified initial capacity
-   * and load factor.
+   * and load factor. The table is sized so the initial capacity mappings can be added without
+   * resizing.
    *
    * @param initialCapacity The initial capacity.
    * @param loadFactor The load factor.
    * @throws IllegalArgumentException if the initial capacity is negative or the
-   *           load factor is nonpositive.
+   *           load factor is nonpositive or greater than 1.
    */
-  @SuppressWarnings("unchecked")
-  public IntHashMap(int initialCapacity, final float loadFactor) {
+  public IntHashMap(final int initialCapacity, final float loadFactor) {
     if (initialCapacity < 0) {
       throw new IllegalArgumentException("Illegal initial capacity: " + //$NON-NLS-1$
         initialCapacity);
     }
-    if (initialCapacity > MAXIMUM_CAPACITY) {
-      initialCapacity = MAXIMUM_CAPACITY;
-    }
-    if (loadFactor <= 0 || Float.isNaN(loadFactor)) {
+    if (loadFactor <= 0 || loadFactor > 1 || Float.isNaN(loadFactor)) {
       throw new IllegalArgumentException("Illegal load factor: " + //$NON-NLS-1$
         loadFactor);
     }
-
-    // Find a power of 2 >= initialCapacity
-    int capacity = 1;
-    while (capacity < initialCapacity) {
-      capacity <<= 1;
-    }
-
     this.loadFactor = loadFactor;
-    this.threshold = (int)(capacity * loadFactor);
-    this.table = ArrayUtil.newArray(IntEntry.class, this.size);
+    newTable(tableSizeFor((int)Math.ceil(initialCapacity / (double)loadFactor)));
     init();
   }
 
-  /**
-   * Add a new entry with the specified key, value and hash code to the
-   * specified bucket. It is the responsibility of this method to resize the
-   * table if appropriate. Subclass overrides this to alter the behavior of put
-   * method.
-   *
-   * @param key
-   * @param value
-   * @param bucketIndex
-   */
-  void addEntry(final int key, final T value, final int bucketIndex) {
-    this.table[bucketIndex] = new IntEntry<>(key, value, this.table[bucketIndex]);
-    if (this.size++ >= this.threshold) {
-      resize(2 * this.table.length);
-    }
-  }
-
-  // These methods are used when serializing HashSets
   int capacity() {
-    return this.table.length;
+    return this.valueTable.length;
   }
 
   /**
@@ -511,10 +469,7 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
   @Override
   public void clear() {
     this.modCount++;
-    final IntEntry<T> tab[] = this.table;
-    for (int i = 0; i < tab.length; i++) {
-      tab[i] = null;
-    }
+    Arrays.fill(this.valueTable, null);
     this.size = 0;
   }
 
@@ -527,18 +482,14 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
   @Override
   @SuppressWarnings("unchecked")
   public Object clone() throws CloneNotSupportedException {
-    IntHashMap<T> result = null;
-    try {
-      result = (IntHashMap<T>)super.clone();
-      result.table = ArrayUtil.newArray(IntEntry.class, this.table.length);
-      result.entrySet = null;
-      result.modCount = 0;
-      result.size = 0;
-      result.init();
-      result.putAllForCreate(this);
-    } catch (final CloneNotSupportedException e) {
-      // assert false;
-    }
+    final IntHashMap<T> result = (IntHashMap<T>)super.clone();
+    result.keyTable = this.keyTable.clone();
+    result.valueTable = this.valueTable.clone();
+    result.entrySet = null;
+    result.keySet = null;
+    result.values = null;
+    result.modCount = 0;
+    result.init();
     return result;
   }
 
@@ -549,44 +500,19 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
    * @return <tt>true</tt> if this map contains a mapping for the specified key.
    */
   public boolean containsKey(final int key) {
-    final int i = indexFor(key, this.table.length);
-    IntEntry<T> e = this.table[i];
-    while (e != null) {
-      if (key == e.key) {
-        return true;
-      }
-      e = e.next;
-    }
-    return false;
+    return indexOf(key) != -1;
   }
 
   @Override
   public boolean containsKey(final Object obj) {
     if (obj instanceof Integer) {
       final Integer integer = (Integer)obj;
-      return get(integer.intValue()) != null;
+      return containsKey(integer.intValue());
     } else {
       return false;
     }
   }
 
-  /**
-   * Special-case code for containsValue with null argument
-   *
-   * @return boolean true if there is a null value in this map
-   */
-  private boolean containsNullValue() {
-    final IntEntry<T> tab[] = this.table;
-    for (final IntEntry<T> element : tab) {
-      for (IntEntry<T> e = element; e != null; e = e.next) {
-        if (e.value == null) {
-          return true;
-        }
-      }
-    }
-    return false;
-  }
-
   /**
    * Returns <tt>true</tt> if this map maps one or more keys to the specified
    * value.
@@ -597,19 +523,27 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
    */
   @Override
   public boolean containsValue(final Object value) {
-    if (value == null) {
-      return containsNullValue();
+    final Object tableValue = value == null ? NULL_VALUE : value;
+    for (final Object element : this.valueTable) {
+      if (element != null && tableValue.equals(element)) {
+        return true;
+      }
     }
+    return false;
+  }
 
-    final IntEntry<T> tab[] = this.table;
-    for (final IntEntry<T> element : tab) {
-      for (IntEntry<T> e = element; e != null; e = e.next) {
-        if (value.equals(e.value)) {
-          return true;
-        }
+  /**
+   * Resize the table so that it can hold the number of mappings without resizing.
+   *
+   * @param capacity The number of mappings.
+   */
+  public void ensureCapacity(final int capacity) {
+    if (capacity > this.threshold) {
+      final int tableSize = tableSizeFor((int)Math.ceil(capacity / (double)this.loadFactor));
+      if (tableSize > this.valueTable.length) {
+        resize(tableSize);
       }
     }
-    return false;
   }
 
   public Set<IntEntry<T>> entryIntSet() {
@@ -623,50 +557,85 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
    * Returns a collection view of the mappings contained in this map. Each
    * element in the returned collection is a <tt>Map.Entry</tt>. The collection
    * is backed by the map, so changes to the map are reflected in the
-   * collection, and vice-versa. The collection supports element removal, which
-   * removes the corresponding mapping from the map, via the
-   * <tt>Iterator.remove</tt>, <tt>Collection.remove</tt>, <tt>removeAll</tt>,
-   * <tt>retainAll</tt>, and <tt>clear</tt> operations. It does not support the
-   * <tt>add</tt> or <tt>addAll</tt> operations.
+   * collection, and vice-versa.
    *
    * @return a collection view of the mappings contained in this map.
-   * @see Map.Entry
    */
   @Override
   @SuppressWarnings({
     "rawtypes", "unchecked"
   })
   public Set<Map.Entry<Integer, T>> entrySet() {
-    if (this.entrySet == null) {
-      this.entrySet = new EntrySet();
+    return (Set)entryIntSet();
+  }
+
+  /**
+   * Call the action for each value and key in this map without creating entry objects or boxing
+   * the keys. The map must not be modified by the action.
+   *
+   * @param action The action to call with the value and key.
+   */
+  public void forEachEntry(final ObjIntConsumer<? super T> action) {
+    final int[] keyTable = this.keyTable;
+    final Object[] valueTable = this.valueTable;
+    for (int i = 0; i < valueTable.length; i++) {
+      final Object value = valueTable[i];
+      if (value != null) {
+        action.accept(toValue(value), keyTable[i]);
+      }
+    }
+  }
+
+  /**
+   * Call the action for each key in this map without boxing the keys. The map must not be
+   * modified by the action.
+   *
+   * @param action The action.
+   */
+  public void forEachKey(final IntConsumer action) {
+    final int[] keyTable = this.keyTable;
+    final Object[] valueTable = this.valueTable;
+    for (int i = 0; i < valueTable.length; i++) {
+      if (valueTable[i] != null) {
+        action.accept(keyTable[i]);
+      }
+    }
+  }
+
+  /**
+   * Call the action for each value in this map. The map must not be modified by the action.
+   *
+   * @param action The action.
+   */
+  public void forEachValue(final Consumer<? super T> action) {
+    for (final Object value : this.valueTable) {
+      if (value != null) {
+        action.accept(toValue(value));
+      }
     }
-    return (Set)this.entrySet;
   }
 
   /**
    * Returns the value to which the specified key is mapped in this identity
-   * hash map, or <tt>null</tt> if the map contains no mapping for this key. A
-   * return value of <tt>null</tt> does not <i>necessarily</i> indicate that the
-   * map contains no mapping for the key; it is also possible that the map
-   * explicitly maps the key to <tt>null</tt>. The <tt>containsKey</tt> method
-   * may be used to distinguish these two cases.
+   * hash map, or <tt>null</tt> if the map contains no mapping for this key.
    *
    * @param key the key whose associated value is to be returned.
    * @return the value to which this map maps the specified key, or
    *         <tt>null</tt> if the map contains no mapping for this key.
-   * @see #put(int, Object)
    */
   public T get(final int key) {
-    final int i = indexFor(key, this.table.length);
-    IntEntry<T> e = this.table[i];
+    final int[] keyTable = this.keyTable;
+    final Object[] valueTable = this.valueTable;
+    final int mask = valueTable.length - 1;
+    int index = indexFor(key, valueTable.length);
     while (true) {
-      if (e == null) {
+      final Object value = valueTable[index];
+      if (value == null) {
         return null;
+      } else if (keyTable[index] == key) {
+        return toValue(value);
       }
-      if (key == e.key) {
-        return e.value;
-      }
-      e = e.next;
+      index = index + 1 & mask;
     }
   }
 
@@ -681,50 +650,56 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
   }
 
   /**
-   * Returns the entry associated with the specified key in the HashMap. Returns
-   * null if the HashMap contains no mapping for this key.
+   * Get a new array containing the keys in this map.
    *
-   * @param key
-   * @return The MapKeyEntry<T> object for the given hash key
-   */
-  IntEntry<T> getEntry(final int key) {
-    final int i = indexFor(key, this.table.length);
-    IntEntry<T> e = this.table[i];
-    while (e != null && !(key == e.key)) {
-      e = e.next;
+   * @return The keys.
+   */
+  public int[] getKeys() {
+    final int[] keys = new int[this.size];
+    int i = 0;
+    final int[] keyTable = this.keyTable;
+    final Object[] valueTable = this.valueTable;
+    for (int index = 0; index < valueTable.length; index++) {
+      if (valueTable[index] != null) {
+        keys[i++] = keyTable[index];
+      }
     }
-    return e;
+    return keys;
+  }
+
+  /**
+   * Get the slot index of the key.
+   *
+   * @param key The key.
+   * @return The index or -1 if the key is not in the map.
+   */
+  private int indexOf(final int key) {
+    final int[] keyTable = this.keyTable;
+    final Object[] valueTable = this.valueTable;
+    final int mask = valueTable.length - 1;
+    int index = indexFor(key, valueTable.length);
+    while (valueTable[index] != null) {
+      if (keyTable[index] == key) {
+        return index;
+      }
+      index = index + 1 & mask;
+    }
+    return -1;
   }
 
   /**
    * Initialization hook for subclasses. This method is called in all
    * constructors and pseudo-constructors (clone, readObject) after HashMap has
-   * been initialized but before any entries have been inserted. (In the absence
-   * of this method, readObject would require explicit knowledge of subclasses.)
+   * been initialized but before any entries have been inserted.
    */
   void init() {
   }
 
-  /**
-   * Returns <tt>true</tt> if this map contains no key-value mappings.
-   *
-   * @return <tt>true</tt> if this map contains no key-value mappings.
-   */
   @Override
   public boolean isEmpty() {
     return this.size == 0;
   }
 
-  /**
-   * Returns a set view of the keys contained in this map. The set is backed by
-   * the map, so changes to the map are reflected in the set, and vice-versa.
-   * The set supports element removal, which removes the corresponding mapping
-   * from this map, via the <tt>Iterator.remove</tt>, <tt>Set.remove</tt>,
-   * <tt>removeAll</tt>, <tt>retainAll</tt>, and <tt>clear</tt> operations. It
-   * does not support the <tt>add</tt> or <tt>addAll</tt> operations.
-   *
-   * @return a set view of the keys contained in this map.
-   */
   @Override
   public Set<Integer> keySet() {
     final Set<Integer> ks = this.keySet;
@@ -735,22 +710,6 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
     return this.loadFactor;
   }
 
-  /**
-   * Like addEntry<T> except that this version is used when creating entries as
-   * part of Map construction or "pseudo-construction" (cloning,
-   * deserialization). This version needn't worry about resizing the table.
-   * Subclass overrides this to alter the behavior of HashMap(Map), clone, and
-   * readObject.
-   *
-   * @param key
-   * @param value
-   * @param bucketIndex
-   */
-  void newEntry(final int key, final T value, final int bucketIndex) {
-    this.table[bucketIndex] = new IntEntry<>(key, value, this.table[bucketIndex]);
-    this.size++;
-  }
-
   Iterator<IntEntry<T>> newEntryIterator() {
     return new EntryIterator();
   }
@@ -760,7 +719,15 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
     return new KeyIterator();
   }
 
-  // Views
+  private void newTable(final int tableSize) {
+    this.keyTable = new int[tableSize];
+    this.valueTable = new Object[tableSize];
+    if (tableSize == MAXIMUM_CAPACITY) {
+      this.threshold = MAXIMUM_CAPACITY - 1;
+    } else {
+      this.threshold = Math.min((int)(tableSize * this.loadFactor), tableSize - 1);
+    }
+  }
 
   Iterator<T> newValueIterator() {
     return new ValueIterator();
@@ -777,59 +744,20 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
    * currently in the specified map.
    *
    * @param m mappings to be stored in this map.
-   * @throws NullPointerException if the specified map is null.
    */
   public void putAll(final IntHashMap<T> m) {
-    final int numKeysToBeAdded = m.size();
-    if (numKeysToBeAdded == 0) {
-      return;
-    }
-
-    /*
-     * Expand the map if the map if the number of mappings to be added is
-     * greater than or equal to threshold. This is conservative; the obvious
-     * condition is (m.size() + size) >= threshold, but this condition could
-     * result in a map with twice the appropriate capacity, if the keys to be
-     * added overlap with the keys already in this map. By using the
-     * conservative calculation, we subject ourself to at most one extra resize.
-     */
-    if (numKeysToBeAdded > this.threshold) {
-      int targetCapacity = (int)(numKeysToBeAdded / this.loadFactor + 1);
-      if (targetCapacity > MAXIMUM_CAPACITY) {
-        targetCapacity = MAXIMUM_CAPACITY;
-      }
-      int newCapacity = this.table.length;
-      while (newCapacity < targetCapacity) {
-        newCapacity <<= 1;
-      }
-      if (newCapacity > this.table.length) {
-        resize(newCapacity);
-      }
-    }
-
-    for (final IntEntry<T> e : m.entryIntSet()) {
-      put(e.getIntKey(), e.getValue());
-    }
+    ensureCapacity(this.size + m.size);
+    m.forEachEntry((value, key) -> putInt(key, value));
   }
 
   @Override
   public void putAll(final Map<? extends Integer, ? extends T> map) {
-    final int numKeysToBeAdded = map.size();
-    if (numKeysToBeAdded > 0) {
-      if (numKeysToBeAdded > this.threshold) {
-        int targetCapacity = (int)(numKeysToBeAdded / this.loadFactor + 1);
-        if (targetCapacity > MAXIMUM_CAPACITY) {
-          targetCapacity = MAXIMUM_CAPACITY;
-        }
-        int newCapacity = this.table.length;
-        while (newCapacity < targetCapacity) {
-          newCapacity <<= 1;
-        }
-        if (newCapacity > this.table.length) {
-          resize(newCapacity);
-        }
-      }
-
+    if (map instanceof IntHashMap) {
+      @SuppressWarnings("unchecked")
+      final IntHashMap<T> intMap = (IntHashMap<T>)map;
+      putAll(intMap);
+    } else {
+      ensureCapacity(this.size + map.size());
       for (final Map.Entry<? extends Integer, ? extends T> e : map.entrySet()) {
         final Integer key = e.getKey();
         final T value = e.getValue();
@@ -838,63 +766,28 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
     }
   }
 
-  void putAllForCreate(final IntHashMap<T> m) {
-    for (final IntEntry<T> e : m.entryIntSet()) {
-      putForCreate(e.getIntKey(), e.getValue());
-    }
-  }
-
-  /**
-   * This method is used instead of put by constructors and pseudoconstructors
-   * (clone, readObject). It does not resize the table, check for
-   * comodification, etc. It calls newEntry<T> rather than addEntry.
-   *
-   * @param key
-   * @param value
-   */
-  private void putForCreate(final int key, final T value) {
-    final int i = indexFor(key, this.table.length);
-
-    /**
-     * Look for preexisting entry for key. This will never happen for clone or
-     * deserialize. It will only happen for construction if the input Map is a
-     * sorted map whose ordering is inconsistent w/ equals.
-     */
-    for (IntEntry<T> e = this.table[i]; e != null; e = e.next) {
-      if (key == e.key) {
-        e.value = value;
-        return;
-      }
-    }
-
-    newEntry(key, value, i);
-  }
-
-  /**
-   * Associates the specified value with the specified key in this map. If the
-   * map previously contained a mapping for this key, the old value is replaced.
-   *
-   * @param key key with which the specified value is to be associated.
-   * @param value value to be associated with the specified key.
-   * @return previous value associated with specified key, or <tt>null</tt> if
-   *         there was no mapping for key. A <tt>null</tt> return can also
-   *         indicate that the HashMap previously associated <tt>null</tt> with
-   *         the specified key.
-   */
   public T putInt(final int key, final T value) {
-    final int i = indexFor(key, this.table.length);
-
-    for (IntEntry<T> e = this.table[i]; e != null; e = e.next) {
-      if (key == e.key) {
-        final T oldValue = e.value;
-        e.value = value;
-        return oldValue;
+    final int[] keyTable = this.keyTable;
+    final Object[] valueTable = this.valueTable;
+    final Object tableValue = value == null ? NULL_VALUE : value;
+    final int mask = valueTable.length - 1;
+    int index = indexFor(key, valueTable.length);
+    while (true) {
+      final Object oldValue = valueTable[index];
+      if (oldValue == null) {
+        keyTable[index] = key;
+        valueTable[index] = tableValue;
+        this.modCount++;
+        if (++this.size > this.threshold) {
+          resize(2 * valueTable.length);
+        }
+        return null;
+      } else if (keyTable[index] == key) {
+        valueTable[index] = tableValue;
+        return toValue(oldValue);
       }
+      index = index + 1 & mask;
     }
-
-    this.modCount++;
-    addEntry(key, value, i);
-    return null;
   }
 
   /**
@@ -911,38 +804,32 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
     // Read in the threshold, loadfactor, and any hidden stuff
     s.defaultReadObject();
 
-    // Read in number of buckets and allocate the bucket array;
+    // Read in number of buckets and allocate the tables;
     final int numBuckets = s.readInt();
-    this.table = ArrayUtil.newArray(IntEntry.class, numBuckets);
+    newTable(tableSizeFor(numBuckets));
 
     init(); // Give subclass a chance to do its thing.
 
     // Read in size (number of Mappings)
     final int size = s.readInt();
+    ensureCapacity(size);
 
     // Read the keys and values, and put the mappings in the HashMap
     for (int i = 0; i < size; i++) {
       final int key = s.readInt();
       final T value = (T)s.readObject();
-      putForCreate(key, value);
+      putInt(key, value);
     }
   }
 
-  /**
-   * Removes the mapping for this key from this map if present.
-   *
-   * @param key key whose mapping is to be removed from the map.
-   * @return previous value associated with specified key, or <tt>null</tt> if
-   *         there was no mapping for key. A <tt>null</tt> return can also
-   *         indicate that the map previously associated <tt>null</tt> with the
-   *         specified key.
-   */
   public T remove(final int key) {
-    final IntEntry<T> e = removeEntryForKey(key);
-    if (e == null) {
+    final int index = indexOf(key);
+    if (index == -1) {
       return null;
     } else {
-      return e.value;
+      final T value = toValue(this.valueTable[index]);
+      removeIndex(index, null);
+      return value;
     }
   }
 
@@ -957,140 +844,87 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
   }
 
   /**
-   * Removes and returns the entry associated with the specified key in the
-   * HashMap. Returns null if the HashMap contains no mapping for this key.
+   * Remove the entry in the slot and shift the following entries in the probe sequence back so
+   * there are no gaps in the sequence.
    *
-   * @param key
-   * @return The MapKeyEntry<T> object that was removed
-   */
-  IntEntry<T> removeEntryForKey(final int key) {
-    final int i = indexFor(key, this.table.length);
-    IntEntry<T> prev = this.table[i];
-    IntEntry<T> e = prev;
-
-    while (e != null) {
-      final IntEntry<T> next = e.next;
-      if (key == e.key) {
-        this.modCount++;
-        this.size--;
-        if (prev == e) {
-          this.table[i] = next;
-        } else {
-          prev.next = next;
-        }
-        return e;
+   * @param index The slot to remove.
+   * @param iterator The iterator the removal was from, or null.
+   */
+  private void removeIndex(final int index, final HashIterator<?> iterator) {
+    final int[] keyTable = this.keyTable;
+    final Object[] valueTable = this.valueTable;
+    final int mask = valueTable.length - 1;
+    int freeIndex = index;
+    int nextIndex = index;
+    while (true) {
+      nextIndex = nextIndex + 1 & mask;
+      final Object value = valueTable[nextIndex];
+      if (value == null) {
+        break;
       }
-      prev = e;
-      e = next;
-    }
-
-    return e;
-  }
-
-  /**
-   * Special version of remove for MapKeySetEntrySet.
-   *
-   * @param o
-   * @return The entry that was removed
-   */
-  IntEntry<T> removeMapping(final Object o) {
-    if (!(o instanceof IntEntry)) {
-      return null;
-    }
-
-    @SuppressWarnings("unchecked")
-    final IntEntry<T> entry = (IntEntry<T>)o;
-    final int key = entry.getIntKey();
-    final int i = indexFor(key, this.table.length);
-    IntEntry<T> prev = this.table[i];
-    IntEntry<T> e = prev;
-
-    while (e != null) {
-      final IntEntry<T> next = e.next;
-      if (e.key == key && e.equals(entry)) {
-        this.modCount++;
-        this.size--;
-        if (prev == e) {
-          this.table[i] = next;
-        } else {
-          prev.next = next;
+      final int key = keyTable[nextIndex];
+      final int homeIndex = indexFor(key, valueTable.length);
+      final boolean move;
+      if (freeIndex <= nextIndex) {
+        move = homeIndex <= freeIndex || homeIndex > nextIndex;
+      } else {
+        move = homeIndex <= freeIndex && homeIndex > nextIndex;
+      }
+      if (move) {
+        if (iterator != null && nextIndex < index && freeIndex >= index) {
+          iterator.addWrapped(key);
         }
-        return e;
+        keyTable[freeIndex] = key;
+        valueTable[freeIndex] = value;
+        freeIndex = nextIndex;
       }
-      prev = e;
-      e = next;
     }
-
-    return e;
+    valueTable[freeIndex] = null;
+    this.size--;
+    this.modCount++;
   }
 
-  /**
-   * Rehashes the contents of this map into a new array with a larger capacity.
-   * This method is called automatically when the number of keys in this map
-   * reaches its threshold. If current capacity is MAXIMUM_CAPACITY, this method
-   * does not resize the map, but but sets threshold to Integer.MAX_VALUE. This
-   * has the effect of preventing future calls.
-   *
-   * @param newCapacity the new capacity, MUST be a power of two; must be
-   *          greater than current capacity unless current capacity is
-   *          MAXIMUM_CAPACITY (in which case value is irrelevant).
-   */
   void resize(final int newCapacity) {
-    final IntEntry<T>[] oldTable = this.table;
-    final int oldCapacity = oldTable.length;
-    if (oldCapacity == MAXIMUM_CAPACITY) {
-      this.threshold = Integer.MAX_VALUE;
-      return;
+    final int[] oldKeyTable = this.keyTable;
+    final Object[] oldValueTable = this.valueTable;
+    if (oldValueTable.length == MAXIMUM_CAPACITY) {
+      throw new IllegalStateException("IntHashMap is full");
+    }
+    newTable(newCapacity);
+    final int[] keyTable = this.keyTable;
+    final Object[] valueTable = this.valueTable;
+    final int mask = newCapacity - 1;
+    for (int i = 0; i < oldValueTable.length; i++) {
+      final Object value = oldValueTable[i];
+      if (value != null) {
+        final int key = oldKeyTable[i];
+        int index = indexFor(key, newCapacity);
+        while (valueTable[index] != null) {
+          index = index + 1 & mask;
+        }
+        keyTable[index] = key;
+        valueTable[index] = value;
+      }
     }
-
-    @SuppressWarnings("unchecked")
-    final IntEntry<T>[] newTable = ArrayUtil.newArray(IntEntry.class, newCapacity);
-    transfer(newTable);
-    this.table = newTable;
-    this.threshold = (int)(newCapacity * this.loadFactor);
+    this.modCount++;
   }
 
-  /**
-   * Returns the number of key-value mappings in this map.
-   *
-   * @return the number of key-value mappings in this map.
-   */
   @Override
   public int size() {
     return this.size;
   }
 
-  /**
-   * Transfer all entries from current table to newTable.
-   *
-   * @param newTable
-   */
-  void transfer(final IntEntry<T>[] newTable) {
-    final IntEntry<T>[] src = this.table;
-    final int newCapacity = newTable.length;
-    for (int j = 0; j < src.length; j++) {
-      IntEntry<T> e = src[j];
-      if (e != null) {
-        src[j] = null;
-        do {
-          final IntEntry<T> next = e.next;
-          final int i = indexFor(e.key, newCapacity);
-          e.next = newTable[i];
-          newTable[i] = e;
-          e = next;
-        } while (e != null);
-      }
+  @SuppressWarnings("unchecked")
+  private T toValue(final Object value) {
+    if (value == NULL_VALUE) {
+      return null;
+    } else {
+      return (T)value;
     }
   }
 
   /**
-   * Returns a collection view of the values contained in this map. The
-   * collection is backed by the map, so changes to the map are reflected in the
-   * collection, and vice-versa. The collection supports element removal, which
-   * removes the corresponding mapping from this map, via the
-   * <tt>Iterator.remove</tt>, <tt>Collection.remove</tt>, <tt>removeAll</tt>,
-   * <tt>retainAll</tt>, and <tt>clear</tt> operations. It does not support the
-   * <tt>add</tt> or <tt>addAll</tt> operations.
+   * Returns a collection view of the values contained in this map.
    *
    * @return a collection view of the values contained in this map.
    */
@@ -1109,25 +943,28 @@ public class IntHashMap<T> implements Map<Integer, T>, Cloneable, Serializable {
    * @serialData The <i>capacity</i> of the HashMap (the length of the bucket
    *             array) is emitted (int), followed by the <i>size</i> of the
    *             HashMap (the number of key-value mappings), followed by the key
-   *             (Object) and value (Object) for each key-value mapping
-   *             represented by the HashMap The key-value mappings are emitted
-   *             in the order that they are returned by
-   *             <tt>entrySet().iterator()</tt>.
+   *             (int) and value (Object) for each key-value mapping
+   *             represented by the HashMap.
    */
   private void writeObject(final java.io.ObjectOutputStream s) throws IOException {
     // Write out the threshold, loadfactor, and any hidden stuff
     s.defaultWriteObject();
 
     // Write out number of buckets
-    s.writeInt(this.table.length);
+    s.writeInt(this.valueTable.length);
 
     // Write out size (number of Mappings)
     s.writeInt(this.size);
 
     // Write out keys and values (alternating)
-    for (final IntEntry<T> e : entryIntSet()) {
-      s.writeInt(e.getIntKey());
-      s.writeObject(e.getValue());
+    final int[] keyTable = this.keyTable;
+    final Object[] valueTable = this.valueTable;
+    for (int i = 0; i < valueTable.length; i++) {
+      final Object value = valueTable[i];
+      if (value != null) {
+        s.writeInt(keyTable[i]);
+        s.writeObject(toValue(value));
+      }
     }
   }
 }
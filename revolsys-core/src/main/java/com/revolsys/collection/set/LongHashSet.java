@@ -0,0 +1,383 @@
+package com.revolsys.collection.set;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+
+import com.revolsys.collection.list.LongList;
+
+/**
+ * A set of long values stored in a long[] using open addressing with linear probing, so there is
+ * no entry object per value. Use the primitive methods (e.g. {@link #addLong(long)},
+ * {@link #containsLong(long)}, {@link #forEachLong(LongConsumer)}) to avoid boxing the values.
+ * <p>
+ * Empty slots are marked with 0, the value 0 is recorded using a separate flag.
+ * </p>
+ */
+public class LongHashSet extends AbstractSet<Long> {
+  /**
+   * Iterates over the table from the last slot to the first. Removing a value shifts the
+   * following values back, if a value that wasn't visited yet wraps around the end of the
+   * table into the visited slots it is returned after the table has been visited.
+   */
+  private class LongIterator implements Iterator<Long> {
+    private int expectedModCount = LongHashSet.this.modCount;
+
+    /** The next slot to test is index - 1. */
+    private int index = LongHashSet.this.values.length;
+
+    private int lastIndex = -1;
+
+    private long lastValue;
+
+    private int remaining = LongHashSet.this.size;
+
+    private boolean returnZero = LongHashSet.this.hasZero;
+
+    private LongList wrapped;
+
+    private int wrappedIndex;
+
+    private void addWrapped(final long value) {
+      if (this.wrapped == null) {
+        this.wrapped = new LongList(2);
+      }
+      this.wrapped.addLong(value);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.remaining > 0;
+    }
+
+    @Override
+    public Long next() {
+      if (LongHashSet.this.modCount != this.expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      if (this.remaining == 0) {
+        throw new NoSuchElementException();
+      }
+      this.remaining--;
+      if (this.returnZero) {
+        this.returnZero = false;
+        this.lastValue = 0;
+        this.lastIndex = Integer.MAX_VALUE;
+        return 0L;
+      }
+      final long[] values = LongHashSet.this.values;
+      while (this.index > 0) {
+        final int index = --this.index;
+        final long value = values[index];
+        if (value != 0) {
+          this.lastValue = value;
+          this.lastIndex = index;
+          return value;
+        }
+      }
+      this.lastValue = this.wrapped.getLong(this.wrappedIndex++);
+      this.lastIndex = Integer.MAX_VALUE;
+      return this.lastValue;
+    }
+
+    @Override
+    public void remove() {
+      if (this.lastIndex == -1) {
+        throw new IllegalStateException();
+      }
+      if (LongHashSet.this.modCount != this.expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      if (this.lastIndex == Integer.MAX_VALUE) {
+        removeLong(this.lastValue);
+      } else {
+        removeIndex(this.lastIndex, this);
+      }
+      this.lastIndex = -1;
+      this.expectedModCount = LongHashSet.this.modCount;
+    }
+  }
+
+  private static final float LOAD_FACTOR = 0.75f;
+
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  private static int indexFor(final long value, final int length) {
+    final int hash = (int)(value ^ value >>> 32) * 0x9E3779B9;
+    return (hash ^ hash >>> 16) & length - 1;
+  }
+
+  private static int tableSizeFor(final int capacity) {
+    final int minSize = (int)Math.ceil(capacity / (double)LOAD_FACTOR);
+    int tableSize = 2;
+    while (tableSize < minSize && tableSize < MAXIMUM_CAPACITY) {
+      tableSize <<= 1;
+    }
+    return tableSize;
+  }
+
+  private boolean hasZero;
+
+  private int modCount;
+
+  private int size;
+
+  private int threshold;
+
+  private long[] values;
+
+  public LongHashSet() {
+    this(12);
+  }
+
+  public LongHashSet(final Collection<? extends Number> values) {
+    this(values.size());
+    for (final Number value : values) {
+      addLong(value.longValue());
+    }
+  }
+
+  public LongHashSet(final int capacity) {
+    newTable(tableSizeFor(capacity));
+  }
+
+  @Override
+  public boolean add(final Long value) {
+    return addLong(value);
+  }
+
+  /**
+   * Add the value to the set.
+   *
+   * @param value The value.
+   * @return True if the value was not already in the set.
+   */
+  public boolean addLong(final long value) {
+    if (value == 0) {
+      if (this.hasZero) {
+        return false;
+      } else {
+        this.hasZero = true;
+      }
+    } else {
+      final long[] values = this.values;
+      final int mask = values.length - 1;
+      int index = indexFor(value, values.length);
+      while (true) {
+        final long currentValue = values[index];
+        if (currentValue == 0) {
+          values[index] = value;
+          break;
+        } else if (currentValue == value) {
+          return false;
+        }
+        index = index + 1 & mask;
+      }
+    }
+    this.modCount++;
+    if (++this.size > this.threshold) {
+      resize(2 * this.values.length);
+    }
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(this.values, 0);
+    this.hasZero = false;
+    this.size = 0;
+    this.modCount++;
+  }
+
+  @Override
+  public boolean contains(final Object value) {
+    if (value instanceof Long) {
+      return containsLong((Long)value);
+    } else {
+      return false;
+    }
+  }
+
+  public boolean containsLong(final long value) {
+    if (value == 0) {
+      return this.hasZero;
+    } else {
+      return indexOf(value) != -1;
+    }
+  }
+
+  /**
+   * Resize the table so that it can hold the number of values without resizing.
+   *
+   * @param capacity The number of values.
+   */
+  public void ensureCapacity(final int capacity) {
+    if (capacity > this.threshold) {
+      final int tableSize = tableSizeFor(capacity);
+      if (tableSize > this.values.length) {
+        resize(tableSize);
+      }
+    }
+  }
+
+  /**
+   * Call the action for each value in this set without boxing the values. The set must not be
+   * modified by the action.
+   *
+   * @param action The action.
+   */
+  public void forEachLong(final LongConsumer action) {
+    if (this.hasZero) {
+      action.accept(0);
+    }
+    for (final long value : this.values) {
+      if (value != 0) {
+        action.accept(value);
+      }
+    }
+  }
+
+  private int indexOf(final long value) {
+    final long[] values = this.values;
+    final int mask = values.length - 1;
+    int index = indexFor(value, values.length);
+    while (true) {
+      final long currentValue = values[index];
+      if (currentValue == 0) {
+        return -1;
+      } else if (currentValue == value) {
+        return index;
+      }
+      index = index + 1 & mask;
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  @Override
+  public Iterator<Long> iterator() {
+    return new LongIterator();
+  }
+
+  private void newTable(final int tableSize) {
+    this.values = new long[tableSize];
+    this.threshold = Math.min((int)(tableSize * LOAD_FACTOR), tableSize - 1);
+  }
+
+  @Override
+  public boolean remove(final Object value) {
+    if (value instanceof Long) {
+      return removeLong((Long)value);
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Remove the value in the slot and shift the following values in the probe sequence back so
+   * there are no gaps in the sequence.
+   *
+   * @param index The slot to remove.
+   * @param iterator The iterator the removal was from, or null.
+   */
+  private void removeIndex(final int index, final LongIterator iterator) {
+    final long[] values = this.values;
+    final int mask = values.length - 1;
+    int freeIndex = index;
+    int nextIndex = index;
+    while (true) {
+      nextIndex = nextIndex + 1 & mask;
+      final long value = values[nextIndex];
+      if (value == 0) {
+        break;
+      }
+      final int homeIndex = indexFor(value, values.length);
+      final boolean move;
+      if (freeIndex <= nextIndex) {
+        move = homeIndex <= freeIndex || homeIndex > nextIndex;
+      } else {
+        move = homeIndex <= freeIndex && homeIndex > nextIndex;
+      }
+      if (move) {
+        if (iterator != null && nextIndex < index && freeIndex >= index) {
+          iterator.addWrapped(value);
+        }
+        values[freeIndex] = value;
+        freeIndex = nextIndex;
+      }
+    }
+    values[freeIndex] = 0;
+    this.size--;
+    this.modCount++;
+  }
+
+  /**
+   * Remove the value from the set.
+   *
+   * @param value The value.
+   * @return True if the value was in the set.
+   */
+  public boolean removeLong(final long value) {
+    if (value == 0) {
+      if (this.hasZero) {
+        this.hasZero = false;
+        this.size--;
+        this.modCount++;
+        return true;
+      }
+    } else {
+      final int index = indexOf(value);
+      if (index != -1) {
+        removeIndex(index, null);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void resize(final int tableSize) {
+    final long[] oldValues = this.values;
+    if (oldValues.length == MAXIMUM_CAPACITY) {
+      throw new IllegalStateException("LongHashSet is full");
+    }
+    newTable(tableSize);
+    final long[] values = this.values;
+    final int mask = tableSize - 1;
+    for (final long value : oldValues) {
+      if (value != 0) {
+        int index = indexFor(value, tableSize);
+        while (values[index] != 0) {
+          index = index + 1 & mask;
+        }
+        values[index] = value;
+      }
+    }
+    this.modCount++;
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  public long[] toLongArray() {
+    final long[] array = new long[this.size];
+    int i = 0;
+    if (this.hasZero) {
+      array[i++] = 0;
+    }
+    for (final long value : this.values) {
+      if (value != 0) {
+        array[i++] = value;
+      }
+    }
+    return array;
+  }
+}
@@ -17,6 +17,7 @@ import com.revolsys.elevation.gridded.rasterizer.gradient.GradientStop;
 import com.revolsys.elevation.gridded.rasterizer.gradient.MultiStopLinearGradient;
 import com.revolsys.elevation.gridded.scaledint.ScaledIntegerGriddedDigitalElevation;
 import com.revolsys.elevation.gridded.scaledint.compressed.CompressedScaledIntegerGriddedDigitalElevation;
+import com.revolsys.elevation.gridded.tiff.TiffGriddedElevation;
 import com.revolsys.elevation.gridded.usgsdem.UsgsGriddedElevation;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.BoundingBoxProxy;
@@ -92,6 +93,7 @@ public interface GriddedElevationModel extends Grid {
     IoFactoryRegistry.addFactory(new EsriFloatGridGriddedElevation());
     IoFactoryRegistry.addFactory(new UsgsGriddedElevation());
     IoFactoryRegistry.addFactory(new ImgGriddedElevation());
+    IoFactoryRegistry.addFactory(new TiffGriddedElevation());
 
     MapObjectFactoryRegistry.newFactory("gradientStop", GradientStop::new);
     MapObjectFactoryRegistry.newFactory("multiStopLinearGradient", MultiStopLinearGradient::new);
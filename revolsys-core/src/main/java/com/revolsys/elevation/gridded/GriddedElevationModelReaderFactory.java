@@ -4,9 +4,28 @@ import com.revolsys.collection.map.MapEx;
 import com.revolsys.geometry.geoid.GeoidModelReader;
 import com.revolsys.geometry.geoid.GeoidModelReaderFactory;
 import com.revolsys.geometry.geoid.GriddedElevationModelGeoidModelReader;
+import com.revolsys.io.IoFactory;
 import com.revolsys.spring.resource.Resource;
 
 public interface GriddedElevationModelReaderFactory extends GeoidModelReaderFactory {
+  /**
+   * Check if the resource contains an elevation model. Factories for file formats that are also
+   * used for other data (e.g. GeoTIFF images) override this to check the contents of the file.
+   *
+   * @param source The resource, file, path or URL.
+   * @return True if the resource can be read as an elevation model.
+   */
+  static boolean hasGriddedElevationModel(final Object source) {
+    final GriddedElevationModelReaderFactory factory = IoFactory
+      .factory(GriddedElevationModelReaderFactory.class, source);
+    if (factory == null) {
+      return false;
+    } else {
+      final Resource resource = Resource.getResource(source);
+      return factory.isGriddedElevationModel(resource);
+    }
+  }
+
   @Override
   default GeoidModelReader newGeoidModelReader(final Resource resource, final MapEx properties) {
     return new GriddedElevationModelGeoidModelReader(resource, properties);
@@ -20,5 +39,15 @@ public interface GriddedElevationModelReaderFactory extends GeoidModelReaderFact
     }
   }
 
+  /**
+   * Check if the resource contains an elevation model.
+   *
+   * @param resource The resource.
+   * @return True if the resource can be read as an elevation model.
+   */
+  default boolean isGriddedElevationModel(final Resource resource) {
+    return true;
+  }
+
   GriddedElevationModelReader newGriddedElevationModelReader(Resource resource, MapEx properties);
 }
@@ -6,6 +6,7 @@ import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.GeometryFactory;
 import com.revolsys.geometry.model.editor.LineStringEditor;
 import com.revolsys.grid.IntArrayScaleGrid;
+import com.revolsys.io.channels.AbstractChannelWriter;
 import com.revolsys.io.channels.ChannelWriter;
 
 public class IntArrayScaleGriddedElevationModel extends IntArrayScaleGrid
@@ -105,11 +106,15 @@ public class IntArrayScaleGriddedElevationModel extends IntArrayScaleGrid
     return (IntArrayScaleGriddedElevationModel)super.resample(newGridCellSize);
   }
 
-  public void writeIntArray(final ChannelWriter out) throws IOException {
+  public void writeIntArray(final AbstractChannelWriter out) throws IOException {
     final int[] values = this.cells;
     for (final int valueInt : values) {
       out.putInt(valueInt);
     }
   }
 
+  public void writeIntArray(final ChannelWriter out) throws IOException {
+    writeIntArray((AbstractChannelWriter)out);
+  }
+
 }
@@ -4,8 +4,10 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.Channels;
 import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -18,7 +20,10 @@ import com.revolsys.elevation.gridded.IntArrayScaleGriddedElevationModel;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.GeometryFactory;
 import com.revolsys.io.AbstractWriter;
+import com.revolsys.io.channels.AbstractChannelWriter;
+import com.revolsys.io.channels.AsynchronousFileChannelWriter;
 import com.revolsys.io.channels.ChannelWriter;
+import com.revolsys.parallel.OrderedParallelExecutor;
 import com.revolsys.spring.resource.Resource;
 
 public class ScaledIntegerGriddedDigitalElevationModelWriter
@@ -26,6 +31,14 @@ public class ScaledIntegerGriddedDigitalElevationModelWriter
   public static void writeHeader(final ChannelWriter writer, final BoundingBox boundingBox,
     final GeometryFactory geometryFactory, final int gridWidth, final int gridHeight,
     final double gridCellWidth, final double gridCellHeight) throws IOException {
+    writeHeader((AbstractChannelWriter)writer, boundingBox, geometryFactory, gridWidth,
+      gridHeight, gridCellWidth, gridCellHeight);
+  }
+
+  public static void writeHeader(final AbstractChannelWriter writer,
+    final BoundingBox boundingBox, final GeometryFactory geometryFactory, final int gridWidth,
+    final int gridHeight, final double gridCellWidth, final double gridCellHeight)
+    throws IOException {
     final int coordinateSystemId = geometryFactory.getHorizontalCoordinateSystemId();
     writer.putBytes(ScaledIntegerGriddedDigitalElevation.FILE_FORMAT_BYTES);
     writer.putShort(ScaledIntegerGriddedDigitalElevation.VERSION);
@@ -56,7 +69,7 @@ public class ScaledIntegerGriddedDigitalElevationModelWriter
 
   private Resource resource;
 
-  private ChannelWriter writer;
+  private AbstractChannelWriter writer;
 
   private int gridWidth;
 
@@ -64,6 +77,10 @@ public class ScaledIntegerGriddedDigitalElevationModelWriter
 
   private ByteBuffer byteBuffer;
 
+  private boolean parallel = false;
+
+  private int blockRowCount = 64;
+
   ScaledIntegerGriddedDigitalElevationModelWriter(final Resource resource) {
     this.resource = resource;
   }
@@ -82,6 +99,30 @@ public class ScaledIntegerGriddedDigitalElevationModelWriter
     this.resource = null;
   }
 
+  public int getBlockRowCount() {
+    return this.blockRowCount;
+  }
+
+  public boolean isParallel() {
+    return this.parallel;
+  }
+
+  private byte[] newBlock(final GriddedElevationModel elevationModel, final int minGridY,
+    final int maxGridY) {
+    final int gridWidth = this.gridWidth;
+    final GeometryFactory geometryFactory = elevationModel.getGeometryFactory();
+    final byte[] bytes = new byte[(maxGridY - minGridY) * gridWidth * 4];
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    for (int gridY = minGridY; gridY < maxGridY; gridY++) {
+      for (int gridX = 0; gridX < gridWidth; gridX++) {
+        final double elevation = elevationModel.getValue(gridX, gridY);
+        final int zInt = geometryFactory.toIntZ(elevation);
+        buffer.putInt(zInt);
+      }
+    }
+    return bytes;
+  }
+
   @Override
   public void open() {
     if (this.writer == null) {
@@ -112,12 +153,36 @@ public class ScaledIntegerGriddedDigitalElevationModelWriter
         } catch (final IOException e) {
           throw Exceptions.wrap("Error creating: " + this.resource, e);
         }
+      } else if (this.parallel && this.resource.isFile()) {
+        try {
+          final AsynchronousFileChannel channel = AsynchronousFileChannel.open(
+            this.resource.getPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+          final AsynchronousFileChannelWriter writer;
+          if (this.byteBuffer == null) {
+            writer = new AsynchronousFileChannelWriter(channel, true, 1024 * 1024);
+          } else {
+            writer = new AsynchronousFileChannelWriter(channel, true, this.byteBuffer);
+          }
+          this.writer = writer;
+        } catch (final IOException e) {
+          throw Exceptions.wrap("Error creating: " + this.resource, e);
+        }
       } else {
         this.writer = this.resource.newChannelWriter(this.byteBuffer);
       }
     }
   }
 
+  /**
+   * Set the number of grid rows encoded in each block when {@link #isParallel()} is true.
+   *
+   * @param blockRowCount The number of rows.
+   */
+  public void setBlockRowCount(final int blockRowCount) {
+    this.blockRowCount = Math.max(1, blockRowCount);
+  }
+
   public void setByteBuffer(final ByteBuffer buffer) {
     this.byteBuffer = buffer;
     if (buffer != null) {
@@ -125,12 +190,25 @@ public class ScaledIntegerGriddedDigitalElevationModelWriter
     }
   }
 
+  /**
+   * Encode blocks of rows concurrently and write them in order, overlapping the encoding with the
+   * I/O. Files are written using an {@link AsynchronousFileChannelWriter}. The elevation model
+   * must support concurrent reads.
+   *
+   * @param parallel True if the grid should be written in parallel.
+   */
+  public void setParallel(final boolean parallel) {
+    this.parallel = parallel;
+  }
+
   @Override
   public void write(final GriddedElevationModel elevationModel) {
     open();
     try {
       writeHeader(elevationModel);
-      if (elevationModel instanceof IntArrayScaleGriddedElevationModel) {
+      if (this.parallel) {
+        writeGridParallel(elevationModel);
+      } else if (elevationModel instanceof IntArrayScaleGriddedElevationModel) {
         final IntArrayScaleGriddedElevationModel scaleModel = (IntArrayScaleGriddedElevationModel)elevationModel;
         scaleModel.writeIntArray(this.writer);
       } else {
@@ -142,7 +220,7 @@ public class ScaledIntegerGriddedDigitalElevationModelWriter
   }
 
   private void writeGrid(final GriddedElevationModel elevationModel) throws IOException {
-    final ChannelWriter out = this.writer;
+    final AbstractChannelWriter out = this.writer;
     final int gridWidth = this.gridWidth;
     final int gridHeight = this.gridHeight;
     final GeometryFactory geometryFactory = elevationModel.getGeometryFactory();
@@ -155,6 +233,21 @@ public class ScaledIntegerGriddedDigitalElevationModelWriter
     }
   }
 
+  private void writeGridParallel(final GriddedElevationModel elevationModel) {
+    final AbstractChannelWriter out = this.writer;
+    final int gridHeight = this.gridHeight;
+    final int blockRowCount = this.blockRowCount;
+    try (
+      OrderedParallelExecutor<byte[]> executor = new OrderedParallelExecutor<>(out::putBytes)) {
+      for (int minGridY = 0; minGridY < gridHeight; minGridY += blockRowCount) {
+        final int blockMinGridY = minGridY;
+        final int blockMaxGridY = Math.min(gridHeight, minGridY + blockRowCount);
+        executor.submit(() -> newBlock(elevationModel, blockMinGridY, blockMaxGridY));
+      }
+      executor.finish();
+    }
+  }
+
   private void writeHeader(final GriddedElevationModel elevationModel) throws IOException {
     final GeometryFactory geometryFactory = elevationModel.getGeometryFactory();
     elevationModel.updateValues();
@@ -1,9 +1,8 @@
 package com.revolsys.elevation.gridded.scaledint;
 
 import java.nio.file.Path;
-import java.util.Map;
 
-import com.revolsys.collection.map.LruMap;
+import com.revolsys.collection.map.ConcurrentCache;
 import com.revolsys.elevation.gridded.DirectFileElevationModel;
 import com.revolsys.elevation.gridded.GriddedElevationModel;
 import com.revolsys.geometry.model.GeometryFactory;
@@ -19,12 +18,11 @@ public class TiledScaledIntegerGriddedDigitalElevationModel extends AbstractGrid
 
   private final int coordinateSystemId;
 
-  private final Map<IntPair, DirectFileElevationModel> models = new LruMap<>(5000);
+  private final ConcurrentCache<IntPair, DirectFileElevationModel> models = new ConcurrentCache<>(
+    5000);
 
   private final Path baseDirectory;
 
-  private final IntPair getKey = new IntPair();
-
   private final String filePrefix;
 
   private final int gridCellSize;
@@ -64,34 +62,11 @@ public class TiledScaledIntegerGriddedDigitalElevationModel extends AbstractGrid
 
   @Override
   public double getValueFast(final int gridX, final int gridY) {
-    DirectFileElevationModel model;
-    final Map<IntPair, DirectFileElevationModel> models = this.models;
     final int tileSize = this.gridTileSize;
     final int minGridX = Math.floorDiv(gridX, tileSize);
     final int minGridY = Math.floorDiv(gridY, tileSize);
-    synchronized (models) {
-      final IntPair getKey = this.getKey;
-      getKey.setValues(minGridX, minGridY);
-
-      model = models.get(getKey);
-      if (model == null) {
-        final int cellSize = this.gridCellSize;
-        final int tileX = minGridX * tileSize * cellSize;
-        final int tileY = minGridY * tileSize * cellSize;
-        final GeometryFactory geometryFactory = getGeometryFactory();
-
-        final String fileName = Strings.toString("_", this.filePrefix,
-          getHorizontalCoordinateSystemId(), this.tileWidthString, tileX, tileY) + "."
-          + ScaledIntegerGriddedDigitalElevation.FILE_EXTENSION;
-        final Path path = this.baseDirectory //
-          .resolve(Integer.toString(tileX)) //
-          .resolve(fileName);
-
-        model = new ScaledIntegerGriddedDigitalElevationModelFile(path, geometryFactory, tileX,
-          tileY, tileSize, tileSize, this.gridCellWidth);
-        models.put(getKey.clone(), model);
-      }
-    }
+    final IntPair key = new IntPair(minGridX, minGridY);
+    final DirectFileElevationModel model = this.models.get(key, this::newModel);
     final int gridCellX = gridX % tileSize;
     final int gridCellY = gridY % tileSize;
 
@@ -114,6 +89,24 @@ public class TiledScaledIntegerGriddedDigitalElevationModel extends AbstractGrid
     throw new UnsupportedOperationException();
   }
 
+  private DirectFileElevationModel newModel(final IntPair key) {
+    final int tileSize = this.gridTileSize;
+    final int cellSize = this.gridCellSize;
+    final int tileX = key.getValue1() * tileSize * cellSize;
+    final int tileY = key.getValue2() * tileSize * cellSize;
+    final GeometryFactory geometryFactory = getGeometryFactory();
+
+    final String fileName = Strings.toString("_", this.filePrefix,
+      getHorizontalCoordinateSystemId(), this.tileWidthString, tileX, tileY) + "."
+      + ScaledIntegerGriddedDigitalElevation.FILE_EXTENSION;
+    final Path path = this.baseDirectory //
+      .resolve(Integer.toString(tileX)) //
+      .resolve(fileName);
+
+    return new ScaledIntegerGriddedDigitalElevationModelFile(path, geometryFactory, tileX, tileY,
+      tileSize, tileSize, this.gridCellWidth);
+  }
+
   public void setGridTileSize(final int gridTileSize) {
     this.gridTileSize = gridTileSize;
   }
@@ -3,6 +3,7 @@ package com.revolsys.elevation.gridded.scaledint.compressed;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.function.Consumer;
 
 import org.jeometry.common.exception.Exceptions;
 
@@ -14,10 +15,60 @@ import com.revolsys.io.AbstractWriter;
 import com.revolsys.io.channels.ChannelWriter;
 import com.revolsys.math.arithmeticcoding.ArithmeticCodingInteger;
 import com.revolsys.math.arithmeticcoding.ArithmeticEncoder;
+import com.revolsys.parallel.OrderedParallelExecutor;
 import com.revolsys.spring.resource.Resource;
 
 public class CompressedScaledIntegerGriddedDigitalElevationModelWriter
   extends AbstractWriter<GriddedElevationModel> implements GriddedElevationModelWriter {
+  /**
+   * Compress the blocks of rows in order, alternating the direction of each row.
+   */
+  private static class BlockCompressor implements Consumer<int[]> {
+    private final ChannelWriter writer;
+
+    private final ArithmeticCodingInteger compressor;
+
+    private final int gridWidth;
+
+    private boolean first = true;
+
+    private int previousZ;
+
+    private int gridY = 0;
+
+    private BlockCompressor(final ChannelWriter writer, final ArithmeticCodingInteger compressor,
+      final int gridWidth) {
+      this.writer = writer;
+      this.compressor = compressor;
+      this.gridWidth = gridWidth;
+    }
+
+    @Override
+    public void accept(final int[] values) {
+      final int gridWidth = this.gridWidth;
+      for (int rowOffset = 0; rowOffset < values.length; rowOffset += gridWidth) {
+        final boolean leftToRight = this.gridY % 2 == 0;
+        for (int i = 0; i < gridWidth; i++) {
+          int index;
+          if (leftToRight) {
+            index = rowOffset + i;
+          } else {
+            index = rowOffset + gridWidth - 1 - i;
+          }
+          final int zInt = values[index];
+          if (this.first) {
+            this.writer.putInt(zInt);
+            this.first = false;
+          } else {
+            this.compressor.compress(this.previousZ, zInt);
+          }
+          this.previousZ = zInt;
+        }
+        this.gridY++;
+      }
+    }
+  }
+
   public static void writeHeader(final ChannelWriter writer, final BoundingBox boundingBox,
     final GeometryFactory geometryFactory, final int gridWidth, final int gridHeight,
     final double gridCellWidth, final double gridCellHeight) throws IOException {
@@ -59,6 +110,10 @@ public class CompressedScaledIntegerGriddedDigitalElevationModelWriter
 
   private ByteBuffer byteBuffer;
 
+  private boolean parallel = false;
+
+  private int blockRowCount = 64;
+
   CompressedScaledIntegerGriddedDigitalElevationModelWriter(final Resource resource) {
     this.resource = resource;
   }
@@ -77,6 +132,31 @@ public class CompressedScaledIntegerGriddedDigitalElevationModelWriter
     this.resource = null;
   }
 
+  public int getBlockRowCount() {
+    return this.blockRowCount;
+  }
+
+  public boolean isParallel() {
+    return this.parallel;
+  }
+
+  private int[] newBlock(final GriddedElevationModel elevationModel, final int minGridY,
+    final int maxGridY, final int nullInt) {
+    final int gridWidth = this.gridWidth;
+    final int[] values = new int[(maxGridY - minGridY) * gridWidth];
+    int index = 0;
+    for (int gridY = minGridY; gridY < maxGridY; gridY++) {
+      for (int gridX = 0; gridX < gridWidth; gridX++) {
+        int zInt = elevationModel.getValueInt(gridX, gridY);
+        if (zInt == Integer.MIN_VALUE) {
+          zInt = nullInt;
+        }
+        values[index++] = zInt;
+      }
+    }
+    return values;
+  }
+
   @Override
   public void open() {
     if (this.writer == null) {
@@ -84,6 +164,15 @@ public class CompressedScaledIntegerGriddedDigitalElevationModelWriter
     }
   }
 
+  /**
+   * Set the number of grid rows read in each block when {@link #isParallel()} is true.
+   *
+   * @param blockRowCount The number of rows.
+   */
+  public void setBlockRowCount(final int blockRowCount) {
+    this.blockRowCount = Math.max(1, blockRowCount);
+  }
+
   public void setByteBuffer(final ByteBuffer buffer) {
     this.byteBuffer = buffer;
     if (buffer != null) {
@@ -91,12 +180,27 @@ public class CompressedScaledIntegerGriddedDigitalElevationModelWriter
     }
   }
 
+  /**
+   * Read the cell values for blocks of rows concurrently while the previous rows are compressed.
+   * The values are compressed as a single stream so the compression itself remains on the
+   * calling thread. The elevation model must support concurrent reads.
+   *
+   * @param parallel True if the grid values should be read in parallel.
+   */
+  public void setParallel(final boolean parallel) {
+    this.parallel = parallel;
+  }
+
   @Override
   public void write(final GriddedElevationModel elevationModel) {
     open();
     try {
       writeHeader(elevationModel);
-      writeGrid(elevationModel);
+      if (this.parallel) {
+        writeGridParallel(elevationModel);
+      } else {
+        writeGrid(elevationModel);
+      }
     } catch (final IOException e) {
       Exceptions.throwUncheckedException(e);
     }
@@ -154,6 +258,37 @@ public class CompressedScaledIntegerGriddedDigitalElevationModelWriter
     }
   }
 
+  private void writeGridParallel(final GriddedElevationModel elevationModel) {
+    final ChannelWriter writer = this.writer;
+    final int gridWidth = this.gridWidth;
+    final int gridHeight = this.gridHeight;
+    if (gridWidth > 0 && gridHeight > 0) {
+      final GeometryFactory geometryFactory = elevationModel.getGeometryFactory();
+      try (
+        final ArithmeticEncoder encoder = new ArithmeticEncoder(writer)) {
+        final ArithmeticCodingInteger compressor = encoder.newCodecInteger(32);
+
+        final double minZ = elevationModel.getBoundingBox().getMinZ();
+        final int minZInt = geometryFactory.toIntZ(minZ);
+        final int nullInt = minZInt - 1;
+        final int blockRowCount = this.blockRowCount;
+
+        final BlockCompressor blockCompressor = new BlockCompressor(writer, compressor,
+          gridWidth);
+        try (
+          OrderedParallelExecutor<int[]> executor = new OrderedParallelExecutor<>(
+            blockCompressor)) {
+          for (int minGridY = 0; minGridY < gridHeight; minGridY += blockRowCount) {
+            final int blockMinGridY = minGridY;
+            final int blockMaxGridY = Math.min(gridHeight, minGridY + blockRowCount);
+            executor.submit(() -> newBlock(elevationModel, blockMinGridY, blockMaxGridY, nullInt));
+          }
+          executor.finish();
+        }
+      }
+    }
+  }
+
   private void writeHeader(final GriddedElevationModel elevationModel) throws IOException {
     final GeometryFactory geometryFactory = elevationModel.getGeometryFactory();
     elevationModel.updateValues();
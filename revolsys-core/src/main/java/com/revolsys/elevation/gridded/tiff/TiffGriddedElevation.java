@@ -0,0 +1,32 @@
+package com.revolsys.elevation.gridded.tiff;
+
+import com.revolsys.collection.map.MapEx;
+import com.revolsys.elevation.gridded.GriddedElevationModelReader;
+import com.revolsys.elevation.gridded.GriddedElevationModelReaderFactory;
+import com.revolsys.io.AbstractIoFactory;
+import com.revolsys.spring.resource.Resource;
+
+public class TiffGriddedElevation extends AbstractIoFactory
+  implements GriddedElevationModelReaderFactory {
+
+  public TiffGriddedElevation() {
+    super("GeoTIFF DEM");
+    addMediaTypeAndFileExtension("image/tiff", "tif");
+    addMediaTypeAndFileExtension("image/tiff", "tiff");
+  }
+
+  /**
+   * GeoTIFF is also used for images, so only single band TIFFs with elevation samples are
+   * elevation models.
+   */
+  @Override
+  public boolean isGriddedElevationModel(final Resource resource) {
+    return TiffGriddedElevationModelReader.isElevation(resource);
+  }
+
+  @Override
+  public GriddedElevationModelReader newGriddedElevationModelReader(final Resource resource,
+    final MapEx properties) {
+    return new TiffGriddedElevationModelReader(resource, properties);
+  }
+}
@@ -0,0 +1,158 @@
+package com.revolsys.elevation.gridded.tiff;
+
+import com.revolsys.collection.map.ConcurrentCache;
+import com.revolsys.elevation.gridded.FloatArrayGriddedElevationModel;
+import com.revolsys.elevation.gridded.GriddedElevationModel;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.grid.AbstractGrid;
+import com.revolsys.io.channels.ChannelReader;
+import com.revolsys.raster.io.format.tiff.image.AbstractTiffImage;
+
+/**
+ * A read only {@link GriddedElevationModel} backed by the strips or tiles of a GeoTIFF file. The
+ * strips or tiles are decoded on demand into a cache limited to
+ * {@link #getMaxCachedTileCount()} tiles so elevation models larger than memory can be used
+ * without converting them first. Only the first sample of each pixel is used. Values equal to the
+ * GDAL_NODATA value are returned as NaN.
+ */
+public class TiffGriddedElevationModel extends AbstractGrid implements GriddedElevationModel {
+
+  private static class Tile {
+    private final int index;
+
+    private final float[] samples;
+
+    private Tile(final int index, final float[] samples) {
+      this.index = index;
+      this.samples = samples;
+    }
+  }
+
+  public static final long DEFAULT_MAX_CACHE_BYTES = 64L * 1024 * 1024;
+
+  private final AbstractTiffImage image;
+
+  private final int tileWidth;
+
+  private final int tileHeight;
+
+  private final int tileCountX;
+
+  private final int sampleStride;
+
+  private final double noDataValue;
+
+  /** The samples are floats so compare with the no data value rounded to a float. */
+  private final float noDataValueFloat;
+
+  private final ConcurrentCache<Integer, Tile> tiles;
+
+  private volatile Tile lastTile;
+
+  private int maxCachedTileCount;
+
+  public TiffGriddedElevationModel(final GeometryFactory geometryFactory,
+    final AbstractTiffImage image, final double noDataValue) {
+    super(geometryFactory, image.getBoundingBox().getMinX(), image.getBoundingBox().getMinY(),
+      image.getImageWidth(), image.getImageHeight(), image.getResolutionX(),
+      image.getResolutionY());
+    this.image = image;
+    this.noDataValue = noDataValue;
+    this.noDataValueFloat = (float)noDataValue;
+    final int imageWidth = image.getImageWidth();
+    if (image.isTiled()) {
+      this.tileWidth = image.getTileWidth();
+      this.tileHeight = image.getTileHeight();
+    } else {
+      this.tileWidth = imageWidth;
+      this.tileHeight = image.getRowsPerStrip();
+    }
+    this.tileCountX = (imageWidth + this.tileWidth - 1) / this.tileWidth;
+    if (image.getPlanarConfiguration() == 2) {
+      this.sampleStride = 1;
+    } else {
+      this.sampleStride = image.getSamplesPerPixel();
+    }
+    final long tileByteCount = 4L * this.tileWidth * this.tileHeight * this.sampleStride;
+    this.maxCachedTileCount = (int)Math.max(4, DEFAULT_MAX_CACHE_BYTES / tileByteCount);
+    this.tiles = new ConcurrentCache<>(this.maxCachedTileCount);
+  }
+
+  @Override
+  public void clear() {
+    this.tiles.clear();
+    this.lastTile = null;
+  }
+
+  public int getMaxCachedTileCount() {
+    return this.maxCachedTileCount;
+  }
+
+  public double getNoDataValue() {
+    return this.noDataValue;
+  }
+
+  private Tile getTile(final int tileIndex) {
+    final Tile lastTile = this.lastTile;
+    if (lastTile != null && lastTile.index == tileIndex) {
+      return lastTile;
+    }
+    final Tile tile = this.tiles.get(tileIndex, this::readTile);
+    this.lastTile = tile;
+    return tile;
+  }
+
+  @Override
+  public double getValueFast(final int gridX, final int gridY) {
+    final int imageY = this.gridHeight - 1 - gridY;
+    final int tileX = gridX / this.tileWidth;
+    final int tileY = imageY / this.tileHeight;
+    final int tileIndex = tileY * this.tileCountX + tileX;
+    final Tile tile = getTile(tileIndex);
+
+    final int tileCellX = gridX - tileX * this.tileWidth;
+    final int tileCellY = imageY - tileY * this.tileHeight;
+    final int sampleIndex = (tileCellY * this.tileWidth + tileCellX) * this.sampleStride;
+    final float[] samples = tile.samples;
+    if (sampleIndex < samples.length) {
+      final float value = samples[sampleIndex];
+      if (Float.isNaN(value) || value == this.noDataValueFloat) {
+        return Double.NaN;
+      } else {
+        return value;
+      }
+    } else {
+      return Double.NaN;
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return false;
+  }
+
+  @Override
+  public GriddedElevationModel newGrid(final GeometryFactory geometryFactory, final double x,
+    final double y, final int width, final int height, final double gridCellSize) {
+    return new FloatArrayGriddedElevationModel(geometryFactory, x, y, width, height,
+      gridCellSize);
+  }
+
+  private Tile readTile(final int tileIndex) {
+    try (
+      ChannelReader in = this.image.getTiffDirectory().newChannelReader()) {
+      final float[] samples = this.image.readPartSamplesFloat(in, tileIndex, null);
+      return new Tile(tileIndex, samples);
+    }
+  }
+
+  public void setMaxCachedTileCount(final int maxCachedTileCount) {
+    this.maxCachedTileCount = maxCachedTileCount;
+    this.tiles.setMaxWeight(maxCachedTileCount);
+  }
+
+  @Override
+  public void setValue(final int gridX, final int gridY, final double elevation) {
+    throw new UnsupportedOperationException("Grid is read only");
+  }
+}
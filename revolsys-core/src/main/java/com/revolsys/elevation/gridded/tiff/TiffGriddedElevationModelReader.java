@@ -0,0 +1,180 @@
+package com.revolsys.elevation.gridded.tiff;
+
+import java.util.Map;
+
+import com.revolsys.elevation.gridded.GriddedElevationModel;
+import com.revolsys.elevation.gridded.GriddedElevationModelReader;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.properties.BaseObjectWithProperties;
+import com.revolsys.raster.io.format.tiff.TiffDirectory;
+import com.revolsys.raster.io.format.tiff.TiffDirectoryIterator;
+import com.revolsys.raster.io.format.tiff.code.TiffBaselineTag;
+import com.revolsys.raster.io.format.tiff.code.TiffExtensionTag;
+import com.revolsys.raster.io.format.tiff.code.TiffPhotogrametricInterpretation;
+import com.revolsys.raster.io.format.tiff.code.TiffPrivateTag;
+import com.revolsys.raster.io.format.tiff.image.AbstractTiffImage;
+import com.revolsys.raster.io.format.tiff.image.TiffImage;
+import com.revolsys.spring.resource.Resource;
+
+public class TiffGriddedElevationModelReader extends BaseObjectWithProperties
+  implements GriddedElevationModelReader {
+
+  private static final int SAMPLE_FORMAT_FLOAT = 3;
+
+  /**
+   * Get the first image in the TIFF that isn't a mask.
+   *
+   * @param iterator The directories in the TIFF.
+   * @return The directory or null if there isn't one.
+   */
+  private static TiffDirectory getImageDirectory(final TiffDirectoryIterator iterator) {
+    for (final TiffDirectory directory : iterator) {
+      if (directory.getPhotogrametricInterpretation() != TiffPhotogrametricInterpretation.MASK) {
+        return directory;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Check if the TIFF image contains elevation data. Elevation models have a single grayscale
+   * band of floating point or 16/32 bit integer samples, other images (e.g. RGB or 8 bit
+   * orthophotos) are read as georeferenced images.
+   *
+   * @param directory The TIFF directory.
+   * @return True if the image is an elevation model.
+   */
+  public static boolean isElevation(final TiffDirectory directory) {
+    if (directory == null) {
+      return false;
+    }
+    final TiffPhotogrametricInterpretation photometric = directory
+      .getPhotogrametricInterpretation();
+    if (photometric != TiffPhotogrametricInterpretation.MIN_IS_BLACK
+      && photometric != TiffPhotogrametricInterpretation.MIN_IS_WHITE) {
+      return false;
+    } else if (directory.getInt(TiffBaselineTag.SamplesPerPixel, 1) != 1) {
+      return false;
+    } else {
+      final int bitsPerSample = directory.getInt(TiffBaselineTag.BitsPerSample, 1);
+      final int sampleFormat = directory.getInt(TiffExtensionTag.SampleFormat, 1);
+      if (sampleFormat == SAMPLE_FORMAT_FLOAT) {
+        return true;
+      } else {
+        return bitsPerSample >= 16;
+      }
+    }
+  }
+
+  /**
+   * Check if the resource is a TIFF containing elevation data.
+   *
+   * @param resource The resource.
+   * @return True if the resource is an elevation model.
+   * @see #isElevation(TiffDirectory)
+   */
+  public static boolean isElevation(final Resource resource) {
+    try (
+      TiffDirectoryIterator iterator = new TiffDirectoryIterator(resource)) {
+      return isElevation(getImageDirectory(iterator));
+    } catch (final RuntimeException e) {
+      return false;
+    }
+  }
+
+  private GeometryFactory geometryFactory = GeometryFactory.DEFAULT_3D;
+
+  private AbstractTiffImage image;
+
+  private double noDataValue = Double.NaN;
+
+  private final Resource resource;
+
+  public TiffGriddedElevationModelReader(final Resource resource,
+    final Map<String, ? extends Object> properties) {
+    this.resource = resource;
+    setProperties(properties);
+  }
+
+  @Override
+  public BoundingBox getBoundingBox() {
+    final BoundingBox boundingBox = getImage().getBoundingBox();
+    final GeometryFactory geometryFactory = getGeometryFactory();
+    return geometryFactory.newBoundingBox(boundingBox.getMinX(), boundingBox.getMinY(),
+      boundingBox.getMaxX(), boundingBox.getMaxY());
+  }
+
+  @Override
+  public GeometryFactory getGeometryFactory() {
+    if (this.geometryFactory == GeometryFactory.DEFAULT_3D) {
+      final GeometryFactory imageGeometryFactory = getImage().getGeometryFactory();
+      if (imageGeometryFactory != null && imageGeometryFactory.isHasHorizontalCoordinateSystem()) {
+        this.geometryFactory = imageGeometryFactory.convertAxisCount(3);
+      } else {
+        this.geometryFactory = GeometryFactory.floating3d(this.resource,
+          GeometryFactory.DEFAULT_3D);
+      }
+    }
+    return this.geometryFactory;
+  }
+
+  @Override
+  public double getGridCellHeight() {
+    return getImage().getResolutionY();
+  }
+
+  @Override
+  public double getGridCellWidth() {
+    return getImage().getResolutionX();
+  }
+
+  private synchronized AbstractTiffImage getImage() {
+    if (this.image == null) {
+      try (
+        TiffDirectoryIterator iterator = new TiffDirectoryIterator(this.resource)) {
+        final TiffDirectory directory = getImageDirectory(iterator);
+        if (isElevation(directory)) {
+          final TiffImage image = directory.getImage();
+          if (image instanceof AbstractTiffImage) {
+            this.image = (AbstractTiffImage)image;
+            if (Double.isNaN(this.noDataValue)) {
+              final String noData = directory.getString(TiffPrivateTag.GDAL_NODATA, null);
+              if (noData != null) {
+                try {
+                  this.noDataValue = Double.parseDouble(noData.trim());
+                } catch (final NumberFormatException e) {
+                }
+              }
+            }
+            return this.image;
+          }
+        }
+      }
+      throw new IllegalArgumentException("TIFF does not contain elevation data: " + this.resource);
+    }
+    return this.image;
+  }
+
+  public double getNoDataValue() {
+    return this.noDataValue;
+  }
+
+  @Override
+  public GriddedElevationModel read() {
+    final AbstractTiffImage image = getImage();
+    final GeometryFactory geometryFactory = getGeometryFactory();
+    final TiffGriddedElevationModel elevationModel = new TiffGriddedElevationModel(
+      geometryFactory, image, this.noDataValue);
+    elevationModel.setResource(this.resource);
+    return elevationModel;
+  }
+
+  public void setGeometryFactory(final GeometryFactory geometryFactory) {
+    this.geometryFactory = geometryFactory;
+  }
+
+  public void setNoDataValue(final double noDataValue) {
+    this.noDataValue = noDataValue;
+  }
+}
@@ -23,6 +23,7 @@ package com.revolsys.geometry.filter;
 import java.util.function.Predicate;
 
 import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.prep.PreparedGeometryCache;
 
 public class IntersectsFilter<T extends Geometry> implements Predicate<T> {
   private Geometry geometry;
@@ -42,7 +43,7 @@ public class IntersectsFilter<T extends Geometry> implements Predicate<T> {
 
   public void setGeometry(final Geometry geometry) {
     this.geometry = geometry;
-    this.preparedGeometry = geometry.prepare();
+    this.preparedGeometry = PreparedGeometryCache.prepareShared(geometry);
   }
 
   @Override
@@ -0,0 +1,49 @@
+package com.revolsys.geometry.graph;
+
+import java.util.List;
+
+import com.revolsys.geometry.index.AbstractIdObjectGridIndex;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.LineString;
+
+/**
+ * The disk based edge index used by a {@link Graph} that doesn't fit in memory.
+ */
+public class EdgeGridIndex<T> extends AbstractIdObjectGridIndex<Edge<T>> {
+  private final Graph<T> graph;
+
+  public EdgeGridIndex(final Graph<T> graph, final double cellSize) {
+    super(cellSize);
+    this.graph = graph;
+    add(graph.getEdgeIds());
+  }
+
+  @Override
+  public BoundingBox getBoundingBox(final Edge<T> edge) {
+    if (edge == null) {
+      return BoundingBox.empty();
+    } else {
+      final LineString line = edge.getLineString();
+      if (line == null) {
+        return BoundingBox.empty();
+      } else {
+        return line.getBoundingBox();
+      }
+    }
+  }
+
+  @Override
+  public int getId(final Edge<T> edge) {
+    return edge.getId();
+  }
+
+  @Override
+  public Edge<T> getObject(final Integer id) {
+    return this.graph.getEdge(id);
+  }
+
+  @Override
+  public List<Edge<T>> getObjects(final List<Integer> ids) {
+    return this.graph.getEdges(ids);
+  }
+}
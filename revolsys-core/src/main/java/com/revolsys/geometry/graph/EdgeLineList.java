@@ -1,9 +1,10 @@
 package com.revolsys.geometry.graph;
 
 import java.util.AbstractList;
-import java.util.ArrayList;
 import java.util.List;
 
+import com.revolsys.collection.list.IntList;
+
 import com.revolsys.geometry.model.LineString;
 
 public class EdgeLineList extends AbstractList<LineString> {
@@ -13,7 +14,7 @@ public class EdgeLineList extends AbstractList<LineString> {
   private final Graph<?> graph;
 
   public EdgeLineList(final Graph<?> graph) {
-    this(graph, new ArrayList<Integer>());
+    this(graph, new IntList());
   }
 
   public EdgeLineList(final Graph<?> graph, final List<Integer> edgeIds) {
@@ -1,10 +1,11 @@
 package com.revolsys.geometry.graph;
 
 import java.util.AbstractList;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import com.revolsys.collection.list.IntList;
+
 public class EdgeList<T> extends AbstractList<Edge<T>> {
 
   private List<Integer> edgeIds;
@@ -12,7 +13,7 @@ public class EdgeList<T> extends AbstractList<Edge<T>> {
   private final Graph<T> graph;
 
   public EdgeList(final Graph<T> graph) {
-    this(graph, new ArrayList<Integer>());
+    this(graph, new IntList());
   }
 
   public EdgeList(final Graph<T> graph, final List<Integer> edgeIds) {
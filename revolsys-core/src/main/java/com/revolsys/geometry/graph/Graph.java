@@ -23,6 +23,7 @@ import java.util.function.Predicate;
 import javax.annotation.PreDestroy;
 
 import com.revolsys.collection.bplus.BPlusTreeMap;
+import com.revolsys.collection.list.IntList;
 import com.revolsys.collection.map.IntHashMap;
 import com.revolsys.collection.map.MapEx;
 import com.revolsys.comparator.ComparatorProxy;
@@ -50,8 +51,9 @@ import com.revolsys.geometry.model.coordinates.comparator.PointDistanceComparato
 import com.revolsys.geometry.model.impl.LineStringDouble;
 import com.revolsys.geometry.model.impl.PointDoubleXY;
 import com.revolsys.geometry.model.impl.PointDoubleXYZ;
+import com.revolsys.io.BaseCloseable;
+import com.revolsys.io.page.GeometryPageValueManager;
 import com.revolsys.io.page.PageValueManager;
-import com.revolsys.io.page.SerializablePageValueManager;
 import com.revolsys.predicate.PredicateProxy;
 import com.revolsys.predicate.Predicates;
 import com.revolsys.properties.BaseObjectWithProperties;
@@ -81,6 +83,18 @@ public class Graph<T> extends BaseObjectWithProperties implements GeometryFactor
     }
   }
 
+  /**
+   * Get the ids from the map. The keys are copied directly from an {@link IntHashMap}, other
+   * maps (e.g. once swapped to disk) use the key set.
+   */
+  private static IntList getIds(final Map<Integer, ?> map) {
+    if (map instanceof IntHashMap) {
+      return new IntList(((IntHashMap<?>)map).getKeys());
+    } else {
+      return new IntList(map.keySet());
+    }
+  }
+
   private final Map<Edge<T>, Integer> edgeIds = new TreeMap<>();
 
   private IdObjectIndex<Edge<T>> edgeIndex;
@@ -119,6 +133,8 @@ public class Graph<T> extends BaseObjectWithProperties implements GeometryFactor
 
   private GeometryFactory precisionModel = GeometryFactory.DEFAULT_3D;
 
+  private double spatialIndexCellSize;
+
   private final PointDoubleXY findPoint = new PointDoubleXY();
 
   public Graph() {
@@ -162,19 +178,26 @@ public class Graph<T> extends BaseObjectWithProperties implements GeometryFactor
   protected Edge<T> addEdge(final T object, final LineString line, final double fromX,
     final double fromY, final double toX, final double toY) {
     if (this.inMemory && getEdgeCount() >= this.maxEdgesInMemory) {
+      final GeometryFactory geometryFactory = getGeometryFactory();
       this.edgePropertiesById = BPlusTreeMap.newIntSeralizableTempDisk(this.edgePropertiesById);
       // TODO edgIds
-      // TODO edgeIndex
-      this.edgeLinesById = BPlusTreeMap.newIntSeralizableTempDisk(this.edgeLinesById);
+      if (this.edgeLinesById != null) {
+        this.edgeLinesById = BPlusTreeMap.newIntTempDisk(this.edgeLinesById,
+          new GeometryPageValueManager<LineString>(geometryFactory));
+      }
       this.edgeObjectsById = BPlusTreeMap.newIntSeralizableTempDisk(this.edgeObjectsById);
       this.edgesById = BPlusTreeMap.newIntSeralizableTempDisk(this.edgesById);
 
-      // TODO nodeIndex
       this.nodePropertiesById = BPlusTreeMap.newIntSeralizableTempDisk(this.nodePropertiesById);
       this.nodesById = BPlusTreeMap.newIntSeralizableTempDisk(this.nodesById);
-      this.nodesIdsByPoint = BPlusTreeMap.newTempDisk(this.nodesIdsByPoint,
-        new SerializablePageValueManager<Point>(), PageValueManager.INT);
+      final Map<Point, Integer> nodesIdsByPoint = BPlusTreeMap.newTempDisk(
+        PointComparators.leftLowest(), new GeometryPageValueManager<Point>(geometryFactory),
+        PageValueManager.INT);
+      nodesIdsByPoint.putAll(this.nodesIdsByPoint);
+      this.nodesIdsByPoint = nodesIdsByPoint;
       this.inMemory = false;
+      // The disk based indexes are created from the disk maps when they are next used
+      closeIndexes();
     }
     final Node<T> fromNode = getNode(fromX, fromY);
     final Node<T> toNode = getNode(toX, toY);
@@ -213,7 +236,7 @@ public class Graph<T> extends BaseObjectWithProperties implements GeometryFactor
       this.edgePropertiesById.clear();
     }
     this.edgeIds.clear();
-    // TODO edgeIndex
+    closeIndexes();
     if (this.edgeLinesById != null) {
       this.edgeLinesById.clear();
     }
@@ -225,7 +248,6 @@ public class Graph<T> extends BaseObjectWithProperties implements GeometryFactor
       this.edgesById.clear();
     }
 
-    this.nodeIndex.clear();
     if (this.nodePropertiesById != null) {
       this.nodePropertiesById.clear();
     }
@@ -260,9 +282,7 @@ public class Graph<T> extends BaseObjectWithProperties implements GeometryFactor
     if (this.edgeIds != null) {
       this.edgeIds.clear();
     }
-    if (this.edgeIndex != null) {
-      this.edgeIndex.clear();
-    }
+    closeIndexes();
     if (this.edgeLinesById != null) {
       this.edgeLinesById.clear();
     }
@@ -276,9 +296,6 @@ public class Graph<T> extends BaseObjectWithProperties implements GeometryFactor
       this.edgesById.clear();
     }
 
-    if (this.nodeIndex != null) {
-      this.nodeIndex.clear();
-    }
     if (this.nodePropertiesById != null) {
       this.nodePropertiesById.clear();
     }
@@ -290,6 +307,21 @@ public class Graph<T> extends BaseObjectWithProperties implements GeometryFactor
     }
   }
 
+  /**
+   * Discard the spatial indexes, deleting the files for disk based indexes. They will be created
+   * again when they are next used.
+   */
+  private void closeIndexes() {
+    if (this.edgeIndex instanceof BaseCloseable) {
+      ((BaseCloseable)this.edgeIndex).close();
+    }
+    this.edgeIndex = null;
+    if (this.nodeIndex instanceof BaseCloseable) {
+      ((BaseCloseable)this.nodeIndex).close();
+    }
+    this.nodeIndex = null;
+  }
+
   public boolean contains(final Edge<T> edge) {
     if (edge.getGraph() == this) {
       final int id = edge.getId();
@@ -598,7 +630,11 @@ public class Graph<T> extends BaseObjectWithProperties implements GeometryFactor
 
   public IdObjectIndex<Edge<T>> getEdgeIndex() {
     if (this.edgeIndex == null) {
-      this.edgeIndex = new EdgeQuadTree<>(this);
+      if (this.inMemory) {
+        this.edgeIndex = new EdgeQuadTree<>(this);
+      } else {
+        this.edgeIndex = new EdgeGridIndex<>(this, getSpatialIndexCellSize());
+      }
     }
     return this.edgeIndex;
   }
@@ -608,7 +644,7 @@ public class Graph<T> extends BaseObjectWithProperties implements GeometryFactor
   }
 
   public List<LineString> getEdgeLines() {
-    final List<Integer> edgeIds = new ArrayList<>(this.edgesById.keySet());
+    final List<Integer> edgeIds = getIds(this.edgesById);
     return new EdgeLineList(this, edgeIds);
   }
 
@@ -643,7 +679,7 @@ public class Graph<T> extends BaseObjectWithProperties implements GeometryFactor
   }
 
   public List<Edge<T>> getEdges() {
-    final List<Integer> edgeIds = new ArrayList<>(this.edgesById.keySet());
+    final List<Integer> edgeIds = getIds(this.edgesById);
     return new EdgeList<>(this, edgeIds);
   }
 
@@ -818,7 +854,11 @@ public class Graph<T> extends BaseObjectWithProperties implements GeometryFactor
 
   public IdObjectIndex<Node<T>> getNodeIndex() {
     if (this.nodeIndex == null) {
-      this.nodeIndex = new NodeQuadTree<>(this);
+      if (this.inMemory) {
+        this.nodeIndex = new NodeQuadTree<>(this);
+      } else {
+        this.nodeIndex = new NodeGridIndex<>(this, getSpatialIndexCellSize());
+      }
     }
     return this.nodeIndex;
   }
@@ -828,7 +868,7 @@ public class Graph<T> extends BaseObjectWithProperties implements GeometryFactor
   }
 
   public List<Node<T>> getNodes() {
-    final List<Integer> nodeIds = new ArrayList<>(this.nodesIdsByPoint.values());
+    final List<Integer> nodeIds = new IntList(this.nodesIdsByPoint.values());
     final NodeList<T> nodeList = new NodeList<>(this, nodeIds);
     nodeList.sort(PointComparators.leftLowest());
     return nodeList;
@@ -936,6 +976,23 @@ public class Graph<T> extends BaseObjectWithProperties implements GeometryFactor
     return this.precisionModel;
   }
 
+  /**
+   * Get the cell size of the disk based spatial indexes used once the graph has more than
+   * {@link #getMaxEdgesInMemory()} edges. Defaults to 0.01 for geographic coordinate systems and
+   * 1000 for projected coordinate systems.
+   *
+   * @return The cell size.
+   */
+  public double getSpatialIndexCellSize() {
+    if (this.spatialIndexCellSize > 0) {
+      return this.spatialIndexCellSize;
+    } else if (this.geometryFactory.isGeographic()) {
+      return 0.01;
+    } else {
+      return 1000;
+    }
+  }
+
   /**
    * Get the type name for the edge.
    *
@@ -1169,6 +1226,9 @@ public class Graph<T> extends BaseObjectWithProperties implements GeometryFactor
     if (!edge.isRemoved()) {
       this.edgeListeners.edgeEvent(edge, null, EdgeEvent.EDGE_REMOVED, null);
       final int edgeId = edge.getId();
+      if (this.edgeIndex != null) {
+        this.edgeIndex.remove(edge);
+      }
       this.edgeIds.remove(edge);
       this.edgesById.remove(edgeId);
       this.edgePropertiesById.remove(edgeId);
@@ -1176,9 +1236,6 @@ public class Graph<T> extends BaseObjectWithProperties implements GeometryFactor
         this.edgeLinesById.remove(edgeId);
       }
       this.edgeObjectsById.remove(edgeId);
-      if (this.edgeIndex != null) {
-        this.edgeIndex.remove(edge);
-      }
       edge.removeInternal();
     }
   }
@@ -1264,6 +1321,13 @@ public class Graph<T> extends BaseObjectWithProperties implements GeometryFactor
     setPrecisionModel(geometryFactory);
   }
 
+  /**
+   * Set the number of edges after which the graph's maps are moved to temporary files. The edge
+   * lines and node points are stored as WKB and read using {@link #getGeometryFactory()}, so only
+   * the x, y and z values are kept; any m values are dropped.
+   *
+   * @param maxEdgesInMemory The maximum number of edges in memory.
+   */
   public void setMaxEdgesInMemory(final int maxEdgesInMemory) {
     this.maxEdgesInMemory = maxEdgesInMemory;
   }
@@ -1272,6 +1336,10 @@ public class Graph<T> extends BaseObjectWithProperties implements GeometryFactor
     this.precisionModel = precisionModel;
   }
 
+  public void setSpatialIndexCellSize(final double spatialIndexCellSize) {
+    this.spatialIndexCellSize = spatialIndexCellSize;
+  }
+
   public <V extends Point> List<Edge<T>> splitEdge(final Edge<T> edge, final Collection<V> nodes) {
     return splitEdge(edge, nodes, 0.0);
   }
@@ -0,0 +1,46 @@
+package com.revolsys.geometry.graph;
+
+import java.util.List;
+
+import com.revolsys.geometry.index.AbstractIdObjectGridIndex;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.impl.BoundingBoxDoubleXY;
+
+/**
+ * The disk based node index used by a {@link Graph} that doesn't fit in memory.
+ */
+public class NodeGridIndex<T> extends AbstractIdObjectGridIndex<Node<T>> {
+  private final Graph<T> graph;
+
+  public NodeGridIndex(final Graph<T> graph, final double cellSize) {
+    super(cellSize);
+    this.graph = graph;
+    add(graph.getNodeIds());
+  }
+
+  @Override
+  public BoundingBox getBoundingBox(final Node<T> node) {
+    if (node == null) {
+      return BoundingBox.empty();
+    } else {
+      final double x = node.getX();
+      final double y = node.getY();
+      return new BoundingBoxDoubleXY(x, y, x, y);
+    }
+  }
+
+  @Override
+  public int getId(final Node<T> node) {
+    return node.getId();
+  }
+
+  @Override
+  public Node<T> getObject(final Integer id) {
+    return this.graph.getNode(id);
+  }
+
+  @Override
+  public List<Node<T>> getObjects(final List<Integer> ids) {
+    return this.graph.getNodes(ids);
+  }
+}
@@ -0,0 +1,381 @@
+package com.revolsys.geometry.graph.compact;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.ToDoubleFunction;
+
+import org.jeometry.common.exception.Exceptions;
+
+import com.revolsys.geometry.graph.Edge;
+import com.revolsys.geometry.graph.Graph;
+import com.revolsys.geometry.graph.Node;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.GeometryFactoryProxy;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.Point;
+import com.revolsys.parallel.ThreadInterruptedException;
+import com.revolsys.record.Record;
+
+/**
+ * An immutable directed graph for shortest path queries over large networks. Unlike
+ * {@link Graph} there are no node, edge or property objects; the graph is stored in compressed
+ * sparse row format using primitive arrays. The nodes are numbered 0..nodeCount-1 and the arcs
+ * out of node n are the arcs getArcStart(n) to getArcEnd(n)-1.
+ * <p>
+ * The graph is safe to share between threads. Each thread uses its own
+ * {@link CompactShortestPath} created using {@link #newShortestPath()}.
+ * </p>
+ */
+public class CompactGraph implements GeometryFactoryProxy {
+
+  private static LineString getLine(final Record record) {
+    final Geometry geometry = record.getGeometry();
+    if (geometry instanceof LineString) {
+      return (LineString)geometry;
+    } else if (geometry != null && geometry.isGeometryCollection()
+      && geometry.getGeometryCount() == 1) {
+      final Geometry part = geometry.getGeometry(0);
+      if (part instanceof LineString) {
+        return (LineString)part;
+      }
+    }
+    throw new IllegalArgumentException("Cannot add edge for a "
+      + (geometry == null ? null : geometry.getGeometryType()));
+  }
+
+  static int hash(final double x, final double y) {
+    // -0.0 == 0.0 so they must have the same hash
+    final long xBits = x == 0 ? 0 : Double.doubleToLongBits(x);
+    final long yBits = y == 0 ? 0 : Double.doubleToLongBits(y);
+    return (int)mix(mix(xBits) + yBits);
+  }
+
+  static double makePrecise(final GeometryFactory geometryFactory, final double value) {
+    if (geometryFactory == null || geometryFactory.isFloating()) {
+      return value;
+    } else {
+      return geometryFactory.makeXyPrecise(value);
+    }
+  }
+
+  /**
+   * The MurmurHash3 64-bit finalizer, so the hash of round coordinates (where the low bits are
+   * all zero) is spread over all the bits.
+   */
+  private static long mix(final long value) {
+    long hash = value;
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  /**
+   * Construct a new graph with an arc in each direction for each edge in the graph. The weight of
+   * the arcs is the length of the edge and the edge ids are the {@link Edge#getId()}.
+   *
+   * @param graph The graph.
+   * @return The compact graph.
+   */
+  public static <T> CompactGraph newGraph(final Graph<T> graph) {
+    return newGraph(graph, Edge::getLength);
+  }
+
+  /**
+   * Construct a new graph with an arc in each direction for each edge in the graph. The edge ids
+   * are the {@link Edge#getId()}.
+   *
+   * @param graph The graph.
+   * @param weightFunction The function to calculate the weight of an edge.
+   * @return The compact graph.
+   */
+  public static <T> CompactGraph newGraph(final Graph<T> graph,
+    final ToDoubleFunction<Edge<T>> weightFunction) {
+    final CompactGraphBuilder builder = new CompactGraphBuilder(graph.getGeometryFactory());
+    graph.forEachEdge(edge -> {
+      final Node<T> fromNode = edge.getFromNode();
+      final Node<T> toNode = edge.getToNode();
+      final double weight = weightFunction.applyAsDouble(edge);
+      builder.addEdge(fromNode.getX(), fromNode.getY(), toNode.getX(), toNode.getY(), weight,
+        edge.getId());
+    });
+    return builder.newGraph();
+  }
+
+  /**
+   * Construct a new graph with an arc in each direction for each line record. The weight of the
+   * arcs is the length of the line and the edge ids are the index of the record.
+   *
+   * @param records The records.
+   * @return The compact graph.
+   */
+  public static CompactGraph newGraph(final Iterable<? extends Record> records) {
+    return newGraph(records, record -> getLine(record).getLength());
+  }
+
+  /**
+   * Construct a new graph with an arc in each direction for each line record. The edge ids are
+   * the index of the record. The nodes use the geometry factory of the first record.
+   *
+   * @param records The records.
+   * @param weightFunction The function to calculate the weight of a record.
+   * @return The compact graph.
+   */
+  public static CompactGraph newGraph(final Iterable<? extends Record> records,
+    final ToDoubleFunction<Record> weightFunction) {
+    CompactGraphBuilder builder = null;
+    int edgeId = 0;
+    for (final Record record : records) {
+      final LineString line = getLine(record);
+      if (builder == null) {
+        builder = new CompactGraphBuilder(line.getGeometryFactory());
+      }
+      final double weight = weightFunction.applyAsDouble(record);
+      builder.addEdge(line, weight, edgeId++);
+    }
+    if (builder == null) {
+      builder = new CompactGraphBuilder(null);
+    }
+    return builder.newGraph();
+  }
+
+  private final int[] arcEdgeIds;
+
+  private final int[] arcOffsets;
+
+  private final int[] arcTargets;
+
+  private final double[] arcWeights;
+
+  private final double[] coordinates;
+
+  private final GeometryFactory geometryFactory;
+
+  private final double heuristicScale;
+
+  private final int[] nodeTable;
+
+  CompactGraph(final GeometryFactory geometryFactory, final double[] coordinates,
+    final int[] nodeTable, final int[] arcOffsets, final int[] arcTargets,
+    final double[] arcWeights, final int[] arcEdgeIds) {
+    this.geometryFactory = geometryFactory;
+    this.coordinates = coordinates;
+    this.nodeTable = nodeTable;
+    this.arcOffsets = arcOffsets;
+    this.arcTargets = arcTargets;
+    this.arcWeights = arcWeights;
+    this.arcEdgeIds = arcEdgeIds;
+    this.heuristicScale = newHeuristicScale();
+  }
+
+  public int getArcCount() {
+    return this.arcTargets.length;
+  }
+
+  /**
+   * Get the id of the source edge of the arc.
+   *
+   * @param arc The arc index.
+   * @return The edge id.
+   */
+  public int getArcEdgeId(final int arc) {
+    return this.arcEdgeIds[arc];
+  }
+
+  /**
+   * Get the index after the last arc out of the node.
+   *
+   * @param node The node index.
+   * @return The arc index.
+   */
+  public int getArcEnd(final int node) {
+    return this.arcOffsets[node + 1];
+  }
+
+  /**
+   * Get the index of the first arc out of the node.
+   *
+   * @param node The node index.
+   * @return The arc index.
+   */
+  public int getArcStart(final int node) {
+    return this.arcOffsets[node];
+  }
+
+  public int getArcTarget(final int arc) {
+    return this.arcTargets[arc];
+  }
+
+  public double getArcWeight(final int arc) {
+    return this.arcWeights[arc];
+  }
+
+  /**
+   * Calculate the shortest path distance from each source node to each target node. Each source
+   * is calculated in parallel on the common {@link ForkJoinPool}.
+   *
+   * @param sources The source node indexes.
+   * @param targets The target node indexes.
+   * @return The distances [sourceIndex][targetIndex], {@link Double#POSITIVE_INFINITY} if there
+   * is no path.
+   */
+  public double[][] getDistances(final int[] sources, final int[] targets) {
+    return getDistances(sources, targets, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Calculate the shortest path distance from each source node to each target node. The sources
+   * are split into batches that are calculated in parallel using the executor service, each batch
+   * uses its own {@link CompactShortestPath}.
+   *
+   * @param sources The source node indexes.
+   * @param targets The target node indexes.
+   * @param executorService The executor service to run the batches.
+   * @return The distances [sourceIndex][targetIndex], {@link Double#POSITIVE_INFINITY} if there
+   * is no path.
+   */
+  public double[][] getDistances(final int[] sources, final int[] targets,
+    final ExecutorService executorService) {
+    final double[][] distances = new double[sources.length][];
+    final int batchCount = Math.min(sources.length,
+      Runtime.getRuntime().availableProcessors() * 4);
+    if (batchCount <= 1) {
+      final CompactShortestPath shortestPath = newShortestPath();
+      for (int i = 0; i < sources.length; i++) {
+        distances[i] = shortestPath.getDistances(sources[i], targets);
+      }
+    } else {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int batch = 0; batch < batchCount; batch++) {
+        final int startIndex = batch;
+        futures.add(executorService.submit(() -> {
+          final CompactShortestPath shortestPath = newShortestPath();
+          for (int i = startIndex; i < sources.length; i += batchCount) {
+            distances[i] = shortestPath.getDistances(sources[i], targets);
+          }
+        }));
+      }
+      try {
+        for (final Future<?> future : futures) {
+          future.get();
+        }
+      } catch (final ExecutionException e) {
+        throw Exceptions.wrap(e.getCause());
+      } catch (final InterruptedException e) {
+        throw new ThreadInterruptedException(e);
+      }
+    }
+    return distances;
+  }
+
+  @Override
+  public GeometryFactory getGeometryFactory() {
+    return this.geometryFactory;
+  }
+
+  /**
+   * Get the minimum ratio of arc weight to the straight line distance between the arc's nodes.
+   * The straight line distance multiplied by this value is never more than the shortest path
+   * weight so it can be used as an A* heuristic.
+   *
+   * @return The heuristic scale.
+   */
+  public double getHeuristicScale() {
+    return this.heuristicScale;
+  }
+
+  /**
+   * Get the index of the node at the coordinates. The coordinates are rounded to the precision
+   * of the geometry factory.
+   *
+   * @param x The x coordinate.
+   * @param y The y coordinate.
+   * @return The node index or -1 if there isn't a node at the coordinates.
+   */
+  public int getNode(final double x, final double y) {
+    final double preciseX = makePrecise(this.geometryFactory, x);
+    final double preciseY = makePrecise(this.geometryFactory, y);
+    final int mask = this.nodeTable.length - 1;
+    int slot = hash(preciseX, preciseY) & mask;
+    while (true) {
+      final int node = this.nodeTable[slot];
+      if (node == -1) {
+        return -1;
+      } else if (getX(node) == preciseX && getY(node) == preciseY) {
+        return node;
+      } else {
+        slot = slot + 1 & mask;
+      }
+    }
+  }
+
+  /**
+   * Get the index of the node at the point, converting it to the graph's coordinate system.
+   *
+   * @param point The point.
+   * @return The node index or -1 if there isn't a node at the point.
+   */
+  public int getNode(final Point point) {
+    if (point == null || point.isEmpty()) {
+      return -1;
+    } else if (this.geometryFactory == null) {
+      return getNode(point.getX(), point.getY());
+    } else {
+      final Point convertedPoint = point.convertGeometry(this.geometryFactory);
+      return getNode(convertedPoint.getX(), convertedPoint.getY());
+    }
+  }
+
+  public int getNodeCount() {
+    return this.arcOffsets.length - 1;
+  }
+
+  public double getX(final int node) {
+    return this.coordinates[node * 2];
+  }
+
+  public double getY(final int node) {
+    return this.coordinates[node * 2 + 1];
+  }
+
+  private double newHeuristicScale() {
+    double scale = Double.POSITIVE_INFINITY;
+    final int nodeCount = getNodeCount();
+    for (int node = 0; node < nodeCount && scale > 0; node++) {
+      final double x = getX(node);
+      final double y = getY(node);
+      for (int arc = getArcStart(node); arc < getArcEnd(node); arc++) {
+        final int target = this.arcTargets[arc];
+        final double distance = Math.hypot(getX(target) - x, getY(target) - y);
+        if (distance > 0) {
+          final double ratio = this.arcWeights[arc] / distance;
+          if (ratio < scale) {
+            scale = ratio;
+          }
+        }
+      }
+    }
+    if (scale == Double.POSITIVE_INFINITY) {
+      return 0;
+    } else {
+      return scale;
+    }
+  }
+
+  /**
+   * Construct a new shortest path search over this graph. The search reuses its arrays between
+   * queries, so it should be reused by a thread but not shared between threads.
+   *
+   * @return The shortest path search.
+   */
+  public CompactShortestPath newShortestPath() {
+    return new CompactShortestPath(this);
+  }
+}
@@ -0,0 +1,165 @@
+package com.revolsys.geometry.graph.compact;
+
+import java.util.Arrays;
+
+import com.revolsys.collection.list.DoubleList;
+import com.revolsys.collection.list.IntList;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+
+/**
+ * Build a {@link CompactGraph} from arcs between coordinates. The end points of the arcs are
+ * rounded to the precision of the geometry factory (if it isn't floating) and arcs that share a
+ * coordinate share a node. The builder only stores primitive lists so it can be used to load
+ * large networks, it can't be reused after {@link #newGraph()}.
+ */
+public class CompactGraphBuilder {
+  private final IntList arcEdgeIds = new IntList();
+
+  private final IntList arcFromNodes = new IntList();
+
+  private final IntList arcToNodes = new IntList();
+
+  private final DoubleList arcWeights = new DoubleList();
+
+  private final DoubleList coordinates = new DoubleList();
+
+  private final GeometryFactory geometryFactory;
+
+  private int[] nodeTable = newNodeTable(1024);
+
+  public CompactGraphBuilder(final GeometryFactory geometryFactory) {
+    this.geometryFactory = geometryFactory;
+  }
+
+  /**
+   * Add a one way arc from the from coordinates to the to coordinates.
+   *
+   * @param fromX The from x coordinate.
+   * @param fromY The from y coordinate.
+   * @param toX The to x coordinate.
+   * @param toY The to y coordinate.
+   * @param weight The cost of travelling along the arc (e.g. length or time), must be &gt;= 0.
+   * @param edgeId The id of the source edge, returned by the path queries.
+   */
+  public void addArc(final double fromX, final double fromY, final double toX, final double toY,
+    final double weight, final int edgeId) {
+    if (!(weight >= 0)) {
+      throw new IllegalArgumentException("Weight must be >= 0 not " + weight);
+    }
+    final int fromNode = getNode(fromX, fromY);
+    final int toNode = getNode(toX, toY);
+    this.arcFromNodes.addInt(fromNode);
+    this.arcToNodes.addInt(toNode);
+    this.arcWeights.addDouble(weight);
+    this.arcEdgeIds.addInt(edgeId);
+  }
+
+  /**
+   * Add an arc in both directions between the from and to coordinates.
+   *
+   * @see #addArc(double, double, double, double, double, int)
+   */
+  public void addEdge(final double fromX, final double fromY, final double toX, final double toY,
+    final double weight, final int edgeId) {
+    addArc(fromX, fromY, toX, toY, weight, edgeId);
+    addArc(toX, toY, fromX, fromY, weight, edgeId);
+  }
+
+  /**
+   * Add an arc in both directions between the first and last vertices of the line.
+   *
+   * @see #addArc(double, double, double, double, double, int)
+   */
+  public void addEdge(final LineString line, final double weight, final int edgeId) {
+    final int lastVertexIndex = line.getVertexCount() - 1;
+    addEdge(line.getX(0), line.getY(0), line.getX(lastVertexIndex), line.getY(lastVertexIndex),
+      weight, edgeId);
+  }
+
+  public int getArcCount() {
+    return this.arcFromNodes.size();
+  }
+
+  private int getNode(final double sourceX, final double sourceY) {
+    final double x = CompactGraph.makePrecise(this.geometryFactory, sourceX);
+    final double y = CompactGraph.makePrecise(this.geometryFactory, sourceY);
+    final int mask = this.nodeTable.length - 1;
+    int slot = CompactGraph.hash(x, y) & mask;
+    while (true) {
+      final int node = this.nodeTable[slot];
+      if (node == -1) {
+        final int newNode = getNodeCount();
+        this.coordinates.addDouble(x);
+        this.coordinates.addDouble(y);
+        this.nodeTable[slot] = newNode;
+        if (newNode * 2 >= this.nodeTable.length) {
+          rehash();
+        }
+        return newNode;
+      } else if (this.coordinates.getDouble(node * 2) == x
+        && this.coordinates.getDouble(node * 2 + 1) == y) {
+        return node;
+      } else {
+        slot = slot + 1 & mask;
+      }
+    }
+  }
+
+  public int getNodeCount() {
+    return this.coordinates.size() / 2;
+  }
+
+  /**
+   * Construct the immutable graph. The arcs are sorted by from node using a counting sort so the
+   * arcs for each node are stored contiguously.
+   *
+   * @return The graph.
+   */
+  public CompactGraph newGraph() {
+    final int nodeCount = getNodeCount();
+    final int arcCount = getArcCount();
+    final int[] arcOffsets = new int[nodeCount + 1];
+    for (int i = 0; i < arcCount; i++) {
+      arcOffsets[this.arcFromNodes.getInt(i) + 1]++;
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      arcOffsets[node + 1] += arcOffsets[node];
+    }
+    final int[] nextArcs = Arrays.copyOf(arcOffsets, nodeCount);
+    final int[] arcTargets = new int[arcCount];
+    final double[] arcWeights = new double[arcCount];
+    final int[] arcEdgeIds = new int[arcCount];
+    for (int i = 0; i < arcCount; i++) {
+      final int arc = nextArcs[this.arcFromNodes.getInt(i)]++;
+      arcTargets[arc] = this.arcToNodes.getInt(i);
+      arcWeights[arc] = this.arcWeights.getDouble(i);
+      arcEdgeIds[arc] = this.arcEdgeIds.getInt(i);
+    }
+    final double[] coordinates = this.coordinates.toDoubleArray();
+    return new CompactGraph(this.geometryFactory, coordinates, this.nodeTable, arcOffsets,
+      arcTargets, arcWeights, arcEdgeIds);
+  }
+
+  private int[] newNodeTable(final int capacity) {
+    final int[] nodeTable = new int[capacity];
+    Arrays.fill(nodeTable, -1);
+    return nodeTable;
+  }
+
+  private void rehash() {
+    final int[] nodeTable = newNodeTable(this.nodeTable.length * 2);
+    final int mask = nodeTable.length - 1;
+    final int nodeCount = getNodeCount();
+    for (int node = 0; node < nodeCount; node++) {
+      final double x = this.coordinates.getDouble(node * 2);
+      final double y = this.coordinates.getDouble(node * 2 + 1);
+      int slot = CompactGraph.hash(x, y) & mask;
+      while (nodeTable[slot] != -1) {
+        slot = slot + 1 & mask;
+      }
+      nodeTable[slot] = node;
+    }
+    this.nodeTable = nodeTable;
+  }
+}
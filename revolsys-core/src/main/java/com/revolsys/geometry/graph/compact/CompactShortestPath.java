@@ -0,0 +1,364 @@
+package com.revolsys.geometry.graph.compact;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Dijkstra and A* shortest path searches over a {@link CompactGraph}. The distances, predecessors
+ * and priority queue are primitive arrays sized to the graph that are allocated once and reused
+ * by each search; a search stamp marks which entries belong to the current search so the arrays
+ * don't need to be cleared. The results of the last search are available until the next search.
+ * <p>
+ * This class is not thread safe, use one instance per thread. The graph can be shared.
+ * </p>
+ */
+public class CompactShortestPath {
+  /** Reduce the heuristic slightly so rounding errors can't make it overestimate. */
+  private static final double HEURISTIC_FACTOR = 1 - 1e-9;
+
+  private final double[] distances;
+
+  private final CompactGraph graph;
+
+  private int[] heapNodes = new int[1024];
+
+  private double[] heapPriorities = new double[1024];
+
+  private int heapSize;
+
+  private final int[] predecessorArcs;
+
+  private final int[] predecessorNodes;
+
+  private int remainingTargetCount;
+
+  private int settledCount;
+
+  private final int[] settledNodes;
+
+  private final int[] settledStamps;
+
+  private int stamp;
+
+  private final int[] stamps;
+
+  private int[] targetStamps;
+
+  public CompactShortestPath(final CompactGraph graph) {
+    this.graph = graph;
+    final int nodeCount = graph.getNodeCount();
+    this.distances = new double[nodeCount];
+    this.predecessorArcs = new int[nodeCount];
+    this.predecessorNodes = new int[nodeCount];
+    this.settledNodes = new int[nodeCount];
+    this.settledStamps = new int[nodeCount];
+    this.stamps = new int[nodeCount];
+  }
+
+  private void begin(final int source) {
+    if (source < 0 || source >= this.graph.getNodeCount()) {
+      throw new IllegalArgumentException("Source node " + source + " not in graph");
+    }
+    if (this.stamp == Integer.MAX_VALUE) {
+      Arrays.fill(this.stamps, 0);
+      Arrays.fill(this.settledStamps, 0);
+      if (this.targetStamps != null) {
+        Arrays.fill(this.targetStamps, 0);
+      }
+      this.stamp = 0;
+    }
+    this.stamp++;
+    this.heapSize = 0;
+    this.settledCount = 0;
+    this.remainingTargetCount = -1;
+    this.stamps[source] = this.stamp;
+    this.distances[source] = 0;
+    this.predecessorArcs[source] = -1;
+    this.predecessorNodes[source] = -1;
+  }
+
+  /**
+   * Visit the nodes settled by the last search in order of increasing distance.
+   *
+   * @param action The action to perform on each node index.
+   */
+  public void forEachSettledNode(final IntConsumer action) {
+    for (int i = 0; i < this.settledCount; i++) {
+      action.accept(this.settledNodes[i]);
+    }
+  }
+
+  /**
+   * Get the shortest path distance to the node from the last search.
+   *
+   * @param node The node index.
+   * @return The distance or {@link Double#POSITIVE_INFINITY} if the node was not reached.
+   */
+  public double getDistance(final int node) {
+    if (isSettled(node)) {
+      return this.distances[node];
+    } else {
+      return Double.POSITIVE_INFINITY;
+    }
+  }
+
+  /**
+   * Calculate the shortest path distance from the source to each of the targets. The search stops
+   * once all the targets have been reached.
+   *
+   * @param source The source node index.
+   * @param targets The target node indexes.
+   * @return The distances to each target, {@link Double#POSITIVE_INFINITY} if there is no path.
+   */
+  public double[] getDistances(final int source, final int[] targets) {
+    begin(source);
+    if (this.targetStamps == null) {
+      this.targetStamps = new int[this.graph.getNodeCount()];
+    }
+    int targetCount = 0;
+    for (final int target : targets) {
+      if (target >= 0 && this.targetStamps[target] != this.stamp) {
+        this.targetStamps[target] = this.stamp;
+        targetCount++;
+      }
+    }
+    if (targetCount > 0) {
+      this.remainingTargetCount = targetCount;
+      search(source, -1, Double.POSITIVE_INFINITY, 0);
+    }
+    final double[] distances = new double[targets.length];
+    for (int i = 0; i < targets.length; i++) {
+      final int target = targets[i];
+      if (target < 0) {
+        distances[i] = Double.POSITIVE_INFINITY;
+      } else {
+        distances[i] = getDistance(target);
+      }
+    }
+    return distances;
+  }
+
+  public CompactGraph getGraph() {
+    return this.graph;
+  }
+
+  /**
+   * Get the ids of the edges along the shortest path from the source of the last search to the
+   * target.
+   *
+   * @param target The target node index.
+   * @return The edge ids in order from the source, null if the target was not reached.
+   */
+  public int[] getPathEdgeIds(final int target) {
+    if (isSettled(target)) {
+      final int[] nodes = getPathNodes(target);
+      final int[] edgeIds = new int[nodes.length - 1];
+      for (int i = 1; i < nodes.length; i++) {
+        final int arc = this.predecessorArcs[nodes[i]];
+        edgeIds[i - 1] = this.graph.getArcEdgeId(arc);
+      }
+      return edgeIds;
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Get the nodes along the shortest path from the source of the last search to the target.
+   *
+   * @param target The target node index.
+   * @return The node indexes including the source and target, null if the target was not
+   * reached.
+   */
+  public int[] getPathNodes(final int target) {
+    if (isSettled(target)) {
+      int nodeCount = 0;
+      for (int node = target; node != -1; node = this.predecessorNodes[node]) {
+        nodeCount++;
+      }
+      final int[] nodes = new int[nodeCount];
+      int i = nodeCount;
+      for (int node = target; node != -1; node = this.predecessorNodes[node]) {
+        nodes[--i] = node;
+      }
+      return nodes;
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Get the number of nodes settled by the last search.
+   *
+   * @return The number of nodes.
+   */
+  public int getSettledNodeCount() {
+    return this.settledCount;
+  }
+
+  private int heapPoll() {
+    final int[] nodes = this.heapNodes;
+    final double[] priorities = this.heapPriorities;
+    final int result = nodes[0];
+    final int size = --this.heapSize;
+    if (size > 0) {
+      final int node = nodes[size];
+      final double priority = priorities[size];
+      int index = 0;
+      int childIndex = 1;
+      while (childIndex < size) {
+        if (childIndex + 1 < size && priorities[childIndex + 1] < priorities[childIndex]) {
+          childIndex++;
+        }
+        if (priorities[childIndex] >= priority) {
+          break;
+        }
+        nodes[index] = nodes[childIndex];
+        priorities[index] = priorities[childIndex];
+        index = childIndex;
+        childIndex = 2 * index + 1;
+      }
+      nodes[index] = node;
+      priorities[index] = priority;
+    }
+    return result;
+  }
+
+  private void heapPush(final int node, final double priority) {
+    if (this.heapSize == this.heapNodes.length) {
+      final int capacity = this.heapSize * 2;
+      this.heapNodes = Arrays.copyOf(this.heapNodes, capacity);
+      this.heapPriorities = Arrays.copyOf(this.heapPriorities, capacity);
+    }
+    final int[] nodes = this.heapNodes;
+    final double[] priorities = this.heapPriorities;
+    int index = this.heapSize++;
+    while (index > 0) {
+      final int parentIndex = (index - 1) / 2;
+      if (priorities[parentIndex] <= priority) {
+        break;
+      }
+      nodes[index] = nodes[parentIndex];
+      priorities[index] = priorities[parentIndex];
+      index = parentIndex;
+    }
+    nodes[index] = node;
+    priorities[index] = priority;
+  }
+
+  /**
+   * Check if the shortest path to the node was found by the last search.
+   *
+   * @param node The node index.
+   * @return True if the node was reached.
+   */
+  public boolean isSettled(final int node) {
+    return node >= 0 && node < this.settledStamps.length && this.settledStamps[node] == this.stamp
+      && this.stamp != 0;
+  }
+
+  /**
+   * Calculate the shortest path from the source to all the nodes in the graph.
+   *
+   * @param source The source node index.
+   */
+  public void search(final int source) {
+    searchWithin(source, Double.POSITIVE_INFINITY);
+  }
+
+  private void search(final int source, final int target, final double maxDistance,
+    final double heuristicScale) {
+    final CompactGraph graph = this.graph;
+    final double[] distances = this.distances;
+    final int[] stamps = this.stamps;
+    final int[] settledStamps = this.settledStamps;
+    final int stamp = this.stamp;
+    final boolean aStar = heuristicScale > 0;
+    final double targetX = aStar ? graph.getX(target) : 0;
+    final double targetY = aStar ? graph.getY(target) : 0;
+    heapPush(source, 0);
+    while (this.heapSize > 0) {
+      final int node = heapPoll();
+      if (settledStamps[node] != stamp) {
+        final double distance = distances[node];
+        if (distance > maxDistance) {
+          return;
+        }
+        settledStamps[node] = stamp;
+        this.settledNodes[this.settledCount++] = node;
+        if (node == target) {
+          return;
+        } else if (this.remainingTargetCount > 0 && this.targetStamps[node] == stamp) {
+          if (--this.remainingTargetCount == 0) {
+            return;
+          }
+        }
+        final int arcEnd = graph.getArcEnd(node);
+        for (int arc = graph.getArcStart(node); arc < arcEnd; arc++) {
+          final int nextNode = graph.getArcTarget(arc);
+          if (settledStamps[nextNode] != stamp) {
+            final double nextDistance = distance + graph.getArcWeight(arc);
+            if (stamps[nextNode] != stamp || nextDistance < distances[nextNode]) {
+              stamps[nextNode] = stamp;
+              distances[nextNode] = nextDistance;
+              this.predecessorArcs[nextNode] = arc;
+              this.predecessorNodes[nextNode] = node;
+              double priority = nextDistance;
+              if (aStar) {
+                priority += heuristicScale * Math.hypot(graph.getX(nextNode) - targetX,
+                  graph.getY(nextNode) - targetY);
+              }
+              heapPush(nextNode, priority);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Calculate the shortest path from the source to the target using A*. The straight line
+   * distance to the target scaled by {@link CompactGraph#getHeuristicScale()} is used as the
+   * heuristic so fewer nodes are settled than {@link #searchDijkstra(int, int)}.
+   *
+   * @param source The source node index.
+   * @param target The target node index.
+   * @return The distance or {@link Double#POSITIVE_INFINITY} if there is no path.
+   */
+  public double searchAStar(final int source, final int target) {
+    begin(source);
+    if (target < 0 || target >= this.graph.getNodeCount()) {
+      return Double.POSITIVE_INFINITY;
+    } else {
+      final double heuristicScale = this.graph.getHeuristicScale() * HEURISTIC_FACTOR;
+      search(source, target, Double.POSITIVE_INFINITY, heuristicScale);
+      return getDistance(target);
+    }
+  }
+
+  /**
+   * Calculate the shortest path from the source to the target using Dijkstra's algorithm. The
+   * search stops once the target is reached.
+   *
+   * @param source The source node index.
+   * @param target The target node index.
+   * @return The distance or {@link Double#POSITIVE_INFINITY} if there is no path.
+   */
+  public double searchDijkstra(final int source, final int target) {
+    begin(source);
+    search(source, target, Double.POSITIVE_INFINITY, 0);
+    return getDistance(target);
+  }
+
+  /**
+   * Calculate the shortest path from the source to all the nodes within the max distance (e.g.
+   * for a service area).
+   *
+   * @param source The source node index.
+   * @param maxDistance The maximum distance.
+   */
+  public void searchWithin(final int source, final double maxDistance) {
+    begin(source);
+    search(source, -1, maxDistance, 0);
+  }
+}
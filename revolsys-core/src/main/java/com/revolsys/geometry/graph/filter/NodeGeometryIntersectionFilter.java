@@ -5,6 +5,7 @@ import java.util.function.Predicate;
 import com.revolsys.geometry.graph.Node;
 import com.revolsys.geometry.model.Geometry;
 import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.prep.PreparedGeometryCache;
 
 public class NodeGeometryIntersectionFilter<T> implements Predicate<Node<T>> {
 
@@ -20,7 +21,7 @@ public class NodeGeometryIntersectionFilter<T> implements Predicate<Node<T>> {
   }
 
   public void setGeometry(final Geometry geometry) {
-    this.preparedGeometry = geometry.prepare();
+    this.preparedGeometry = PreparedGeometryCache.prepareShared(geometry);
     this.geometryFactory = geometry.getGeometryFactory();
   }
 
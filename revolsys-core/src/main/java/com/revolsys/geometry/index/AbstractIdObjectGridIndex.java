@@ -0,0 +1,321 @@
+package com.revolsys.geometry.index;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+import com.revolsys.collection.bplus.BPlusTreeMap;
+import com.revolsys.collection.bplus.BPlusTreePageValueManager;
+import com.revolsys.collection.list.IntList;
+import com.revolsys.collection.list.LongList;
+import com.revolsys.collection.map.ConcurrentCache;
+import com.revolsys.collection.map.ConcurrentCache.RemovalCause;
+import com.revolsys.collection.set.IntHashSet;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.BoundingBoxProxy;
+import com.revolsys.io.BaseCloseable;
+import com.revolsys.io.page.BufferPoolPageManager;
+import com.revolsys.io.page.IntListPageValueManager;
+import com.revolsys.io.page.PageValueManager;
+import com.revolsys.visitor.CreateListVisitor;
+
+/**
+ * A spatial index of object ids stored on disk so that the index doesn't have to fit in memory.
+ * The plane is divided into a grid of square cells and the id of each object is stored in each
+ * cell its bounding box intersects. The cells are stored in a {@link BPlusTreeMap} in a temporary
+ * file and the most recently used cells are kept in a bounded {@link ConcurrentCache}. Modified
+ * cells are written back to disk when they are evicted from the cache.
+ * <p>
+ * The objects are loaded using {@link #getObject(Integer)} so they can also be stored on disk.
+ * The cell size should be about the size of a typical object, for example the length of a road
+ * segment. This class is not thread safe.
+ * </p>
+ */
+public abstract class AbstractIdObjectGridIndex<T> implements IdObjectIndex<T>, BaseCloseable {
+  private static class Cell {
+    private boolean dirty;
+
+    private final IntList ids;
+
+    private Cell(final IntList ids) {
+      this.ids = ids;
+    }
+  }
+
+  public static final int DEFAULT_MAX_CACHED_CELLS = 10000;
+
+  private static long cellKey(final int cellX, final int cellY) {
+    return (long)cellX << 32 | cellY & 0xFFFFFFFFL;
+  }
+
+  private final ConcurrentCache<Long, Cell> cache;
+
+  private int cellCount;
+
+  private Map<Long, IntList> cells;
+
+  private final double cellSize;
+
+  private BufferPoolPageManager pageManager;
+
+  public AbstractIdObjectGridIndex(final double cellSize) {
+    this(cellSize, DEFAULT_MAX_CACHED_CELLS);
+  }
+
+  /**
+   * @param cellSize The width and height of the grid cells.
+   * @param maxCachedCells The maximum number of cells kept in memory.
+   */
+  public AbstractIdObjectGridIndex(final double cellSize, final int maxCachedCells) {
+    if (!(cellSize > 0)) {
+      throw new IllegalArgumentException("Cell size must be > 0 not " + cellSize);
+    }
+    this.cellSize = cellSize;
+    this.cache = new ConcurrentCache<>(maxCachedCells);
+    this.cache.setRemovalListener(this::cellRemoved);
+    newCells();
+  }
+
+  public void add(final Collection<Integer> ids) {
+    for (final Integer id : ids) {
+      final T object = getObject(id);
+      add(object);
+    }
+  }
+
+  @Override
+  public T add(final T object) {
+    final BoundingBox boundingBox = getBoundingBox(object);
+    if (!boundingBox.isEmpty()) {
+      final int id = getId(object);
+      forEachCellKey(boundingBox, key -> {
+        Cell cell = loadCell(key);
+        if (cell == null) {
+          cell = new Cell(new IntList(4));
+          this.cellCount++;
+        }
+        cell.ids.addInt(id);
+        cell.dirty = true;
+        this.cache.put(key, cell);
+      });
+    }
+    return object;
+  }
+
+  private int cellIndex(final double coordinate) {
+    final double index = Math.floor(coordinate / this.cellSize);
+    if (index < Integer.MIN_VALUE) {
+      return Integer.MIN_VALUE;
+    } else if (index > Integer.MAX_VALUE) {
+      return Integer.MAX_VALUE;
+    } else {
+      return (int)index;
+    }
+  }
+
+  private void cellRemoved(final Long key, final Cell cell, final RemovalCause cause) {
+    if (cause == RemovalCause.EVICTED && cell.dirty) {
+      writeCell(key, cell);
+    }
+  }
+
+  @Override
+  public void clear() {
+    close();
+    this.cellCount = 0;
+    newCells();
+  }
+
+  /**
+   * Delete the temporary file.
+   */
+  @Override
+  public void close() {
+    this.cache.clear();
+    if (this.pageManager != null) {
+      this.pageManager.close();
+      this.pageManager = null;
+    }
+  }
+
+  /**
+   * Write the modified cells in the cache to disk.
+   */
+  public void flush() {
+    this.cache.forEach((key, cell) -> {
+      if (cell.dirty) {
+        writeCell(key, cell);
+      }
+    });
+  }
+
+  @Override
+  public void forEach(final BoundingBoxProxy boundingBoxProxy, final Consumer<? super T> action) {
+    forEach(boundingBoxProxy, null, action);
+  }
+
+  @Override
+  public void forEach(final BoundingBoxProxy boundingBoxProxy, final Predicate<? super T> filter,
+    final Consumer<? super T> action) {
+    final BoundingBox boundingBox = boundingBoxProxy.getBoundingBox();
+    if (!boundingBox.isEmpty()) {
+      final int minCellX = cellIndex(boundingBox.getMinX());
+      final int minCellY = cellIndex(boundingBox.getMinY());
+      final int maxCellX = cellIndex(boundingBox.getMaxX());
+      final int maxCellY = cellIndex(boundingBox.getMaxY());
+      final long rangeCellCount = ((long)maxCellX - minCellX + 1) * ((long)maxCellY - minCellY + 1);
+      final LongList keys = new LongList();
+      if (rangeCellCount <= this.cellCount) {
+        forEachCellKey(boundingBox, keys::addLong);
+      } else {
+        flush();
+        for (final Long key : this.cells.keySet()) {
+          final int cellX = (int)(key >> 32);
+          final int cellY = (int)(long)key;
+          if (cellX >= minCellX && cellX <= maxCellX && cellY >= minCellY && cellY <= maxCellY) {
+            keys.addLong(key);
+          }
+        }
+      }
+      for (int i = 0; i < keys.size(); i++) {
+        final long key = keys.getLong(i);
+        final Cell cell = getCell(key);
+        if (cell != null) {
+          final int cellX = (int)(key >> 32);
+          final int cellY = (int)key;
+          final int[] ids = cell.ids.toIntArray();
+          for (final int id : ids) {
+            final T object = getObject(id);
+            if (object != null) {
+              final BoundingBox objectBoundingBox = getBoundingBox(object);
+              if (objectBoundingBox.bboxIntersects(boundingBox)) {
+                // Only visit objects in more than one cell from the first cell in the query
+                final int firstCellX = Math.max(cellIndex(objectBoundingBox.getMinX()), minCellX);
+                final int firstCellY = Math.max(cellIndex(objectBoundingBox.getMinY()), minCellY);
+                if (firstCellX == cellX && firstCellY == cellY) {
+                  if (filter == null || filter.test(object)) {
+                    action.accept(object);
+                  }
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private void forEachCellKey(final BoundingBox boundingBox, final LongConsumer action) {
+    final int minCellX = cellIndex(boundingBox.getMinX());
+    final int minCellY = cellIndex(boundingBox.getMinY());
+    final int maxCellX = cellIndex(boundingBox.getMaxX());
+    final int maxCellY = cellIndex(boundingBox.getMaxY());
+    for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+      for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+        action.accept(cellKey(cellX, cellY));
+      }
+    }
+  }
+
+  /**
+   * Get the cell and add it to the cache if it was read from disk.
+   */
+  private Cell getCell(final long key) {
+    Cell cell = this.cache.get(key);
+    if (cell == null) {
+      final IntList ids = this.cells.get(key);
+      if (ids != null) {
+        cell = new Cell(ids);
+        this.cache.put(key, cell);
+      }
+    }
+    return cell;
+  }
+
+  /**
+   * Get the number of grid cells that contain objects (or did before they were removed).
+   *
+   * @return The number of cells.
+   */
+  public int getCellCount() {
+    return this.cellCount;
+  }
+
+  public double getCellSize() {
+    return this.cellSize;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return queryAll().iterator();
+  }
+
+  /**
+   * Get the cell from the cache or disk without adding it to the cache. The caller must
+   * {@link ConcurrentCache#put(Object, Object)} the cell after it has been modified.
+   */
+  private Cell loadCell(final long key) {
+    final Cell cell = this.cache.get(key);
+    if (cell == null) {
+      final IntList ids = this.cells.get(key);
+      if (ids != null) {
+        return new Cell(ids);
+      }
+    }
+    return cell;
+  }
+
+  private void newCells() {
+    this.pageManager = new BufferPoolPageManager();
+    this.cells = BPlusTreeMap.newMap(this.pageManager, PageValueManager.LONG,
+      BPlusTreePageValueManager.newPageValueManager(this.pageManager,
+        new IntListPageValueManager()));
+  }
+
+  @Override
+  public List<T> query(final BoundingBox envelope) {
+    final CreateListVisitor<T> visitor = new CreateListVisitor<>();
+    forEach(envelope, visitor);
+    return visitor.getList();
+  }
+
+  public List<T> queryAll() {
+    flush();
+    final IntHashSet ids = new IntHashSet();
+    for (final IntList cellIds : this.cells.values()) {
+      cellIds.forEachInt(ids::addInt);
+    }
+    final IntList idList = new IntList(ids.toIntArray());
+    idList.sort();
+    return getObjects(idList);
+  }
+
+  @Override
+  public boolean remove(final T object) {
+    final BoundingBox boundingBox = getBoundingBox(object);
+    final boolean[] removed = new boolean[1];
+    if (!boundingBox.isEmpty()) {
+      final int id = getId(object);
+      forEachCellKey(boundingBox, key -> {
+        final Cell cell = loadCell(key);
+        if (cell != null && cell.ids.removeInt(id)) {
+          cell.dirty = true;
+          this.cache.put(key, cell);
+          removed[0] = true;
+        }
+      });
+    }
+    return removed[0];
+  }
+
+  private void writeCell(final Long key, final Cell cell) {
+    cell.dirty = false;
+    if (this.pageManager != null) {
+      this.cells.put(key, cell.ids);
+    }
+  }
+}
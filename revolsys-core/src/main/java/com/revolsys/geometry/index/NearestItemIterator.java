@@ -0,0 +1,45 @@
+package com.revolsys.geometry.index;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An iterator over the items in a spatial index in order of increasing distance from a query.
+ * The items are found incrementally so the iteration can be stopped at any time.
+ */
+public interface NearestItemIterator<T> extends Iterator<T>, Iterable<T> {
+
+  /**
+   * Get the distance from the query to the item last returned by {@link #next()}.
+   */
+  double getDistance();
+
+  /**
+   * Get the next nearest item or null if there are no more items.
+   */
+  default T getNext() {
+    if (hasNext()) {
+      return next();
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Get up to the next count nearest items.
+   */
+  default List<T> getNext(final int count) {
+    final List<T> items = new ArrayList<>(Math.min(count, 16));
+    while (items.size() < count && hasNext()) {
+      final T item = next();
+      items.add(item);
+    }
+    return items;
+  }
+
+  @Override
+  default Iterator<T> iterator() {
+    return this;
+  }
+}
@@ -0,0 +1,251 @@
+package com.revolsys.geometry.index;
+
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A best-first incremental nearest neighbour search of a spatial index (Hjaltason and Samet).
+ * <p>
+ * The nodes and items of the index are added to a priority queue ordered by their minimum
+ * distance from the query bounding box. When a node reaches the head of the queue the
+ * {@link NodeExpander} adds its child nodes and items. Items added with a bounding box are queued
+ * with the bounding box distance, the item distance function is only called when the item reaches
+ * the head of the queue and the item is then queued again with its real distance. An item with a
+ * real distance at the head of the queue is the next nearest item, so the work done is
+ * proportional to the number of items returned, not the size of the index.
+ * </p>
+ * <p>
+ * If the item distance function is null the distance to the item's bounding box is used. Items
+ * where the item distance function returns {@link Double#POSITIVE_INFINITY} (e.g. no geometry)
+ * are not returned.
+ * </p>
+ *
+ * @param <N> The type of node in the index.
+ * @param <T> The type of item in the index.
+ */
+public class NearestItemSearch<N, T> implements NearestItemIterator<T> {
+
+  private static final class Entry implements Comparable<Entry> {
+    private final double distance;
+
+    private final byte type;
+
+    private final Object value;
+
+    private double minX;
+
+    private double minY;
+
+    private double maxX;
+
+    private double maxY;
+
+    private Entry(final double distance, final byte type, final Object value) {
+      this.distance = distance;
+      this.type = type;
+      this.value = value;
+    }
+
+    @Override
+    public int compareTo(final Entry entry) {
+      final int compare = Double.compare(this.distance, entry.distance);
+      if (compare == 0) {
+        // Return the items before expanding nodes at the same distance
+        return Integer.compare(entry.type, this.type);
+      } else {
+        return compare;
+      }
+    }
+  }
+
+  /**
+   * Add the child nodes and items of a node to a search.
+   */
+  @FunctionalInterface
+  public interface NodeExpander<N, T> {
+    void expand(NearestItemSearch<N, T> search, N node, double minX, double minY, double maxX,
+      double maxY);
+  }
+
+  private static final byte ITEM = 2;
+
+  private static final byte ITEM_BOUNDS = 1;
+
+  private static final byte NODE = 0;
+
+  public static double bboxDistance(final double minX1, final double minY1, final double maxX1,
+    final double maxY1, final double minX2, final double minY2, final double maxX2,
+    final double maxY2) {
+    double dx = 0;
+    if (maxX1 < minX2) {
+      dx = minX2 - maxX1;
+    } else if (maxX2 < minX1) {
+      dx = minX1 - maxX2;
+    }
+    double dy = 0;
+    if (maxY1 < minY2) {
+      dy = minY2 - maxY1;
+    } else if (maxY2 < minY1) {
+      dy = minY1 - maxY2;
+    }
+    if (dx == 0) {
+      return dy;
+    } else if (dy == 0) {
+      return dx;
+    } else {
+      return Math.sqrt(dx * dx + dy * dy);
+    }
+  }
+
+  private double distance = Double.NaN;
+
+  private final ToDoubleFunction<? super T> itemDistance;
+
+  private final double maxDistance;
+
+  private final double maxX;
+
+  private final double maxY;
+
+  private final double minX;
+
+  private final double minY;
+
+  private Entry next;
+
+  private final NodeExpander<N, T> nodeExpander;
+
+  private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+
+  /**
+   * Construct a new search.
+   *
+   * @param minX The min x of the query bounding box.
+   * @param minY The min y of the query bounding box.
+   * @param maxX The max x of the query bounding box.
+   * @param maxY The max y of the query bounding box.
+   * @param maxDistance The maximum distance of items to return.
+   * @param itemDistance The distance from the query to an item, or null to use the item's bounding
+   * box.
+   * @param nodeExpander The function to add the child nodes and items of a node.
+   */
+  public NearestItemSearch(final double minX, final double minY, final double maxX,
+    final double maxY, final double maxDistance, final ToDoubleFunction<? super T> itemDistance,
+    final NodeExpander<N, T> nodeExpander) {
+    this.minX = minX;
+    this.minY = minY;
+    this.maxX = maxX;
+    this.maxY = maxY;
+    this.maxDistance = maxDistance;
+    this.itemDistance = itemDistance;
+    this.nodeExpander = nodeExpander;
+  }
+
+  private void add(final double distance, final byte type, final Object value) {
+    final Entry entry = new Entry(distance, type, value);
+    this.queue.add(entry);
+  }
+
+  /**
+   * Add an item using the item distance function.
+   */
+  public void addItem(final T item) {
+    final double distance = this.itemDistance.applyAsDouble(item);
+    if (isWithinDistance(distance)) {
+      add(distance, ITEM, item);
+    }
+  }
+
+  /**
+   * Add an item at a point.
+   */
+  public void addItem(final T item, final double x, final double y) {
+    addItem(item, x, y, x, y);
+  }
+
+  /**
+   * Add an item with the bounding box.
+   */
+  public void addItem(final T item, final double minX, final double minY, final double maxX,
+    final double maxY) {
+    final double distance = bboxDistance(minX, minY, maxX, maxY);
+    if (distance <= this.maxDistance) {
+      if (this.itemDistance == null) {
+        add(distance, ITEM, item);
+      } else {
+        add(distance, ITEM_BOUNDS, item);
+      }
+    }
+  }
+
+  /**
+   * Add a node with the bounding box. The bounds may be infinite for nodes that are unbounded on
+   * one side (e.g. point quad tree quadrants).
+   */
+  public void addNode(final N node, final double minX, final double minY, final double maxX,
+    final double maxY) {
+    final double distance = bboxDistance(minX, minY, maxX, maxY);
+    if (distance <= this.maxDistance) {
+      final Entry entry = new Entry(distance, NODE, node);
+      entry.minX = minX;
+      entry.minY = minY;
+      entry.maxX = maxX;
+      entry.maxY = maxY;
+      this.queue.add(entry);
+    }
+  }
+
+  /**
+   * Get the distance from the query bounding box to the bounding box.
+   */
+  public double bboxDistance(final double minX, final double minY, final double maxX,
+    final double maxY) {
+    return bboxDistance(this.minX, this.minY, this.maxX, this.maxY, minX, minY, maxX, maxY);
+  }
+
+  @Override
+  public double getDistance() {
+    return this.distance;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public boolean hasNext() {
+    while (this.next == null) {
+      final Entry entry = this.queue.poll();
+      if (entry == null) {
+        return false;
+      } else if (entry.type == ITEM) {
+        this.next = entry;
+      } else if (entry.type == ITEM_BOUNDS) {
+        final T item = (T)entry.value;
+        final double distance = this.itemDistance.applyAsDouble(item);
+        if (isWithinDistance(distance)) {
+          add(distance, ITEM, item);
+        }
+      } else {
+        final N node = (N)entry.value;
+        this.nodeExpander.expand(this, node, entry.minX, entry.minY, entry.maxX, entry.maxY);
+      }
+    }
+    return true;
+  }
+
+  private boolean isWithinDistance(final double distance) {
+    return distance <= this.maxDistance && distance != Double.POSITIVE_INFINITY;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T next() {
+    if (hasNext()) {
+      final Entry entry = this.next;
+      this.next = null;
+      this.distance = entry.distance;
+      return (T)entry.value;
+    } else {
+      throw new NoSuchElementException();
+    }
+  }
+}
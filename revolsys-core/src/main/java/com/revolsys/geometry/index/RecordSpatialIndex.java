@@ -8,6 +8,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
 
 import com.revolsys.geometry.index.quadtree.QuadTree;
 import com.revolsys.geometry.model.BoundingBox;
@@ -98,6 +99,25 @@ public class RecordSpatialIndex<R extends Record> implements SpatialIndex<R> {
     return results;
   }
 
+  /**
+   * Get the nearest record to the geometry within the max distance.
+   *
+   * @see #nearestRecords(Geometry, double)
+   */
+  public R getNearestRecord(final Geometry geometry, final double maxDistance) {
+    return nearestRecords(geometry, maxDistance).getNext();
+  }
+
+  /**
+   * Get up to count nearest records to the geometry within the max distance.
+   *
+   * @see #nearestRecords(Geometry, double)
+   */
+  public List<R> getNearestRecords(final Geometry geometry, final int count,
+    final double maxDistance) {
+    return nearestRecords(geometry, maxDistance).getNext(count);
+  }
+
   public List<R> getRecordsDistance(final Geometry geometry, final double distance) {
     if (geometry == null) {
       return Collections.emptyList();
@@ -120,6 +140,36 @@ public class RecordSpatialIndex<R extends Record> implements SpatialIndex<R> {
     this.spatialIndex.insertItem(boundingBox, item);
   }
 
+  @Override
+  public NearestItemIterator<R> nearestItems(final double minX, final double minY,
+    final double maxX, final double maxY, final double maxDistance,
+    final ToDoubleFunction<? super R> itemDistance) {
+    return this.spatialIndex.nearestItems(minX, minY, maxX, maxY, maxDistance, itemDistance);
+  }
+
+  /**
+   * Get an iterator over the records within the max distance of the geometry in order of
+   * increasing distance between the record's geometry and the geometry. Records without a
+   * geometry are ignored.
+   *
+   * @param geometry The geometry to find the nearest records to.
+   * @param maxDistance The maximum distance, use {@link Double#POSITIVE_INFINITY} for no limit.
+   * @return The iterator.
+   */
+  public NearestItemIterator<R> nearestRecords(final Geometry geometry,
+    final double maxDistance) {
+    final Geometry queryGeometry = geometry.convertGeometry(getGeometryFactory());
+    final BoundingBox boundingBox = queryGeometry.getBoundingBox();
+    return nearestItems(boundingBox, maxDistance, record -> {
+      final Geometry recordGeometry = record.getGeometry();
+      if (recordGeometry == null || recordGeometry.isEmpty()) {
+        return Double.POSITIVE_INFINITY;
+      } else {
+        return recordGeometry.distanceGeometry(queryGeometry);
+      }
+    });
+  }
+
   public void query(final Geometry geometry, final Consumer<R> visitor) {
     final BoundingBox boundingBox = geometry.getBoundingBox();
     forEach(boundingBox, visitor);
@@ -35,6 +35,7 @@ package com.revolsys.geometry.index;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
 
 import org.jeometry.common.function.Consumer3;
 
@@ -168,6 +169,26 @@ public interface SpatialIndex<T> extends GeometryFactoryProxy {
     return visitor.getList();
   }
 
+  /**
+   * Get the nearest item to the point within the max distance.
+   *
+   * @see #nearestItems(double, double, double, double, double, ToDoubleFunction)
+   */
+  default T getNearestItem(final double x, final double y, final double maxDistance,
+    final ToDoubleFunction<? super T> itemDistance) {
+    return nearestItems(x, y, x, y, maxDistance, itemDistance).getNext();
+  }
+
+  /**
+   * Get up to count nearest items to the point within the max distance.
+   *
+   * @see #nearestItems(double, double, double, double, double, ToDoubleFunction)
+   */
+  default List<T> getNearestItems(final double x, final double y, final int count,
+    final double maxDistance, final ToDoubleFunction<? super T> itemDistance) {
+    return nearestItems(x, y, x, y, maxDistance, itemDistance).getNext(count);
+  }
+
   int getSize();
 
   /**
@@ -180,6 +201,59 @@ public interface SpatialIndex<T> extends GeometryFactoryProxy {
     insertItem(boundingBox, item);
   }
 
+  default NearestItemIterator<T> nearestItems(final BoundingBoxProxy boundingBoxProxy,
+    final double maxDistance, final ToDoubleFunction<? super T> itemDistance) {
+    final BoundingBox boundingBox = convertBoundingBox(boundingBoxProxy);
+    final double minX = boundingBox.getMinX();
+    final double minY = boundingBox.getMinY();
+    final double maxX = boundingBox.getMaxX();
+    final double maxY = boundingBox.getMaxY();
+    return nearestItems(minX, minY, maxX, maxY, maxDistance, itemDistance);
+  }
+
+  /**
+   * Get an iterator over the items within the max distance of the query bounding box in order of
+   * increasing distance. The items are found incrementally using a best-first search of the index
+   * so only the part of the index needed for the items returned is searched.
+   * <p>
+   * The item distance function returns the distance from the query to the item (e.g. using the
+   * item's geometry). It must not be less than the distance from the query bounding box to the
+   * item's bounding box. If null the distance to the item's bounding box is used. The default
+   * implementation for indexes without a native search requires an item distance function and
+   * finds all the items within the max distance before returning the first item.
+   * </p>
+   *
+   * @param minX The min x of the query bounding box.
+   * @param minY The min y of the query bounding box.
+   * @param maxX The max x of the query bounding box.
+   * @param maxY The max y of the query bounding box.
+   * @param maxDistance The maximum distance, use {@link Double#POSITIVE_INFINITY} for no limit.
+   * @param itemDistance The distance from the query to an item.
+   * @return The iterator.
+   */
+  default NearestItemIterator<T> nearestItems(final double minX, final double minY,
+    final double maxX, final double maxY, final double maxDistance,
+    final ToDoubleFunction<? super T> itemDistance) {
+    if (itemDistance == null) {
+      throw new IllegalArgumentException("An item distance function is required");
+    }
+    final NearestItemSearch<Void, T> search = new NearestItemSearch<>(minX, minY, maxX, maxY,
+      maxDistance, itemDistance, null);
+    final Consumer<T> action = search::addItem;
+    if (Double.isInfinite(maxDistance)) {
+      forEach(action);
+    } else {
+      forEach(minX - maxDistance, minY - maxDistance, maxX + maxDistance, maxY + maxDistance,
+        action);
+    }
+    return search;
+  }
+
+  default NearestItemIterator<T> nearestItems(final double x, final double y,
+    final double maxDistance, final ToDoubleFunction<? super T> itemDistance) {
+    return nearestItems(x, y, x, y, maxDistance, itemDistance);
+  }
+
   /**
    * Removes a single item from the tree.
    *
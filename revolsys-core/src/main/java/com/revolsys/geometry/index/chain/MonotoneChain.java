@@ -32,9 +32,7 @@
  */
 package com.revolsys.geometry.index.chain;
 
-import java.util.ArrayList;
-import java.util.List;
-
+import com.revolsys.collection.list.IntList;
 import com.revolsys.geometry.geomgraph.Quadrant;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.LineString;
@@ -142,11 +140,11 @@ public class MonotoneChain extends BoundingBoxDoubleXY {
 
   public static MonotoneChain[] getChainsArray(final LineString points,
     final SegmentString context) {
-    final List<Integer> indices = getChainStartIndices(points);
+    final IntList indices = getChainStartIndices(points);
     final MonotoneChain[] mcList = new MonotoneChain[indices.size() - 1];
-    int startIndex = indices.get(0);
+    int startIndex = indices.getInt(0);
     for (int i = 1; i < indices.size(); i++) {
-      final int endIndex = indices.get(i);
+      final int endIndex = indices.getInt(i);
       final MonotoneChain chain = new MonotoneChain(points, startIndex, endIndex, context);
       mcList[i - 1] = chain;
       startIndex = endIndex;
@@ -160,15 +158,15 @@ public class MonotoneChain extends BoundingBoxDoubleXY {
    * The last entry in the array line to the end point of the point array,
    * for use as a sentinel.
    */
-  private static List<Integer> getChainStartIndices(final LineString line) {
+  private static IntList getChainStartIndices(final LineString line) {
     // find the startpoint (and endpoints) of all monotone chains in this edge
     int start = 0;
-    final List<Integer> startIndexList = new ArrayList<>();
-    startIndexList.add(start);
+    final IntList startIndexList = new IntList();
+    startIndexList.addInt(start);
     final int vertexCount = line.getVertexCount();
     do {
       final int last = findChainEnd(line, start);
-      startIndexList.add(last);
+      startIndexList.addInt(last);
       start = last;
     } while (start < vertexCount - 1);
     return startIndexList;
@@ -60,7 +60,7 @@ public class SortedPackedIntervalRTree<V> {
 
   private int level = 0;
 
-  private IntervalRTreeNode<V> root = null;
+  private volatile IntervalRTreeNode<V> root = null;
 
   private Comparator<IntervalRTreeNode<V>> comparator;
 
@@ -140,9 +140,13 @@ public class SortedPackedIntervalRTree<V> {
    * @param visitor the visitor to pass any matched items to
    */
   public void query(final double min, final double max, final Consumer<? super V> visitor) {
-    init();
+    IntervalRTreeNode<V> root = this.root;
+    if (root == null) {
+      init();
+      root = this.root;
+    }
     try {
-      this.root.query(min, max, visitor);
+      root.query(min, max, visitor);
     } catch (final ExitLoopException e) {
     }
   }
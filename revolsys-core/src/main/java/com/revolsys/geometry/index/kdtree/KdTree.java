@@ -7,6 +7,8 @@ import java.util.function.Predicate;
 
 import org.jeometry.common.function.BiFunctionDouble;
 
+import com.revolsys.geometry.index.NearestItemIterator;
+import com.revolsys.geometry.index.NearestItemSearch;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.GeometryFactory;
 import com.revolsys.geometry.model.Point;
@@ -14,6 +16,46 @@ import com.revolsys.util.Emptyable;
 
 public class KdTree implements Emptyable {
 
+  private static final class NearestNode {
+    private final boolean axisX;
+
+    private final KdNode node;
+
+    private NearestNode(final KdNode node, final boolean axisX) {
+      this.node = node;
+      this.axisX = axisX;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <N extends KdNode> void addNearestNodes(
+    final NearestItemSearch<NearestNode, N> search, final NearestNode nearestNode,
+    final double minX, final double minY, final double maxX, final double maxY) {
+    final KdNode node = nearestNode.node;
+    final double x = node.getX();
+    final double y = node.getY();
+    search.addItem((N)node, x, y);
+    final boolean axisX = nearestNode.axisX;
+    final KdNode left = node.getLeft();
+    if (left != null) {
+      final NearestNode leftNode = new NearestNode(left, !axisX);
+      if (axisX) {
+        search.addNode(leftNode, minX, minY, x, maxY);
+      } else {
+        search.addNode(leftNode, minX, minY, maxX, y);
+      }
+    }
+    final KdNode right = node.getRight();
+    if (right != null) {
+      final NearestNode rightNode = new NearestNode(right, !axisX);
+      if (axisX) {
+        search.addNode(rightNode, x, minY, maxX, maxY);
+      } else {
+        search.addNode(rightNode, minX, y, maxX, maxY);
+      }
+    }
+  }
+
   private long size;
 
   private KdNode root = null;
@@ -86,6 +128,18 @@ public class KdTree implements Emptyable {
     return result;
   }
 
+  public <N extends KdNode> N getNearestNode(final double x, final double y,
+    final double maxDistance) {
+    final NearestItemIterator<N> nearestNodes = nearestNodes(x, y, maxDistance);
+    return nearestNodes.getNext();
+  }
+
+  public <N extends KdNode> List<N> getNearestNodes(final double x, final double y,
+    final int count, final double maxDistance) {
+    final NearestItemIterator<N> nearestNodes = nearestNodes(x, y, maxDistance);
+    return nearestNodes.getNext(count);
+  }
+
   public long getSize() {
     return this.size;
   }
@@ -150,4 +204,21 @@ public class KdTree implements Emptyable {
   public boolean isEmpty() {
     return this.size == 0;
   }
+
+  /**
+   * Get an iterator over the nodes within the max distance of the point in order of increasing
+   * distance. The nodes are found incrementally using a best-first search, each node covers the
+   * region of its parent split at the parent's point on the parent's axis.
+   */
+  public <N extends KdNode> NearestItemIterator<N> nearestNodes(final double x, final double y,
+    final double maxDistance) {
+    final NearestItemSearch<NearestNode, N> search = new NearestItemSearch<>(x, y, x, y,
+      maxDistance, null, KdTree::addNearestNodes);
+    final KdNode root = this.root;
+    if (root != null) {
+      final double infinity = Double.POSITIVE_INFINITY;
+      search.addNode(new NearestNode(root, true), -infinity, -infinity, infinity, infinity);
+    }
+    return search;
+  }
 }
@@ -1,16 +1,25 @@
 package com.revolsys.geometry.index.quadtree;
 
 import java.io.Serializable;
-import java.util.Arrays;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.function.Consumer;
 
 import com.revolsys.geometry.index.DoubleBits;
 import com.revolsys.geometry.index.IntervalSize;
+import com.revolsys.geometry.index.NearestItemSearch;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.util.RectangleUtil;
 import com.revolsys.util.Emptyable;
 
 public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable {
+  /**
+   * The child nodes are read and written with acquire/release semantics so a node published by a
+   * writer is fully visible to readers on other threads.
+   */
+  private static final VarHandle NODES = MethodHandles
+    .arrayElementVarHandle(AbstractQuadTreeNode[].class);
+
   private static final long serialVersionUID = 1L;
 
   private final int level;
@@ -48,8 +57,37 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
   protected abstract boolean add(final QuadTree<T> tree, final double minX, final double minY,
     final double maxX, final double maxY, final T item);
 
+  /**
+   * Add the items in this node to the nearest search. The items are added with the bounds of the
+   * node, subclasses that store the item bounds should override this to use those bounds.
+   */
+  protected void addNearestItems(final QuadTree<T> tree,
+    final NearestItemSearch<AbstractQuadTreeNode<T>, T> search) {
+    if (isRoot()) {
+      // Items in the root cross the axes so aren't within the root's bounds
+      final double infinity = Double.POSITIVE_INFINITY;
+      forEachItem(tree, item -> search.addItem(item, -infinity, -infinity, infinity, infinity));
+    } else {
+      forEachItem(tree,
+        item -> search.addItem(item, this.minX, this.minY, this.maxX, this.maxY));
+    }
+  }
+
+  protected void addNearestNodes(final QuadTree<T> tree,
+    final NearestItemSearch<AbstractQuadTreeNode<T>, T> search) {
+    addNearestItems(tree, search);
+    for (int i = 0; i < 4; i++) {
+      final AbstractQuadTreeNode<T> node = getChildNode(i);
+      if (node != null) {
+        search.addNode(node, node.minX, node.minY, node.maxX, node.maxY);
+      }
+    }
+  }
+
   public void clear() {
-    Arrays.fill(this.nodes, null);
+    for (int i = 0; i < 4; i++) {
+      setChildNode(i, null);
+    }
   }
 
   private boolean coversBoundingBox(final double minX, final double minY, final double maxX,
@@ -59,7 +97,8 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
 
   public int depth() {
     int depth = 0;
-    for (final AbstractQuadTreeNode<T> node : this.nodes) {
+    for (int i = 0; i < 4; i++) {
+      final AbstractQuadTreeNode<T> node = getChildNode(i);
       if (node != null) {
         final int nodeDepth = node.depth();
         if (nodeDepth > depth) {
@@ -76,7 +115,7 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
     if (subnodeIndex == -1) {
       return this;
     }
-    final AbstractQuadTreeNode<T> node = this.nodes[subnodeIndex];
+    final AbstractQuadTreeNode<T> node = getChildNode(subnodeIndex);
     if (node != null) {
       return node.find(minX, minY, maxX, maxY);
     }
@@ -86,7 +125,8 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
   protected void forEach(final QuadTree<T> tree, final Consumer<? super T> action) {
     forEachItem(tree, action);
 
-    for (final AbstractQuadTreeNode<T> node : this.nodes) {
+    for (int i = 0; i < 4; i++) {
+      final AbstractQuadTreeNode<T> node = getChildNode(i);
       if (node != null) {
         node.forEach(tree, action);
       }
@@ -97,7 +137,8 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
     final Consumer<? super T> action) {
     if (isSearchMatch(x, y)) {
       forEachItem(tree, x, y, action);
-      for (final AbstractQuadTreeNode<T> node : this.nodes) {
+      for (int i = 0; i < 4; i++) {
+        final AbstractQuadTreeNode<T> node = getChildNode(i);
         if (node != null) {
           node.forEach(tree, x, y, action);
         }
@@ -109,7 +150,8 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
     final double maxX, final double maxY, final Consumer<? super T> action) {
     if (isSearchMatch(minX, minY, maxX, maxY)) {
       forEachItem(tree, minX, minY, maxX, maxY, action);
-      for (final AbstractQuadTreeNode<T> node : this.nodes) {
+      for (int i = 0; i < 4; i++) {
+        final AbstractQuadTreeNode<T> node = getChildNode(i);
         if (node != null) {
           node.forEach(tree, minX, minY, maxX, maxY, action);
         }
@@ -127,6 +169,11 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
   protected abstract void forEachItem(final QuadTree<T> tree, final double minX, double minY,
     double maxX, double maxY, final Consumer<? super T> action);
 
+  @SuppressWarnings("unchecked")
+  protected AbstractQuadTreeNode<T> getChildNode(final int index) {
+    return (AbstractQuadTreeNode<T>)NODES.getAcquire(this.nodes, index);
+  }
+
   public abstract int getItemCount();
 
   private AbstractQuadTreeNode<T> getNode(final double minX, final double minY, final double maxX,
@@ -141,11 +188,10 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
   }
 
   private AbstractQuadTreeNode<T> getSubnode(final int index) {
-    final AbstractQuadTreeNode<T>[] nodes = this.nodes;
-    final AbstractQuadTreeNode<T> node = nodes[index];
+    final AbstractQuadTreeNode<T> node = getChildNode(index);
     if (node == null) {
       final AbstractQuadTreeNode<T> newNode = newSubnode(index);
-      nodes[index] = newNode;
+      setChildNode(index, newNode);
       return newNode;
     }
     return node;
@@ -174,7 +220,8 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
   }
 
   private boolean hasChildren() {
-    for (final AbstractQuadTreeNode<T> node : this.nodes) {
+    for (int i = 0; i < 4; i++) {
+      final AbstractQuadTreeNode<T> node = getChildNode(i);
       if (node != null) {
         return true;
       }
@@ -202,11 +249,11 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
   private void insertNode(final AbstractQuadTreeNode<T> node) {
     final int index = getSubnodeIndex(node.minX, node.minY, node.maxX, node.maxY);
     if (node.level == this.level - 1) {
-      this.nodes[index] = node;
+      setChildNode(index, node);
     } else {
       final AbstractQuadTreeNode<T> childNode = newSubnode(index);
       childNode.insertNode(node);
-      this.nodes[index] = childNode;
+      setChildNode(index, childNode);
     }
   }
 
@@ -216,14 +263,14 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
     if (index == -1) {
       return add(tree, minX, minY, maxX, maxY, item);
     } else {
-      AbstractQuadTreeNode<T> node = this.nodes[index];
+      AbstractQuadTreeNode<T> node = getChildNode(index);
       if (node == null) {
         final AbstractQuadTreeNode<T> newNode = newNode(minX, minY, maxX, maxY);
-        this.nodes[index] = newNode;
+        setChildNode(index, newNode);
         node = newNode;
       } else if (!node.coversBoundingBox(minX, minY, maxX, maxY)) {
         final AbstractQuadTreeNode<T> newNode = node.newNodeExpanded(minX, minY, maxX, maxY);
-        this.nodes[index] = newNode;
+        setChildNode(index, newNode);
         node = newNode;
       }
       return node.insertContained(tree, minX, minY, maxX, maxY, item);
@@ -233,7 +280,8 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
   @Override
   public boolean isEmpty() {
     final boolean isEmpty = !hasItems();
-    for (final AbstractQuadTreeNode<T> node : this.nodes) {
+    for (int i = 0; i < 4; i++) {
+      final AbstractQuadTreeNode<T> node = getChildNode(i);
       if (node != null) {
         if (!node.isEmpty()) {
           return false;
@@ -359,14 +407,12 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
     final double maxX, final double maxY, final T item) {
     boolean removed = false;
     if (isSearchMatch(minX, minY, maxX, maxY)) {
-      final AbstractQuadTreeNode<T>[] nodes = this.nodes;
-      final int nodeCount = nodes.length;
-      for (int i = 0; i < nodeCount; i++) {
-        final AbstractQuadTreeNode<T> node = nodes[i];
+      for (int i = 0; i < 4; i++) {
+        final AbstractQuadTreeNode<T> node = getChildNode(i);
         if (node != null) {
           if (node.removeItem(tree, minX, minY, maxX, maxY, item)) {
             if (node.isPrunable()) {
-              nodes[i] = null;
+              setChildNode(i, null);
             }
             removed = true;
           }
@@ -379,6 +425,10 @@ public abstract class AbstractQuadTreeNode<T> implements Emptyable, Serializable
 
   protected abstract boolean removeItem(final QuadTree<T> tree, final T item);
 
+  protected void setChildNode(final int index, final AbstractQuadTreeNode<T> node) {
+    NODES.setRelease(this.nodes, index, node);
+  }
+
   @Override
   public String toString() {
     return this.level + " " + BoundingBox.bboxToWkt(this.minX, this.minY, this.maxX, this.maxY)
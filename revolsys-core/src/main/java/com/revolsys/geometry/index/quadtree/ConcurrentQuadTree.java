@@ -0,0 +1,43 @@
+package com.revolsys.geometry.index.quadtree;
+
+import com.revolsys.geometry.model.GeometryFactory;
+
+/**
+ * A {@link QuadTree} that can be queried while items are being inserted or removed on other
+ * threads.
+ * <p>
+ * The forEach and getItems queries don't lock. The child nodes are published with release/acquire
+ * semantics and each node's items are an immutable array that is replaced on each change (see
+ * {@link ConcurrentQuadTreeNode}), so a query sees each node either before or after a change and
+ * never blocks a writer. Inserts and removes are serialized on the tree so there is only one
+ * writer at a time.
+ * </p>
+ * <p>
+ * A query running during a change may or may not see the item being changed, but it always sees
+ * all the items that were not being changed.
+ * </p>
+ */
+public class ConcurrentQuadTree<T> extends QuadTree<T> {
+  private static final long serialVersionUID = 1L;
+
+  public ConcurrentQuadTree(final GeometryFactory geometryFactory) {
+    super(geometryFactory, new ConcurrentQuadTreeNode<>());
+  }
+
+  @Override
+  public synchronized void clear() {
+    super.clear();
+  }
+
+  @Override
+  public synchronized void insertItem(final double minX, final double minY, final double maxX,
+    final double maxY, final T item) {
+    super.insertItem(minX, minY, maxX, maxY, item);
+  }
+
+  @Override
+  public synchronized boolean removeItem(final double minX, final double minY,
+    final double maxX, final double maxY, final T item) {
+    return super.removeItem(minX, minY, maxX, maxY, item);
+  }
+}
@@ -0,0 +1,140 @@
+package com.revolsys.geometry.index.quadtree;
+
+import java.util.function.Consumer;
+
+import com.revolsys.geometry.index.NearestItemSearch;
+import com.revolsys.geometry.util.RectangleUtil;
+
+/**
+ * A quad tree node that stores its items in an immutable array of entries which is replaced on
+ * each change. Readers iterate over the array they read without locking and never see a partial
+ * change. Changes must be made by one writer at a time, see {@link ConcurrentQuadTree}.
+ */
+public class ConcurrentQuadTreeNode<T> extends AbstractQuadTreeNode<T> {
+  private static final Object[] EMPTY_ENTRIES = new Object[0];
+
+  private static final long serialVersionUID = 1L;
+
+  /** The bounds (double[]) and item for each entry. */
+  private volatile Object[] entries = EMPTY_ENTRIES;
+
+  public ConcurrentQuadTreeNode() {
+  }
+
+  public ConcurrentQuadTreeNode(final int level, final double minX, final double minY,
+    final double maxX, final double maxY) {
+    super(level, minX, minY, maxX, maxY);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  protected boolean add(final QuadTree<T> tree, final double minX, final double minY,
+    final double maxX, final double maxY, final T item) {
+    final double[] bounds = new double[] {
+      minX, minY, maxX, maxY
+    };
+    final Object[] entries = this.entries;
+    for (int i = 0; i < entries.length; i += 2) {
+      final T oldItem = (T)entries[i + 1];
+      if (tree.equalsItem(item, oldItem)) {
+        final Object[] newEntries = entries.clone();
+        newEntries[i] = bounds;
+        newEntries[i + 1] = item;
+        this.entries = newEntries;
+        return false;
+      }
+    }
+    final Object[] newEntries = new Object[entries.length + 2];
+    System.arraycopy(entries, 0, newEntries, 0, entries.length);
+    newEntries[entries.length] = bounds;
+    newEntries[entries.length + 1] = item;
+    this.entries = newEntries;
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  protected void addNearestItems(final QuadTree<T> tree,
+    final NearestItemSearch<AbstractQuadTreeNode<T>, T> search) {
+    final Object[] entries = this.entries;
+    for (int i = 0; i < entries.length; i += 2) {
+      final double[] itemBounds = (double[])entries[i];
+      final T item = (T)entries[i + 1];
+      search.addItem(item, itemBounds[0], itemBounds[1], itemBounds[2], itemBounds[3]);
+    }
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    this.entries = EMPTY_ENTRIES;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  protected void forEachItem(final QuadTree<T> tree, final Consumer<? super T> action) {
+    final Object[] entries = this.entries;
+    for (int i = 0; i < entries.length; i += 2) {
+      final T item = (T)entries[i + 1];
+      action.accept(item);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  protected void forEachItem(final QuadTree<T> tree, final double x, final double y,
+    final Consumer<? super T> action) {
+    final Object[] entries = this.entries;
+    for (int i = 0; i < entries.length; i += 2) {
+      final double[] itemBounds = (double[])entries[i];
+      if (RectangleUtil.intersectsPoint(itemBounds[0], itemBounds[1], itemBounds[2],
+        itemBounds[3], x, y)) {
+        final T item = (T)entries[i + 1];
+        action.accept(item);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  protected void forEachItem(final QuadTree<T> tree, final double minX, final double minY,
+    final double maxX, final double maxY, final Consumer<? super T> action) {
+    final Object[] entries = this.entries;
+    for (int i = 0; i < entries.length; i += 2) {
+      final double[] itemBounds = (double[])entries[i];
+      if (RectangleUtil.intersects(itemBounds[0], itemBounds[1], itemBounds[2], itemBounds[3],
+        minX, minY, maxX, maxY)) {
+        final T item = (T)entries[i + 1];
+        action.accept(item);
+      }
+    }
+  }
+
+  @Override
+  public int getItemCount() {
+    return this.entries.length / 2;
+  }
+
+  @Override
+  protected AbstractQuadTreeNode<T> newNode(final int level, final double minX, final double minY,
+    final double maxX, final double maxY) {
+    return new ConcurrentQuadTreeNode<>(level, minX, minY, maxX, maxY);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  protected boolean removeItem(final QuadTree<T> tree, final T item) {
+    final Object[] entries = this.entries;
+    for (int i = 0; i < entries.length; i += 2) {
+      final T oldItem = (T)entries[i + 1];
+      if (tree.equalsItem(item, oldItem)) {
+        final Object[] newEntries = new Object[entries.length - 2];
+        System.arraycopy(entries, 0, newEntries, 0, i);
+        System.arraycopy(entries, i + 2, newEntries, i, entries.length - i - 2);
+        this.entries = newEntries;
+        return true;
+      }
+    }
+    return false;
+  }
+}
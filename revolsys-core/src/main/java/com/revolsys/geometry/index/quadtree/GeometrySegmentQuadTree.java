@@ -35,6 +35,11 @@ public class GeometrySegmentQuadTree extends IdObjectQuadTree<Segment> {
     }
   }
 
+  @Override
+  protected BoundingBox getBoundingBox(final Segment segment) {
+    return segment.getBoundingBox();
+  }
+
   @Override
   protected Object getId(final Segment segment) {
     return segment.getSegmentId();
@@ -2,6 +2,7 @@ package com.revolsys.geometry.index.quadtree;
 
 import org.jeometry.common.number.Doubles;
 
+import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.Geometry;
 import com.revolsys.geometry.model.vertex.Vertex;
 import com.revolsys.geometry.util.RectangleUtil;
@@ -39,6 +40,15 @@ public class GeometryVertexQuadTree extends IdObjectQuadTree<Vertex> {
     }
   }
 
+  @Override
+  protected BoundingBox getBoundingBox(final Vertex vertex) {
+    if (vertex == null) {
+      return null;
+    } else {
+      return vertex.getBoundingBox();
+    }
+  }
+
   @Override
   protected Object getId(final Vertex vertex) {
     return vertex.getVertexId();
@@ -2,6 +2,9 @@ package com.revolsys.geometry.index.quadtree;
 
 import java.util.function.Consumer;
 
+import com.revolsys.geometry.index.NearestItemSearch;
+import com.revolsys.geometry.model.BoundingBox;
+
 public class IdObjectNode<T> extends AbstractQuadTreeNode<T> {
   private static final long serialVersionUID = 1L;
 
@@ -47,6 +50,25 @@ public class IdObjectNode<T> extends AbstractQuadTreeNode<T> {
     }
   }
 
+  @Override
+  protected void addNearestItems(final QuadTree<T> tree,
+    final NearestItemSearch<AbstractQuadTreeNode<T>, T> search) {
+    final IdObjectQuadTree<T> idObjectTree = (IdObjectQuadTree<T>)tree;
+    synchronized (this.nodes) {
+      final Object[] ids = this.ids;
+      final int itemCount = this.itemCount;
+      for (int i = 0; i < itemCount; i++) {
+        final Object id = ids[i];
+        final T item = idObjectTree.getItem(id);
+        final BoundingBox boundingBox = idObjectTree.getBoundingBox(item);
+        if (boundingBox != null && !boundingBox.isEmpty()) {
+          search.addItem(item, boundingBox.getMinX(), boundingBox.getMinY(),
+            boundingBox.getMaxX(), boundingBox.getMaxY());
+        }
+      }
+    }
+  }
+
   @Override
   protected void forEachItem(final QuadTree<T> tree, final Consumer<? super T> action) {
     final IdObjectQuadTree<T> idObjectTree = (IdObjectQuadTree<T>)tree;
@@ -1,5 +1,6 @@
 package com.revolsys.geometry.index.quadtree;
 
+import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.GeometryFactory;
 
 public abstract class IdObjectQuadTree<T> extends QuadTree<T> {
@@ -9,6 +10,14 @@ public abstract class IdObjectQuadTree<T> extends QuadTree<T> {
     super(geometryFactory, new IdObjectNode<T>());
   }
 
+  /**
+   * Get the bounding box of the item, used to order the items in a nearest items search.
+   *
+   * @param item The item.
+   * @return The bounding box.
+   */
+  protected abstract BoundingBox getBoundingBox(T item);
+
   protected Object getId(final T item) {
     return item;
   }
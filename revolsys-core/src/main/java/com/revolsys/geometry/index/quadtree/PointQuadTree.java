@@ -7,6 +7,8 @@ import java.util.Map.Entry;
 import java.util.function.Consumer;
 
 import com.revolsys.geometry.index.AbstractPointSpatialIndex;
+import com.revolsys.geometry.index.NearestItemIterator;
+import com.revolsys.geometry.index.NearestItemSearch;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.BoundingBoxProxy;
 import com.revolsys.geometry.model.Geometry;
@@ -125,6 +127,32 @@ public class PointQuadTree<T> extends AbstractPointSpatialIndex<T> {
     }
   }
 
+  public T getNearestItem(final double x, final double y, final double maxDistance) {
+    return nearestItems(x, y, maxDistance).getNext();
+  }
+
+  public List<T> getNearestItems(final double x, final double y, final int count,
+    final double maxDistance) {
+    return nearestItems(x, y, maxDistance).getNext(count);
+  }
+
+  /**
+   * Get an iterator over the values within the max distance of the point in order of increasing
+   * distance. The values are found incrementally using a best-first search.
+   */
+  public NearestItemIterator<T> nearestItems(final double x, final double y,
+    final double maxDistance) {
+    final NearestItemSearch<PointQuadTreeNode<T>, T> search = new NearestItemSearch<>(x, y, x, y,
+      maxDistance, null, (nearestSearch, node, minX, minY, maxX, maxY) -> node
+        .addNearestItems(nearestSearch, minX, minY, maxX, maxY));
+    final PointQuadTreeNode<T> root = this.root;
+    if (root != null) {
+      final double infinity = Double.POSITIVE_INFINITY;
+      search.addNode(root, -infinity, -infinity, infinity, infinity);
+    }
+    return search;
+  }
+
   public void put(final double x, final double y, final T value) {
     final PointQuadTreeNode<T> node = new PointQuadTreeNode<>(value, x, y);
     if (this.root == null) {
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map.Entry;
 import java.util.function.Consumer;
 
+import com.revolsys.geometry.index.NearestItemSearch;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.Point;
 import com.revolsys.geometry.model.impl.PointDoubleXY;
@@ -32,6 +33,29 @@ public class PointQuadTreeNode<T> {
     this.y = y;
   }
 
+  /**
+   * Add this node's value and child nodes to the search. The bounds are the region of the tree
+   * covered by this node, each child covers one quadrant of the region split at this node's point.
+   */
+  void addNearestItems(final NearestItemSearch<PointQuadTreeNode<T>, T> search,
+    final double minX, final double minY, final double maxX, final double maxY) {
+    final double x = this.x;
+    final double y = this.y;
+    search.addItem(this.value, x, y);
+    if (this.southWest != null) {
+      search.addNode(this.southWest, minX, minY, x, y);
+    }
+    if (this.northWest != null) {
+      search.addNode(this.northWest, minX, y, x, maxY);
+    }
+    if (this.southEast != null) {
+      search.addNode(this.southEast, x, minY, maxX, y);
+    }
+    if (this.northEast != null) {
+      search.addNode(this.northEast, x, y, maxX, maxY);
+    }
+  }
+
   public boolean contains(final Point point) {
     if (point.equalsVertex(this.x, this.y)) {
       return true;
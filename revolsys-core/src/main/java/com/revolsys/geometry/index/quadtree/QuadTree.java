@@ -2,7 +2,10 @@ package com.revolsys.geometry.index.quadtree;
 
 import java.io.Serializable;
 import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
 
+import com.revolsys.geometry.index.NearestItemIterator;
+import com.revolsys.geometry.index.NearestItemSearch;
 import com.revolsys.geometry.index.SpatialIndex;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.GeometryFactory;
@@ -41,7 +44,7 @@ public class QuadTree<T> implements SpatialIndex<T>, Serializable {
 
   private final AbstractQuadTreeNode<T> root;
 
-  private int size = 0;
+  private volatile int size = 0;
 
   private boolean useEquals = false;
 
@@ -137,7 +140,7 @@ public class QuadTree<T> implements SpatialIndex<T>, Serializable {
     }
   }
 
-  public final void insertItem(double minX, double minY, double maxX, double maxY, final T item) {
+  public void insertItem(double minX, double minY, double maxX, double maxY, final T item) {
     final double deltaX = maxX - minX;
     if (deltaX == 0) {
       minX = minX - this.minExtent / 2.0;
@@ -163,6 +166,18 @@ public class QuadTree<T> implements SpatialIndex<T>, Serializable {
     insertItem(x, y, x, y, item);
   }
 
+  @Override
+  public NearestItemIterator<T> nearestItems(final double minX, final double minY,
+    final double maxX, final double maxY, final double maxDistance,
+    final ToDoubleFunction<? super T> itemDistance) {
+    final NearestItemSearch<AbstractQuadTreeNode<T>, T> search = new NearestItemSearch<>(minX,
+      minY, maxX, maxY, maxDistance, itemDistance,
+      (nearestSearch, node, nodeMinX, nodeMinY, nodeMaxX, nodeMaxY) -> node
+        .addNearestNodes(this, nearestSearch));
+    this.root.addNearestNodes(this, search);
+    return search;
+  }
+
   @Override
   public boolean removeItem(BoundingBox boundingBox, final T item) {
     boundingBox = convertBoundingBox(boundingBox);
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
 
+import com.revolsys.geometry.index.NearestItemSearch;
 import com.revolsys.geometry.util.RectangleUtil;
 
 public class QuadTreeNode<T> extends AbstractQuadTreeNode<T> {
@@ -45,6 +46,19 @@ public class QuadTreeNode<T> extends AbstractQuadTreeNode<T> {
     }
   }
 
+  @Override
+  protected void addNearestItems(final QuadTree<T> tree,
+    final NearestItemSearch<AbstractQuadTreeNode<T>, T> search) {
+    synchronized (this.nodes) {
+      int i = 0;
+      for (final double[] itemBounds : this.boundingBoxes) {
+        final T item = this.items.get(i);
+        search.addItem(item, itemBounds[0], itemBounds[1], itemBounds[2], itemBounds[3]);
+        i++;
+      }
+    }
+  }
+
   @Override
   protected void forEachItem(final QuadTree<T> tree, final Consumer<? super T> action) {
     synchronized (this.nodes) {
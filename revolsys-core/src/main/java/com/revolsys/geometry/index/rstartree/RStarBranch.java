@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
+import com.revolsys.geometry.index.NearestItemSearch;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.impl.BoundingBoxDoubleXY;
 
@@ -67,6 +68,25 @@ public class RStarBranch<T> extends BoundingBoxDoubleXY implements RStarNode<T>
 
   }
 
+  void addNearestItems(final NearestItemSearch<RStarBranch<T>, T> search) {
+    final int itemCount = this.itemCount;
+    final RStarNode<T>[] items = this.items;
+    if (this.hasLeaves) {
+      for (int i = 0; i < itemCount; i++) {
+        final RStarLeaf<T> leaf = (RStarLeaf<T>)items[i];
+        final BoundingBox boundingBox = leaf.getBoundingBox();
+        search.addItem(leaf.getItem(), boundingBox.getMinX(), boundingBox.getMinY(),
+          boundingBox.getMaxX(), boundingBox.getMaxY());
+      }
+    } else {
+      for (int i = 0; i < itemCount; i++) {
+        final RStarBranch<T> branch = (RStarBranch<T>)items[i];
+        search.addNode(branch, branch.getMinX(), branch.getMinY(), branch.getMaxX(),
+          branch.getMaxY());
+      }
+    }
+  }
+
   private void addItemsToList(final List<RStarLeaf<T>> itemList) {
     if (this.hasLeaves) {
       final int itemCount = this.itemCount;
@@ -5,8 +5,11 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
 
 import com.revolsys.collection.ArrayUtil;
+import com.revolsys.geometry.index.NearestItemIterator;
+import com.revolsys.geometry.index.NearestItemSearch;
 import com.revolsys.geometry.index.SpatialIndex;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.BoundingBoxProxy;
@@ -269,6 +272,21 @@ public class RStarTree<T> implements SpatialIndex<T> {
     }
   }
 
+  @Override
+  public NearestItemIterator<T> nearestItems(final double minX, final double minY,
+    final double maxX, final double maxY, final double maxDistance,
+    final ToDoubleFunction<? super T> itemDistance) {
+    final NearestItemSearch<RStarBranch<T>, T> search = new NearestItemSearch<>(minX, minY, maxX,
+      maxY, maxDistance, itemDistance,
+      (nearestSearch, node, nodeMinX, nodeMinY, nodeMaxX, nodeMaxY) -> node
+        .addNearestItems(nearestSearch));
+    final RStarBranch<T> root = this.root;
+    if (root != null) {
+      search.addNode(root, root.getMinX(), root.getMinY(), root.getMaxX(), root.getMaxY());
+    }
+    return search;
+  }
+
   // This routine is used to do the opportunistic reinsertion that the
   // R algorithm calls for
   @SuppressWarnings("unchecked")
@@ -0,0 +1,618 @@
+package com.revolsys.geometry.index.rtree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.ToDoubleFunction;
+
+import org.jeometry.common.exception.Exceptions;
+
+import com.revolsys.collection.list.DoubleList;
+import com.revolsys.collection.list.IntList;
+import com.revolsys.geometry.index.NearestItemIterator;
+import com.revolsys.geometry.index.NearestItemSearch;
+import com.revolsys.geometry.index.SpatialIndex;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.io.file.Paths;
+import com.revolsys.util.ExitLoopException;
+
+/**
+ * An immutable R-tree packed using the Hilbert curve order of the centre of each item's bounding
+ * box.
+ * <p>
+ * The nodes are stored in a flat array of bounds (minX, minY, maxX, maxY) and a flat array of
+ * ints. The leaf nodes come first in Hilbert order and their int is the id of the item, followed
+ * by each level of branch nodes where the int is the position of the node's first child. There
+ * are no per item objects so an item only costs 36 bytes plus the branch nodes.
+ * </p>
+ * <p>
+ * Items are added using {@link #insertItem(BoundingBox, Object)} and the tree is packed on the
+ * first query or by calling {@link #build()}. The id of an item is the order it was inserted.
+ * Items can't be inserted after the tree is built or removed.
+ * </p>
+ * <p>
+ * The packed tree can be written to a file using {@link #write(Path)} and memory mapped using
+ * {@link #open(Path, IntFunction)}, so the bounds don't use any heap. The function converts the
+ * item id to the item (e.g. reading a record by its position in a file). The bounds are mapped in
+ * chunks of {@link #CHUNK_NODE_COUNT} nodes as a single mapping is limited to 2GB.
+ * </p>
+ *
+ * @param <T> The type of item.
+ */
+public class PackedHilbertRTree<T> implements SpatialIndex<T> {
+
+  private static final int CHUNK_NODE_SHIFT = 24;
+
+  /** The number of nodes in each chunk of the bounds (512MB). */
+  private static final int CHUNK_NODE_COUNT = 1 << CHUNK_NODE_SHIFT;
+
+  private static final int CHUNK_NODE_MASK = CHUNK_NODE_COUNT - 1;
+
+  public static final int DEFAULT_NODE_SIZE = 16;
+
+  private static final int FILE_MAGIC = 0x48505254;
+
+  private static final int FILE_VERSION = 1;
+
+  private static final int HILBERT_MAX = 0xFFFF;
+
+  /** The maximum number of nodes, limited by the size of a single int buffer of the ids. */
+  private static final int MAX_NODE_COUNT = Integer.MAX_VALUE / 4;
+
+  private static void assertNodeCount(final long nodeCount) {
+    if (nodeCount > MAX_NODE_COUNT) {
+      throw new IllegalArgumentException(
+        "A packed R-tree can't have more than " + MAX_NODE_COUNT + " nodes: " + nodeCount);
+    }
+  }
+
+  private static long getBoundsOffset(final int levelCount) {
+    final long headerSize = 20 + levelCount * 4;
+    return (headerSize + 7) / 8 * 8;
+  }
+
+  private static int getChunkNodeCount(final int nodeCount, final int chunkIndex) {
+    final int chunkStart = chunkIndex << CHUNK_NODE_SHIFT;
+    return Math.min(CHUNK_NODE_COUNT, nodeCount - chunkStart);
+  }
+
+  private static DoubleBuffer[] newBoundsChunks(final int nodeCount) {
+    final int chunkCount = (int)(((long)nodeCount + CHUNK_NODE_COUNT - 1) >>> CHUNK_NODE_SHIFT);
+    return new DoubleBuffer[chunkCount];
+  }
+
+  /**
+   * Calculate the position along a Hilbert curve of order 16 of the x, y grid coordinates.
+   *
+   * @param x The x grid coordinate 0-65535.
+   * @param y The y grid coordinate 0-65535.
+   * @return The Hilbert value.
+   */
+  static long hilbert(final int x, final int y) {
+    int a = x ^ y;
+    int b = 0xFFFF ^ a;
+    int c = 0xFFFF ^ (x | y);
+    int d = x & (y ^ 0xFFFF);
+
+    int A = a | b >> 1;
+    int B = a >> 1 ^ a;
+    int C = c >> 1 ^ b & d >> 1 ^ c;
+    int D = a & c >> 1 ^ d >> 1 ^ d;
+
+    a = A;
+    b = B;
+    c = C;
+    d = D;
+    A = a & a >> 2 ^ b & b >> 2;
+    B = a & b >> 2 ^ b & (a ^ b) >> 2;
+    C ^= a & c >> 2 ^ b & d >> 2;
+    D ^= b & c >> 2 ^ (a ^ b) & d >> 2;
+
+    a = A;
+    b = B;
+    c = C;
+    d = D;
+    A = a & a >> 4 ^ b & b >> 4;
+    B = a & b >> 4 ^ b & (a ^ b) >> 4;
+    C ^= a & c >> 4 ^ b & d >> 4;
+    D ^= b & c >> 4 ^ (a ^ b) & d >> 4;
+
+    a = A;
+    b = B;
+    c = C;
+    d = D;
+    C ^= a & c >> 8 ^ b & d >> 8;
+    D ^= b & c >> 8 ^ (a ^ b) & d >> 8;
+
+    a = C ^ C >> 1;
+    b = D ^ D >> 1;
+
+    int i0 = x ^ y;
+    int i1 = b | 0xFFFF ^ (i0 | a);
+
+    i0 = spreadBits(i0);
+    i1 = spreadBits(i1);
+    return (i1 << 1 | i0) & 0xFFFFFFFFL;
+  }
+
+  /**
+   * Open a tree written using {@link #write(Path)} by memory mapping the file.
+   *
+   * @param file The file.
+   * @param itemFunction The function to get the item from the item id.
+   * @return The tree.
+   */
+  public static <V> PackedHilbertRTree<V> open(final Path file,
+    final IntFunction<V> itemFunction) {
+    try (
+      FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final ByteBuffer header = ByteBuffer.allocate(20).order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining()) {
+        if (channel.read(header) == -1) {
+          throw new IllegalArgumentException("Not a packed R-tree file: " + file);
+        }
+      }
+      header.flip();
+      if (header.getInt() != FILE_MAGIC) {
+        throw new IllegalArgumentException("Not a packed R-tree file: " + file);
+      }
+      final int version = header.getInt();
+      if (version != FILE_VERSION) {
+        throw new IllegalArgumentException("Unsupported packed R-tree version " + version);
+      }
+      final int nodeSize = header.getInt();
+      final int itemCount = header.getInt();
+      final int levelCount = header.getInt();
+
+      final ByteBuffer levelBuffer = ByteBuffer.allocate(levelCount * 4)
+        .order(ByteOrder.LITTLE_ENDIAN);
+      while (levelBuffer.hasRemaining()) {
+        if (channel.read(levelBuffer) == -1) {
+          throw new IllegalArgumentException("Packed R-tree file is truncated: " + file);
+        }
+      }
+      levelBuffer.flip();
+      final int[] levelEnds = new int[levelCount];
+      levelBuffer.asIntBuffer().get(levelEnds);
+      final int nodeCount = levelEnds[levelCount - 1];
+      assertNodeCount(nodeCount);
+
+      final long boundsOffset = getBoundsOffset(levelCount);
+      final long boundsSize = (long)nodeCount * 4 * 8;
+      final DoubleBuffer[] bounds = newBoundsChunks(nodeCount);
+      for (int chunkIndex = 0; chunkIndex < bounds.length; chunkIndex++) {
+        final long chunkOffset = boundsOffset + ((long)chunkIndex << CHUNK_NODE_SHIFT) * 4 * 8;
+        final long chunkSize = (long)getChunkNodeCount(nodeCount, chunkIndex) * 4 * 8;
+        bounds[chunkIndex] = channel.map(MapMode.READ_ONLY, chunkOffset, chunkSize)
+          .order(ByteOrder.LITTLE_ENDIAN)
+          .asDoubleBuffer();
+      }
+      final IntBuffer ids = channel.map(MapMode.READ_ONLY, boundsOffset + boundsSize,
+        (long)nodeCount * 4)
+        .order(ByteOrder.LITTLE_ENDIAN)
+        .asIntBuffer();
+      return new PackedHilbertRTree<>(nodeSize, itemCount, levelEnds, bounds, ids, itemFunction);
+    } catch (final IOException e) {
+      throw Exceptions.wrap("Unable to open: " + file, e);
+    }
+  }
+
+  private static int spreadBits(int value) {
+    value = (value | value << 8) & 0x00FF00FF;
+    value = (value | value << 4) & 0x0F0F0F0F;
+    value = (value | value << 2) & 0x33333333;
+    value = (value | value << 1) & 0x55555555;
+    return value;
+  }
+
+  /** The bounds of the nodes in chunks of {@link #CHUNK_NODE_COUNT} nodes. */
+  private DoubleBuffer[] bounds;
+
+  private volatile boolean built = false;
+
+  private GeometryFactory geometryFactory = GeometryFactory.DEFAULT_2D;
+
+  private IntBuffer ids;
+
+  private IntFunction<T> itemFunction;
+
+  private int itemCount;
+
+  private List<T> items = new ArrayList<>();
+
+  /** The index of the node after the last node in each level, starting with the leaf level. */
+  private int[] levelEnds;
+
+  private DoubleList loadBounds = new DoubleList();
+
+  private final int nodeSize;
+
+  public PackedHilbertRTree() {
+    this(DEFAULT_NODE_SIZE);
+  }
+
+  public PackedHilbertRTree(final int nodeSize) {
+    if (nodeSize < 2) {
+      throw new IllegalArgumentException("Node size must be greater than 1");
+    }
+    this.nodeSize = nodeSize;
+    this.itemFunction = this.items::get;
+  }
+
+  private PackedHilbertRTree(final int nodeSize, final int itemCount, final int[] levelEnds,
+    final DoubleBuffer[] bounds, final IntBuffer ids, final IntFunction<T> itemFunction) {
+    this.nodeSize = nodeSize;
+    this.itemCount = itemCount;
+    this.levelEnds = levelEnds;
+    this.bounds = bounds;
+    this.ids = ids;
+    this.itemFunction = itemFunction;
+    this.items = null;
+    this.loadBounds = null;
+    this.built = true;
+  }
+
+  /**
+   * Add the nodes or items starting at the node index to the search.
+   */
+  private void addNearestItems(final NearestItemSearch<Integer, T> search, final int nodeIndex) {
+    final DoubleBuffer[] boundsChunks = this.bounds;
+    final int end = Math.min(nodeIndex + this.nodeSize, getLevelEnd(nodeIndex));
+    for (int index = nodeIndex; index < end; index++) {
+      final DoubleBuffer bounds = boundsChunks[index >>> CHUNK_NODE_SHIFT];
+      final int offset = (index & CHUNK_NODE_MASK) * 4;
+      final double minX = bounds.get(offset);
+      final double minY = bounds.get(offset + 1);
+      final double maxX = bounds.get(offset + 2);
+      final double maxY = bounds.get(offset + 3);
+      if (nodeIndex < this.itemCount) {
+        final T item = getItem(index);
+        search.addItem(item, minX, minY, maxX, maxY);
+      } else {
+        final int childIndex = this.ids.get(index);
+        search.addNode(childIndex, minX, minY, maxX, maxY);
+      }
+    }
+  }
+
+  /**
+   * Pack the items into the tree. Called automatically on the first query.
+   */
+  public void build() {
+    if (!this.built) {
+      synchronized (this) {
+        if (!this.built) {
+          buildDo();
+          this.built = true;
+        }
+      }
+    }
+  }
+
+  private void buildDo() {
+    final int itemCount = this.items.size();
+    this.itemCount = itemCount;
+
+    int levelNodeCount = itemCount;
+    int nodeCount = itemCount;
+    final IntList levelEnds = new IntList();
+    levelEnds.addInt(nodeCount);
+    do {
+      levelNodeCount = (levelNodeCount + this.nodeSize - 1) / this.nodeSize;
+      nodeCount += levelNodeCount;
+      levelEnds.addInt(nodeCount);
+    } while (levelNodeCount > 1);
+    this.levelEnds = levelEnds.toIntArray();
+    assertNodeCount(nodeCount);
+
+    final double[] bounds = new double[nodeCount * 4];
+    final int[] ids = new int[nodeCount];
+    final DoubleList loadBounds = this.loadBounds;
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < itemCount; i++) {
+      minX = Math.min(minX, loadBounds.getDouble(i * 4));
+      minY = Math.min(minY, loadBounds.getDouble(i * 4 + 1));
+      maxX = Math.max(maxX, loadBounds.getDouble(i * 4 + 2));
+      maxY = Math.max(maxY, loadBounds.getDouble(i * 4 + 3));
+    }
+    final double width = maxX - minX;
+    final double height = maxY - minY;
+
+    // Sort the items by the hilbert value of the centre with the item index in the low bits
+    final long[] keys = new long[itemCount];
+    for (int i = 0; i < itemCount; i++) {
+      final double centreX = (loadBounds.getDouble(i * 4) + loadBounds.getDouble(i * 4 + 2)) / 2;
+      final double centreY = (loadBounds.getDouble(i * 4 + 1) + loadBounds.getDouble(i * 4 + 3))
+        / 2;
+      int gridX = 0;
+      if (width > 0) {
+        gridX = (int)Math.floor(HILBERT_MAX * (centreX - minX) / width);
+      }
+      int gridY = 0;
+      if (height > 0) {
+        gridY = (int)Math.floor(HILBERT_MAX * (centreY - minY) / height);
+      }
+      keys[i] = hilbert(gridX, gridY) << 31 | i;
+    }
+    Arrays.sort(keys);
+    for (int i = 0; i < itemCount; i++) {
+      final int itemIndex = (int)(keys[i] & 0x7FFFFFFF);
+      for (int j = 0; j < 4; j++) {
+        bounds[i * 4 + j] = loadBounds.getDouble(itemIndex * 4 + j);
+      }
+      ids[i] = itemIndex;
+    }
+
+    int childIndex = 0;
+    int parentIndex = itemCount;
+    for (int level = 0; level < this.levelEnds.length - 1; level++) {
+      final int levelEnd = this.levelEnds[level];
+      while (childIndex < levelEnd) {
+        final int firstChildIndex = childIndex;
+        double nodeMinX = Double.POSITIVE_INFINITY;
+        double nodeMinY = Double.POSITIVE_INFINITY;
+        double nodeMaxX = Double.NEGATIVE_INFINITY;
+        double nodeMaxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < this.nodeSize && childIndex < levelEnd; i++) {
+          final int offset = childIndex * 4;
+          nodeMinX = Math.min(nodeMinX, bounds[offset]);
+          nodeMinY = Math.min(nodeMinY, bounds[offset + 1]);
+          nodeMaxX = Math.max(nodeMaxX, bounds[offset + 2]);
+          nodeMaxY = Math.max(nodeMaxY, bounds[offset + 3]);
+          childIndex++;
+        }
+        final int offset = parentIndex * 4;
+        bounds[offset] = nodeMinX;
+        bounds[offset + 1] = nodeMinY;
+        bounds[offset + 2] = nodeMaxX;
+        bounds[offset + 3] = nodeMaxY;
+        ids[parentIndex] = firstChildIndex;
+        parentIndex++;
+      }
+    }
+    final DoubleBuffer[] boundsChunks = newBoundsChunks(nodeCount);
+    for (int chunkIndex = 0; chunkIndex < boundsChunks.length; chunkIndex++) {
+      final int chunkOffset = (chunkIndex << CHUNK_NODE_SHIFT) * 4;
+      final int chunkSize = getChunkNodeCount(nodeCount, chunkIndex) * 4;
+      boundsChunks[chunkIndex] = DoubleBuffer.wrap(bounds, chunkOffset, chunkSize).slice();
+    }
+    this.bounds = boundsChunks;
+    this.ids = IntBuffer.wrap(ids);
+    this.loadBounds = null;
+  }
+
+  /**
+   * Remove all the items. The tree can be loaded again after it is cleared.
+   */
+  @Override
+  public synchronized void clear() {
+    this.built = false;
+    this.bounds = null;
+    this.ids = null;
+    this.levelEnds = null;
+    this.itemCount = 0;
+    this.items = new ArrayList<>();
+    this.itemFunction = this.items::get;
+    this.loadBounds = new DoubleList();
+  }
+
+  @Override
+  public boolean forEach(final Consumer<? super T> action) {
+    build();
+    try {
+      for (int i = 0; i < this.itemCount; i++) {
+        final T item = getItem(i);
+        action.accept(item);
+      }
+      return true;
+    } catch (final ExitLoopException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public boolean forEach(final double x, final double y, final Consumer<? super T> action) {
+    return forEach(x, y, x, y, action);
+  }
+
+  @Override
+  public boolean forEach(final double minX, final double minY, final double maxX, final double maxY,
+    final Consumer<? super T> action) {
+    build();
+    if (this.itemCount == 0) {
+      return true;
+    }
+    final DoubleBuffer[] boundsChunks = this.bounds;
+    final IntBuffer ids = this.ids;
+    // Depth first search only has the unvisited siblings for each level on the stack
+    final int[] stack = new int[this.levelEnds.length * this.nodeSize];
+    int stackSize = 0;
+    int nodeIndex = this.levelEnds[this.levelEnds.length - 1] - 1;
+    try {
+      while (true) {
+        final int end = Math.min(nodeIndex + this.nodeSize, getLevelEnd(nodeIndex));
+        for (int index = nodeIndex; index < end; index++) {
+          final DoubleBuffer bounds = boundsChunks[index >>> CHUNK_NODE_SHIFT];
+          final int offset = (index & CHUNK_NODE_MASK) * 4;
+          if (maxX >= bounds.get(offset) && maxY >= bounds.get(offset + 1)
+            && minX <= bounds.get(offset + 2) && minY <= bounds.get(offset + 3)) {
+            if (nodeIndex < this.itemCount) {
+              final T item = getItem(index);
+              action.accept(item);
+            } else {
+              stack[stackSize++] = ids.get(index);
+            }
+          }
+        }
+        if (stackSize == 0) {
+          return true;
+        } else {
+          nodeIndex = stack[--stackSize];
+        }
+      }
+    } catch (final ExitLoopException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public GeometryFactory getGeometryFactory() {
+    return this.geometryFactory;
+  }
+
+  private T getItem(final int leafIndex) {
+    final int id = this.ids.get(leafIndex);
+    return this.itemFunction.apply(id);
+  }
+
+  /**
+   * Get the index of the node after the last node in the level containing the node.
+   */
+  private int getLevelEnd(final int nodeIndex) {
+    for (final int levelEnd : this.levelEnds) {
+      if (nodeIndex < levelEnd) {
+        return levelEnd;
+      }
+    }
+    return this.levelEnds[this.levelEnds.length - 1];
+  }
+
+  public int getNodeSize() {
+    return this.nodeSize;
+  }
+
+  @Override
+  public int getSize() {
+    if (this.built) {
+      return this.itemCount;
+    } else {
+      return this.items.size();
+    }
+  }
+
+  @Override
+  public void insertItem(final BoundingBox boundingBox, final T item) {
+    if (boundingBox != null && !boundingBox.isEmpty()) {
+      final double minX = boundingBox.getMinX();
+      final double minY = boundingBox.getMinY();
+      final double maxX = boundingBox.getMaxX();
+      final double maxY = boundingBox.getMaxY();
+      insertItem(minX, minY, maxX, maxY, item);
+    }
+  }
+
+  public synchronized void insertItem(final double minX, final double minY, final double maxX,
+    final double maxY, final T item) {
+    if (this.built) {
+      throw new IllegalStateException("Cannot insert items into a packed R-tree after it is built");
+    }
+    this.loadBounds.addDouble(minX);
+    this.loadBounds.addDouble(minY);
+    this.loadBounds.addDouble(maxX);
+    this.loadBounds.addDouble(maxY);
+    this.items.add(item);
+  }
+
+  public boolean isEmpty() {
+    return getSize() == 0;
+  }
+
+  @Override
+  public NearestItemIterator<T> nearestItems(final double minX, final double minY,
+    final double maxX, final double maxY, final double maxDistance,
+    final ToDoubleFunction<? super T> itemDistance) {
+    build();
+    final NearestItemSearch<Integer, T> search = new NearestItemSearch<>(minX, minY, maxX, maxY,
+      maxDistance, itemDistance,
+      (nearestSearch, nodeIndex, nodeMinX, nodeMinY, nodeMaxX, nodeMaxY) -> addNearestItems(
+        nearestSearch, nodeIndex));
+    if (this.itemCount > 0) {
+      final int rootIndex = this.levelEnds[this.levelEnds.length - 1] - 1;
+      addNearestItems(search, rootIndex);
+    }
+    return search;
+  }
+
+  /**
+   * Items can't be removed from a packed R-tree.
+   *
+   * @throws UnsupportedOperationException Always.
+   */
+  @Override
+  public boolean removeItem(final BoundingBox boundingBox, final T item) {
+    throw new UnsupportedOperationException("Cannot remove items from a packed R-tree");
+  }
+
+  @Override
+  public void setGeometryFactory(final GeometryFactory geometryFactory) {
+    this.geometryFactory = geometryFactory;
+  }
+
+  /**
+   * Write the packed tree to a file that can be opened using {@link #open(Path, IntFunction)}.
+   * The items aren't written, only the item ids.
+   *
+   * @param file The file.
+   */
+  public void write(final Path file) {
+    build();
+    final int[] levelEnds = this.levelEnds;
+    final int nodeCount = levelEnds[levelEnds.length - 1];
+    try (
+      FileChannel channel = FileChannel.open(file, Paths.OPEN_OPTIONS_WRITE_SET,
+        Paths.FILE_ATTRIBUTES_NONE)) {
+      final ByteBuffer buffer = ByteBuffer.allocate(8192).order(ByteOrder.LITTLE_ENDIAN);
+      buffer.putInt(FILE_MAGIC);
+      buffer.putInt(FILE_VERSION);
+      buffer.putInt(this.nodeSize);
+      buffer.putInt(this.itemCount);
+      buffer.putInt(levelEnds.length);
+      for (final int levelEnd : levelEnds) {
+        buffer.putInt(levelEnd);
+      }
+      while (buffer.position() < getBoundsOffset(levelEnds.length)) {
+        buffer.put((byte)0);
+      }
+      for (final DoubleBuffer bounds : this.bounds) {
+        for (int i = 0; i < bounds.limit(); i++) {
+          if (buffer.remaining() < 8) {
+            writeBuffer(channel, buffer);
+          }
+          buffer.putDouble(bounds.get(i));
+        }
+      }
+      for (int i = 0; i < nodeCount; i++) {
+        if (buffer.remaining() < 4) {
+          writeBuffer(channel, buffer);
+        }
+        buffer.putInt(this.ids.get(i));
+      }
+      writeBuffer(channel, buffer);
+    } catch (final IOException e) {
+      throw Exceptions.wrap("Unable to write: " + file, e);
+    }
+  }
+
+  private void writeBuffer(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+}
@@ -4,7 +4,10 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
 
+import com.revolsys.geometry.index.NearestItemIterator;
+import com.revolsys.geometry.index.NearestItemSearch;
 import com.revolsys.geometry.index.SpatialIndex;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.util.ExitLoopException;
@@ -102,6 +105,18 @@ public class RTree<T> implements SpatialIndex<T> {
     this.size++;
   }
 
+  @Override
+  public NearestItemIterator<T> nearestItems(final double minX, final double minY,
+    final double maxX, final double maxY, final double maxDistance,
+    final ToDoubleFunction<? super T> itemDistance) {
+    final NearestItemSearch<RTreeNode<T>, T> search = new NearestItemSearch<>(minX, minY, maxX,
+      maxY, maxDistance, itemDistance,
+      (nearestSearch, node, nodeMinX, nodeMinY, nodeMaxX, nodeMaxY) -> node
+        .addNearestItems(nearestSearch));
+    this.root.addNearestItems(search);
+    return search;
+  }
+
   @Override
   public boolean removeItem(final BoundingBox boundingBox, final T object) {
     final double minX = boundingBox.getMinX();
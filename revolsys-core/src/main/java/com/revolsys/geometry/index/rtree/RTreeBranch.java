@@ -6,6 +6,7 @@ import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import com.revolsys.collection.ArrayUtil;
+import com.revolsys.geometry.index.NearestItemSearch;
 import com.revolsys.geometry.model.BoundingBox;
 
 public class RTreeBranch<T> extends RTreeNode<T> {
@@ -35,6 +36,17 @@ public class RTreeBranch<T> extends RTreeNode<T> {
     expandBoundingBox(node);
   }
 
+  @Override
+  protected void addNearestItems(final NearestItemSearch<RTreeNode<T>, T> search) {
+    final int childCount = this.size;
+    final RTreeNode<T>[] childNodes = this.nodes;
+    for (int i = 0; i < childCount; i++) {
+      final RTreeNode<T> childNode = childNodes[i];
+      search.addNode(childNode, childNode.getMinX(), childNode.getMinY(), childNode.getMaxX(),
+        childNode.getMaxY());
+    }
+  }
+
   @Override
   protected RTreeLeaf<T> chooseLeaf(final List<RTreeBranch<T>> path,
     final BoundingBox boundingBox) {
@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
+import com.revolsys.geometry.index.NearestItemSearch;
 import com.revolsys.geometry.model.BoundingBox;
 
 public class RTreeLeaf<T> extends RTreeNode<T> {
@@ -31,6 +32,16 @@ public class RTreeLeaf<T> extends RTreeNode<T> {
     expandBoundingBox(objectBoundingBox);
   }
 
+  @Override
+  protected void addNearestItems(final NearestItemSearch<RTreeNode<T>, T> search) {
+    for (int i = 0; i < this.size; i++) {
+      final BoundingBox objectBounds = this.objectBoundingBoxes[i];
+      final T object = this.objects[i];
+      search.addItem(object, objectBounds.getMinX(), objectBounds.getMinY(),
+        objectBounds.getMaxX(), objectBounds.getMaxY());
+    }
+  }
+
   @Override
   protected RTreeLeaf<T> chooseLeaf(final List<RTreeBranch<T>> path,
     final BoundingBox boundingBox) {
@@ -5,6 +5,7 @@ import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import com.revolsys.geometry.index.BoundingBoxNode;
+import com.revolsys.geometry.index.NearestItemSearch;
 import com.revolsys.geometry.model.BoundingBox;
 
 public abstract class RTreeNode<T> extends BoundingBoxNode {
@@ -12,6 +13,8 @@ public abstract class RTreeNode<T> extends BoundingBoxNode {
   public RTreeNode() {
   }
 
+  protected abstract void addNearestItems(NearestItemSearch<RTreeNode<T>, T> search);
+
   protected abstract RTreeLeaf<T> chooseLeaf(final List<RTreeBranch<T>> path,
     final BoundingBox boundingBox);
 
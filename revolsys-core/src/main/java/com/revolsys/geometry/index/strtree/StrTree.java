@@ -39,7 +39,10 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
 
+import com.revolsys.geometry.index.NearestItemIterator;
+import com.revolsys.geometry.index.NearestItemSearch;
 import com.revolsys.geometry.index.SpatialIndex;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.BoundingBoxProxy;
@@ -71,7 +74,7 @@ public class StrTree<I>
 
   private static final long serialVersionUID = 259274702368956900L;
 
-  private boolean built = false;
+  private volatile boolean built = false;
 
   /**
    * Set to <tt>null</tt> when index is built, to avoid retaining memory.
@@ -115,16 +118,20 @@ public class StrTree<I>
    * called once, and thus can be called only after all of the data has been
    * inserted into the tree.
    */
-  public synchronized void build() {
-    if (this.built) {
-      return;
+  public void build() {
+    // Only lock until the tree is built so concurrent queries don't contend
+    if (!this.built) {
+      synchronized (this) {
+        if (!this.built) {
+          this.root = this.strTreeLeafs.isEmpty() ? newNode(0)
+            : newNodeHigherLevels(this.strTreeLeafs, -1);
+          // the item list is no longer needed
+          this.strTreeLeafs = null;
+          this.root.computeBounds();
+          this.built = true;
+        }
+      }
     }
-    this.root = this.strTreeLeafs.isEmpty() ? newNode(0)
-      : newNodeHigherLevels(this.strTreeLeafs, -1);
-    // the item list is no longer needed
-    this.strTreeLeafs = null;
-    this.built = true;
-    this.root.computeBounds();
   }
 
   @Override
@@ -288,6 +295,44 @@ public class StrTree<I>
     return nodes.get(nodes.size() - 1);
   }
 
+  private void addNearestItems(final NearestItemSearch<Boundable<I>, I> search,
+    final Boundable<I> node) {
+    final int childCount = node.getChildCount();
+    final Boundable<I>[] children = node.getChildren();
+    for (int i = 0; i < childCount; i++) {
+      final Boundable<I> child = children[i];
+      final double minX = child.getMinX();
+      final double minY = child.getMinY();
+      final double maxX = child.getMaxX();
+      final double maxY = child.getMaxY();
+      if (child.isNode()) {
+        search.addNode(child, minX, minY, maxX, maxY);
+      } else {
+        search.addItem(child.getItem(), minX, minY, maxX, maxY);
+      }
+    }
+  }
+
+  /**
+   * Get an iterator over the items in order of increasing distance from the query bounding box.
+   * Unlike {@link #nearestNeighbour(BoundingBox, Object, ItemDistance)} the items are found
+   * incrementally and the item distance is from the query to a single item.
+   */
+  @Override
+  public NearestItemIterator<I> nearestItems(final double minX, final double minY,
+    final double maxX, final double maxY, final double maxDistance,
+    final ToDoubleFunction<? super I> itemDistance) {
+    build();
+    final NearestItemSearch<Boundable<I>, I> search = new NearestItemSearch<>(minX, minY, maxX,
+      maxY, maxDistance, itemDistance,
+      (nearestSearch, node, nodeMinX, nodeMinY, nodeMaxX, nodeMaxY) -> addNearestItems(
+        nearestSearch, node));
+    if (!isEmpty()) {
+      addNearestItems(search, this.root);
+    }
+    return search;
+  }
+
   private Pair<I, I> nearestNeighbour(final BoundablePair<I> initBndPair,
     final ItemDistance<I> itemDistance) {
     return nearestNeighbour(initBndPair, itemDistance, Double.POSITIVE_INFINITY);
@@ -1890,12 +1890,12 @@ public abstract class GeometryFactory implements GeometryFactoryProxy, MapSerial
   public LinearRing linearRing(final int axisCount, double... coordinates) {
     final int vertexCount = coordinates.length / axisCount;
     coordinates = LineStringDoubleGf.getNewCoordinates(this, axisCount, vertexCount, coordinates);
-    return new LinearRingDoubleGf(this, this.axisCount, vertexCount, coordinates);
+    return newLinearRing(vertexCount, coordinates);
   }
 
   public LinearRing linearRing(final int axisCount, final int vertexCount, double... coordinates) {
     coordinates = LineStringDoubleGf.getNewCoordinates(this, axisCount, vertexCount, coordinates);
-    return new LinearRingDoubleGf(this, this.axisCount, vertexCount, coordinates);
+    return newLinearRing(vertexCount, coordinates);
   }
 
   /**
@@ -1913,7 +1913,7 @@ public abstract class GeometryFactory implements GeometryFactoryProxy, MapSerial
     } else {
       final int vertexCount = line.getVertexCount();
       final double[] coordinates = LineStringDoubleGf.getNewCoordinates(this, line);
-      return new LinearRingDoubleGf(this, this.axisCount, vertexCount, coordinates);
+      return newLinearRing(vertexCount, coordinates);
     }
   }
 
@@ -1958,20 +1958,20 @@ public abstract class GeometryFactory implements GeometryFactoryProxy, MapSerial
     } else {
       final int vertexCount = coordinates.length / axisCount;
       coordinates = LineStringDoubleGf.getNewCoordinates(this, axisCount, vertexCount, coordinates);
-      return new LineStringDoubleGf(this, this.axisCount, vertexCount, coordinates);
+      return newLineString(vertexCount, coordinates);
     }
   }
 
   public LineString lineString(final int axisCount, final int vertexCount, double... coordinates) {
     coordinates = LineStringDoubleGf.getNewCoordinates(this, axisCount, vertexCount, coordinates);
-    return new LineStringDoubleGf(this, this.axisCount, vertexCount, coordinates);
+    return newLineString(vertexCount, coordinates);
   }
 
   public LineString lineString(final int axisCount, final Number[] coordinates) {
     final int vertexCount = coordinates.length / axisCount;
     final double[] coordinatesDouble = LineStringDoubleGf.getNewCoordinates(this, axisCount,
       vertexCount, coordinates);
-    return new LineStringDoubleGf(this, this.axisCount, vertexCount, coordinatesDouble);
+    return newLineString(vertexCount, coordinatesDouble);
   }
 
   public LineString lineString(final LineString line) {
@@ -1980,7 +1980,7 @@ public abstract class GeometryFactory implements GeometryFactoryProxy, MapSerial
     } else {
       final int vertexCount = line.getVertexCount();
       final double[] coordinates = LineStringDoubleGf.getNewCoordinates(this, line);
-      return new LineStringDoubleGf(this, this.axisCount, vertexCount, coordinates);
+      return newLineString(vertexCount, coordinates);
     }
   }
 
@@ -2154,6 +2154,30 @@ public abstract class GeometryFactory implements GeometryFactoryProxy, MapSerial
     return RectangleUtil.newBounds(axisCount);
   }
 
+  /**
+   * Construct a new {@link LinearRing} using the coordinates (already converted to this factory's
+   * axis count and precision).
+   *
+   * @param vertexCount The number of vertices.
+   * @param coordinates The coordinates.
+   * @return The linear ring.
+   */
+  protected LinearRing newLinearRing(final int vertexCount, final double[] coordinates) {
+    return new LinearRingDoubleGf(this, this.axisCount, vertexCount, coordinates);
+  }
+
+  /**
+   * Construct a new {@link LineString} using the coordinates (already converted to this factory's
+   * axis count and precision).
+   *
+   * @param vertexCount The number of vertices.
+   * @param coordinates The coordinates.
+   * @return The line string.
+   */
+  protected LineString newLineString(final int vertexCount, final double[] coordinates) {
+    return new LineStringDoubleGf(this, this.axisCount, vertexCount, coordinates);
+  }
+
   public LineStringEditor newLineStringEditor() {
     return new LineStringEditor(this);
   }
@@ -2702,6 +2726,37 @@ public abstract class GeometryFactory implements GeometryFactoryProxy, MapSerial
     }
   }
 
+  /**
+   * Union polygons that form a valid coverage (they don't overlap and share vertices along their
+   * common edges) by removing the shared edges instead of running an overlay.
+   *
+   * @param polygons The polygons.
+   * @return The union.
+   */
+  public Polygonal unionCoverage(final List<Polygon> polygons) {
+    final Polygonal polygonal = CascadedPolygonUnion.unionCoverage(polygons);
+    if (polygonal == null) {
+      return polygon();
+    } else {
+      return polygonal;
+    }
+  }
+
+  /**
+   * Union the polygons, unioning independent groups of polygons concurrently.
+   *
+   * @param polygons The polygons.
+   * @return The union.
+   */
+  public Polygonal unionParallel(final List<Polygon> polygons) {
+    final Polygonal polygonal = CascadedPolygonUnion.unionParallel(polygons);
+    if (polygonal == null) {
+      return polygon();
+    } else {
+      return polygonal;
+    }
+  }
+
   public void writeOffsetScaled3d(final ChannelWriter writer) {
     final int coordinateSystemId = getHorizontalCoordinateSystemId();
     writer.putInt(coordinateSystemId);
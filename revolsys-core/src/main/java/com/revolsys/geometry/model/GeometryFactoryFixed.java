@@ -6,8 +6,18 @@ import java.util.List;
 
 import org.jeometry.coordinatesystem.model.CoordinateSystem;
 
+import com.revolsys.geometry.model.impl.LineStringIntGf;
+import com.revolsys.geometry.model.impl.LinearRingIntGf;
+
 public class GeometryFactoryFixed extends GeometryFactory {
 
+  /**
+   * Store line string and linear ring coordinates as scaled int values when they can be stored
+   * exactly. Set the system property com.revolsys.geometry.compactCoordinates=false to disable.
+   */
+  private static final boolean COMPACT_COORDINATES = !"false"
+    .equalsIgnoreCase(System.getProperty("com.revolsys.geometry.compactCoordinates"));
+
   protected double resolutionX = 0;
 
   protected double resolutionY = 0;
@@ -536,6 +546,32 @@ public class GeometryFactoryFixed extends GeometryFactory {
     }
   }
 
+  @Override
+  protected LinearRing newLinearRing(final int vertexCount, final double[] coordinates) {
+    if (COMPACT_COORDINATES) {
+      final long[] offsets = new long[this.axisCount];
+      final int[] ints = LineStringIntGf.toScaledInts(this, this.axisCount, vertexCount,
+        coordinates, offsets);
+      if (ints != null) {
+        return new LinearRingIntGf(this, this.axisCount, vertexCount, offsets, ints);
+      }
+    }
+    return super.newLinearRing(vertexCount, coordinates);
+  }
+
+  @Override
+  protected LineString newLineString(final int vertexCount, final double[] coordinates) {
+    if (COMPACT_COORDINATES) {
+      final long[] offsets = new long[this.axisCount];
+      final int[] ints = LineStringIntGf.toScaledInts(this, this.axisCount, vertexCount,
+        coordinates, offsets);
+      if (ints != null) {
+        return new LineStringIntGf(this, this.axisCount, vertexCount, offsets, ints);
+      }
+    }
+    return super.newLineString(vertexCount, coordinates);
+  }
+
   @Override
   public double[] newScales(final int axisCount) {
     final double[] scales = new double[axisCount];
@@ -20,7 +20,6 @@ import com.revolsys.geometry.model.LineString;
 import com.revolsys.geometry.model.LinearRing;
 import com.revolsys.geometry.model.Point;
 import com.revolsys.geometry.model.Polygon;
-import com.revolsys.geometry.model.impl.LinearRingDoubleGf;
 
 public class LineStringEditor extends AbstractGeometryEditor<LineStringEditor>
   implements LineString, LinealEditor {
@@ -850,11 +849,15 @@ public class LineStringEditor extends AbstractGeometryEditor<LineStringEditor>
 
   @Override
   public LinearRing newLinearRing() {
-    final int coordinateCount = this.vertexCount * this.axisCount;
-    final double[] coordinates = new double[coordinateCount];
-    System.arraycopy(this.coordinates, 0, coordinates, 0, coordinateCount);
     final GeometryFactory geometryFactory = getGeometryFactory();
-    return new LinearRingDoubleGf(geometryFactory, this.axisCount, this.vertexCount, coordinates);
+    if (this.vertexCount == 0) {
+      return geometryFactory.linearRing();
+    } else {
+      final GeometryFactory geometryFactoryAxisCount = geometryFactory
+        .convertAxisCount(this.axisCount);
+      return geometryFactoryAxisCount.linearRing(this.axisCount, this.vertexCount,
+        this.coordinates);
+    }
   }
 
   @Override
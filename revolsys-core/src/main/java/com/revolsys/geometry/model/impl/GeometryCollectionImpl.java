@@ -67,10 +67,12 @@ import com.revolsys.geometry.model.editor.GeometryEditor;
 public class GeometryCollectionImpl implements GeometryCollection {
   private static final long serialVersionUID = -5694727726395021467L;
 
+  private volatile double area = Double.NaN;
+
   /**
    *  The bounding box of this <code>Geometry</code>.
    */
-  private BoundingBox boundingBox;
+  private volatile BoundingBox boundingBox;
 
   /**
    *  Internal representation of this <code>GeometryCollection</code>.
@@ -82,6 +84,8 @@ public class GeometryCollectionImpl implements GeometryCollection {
    */
   private final GeometryFactory geometryFactory;
 
+  private volatile double length = Double.NaN;
+
   /**
    * @param geometries
    *            the <code>Geometry</code>s for this <code>GeometryCollection</code>,
@@ -242,6 +246,16 @@ public class GeometryCollectionImpl implements GeometryCollection {
     }
   }
 
+  @Override
+  public double getArea() {
+    double area = this.area;
+    if (Double.isNaN(area)) {
+      area = GeometryCollection.super.getArea();
+      this.area = area;
+    }
+    return area;
+  }
+
   @Override
   public int getAxisCount() {
     return this.geometryFactory.getAxisCount();
@@ -249,10 +263,12 @@ public class GeometryCollectionImpl implements GeometryCollection {
 
   @Override
   public BoundingBox getBoundingBox() {
-    if (this.boundingBox == null) {
-      this.boundingBox = newBoundingBox();
+    BoundingBox boundingBox = this.boundingBox;
+    if (boundingBox == null) {
+      boundingBox = newBoundingBox();
+      this.boundingBox = boundingBox;
     }
-    return this.boundingBox;
+    return boundingBox;
   }
 
   @Override
@@ -282,6 +298,16 @@ public class GeometryCollectionImpl implements GeometryCollection {
     return this.geometryFactory;
   }
 
+  @Override
+  public double getLength() {
+    double length = this.length;
+    if (Double.isNaN(length)) {
+      length = GeometryCollection.super.getLength();
+      this.length = length;
+    }
+    return length;
+  }
+
   @Override
   public int getSegmentCount() {
     int segmentCount = 0;
@@ -14,6 +14,7 @@ import org.jeometry.common.number.Doubles;
 import org.jeometry.coordinatesystem.operation.CoordinatesOperation;
 import org.jeometry.coordinatesystem.operation.CoordinatesOperationPoint;
 
+import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.GeometryFactory;
 import com.revolsys.geometry.model.LineString;
 import com.revolsys.geometry.model.Point;
@@ -54,6 +55,12 @@ public class LineStringDouble extends AbstractLineString {
 
   protected double[] coordinates;
 
+  /** Lazily calculated, the coordinates are immutable once constructed. */
+  private volatile BoundingBox boundingBox;
+
+  /** Lazily calculated, NaN until first requested. */
+  private volatile double length = Double.NaN;
+
   public LineStringDouble(final int axisCount) {
     this.axisCount = axisCount;
     this.vertexCount = 0;
@@ -318,6 +325,16 @@ public class LineStringDouble extends AbstractLineString {
     return this.axisCount;
   }
 
+  @Override
+  public BoundingBox getBoundingBox() {
+    BoundingBox boundingBox = this.boundingBox;
+    if (boundingBox == null) {
+      boundingBox = newBoundingBox();
+      this.boundingBox = boundingBox;
+    }
+    return boundingBox;
+  }
+
   @Override
   public double getCoordinate(int vertexIndex, final int axisIndex) {
     final int axisCount = this.axisCount;
@@ -360,6 +377,16 @@ public class LineStringDouble extends AbstractLineString {
     }
   }
 
+  @Override
+  public double getLength() {
+    double length = this.length;
+    if (Double.isNaN(length)) {
+      length = super.getLength();
+      this.length = length;
+    }
+    return length;
+  }
+
   @Override
   public int getSegmentCount() {
     final int vertexCount = this.vertexCount;
@@ -32,7 +32,6 @@
  */
 package com.revolsys.geometry.model.impl;
 
-import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.GeometryFactory;
 import com.revolsys.geometry.model.LineString;
 
@@ -154,11 +153,6 @@ public class LineStringDoubleGf extends LineStringDouble {
       coordinates);
   }
 
-  /**
-   *  The bounding box of this <code>Geometry</code>.
-   */
-  private BoundingBox boundingBox;
-
   /**
    * The {@link GeometryFactory} used to create this Geometry
    */
@@ -186,14 +180,6 @@ public class LineStringDoubleGf extends LineStringDouble {
     return (LineStringDoubleGf)super.clone();
   }
 
-  @Override
-  public BoundingBox getBoundingBox() {
-    if (this.boundingBox == null) {
-      this.boundingBox = newBoundingBox();
-    }
-    return this.boundingBox;
-  }
-
   @Override
   public GeometryFactory getGeometryFactory() {
     return this.geometryFactory;
@@ -0,0 +1,412 @@
+package com.revolsys.geometry.model.impl;
+
+import java.util.function.Consumer;
+
+import org.jeometry.common.function.BiConsumerDouble;
+import org.jeometry.common.function.BiFunctionDouble;
+import org.jeometry.common.function.Consumer3Double;
+import org.jeometry.common.function.Consumer4Double;
+import org.jeometry.common.function.Function4Double;
+import org.jeometry.coordinatesystem.operation.CoordinatesOperation;
+import org.jeometry.coordinatesystem.operation.CoordinatesOperationPoint;
+
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryFactory;
+
+/**
+ * A {@link com.revolsys.geometry.model.LineString} for a fixed precision {@link GeometryFactory}
+ * that stores the coordinates as int values multiplied by the geometry factory's scale for each
+ * axis, relative to the line's minimum scaled value for that axis. This uses half the memory of
+ * {@link LineStringDoubleGf}. The coordinates are converted back to double values when they are
+ * read.
+ * <p>
+ * Use {@link #toScaledInts(GeometryFactory, int, int, double[], long[])} to convert the
+ * coordinates. It returns null if a coordinate can't be stored exactly or the extent of the line
+ * is too large for an int, in which case a {@link LineStringDoubleGf} must be used instead.
+ */
+public class LineStringIntGf extends AbstractLineString {
+  private static final long serialVersionUID = 1L;
+
+  /** The largest scaled value that can be converted to a double and back exactly. */
+  private static final double MAX_EXACT_LONG = 1L << 53;
+
+  /** The value used to store NaN coordinates. */
+  private static final int NAN_VALUE = Integer.MIN_VALUE;
+
+  private static double toDouble(final int value, final long offset, final double scale) {
+    if (value == NAN_VALUE) {
+      return Double.NaN;
+    } else {
+      return (offset + value) / scale;
+    }
+  }
+
+  /**
+   * Convert the coordinates to int values scaled by the geometry factory's scales. The minimum
+   * scaled value for each axis is stored in offsets and the int values are relative to it, so
+   * projected coordinates (e.g. a UTM northing of 6,000,000 at a scale of 1000) only need the
+   * extent of the line to fit in an int.
+   *
+   * @param geometryFactory The fixed precision geometry factory.
+   * @param axisCount The number of axis (2 or 3).
+   * @param vertexCount The number of vertices.
+   * @param coordinates The coordinates.
+   * @param offsets The array to store the scaled offset for each axis in.
+   * @return The scaled coordinates or null if any coordinate can't be stored exactly.
+   */
+  public static int[] toScaledInts(final GeometryFactory geometryFactory, final int axisCount,
+    final int vertexCount, final double[] coordinates, final long[] offsets) {
+    if (coordinates == null || vertexCount == 0 || axisCount < 2 || axisCount > 3) {
+      return null;
+    }
+    final double[] scales = new double[axisCount];
+    for (int axisIndex = 0; axisIndex < axisCount; axisIndex++) {
+      final double scale = geometryFactory.getScale(axisIndex);
+      if (scale <= 0) {
+        return null;
+      }
+      scales[axisIndex] = scale;
+      offsets[axisIndex] = Long.MAX_VALUE;
+    }
+    final int coordinateCount = vertexCount * axisCount;
+    final long[] scaledValues = new long[coordinateCount];
+    for (int i = 0; i < coordinateCount; i++) {
+      final double value = coordinates[i];
+      if (!Double.isNaN(value)) {
+        final int axisIndex = i % axisCount;
+        final double scale = scales[axisIndex];
+        final double multiple = value * scale;
+        if (Double.isInfinite(multiple) || Math.abs(multiple) >= MAX_EXACT_LONG) {
+          return null;
+        }
+        final long scaledValue = Math.round(multiple);
+        if (scaledValue / scale != value) {
+          return null;
+        }
+        scaledValues[i] = scaledValue;
+        if (scaledValue < offsets[axisIndex]) {
+          offsets[axisIndex] = scaledValue;
+        }
+      }
+    }
+    for (int axisIndex = 0; axisIndex < axisCount; axisIndex++) {
+      if (offsets[axisIndex] == Long.MAX_VALUE) {
+        // All the values are NaN
+        offsets[axisIndex] = 0;
+      }
+    }
+    final int[] ints = new int[coordinateCount];
+    for (int i = 0; i < coordinateCount; i++) {
+      if (Double.isNaN(coordinates[i])) {
+        ints[i] = NAN_VALUE;
+      } else {
+        final long delta = scaledValues[i] - offsets[i % axisCount];
+        if (delta > Integer.MAX_VALUE) {
+          return null;
+        }
+        ints[i] = (int)delta;
+      }
+    }
+    return ints;
+  }
+
+  private final GeometryFactory geometryFactory;
+
+  private final int axisCount;
+
+  private final int vertexCount;
+
+  private final int[] coordinates;
+
+  private final long offsetX;
+
+  private final long offsetY;
+
+  private final long offsetZ;
+
+  private final double scaleX;
+
+  private final double scaleY;
+
+  private final double scaleZ;
+
+  /** Lazily calculated, the coordinates are immutable once constructed. */
+  private volatile BoundingBox boundingBox;
+
+  public LineStringIntGf(final GeometryFactory geometryFactory, final int axisCount,
+    final int vertexCount, final long[] offsets, final int[] coordinates) {
+    this.geometryFactory = geometryFactory;
+    this.axisCount = axisCount;
+    this.vertexCount = vertexCount;
+    this.coordinates = coordinates;
+    this.offsetX = offsets[0];
+    this.offsetY = offsets[1];
+    this.scaleX = geometryFactory.getScaleX();
+    this.scaleY = geometryFactory.getScaleY();
+    if (axisCount > 2) {
+      this.offsetZ = offsets[2];
+      this.scaleZ = geometryFactory.getScaleZ();
+    } else {
+      this.offsetZ = 0;
+      this.scaleZ = 0;
+    }
+  }
+
+  @Override
+  public LineStringIntGf clone() {
+    // The coordinates are never modified so they can be shared
+    return (LineStringIntGf)super.clone();
+  }
+
+  @Override
+  public void copyPoint(final int vertexIndex, final int axisCount, final double[] coordinates) {
+    for (int axisIndex = 0; axisIndex < axisCount; axisIndex++) {
+      if (vertexIndex < this.vertexCount) {
+        coordinates[axisIndex] = getCoordinateFast(vertexIndex, axisIndex);
+      } else {
+        coordinates[axisIndex] = Double.NaN;
+      }
+    }
+  }
+
+  @Override
+  public <R> R findSegment(final Function4Double<R> action) {
+    final int vertexCount = this.vertexCount;
+    final int axisCount = this.axisCount;
+    final int[] coordinates = this.coordinates;
+    final double scaleX = this.scaleX;
+    final double scaleY = this.scaleY;
+    final long offsetX = this.offsetX;
+    final long offsetY = this.offsetY;
+    double x1 = toDouble(coordinates[0], offsetX, scaleX);
+    double y1 = toDouble(coordinates[1], offsetY, scaleY);
+    int coordinateIndex = axisCount;
+    for (int vertexIndex = 1; vertexIndex < vertexCount; vertexIndex++) {
+      final double x2 = toDouble(coordinates[coordinateIndex], offsetX, scaleX);
+      final double y2 = toDouble(coordinates[coordinateIndex + 1], offsetY, scaleY);
+      final R result = action.accept(x1, y1, x2, y2);
+      if (result != null) {
+        return result;
+      }
+      coordinateIndex += axisCount;
+      x1 = x2;
+      y1 = y2;
+    }
+    return null;
+  }
+
+  @Override
+  public <R> R findVertex(final BiFunctionDouble<R> action) {
+    final int coordinateCount = this.vertexCount * this.axisCount;
+    final int axisCount = this.axisCount;
+    final int[] coordinates = this.coordinates;
+    final double scaleX = this.scaleX;
+    final double scaleY = this.scaleY;
+    final long offsetX = this.offsetX;
+    final long offsetY = this.offsetY;
+    for (int coordinateIndex = 0; coordinateIndex < coordinateCount; coordinateIndex += axisCount) {
+      final double x = toDouble(coordinates[coordinateIndex], offsetX, scaleX);
+      final double y = toDouble(coordinates[coordinateIndex + 1], offsetY, scaleY);
+      final R result = action.accept(x, y);
+      if (result != null) {
+        return result;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void forEachSegment(final Consumer4Double action) {
+    final int vertexCount = this.vertexCount;
+    final int axisCount = this.axisCount;
+    final int[] coordinates = this.coordinates;
+    final double scaleX = this.scaleX;
+    final double scaleY = this.scaleY;
+    final long offsetX = this.offsetX;
+    final long offsetY = this.offsetY;
+    double x1 = toDouble(coordinates[0], offsetX, scaleX);
+    double y1 = toDouble(coordinates[1], offsetY, scaleY);
+    int coordinateIndex = axisCount;
+    for (int vertexIndex = 1; vertexIndex < vertexCount; vertexIndex++) {
+      final double x2 = toDouble(coordinates[coordinateIndex], offsetX, scaleX);
+      final double y2 = toDouble(coordinates[coordinateIndex + 1], offsetY, scaleY);
+      action.accept(x1, y1, x2, y2);
+      coordinateIndex += axisCount;
+      x1 = x2;
+      y1 = y2;
+    }
+  }
+
+  @Override
+  public void forEachVertex(final BiConsumerDouble action) {
+    final int coordinateCount = this.vertexCount * this.axisCount;
+    final int axisCount = this.axisCount;
+    final int[] coordinates = this.coordinates;
+    final double scaleX = this.scaleX;
+    final double scaleY = this.scaleY;
+    final long offsetX = this.offsetX;
+    final long offsetY = this.offsetY;
+    for (int coordinateIndex = 0; coordinateIndex < coordinateCount; coordinateIndex += axisCount) {
+      final double x = toDouble(coordinates[coordinateIndex], offsetX, scaleX);
+      final double y = toDouble(coordinates[coordinateIndex + 1], offsetY, scaleY);
+      action.accept(x, y);
+    }
+  }
+
+  @Override
+  public void forEachVertex(final Consumer3Double action) {
+    final int coordinateCount = this.vertexCount * this.axisCount;
+    final int axisCount = this.axisCount;
+    final int[] coordinates = this.coordinates;
+    final double scaleX = this.scaleX;
+    final double scaleY = this.scaleY;
+    final double scaleZ = this.scaleZ;
+    final long offsetX = this.offsetX;
+    final long offsetY = this.offsetY;
+    final long offsetZ = this.offsetZ;
+    for (int coordinateIndex = 0; coordinateIndex < coordinateCount; coordinateIndex += axisCount) {
+      final double x = toDouble(coordinates[coordinateIndex], offsetX, scaleX);
+      final double y = toDouble(coordinates[coordinateIndex + 1], offsetY, scaleY);
+      double z;
+      if (axisCount > 2) {
+        z = toDouble(coordinates[coordinateIndex + 2], offsetZ, scaleZ);
+      } else {
+        z = Double.NaN;
+      }
+      action.accept(x, y, z);
+    }
+  }
+
+  @Override
+  public void forEachVertex(final CoordinatesOperation coordinatesOperation,
+    final CoordinatesOperationPoint point, final Consumer<CoordinatesOperationPoint> action) {
+    forEachVertex(point, (final CoordinatesOperationPoint vertex) -> {
+      coordinatesOperation.perform(vertex);
+      action.accept(vertex);
+    });
+  }
+
+  @Override
+  public void forEachVertex(final CoordinatesOperationPoint point,
+    final Consumer<CoordinatesOperationPoint> action) {
+    final int coordinateCount = this.vertexCount * this.axisCount;
+    final int axisCount = this.axisCount;
+    final int[] coordinates = this.coordinates;
+    for (int coordinateIndex = 0; coordinateIndex < coordinateCount; coordinateIndex += axisCount) {
+      final double x = toDouble(coordinates[coordinateIndex], this.offsetX, this.scaleX);
+      final double y = toDouble(coordinates[coordinateIndex + 1], this.offsetY, this.scaleY);
+      if (axisCount > 2) {
+        final double z = toDouble(coordinates[coordinateIndex + 2], this.offsetZ, this.scaleZ);
+        point.setPoint(x, y, z);
+      } else {
+        point.setPoint(x, y);
+      }
+      action.accept(point);
+    }
+  }
+
+  @Override
+  public int getAxisCount() {
+    return this.axisCount;
+  }
+
+  @Override
+  public BoundingBox getBoundingBox() {
+    BoundingBox boundingBox = this.boundingBox;
+    if (boundingBox == null) {
+      boundingBox = newBoundingBox();
+      this.boundingBox = boundingBox;
+    }
+    return boundingBox;
+  }
+
+  @Override
+  public double getCoordinate(int vertexIndex, final int axisIndex) {
+    if (axisIndex < this.axisCount) {
+      final int vertexCount = this.vertexCount;
+      if (vertexIndex < vertexCount) {
+        while (vertexIndex < 0) {
+          vertexIndex += vertexCount;
+        }
+        return getCoordinateFast(vertexIndex, axisIndex);
+      }
+    }
+    return Double.NaN;
+  }
+
+  @Override
+  public double getCoordinateFast(final int vertexIndex, final int axisIndex) {
+    final int axisCount = this.axisCount;
+    if (axisIndex < axisCount) {
+      final int value = this.coordinates[vertexIndex * axisCount + axisIndex];
+      switch (axisIndex) {
+        case 0:
+          return toDouble(value, this.offsetX, this.scaleX);
+        case 1:
+          return toDouble(value, this.offsetY, this.scaleY);
+        default:
+          return toDouble(value, this.offsetZ, this.scaleZ);
+      }
+    } else {
+      return Double.NaN;
+    }
+  }
+
+  @Override
+  public double[] getCoordinates() {
+    final int coordinateCount = this.vertexCount * this.axisCount;
+    final double[] coordinates = new double[coordinateCount];
+    for (int coordinateIndex = 0; coordinateIndex < coordinateCount; coordinateIndex++) {
+      final int axisIndex = coordinateIndex % this.axisCount;
+      coordinates[coordinateIndex] = getCoordinateFast(coordinateIndex / this.axisCount,
+        axisIndex);
+    }
+    return coordinates;
+  }
+
+  @Override
+  public GeometryFactory getGeometryFactory() {
+    return this.geometryFactory;
+  }
+
+  @Override
+  public int getSegmentCount() {
+    final int vertexCount = this.vertexCount;
+    if (vertexCount == 0) {
+      return 0;
+    } else {
+      return vertexCount - 1;
+    }
+  }
+
+  @Override
+  public int getVertexCount() {
+    return this.vertexCount;
+  }
+
+  @Override
+  public double getX(final int vertexIndex) {
+    return toDouble(this.coordinates[vertexIndex * this.axisCount], this.offsetX, this.scaleX);
+  }
+
+  @Override
+  public double getY(final int vertexIndex) {
+    return toDouble(this.coordinates[vertexIndex * this.axisCount + 1], this.offsetY,
+      this.scaleY);
+  }
+
+  @Override
+  public double getZ(final int vertexIndex) {
+    final int axisCount = this.axisCount;
+    if (axisCount > 2) {
+      return toDouble(this.coordinates[vertexIndex * axisCount + 2], this.offsetZ, this.scaleZ);
+    } else {
+      return Double.NaN;
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return this.vertexCount == 0;
+  }
+}
@@ -0,0 +1,72 @@
+package com.revolsys.geometry.model.impl;
+
+import java.io.StringWriter;
+
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.LinearRing;
+import com.revolsys.record.io.format.wkt.EWktWriter;
+
+/**
+ * A {@link LinearRing} that stores the coordinates as scaled int values.
+ *
+ * @see LineStringIntGf
+ */
+public class LinearRingIntGf extends LineStringIntGf implements LinearRing {
+  private static final long serialVersionUID = 1L;
+
+  public LinearRingIntGf(final GeometryFactory geometryFactory, final int axisCount,
+    final int vertexCount, final long[] offsets, final int[] coordinates) {
+    super(geometryFactory, axisCount, vertexCount, offsets, coordinates);
+    validate();
+  }
+
+  @Override
+  public LinearRingIntGf clone() {
+    return (LinearRingIntGf)super.clone();
+  }
+
+  @Override
+  public boolean isClosed() {
+    if (isEmpty()) {
+      return true;
+    } else {
+      return super.isClosed();
+    }
+  }
+
+  @Override
+  public LinearRing newGeometry(final GeometryFactory geometryFactory) {
+    return (LinearRing)super.newGeometry(geometryFactory);
+  }
+
+  @Override
+  public LinearRing reverse() {
+    final int vertexCount = getVertexCount();
+    final int axisCount = getAxisCount();
+    final double[] coordinates = new double[vertexCount * axisCount];
+    for (int vertexIndex = 0; vertexIndex < vertexCount; vertexIndex++) {
+      for (int axisIndex = 0; axisIndex < axisCount; axisIndex++) {
+        final int coordinateIndex = (vertexCount - 1 - vertexIndex) * axisCount + axisIndex;
+        coordinates[coordinateIndex] = getCoordinateFast(vertexIndex, axisIndex);
+      }
+    }
+    final GeometryFactory geometryFactory = getGeometryFactory();
+    return geometryFactory.linearRing(axisCount, coordinates);
+  }
+
+  private void validate() {
+    if (isClosed()) {
+      final int vertexCount = getVertexCount();
+      if (vertexCount >= 1 && vertexCount <= 2) {
+        throw new IllegalArgumentException("Invalid number of points in LinearRing (found "
+          + vertexCount + " - must be 0 or >= 3): " + this);
+      }
+    } else {
+      final StringWriter out = new StringWriter();
+      EWktWriter.write(out, (LineString)this);
+      throw new IllegalArgumentException(
+        "Points of LinearRing do not form a closed linestring: " + out);
+    }
+  }
+}
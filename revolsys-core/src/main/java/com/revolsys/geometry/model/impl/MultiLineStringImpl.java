@@ -65,10 +65,12 @@ public class MultiLineStringImpl implements MultiLineString {
   /**
    *  The bounding box of this <code>Geometry</code>.
    */
-  private BoundingBox boundingBox;
+  private volatile BoundingBox boundingBox;
 
   private final GeometryFactory geometryFactory;
 
+  private volatile double length = Double.NaN;
+
   private LineString[] lines;
 
   public MultiLineStringImpl(final GeometryFactory geometryFactory, final LineString... lines) {
@@ -215,10 +217,12 @@ public class MultiLineStringImpl implements MultiLineString {
 
   @Override
   public BoundingBox getBoundingBox() {
-    if (this.boundingBox == null) {
-      this.boundingBox = newBoundingBox();
+    BoundingBox boundingBox = this.boundingBox;
+    if (boundingBox == null) {
+      boundingBox = newBoundingBox();
+      this.boundingBox = boundingBox;
     }
-    return this.boundingBox;
+    return boundingBox;
   }
 
   @SuppressWarnings("unchecked")
@@ -243,6 +247,16 @@ public class MultiLineStringImpl implements MultiLineString {
     return this.geometryFactory;
   }
 
+  @Override
+  public double getLength() {
+    double length = this.length;
+    if (Double.isNaN(length)) {
+      length = MultiLineString.super.getLength();
+      this.length = length;
+    }
+    return length;
+  }
+
   @Override
   public int getLineStringCount() {
     return this.lines.length;
@@ -67,12 +67,18 @@ import com.revolsys.geometry.model.Polygonal;
 public class MultiPolygonImpl implements MultiPolygon {
   private static final long serialVersionUID = 8166665132445433741L;
 
-  private BoundingBox boundingBox;
+  private volatile double area = Double.NaN;
+
+  private volatile BoundingBox boundingBox;
 
   private final GeometryFactory geometryFactory;
 
+  private volatile double length = Double.NaN;
+
   private Polygon[] polygons;
 
+  private volatile Boolean valid;
+
   public MultiPolygonImpl(final GeometryFactory geometryFactory, final Polygon... polygons) {
     this.geometryFactory = geometryFactory;
     if (polygons == null || polygons.length == 0) {
@@ -215,6 +221,16 @@ public class MultiPolygonImpl implements MultiPolygon {
     }
   }
 
+  @Override
+  public double getArea() {
+    double area = this.area;
+    if (Double.isNaN(area)) {
+      area = MultiPolygon.super.getArea();
+      this.area = area;
+    }
+    return area;
+  }
+
   @Override
   public int getAxisCount() {
     return this.geometryFactory.getAxisCount();
@@ -222,10 +238,12 @@ public class MultiPolygonImpl implements MultiPolygon {
 
   @Override
   public BoundingBox getBoundingBox() {
-    if (this.boundingBox == null) {
-      this.boundingBox = newBoundingBox();
+    BoundingBox boundingBox = this.boundingBox;
+    if (boundingBox == null) {
+      boundingBox = newBoundingBox();
+      this.boundingBox = boundingBox;
     }
-    return this.boundingBox;
+    return boundingBox;
   }
 
   @SuppressWarnings("unchecked")
@@ -250,6 +268,16 @@ public class MultiPolygonImpl implements MultiPolygon {
     return this.geometryFactory;
   }
 
+  @Override
+  public double getLength() {
+    double length = this.length;
+    if (Double.isNaN(length)) {
+      length = MultiPolygon.super.getLength();
+      this.length = length;
+    }
+    return length;
+  }
+
   @Override
   public int getPolygonCount() {
     return this.polygons.length;
@@ -270,6 +298,16 @@ public class MultiPolygonImpl implements MultiPolygon {
     return false;
   }
 
+  @Override
+  public boolean isValid() {
+    Boolean valid = this.valid;
+    if (valid == null) {
+      valid = MultiPolygon.super.isValid();
+      this.valid = valid;
+    }
+    return valid;
+  }
+
   @Override
   public String toString() {
     return toEwkt();
@@ -80,15 +80,21 @@ import com.revolsys.geometry.model.Polygon;
 public class PolygonImpl extends AbstractPolygon {
   private static final long serialVersionUID = 1L;
 
-  private BoundingBox boundingBox;
+  private volatile double area = Double.NaN;
+
+  private volatile BoundingBox boundingBox;
 
   /**
    * The {@link GeometryFactory} used to create this Geometry
    */
   private final GeometryFactory geometryFactory;
 
+  private volatile double length = Double.NaN;
+
   private LinearRing[] rings;
 
+  private volatile Boolean valid;
+
   public PolygonImpl(final GeometryFactory factory, final LinearRing ring) {
     this.geometryFactory = factory;
     if (ring == null || ring.isEmpty()) {
@@ -206,6 +212,16 @@ public class PolygonImpl extends AbstractPolygon {
     }
   }
 
+  @Override
+  public double getArea() {
+    double area = this.area;
+    if (Double.isNaN(area)) {
+      area = super.getArea();
+      this.area = area;
+    }
+    return area;
+  }
+
   @Override
   public int getAxisCount() {
     return this.geometryFactory.getAxisCount();
@@ -213,10 +229,12 @@ public class PolygonImpl extends AbstractPolygon {
 
   @Override
   public BoundingBox getBoundingBox() {
-    if (this.boundingBox == null) {
-      this.boundingBox = newBoundingBox();
+    BoundingBox boundingBox = this.boundingBox;
+    if (boundingBox == null) {
+      boundingBox = newBoundingBox();
+      this.boundingBox = boundingBox;
     }
-    return this.boundingBox;
+    return boundingBox;
   }
 
   @Override
@@ -250,6 +268,16 @@ public class PolygonImpl extends AbstractPolygon {
     return this.geometryFactory;
   }
 
+  @Override
+  public double getLength() {
+    double length = this.length;
+    if (Double.isNaN(length)) {
+      length = super.getLength();
+      this.length = length;
+    }
+    return length;
+  }
+
   @Override
   public LinearRing getRing(final int ringIndex) {
     if (ringIndex < 0 || ringIndex >= this.rings.length) {
@@ -273,4 +301,14 @@ public class PolygonImpl extends AbstractPolygon {
   public boolean isEmpty() {
     return false;
   }
+
+  @Override
+  public boolean isValid() {
+    Boolean valid = this.valid;
+    if (valid == null) {
+      valid = super.isValid();
+      this.valid = valid;
+    }
+    return valid;
+  }
 }
@@ -0,0 +1,204 @@
+package com.revolsys.geometry.model.prep;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.revolsys.collection.map.LruMap;
+import com.revolsys.geometry.model.Geometry;
+
+/**
+ * A bounded cache of prepared geometries that can be shared between threads. Geometries are
+ * compared by identity and are weakly referenced so a geometry that is no longer used is removed
+ * from the cache. The least recently used entries are removed if the cache is full.
+ * <p>
+ * The prepared geometries are also weakly referenced, as some prepared geometries (e.g.
+ * {@link PreparedLineString}) reference the source geometry, which would stop the source from
+ * being garbage collected. A prepared geometry is shared while it is still in use and is prepared
+ * again once it is no longer used. Geometries that are already prepared are returned as is and
+ * not cached.
+ * </p>
+ * <p>
+ * The prepared geometries lazily build their indexes using double checked locking, so once built a
+ * single prepared geometry (e.g. a clip boundary) can be used concurrently by all worker threads
+ * without blocking.
+ * </p>
+ */
+public class PreparedGeometryCache {
+
+  private static class GeometryKey extends WeakReference<Geometry> {
+    private final int hashCode;
+
+    private GeometryKey(final Geometry geometry, final ReferenceQueue<Geometry> queue) {
+      super(geometry, queue);
+      this.hashCode = System.identityHashCode(geometry);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      } else if (obj instanceof GeometryKey) {
+        final GeometryKey other = (GeometryKey)obj;
+        final Geometry geometry = get();
+        return geometry != null && geometry == other.get();
+      } else {
+        return false;
+      }
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hashCode;
+    }
+  }
+
+  private static class PreparedReference extends WeakReference<Geometry> {
+    private final GeometryKey key;
+
+    private PreparedReference(final Geometry prepared, final GeometryKey key,
+      final ReferenceQueue<Geometry> queue) {
+      super(prepared, queue);
+      this.key = key;
+    }
+  }
+
+  public static final int DEFAULT_MAX_SIZE = 1000;
+
+  private static final PreparedGeometryCache INSTANCE = new PreparedGeometryCache(
+    Integer.getInteger("com.revolsys.geometry.preparedGeometryCacheMaxSize", DEFAULT_MAX_SIZE));
+
+  /**
+   * Get the process wide cache.
+   *
+   * @return The cache.
+   */
+  public static PreparedGeometryCache get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Get the prepared geometry from the process wide cache, preparing it if required.
+   *
+   * @param geometry The geometry.
+   * @return The prepared geometry.
+   */
+  public static Geometry prepareShared(final Geometry geometry) {
+    return INSTANCE.prepare(geometry);
+  }
+
+  private final LruMap<GeometryKey, PreparedReference> cache;
+
+  private final ReferenceQueue<Geometry> queue = new ReferenceQueue<>();
+
+  private final AtomicLong hitCount = new AtomicLong();
+
+  private final AtomicLong missCount = new AtomicLong();
+
+  public PreparedGeometryCache(final int maxSize) {
+    this.cache = new LruMap<>(maxSize);
+  }
+
+  public void clear() {
+    synchronized (this.cache) {
+      this.cache.clear();
+    }
+  }
+
+  /**
+   * Remove the entries whose geometry or prepared geometry has been garbage collected. Must be
+   * called while synchronized on the cache.
+   */
+  private void expungeStaleEntries() {
+    for (Reference<? extends Geometry> reference = this.queue.poll(); reference != null;
+      reference = this.queue.poll()) {
+      if (reference instanceof PreparedReference) {
+        final PreparedReference preparedReference = (PreparedReference)reference;
+        this.cache.remove(preparedReference.key, preparedReference);
+      } else {
+        this.cache.remove(reference);
+      }
+    }
+  }
+
+  public long getHitCount() {
+    return this.hitCount.get();
+  }
+
+  public long getMissCount() {
+    return this.missCount.get();
+  }
+
+  private Geometry getPrepared(final GeometryKey key) {
+    final PreparedReference reference = this.cache.get(key);
+    if (reference == null) {
+      return null;
+    } else {
+      return reference.get();
+    }
+  }
+
+  /**
+   * Get the prepared version of the geometry, preparing and caching it if it isn't in the cache.
+   * The geometry is prepared outside the lock, so if two threads prepare the same geometry at the
+   * same time the first one added to the cache is returned to both.
+   *
+   * @param geometry The geometry.
+   * @return The prepared geometry.
+   */
+  public Geometry prepare(final Geometry geometry) {
+    if (geometry == null) {
+      return null;
+    } else {
+      final GeometryKey lookupKey = new GeometryKey(geometry, null);
+      synchronized (this.cache) {
+        expungeStaleEntries();
+        final Geometry prepared = getPrepared(lookupKey);
+        if (prepared != null) {
+          this.hitCount.incrementAndGet();
+          return prepared;
+        }
+      }
+      this.missCount.incrementAndGet();
+      final Geometry prepared = geometry.prepare();
+      if (prepared == geometry) {
+        // Already prepared or doesn't need preparing, caching it would only pin the geometry
+        return prepared;
+      }
+      synchronized (this.cache) {
+        final Geometry existing = getPrepared(lookupKey);
+        if (existing == null) {
+          final GeometryKey key = new GeometryKey(geometry, this.queue);
+          this.cache.remove(lookupKey);
+          this.cache.put(key, new PreparedReference(prepared, key, this.queue));
+          return prepared;
+        } else {
+          return existing;
+        }
+      }
+    }
+  }
+
+  public void remove(final Geometry geometry) {
+    if (geometry != null) {
+      final GeometryKey lookupKey = new GeometryKey(geometry, null);
+      synchronized (this.cache) {
+        this.cache.remove(lookupKey);
+      }
+    }
+  }
+
+  public void setMaxSize(final int maxSize) {
+    synchronized (this.cache) {
+      this.cache.setMaxSize(maxSize);
+    }
+  }
+
+  public int size() {
+    synchronized (this.cache) {
+      expungeStaleEntries();
+      return this.cache.size();
+    }
+  }
+}
@@ -53,24 +53,31 @@ import com.revolsys.geometry.noding.SegmentStringUtil;
 public class PreparedLineString extends AbstractDelegatingLineString {
   private static final long serialVersionUID = 1L;
 
-  private FastSegmentSetIntersectionFinder segIntFinder = null;
+  private volatile FastSegmentSetIntersectionFinder segIntFinder;
 
   public PreparedLineString(final LineString line) {
     super(line);
   }
 
-  public synchronized FastSegmentSetIntersectionFinder getIntersectionFinder() {
+  public FastSegmentSetIntersectionFinder getIntersectionFinder() {
     /**
      * MD - Another option would be to use a simple scan for
      * segment testing for small geometries.
      * However, testing indicates that there is no particular advantage
      * to this approach.
      */
-    if (this.segIntFinder == null) {
-      this.segIntFinder = new FastSegmentSetIntersectionFinder(
-        SegmentStringUtil.extractSegmentStrings(getLineString()));
+    FastSegmentSetIntersectionFinder segIntFinder = this.segIntFinder;
+    if (segIntFinder == null) {
+      synchronized (this) {
+        segIntFinder = this.segIntFinder;
+        if (segIntFinder == null) {
+          segIntFinder = new FastSegmentSetIntersectionFinder(
+            SegmentStringUtil.extractSegmentStrings(getLineString()));
+          this.segIntFinder = segIntFinder;
+        }
+      }
     }
-    return this.segIntFinder;
+    return segIntFinder;
   }
 
   @Override
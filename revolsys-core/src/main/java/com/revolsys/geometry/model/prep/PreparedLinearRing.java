@@ -9,7 +9,7 @@ public class PreparedLinearRing extends PreparedLineString implements LinearRing
 
   private static final long serialVersionUID = 1L;
 
-  private PointOnGeometryLocator pointLocator;
+  private volatile PointOnGeometryLocator pointLocator;
 
   public PreparedLinearRing(final LinearRing ring) {
     super(ring);
@@ -20,12 +20,18 @@ public class PreparedLinearRing extends PreparedLineString implements LinearRing
     return (LinearRing)super.clone();
   }
 
-  public synchronized PointOnGeometryLocator getPointLocator() {
-    if (this.pointLocator == null) {
-      this.pointLocator = new IndexedPointInAreaLocator(this);
+  public PointOnGeometryLocator getPointLocator() {
+    PointOnGeometryLocator pointLocator = this.pointLocator;
+    if (pointLocator == null) {
+      synchronized (this) {
+        pointLocator = this.pointLocator;
+        if (pointLocator == null) {
+          pointLocator = new IndexedPointInAreaLocator(this);
+          this.pointLocator = pointLocator;
+        }
+      }
     }
-
-    return this.pointLocator;
+    return pointLocator;
   }
 
   @Override
@@ -64,7 +64,7 @@ public class PreparedMultiLineString extends MultiLineStringImpl {
     return polygons;
   }
 
-  private FastSegmentSetIntersectionFinder segIntFinder = null;
+  private volatile FastSegmentSetIntersectionFinder segIntFinder;
 
   public PreparedMultiLineString(final MultiLineString multiLineString) {
     super(multiLineString.getGeometryFactory(), prepareLineStrings(multiLineString));
@@ -81,18 +81,25 @@ public class PreparedMultiLineString extends MultiLineStringImpl {
     return (PreparedMultiLineString)super.clone();
   }
 
-  public synchronized FastSegmentSetIntersectionFinder getIntersectionFinder() {
+  public FastSegmentSetIntersectionFinder getIntersectionFinder() {
     /**
      * MD - Another option would be to use a simple scan for
      * segment testing for small geometries.
      * However, testing indicates that there is no particular advantage
      * to this approach.
      */
-    if (this.segIntFinder == null) {
-      this.segIntFinder = new FastSegmentSetIntersectionFinder(
-        SegmentStringUtil.extractSegmentStrings(this));
+    FastSegmentSetIntersectionFinder segIntFinder = this.segIntFinder;
+    if (segIntFinder == null) {
+      synchronized (this) {
+        segIntFinder = this.segIntFinder;
+        if (segIntFinder == null) {
+          segIntFinder = new FastSegmentSetIntersectionFinder(
+            SegmentStringUtil.extractSegmentStrings(this));
+          this.segIntFinder = segIntFinder;
+        }
+      }
     }
-    return this.segIntFinder;
+    return segIntFinder;
   }
 
   @Override
@@ -78,10 +78,10 @@ public class PreparedMultiPolygon extends MultiPolygonImpl implements PreparedPo
 
   private final boolean isRectangle;
 
-  private PointOnGeometryLocator pia = null;
+  private volatile PointOnGeometryLocator pia;
 
   // create these lazily, since they are expensive
-  private FastSegmentSetIntersectionFinder segIntFinder = null;
+  private volatile FastSegmentSetIntersectionFinder segIntFinder;
 
   public PreparedMultiPolygon(final MultiPolygon multiPolygon) {
     super(multiPolygon.getGeometryFactory(), preparePolygons(multiPolygon));
@@ -175,26 +175,39 @@ public class PreparedMultiPolygon extends MultiPolygonImpl implements PreparedPo
    *
    * @return the intersection finder
    */
-  public synchronized FastSegmentSetIntersectionFinder getIntersectionFinder() {
+  public FastSegmentSetIntersectionFinder getIntersectionFinder() {
     /**
      * MD - Another option would be to use a simple scan for
      * segment testing for small geometries.
      * However, testing indicates that there is no particular advantage
      * to this approach.
      */
-    if (this.segIntFinder == null) {
-      this.segIntFinder = new FastSegmentSetIntersectionFinder(
-        SegmentStringUtil.extractSegmentStrings(this));
+    FastSegmentSetIntersectionFinder segIntFinder = this.segIntFinder;
+    if (segIntFinder == null) {
+      synchronized (this) {
+        segIntFinder = this.segIntFinder;
+        if (segIntFinder == null) {
+          segIntFinder = new FastSegmentSetIntersectionFinder(
+            SegmentStringUtil.extractSegmentStrings(this));
+          this.segIntFinder = segIntFinder;
+        }
+      }
     }
-    return this.segIntFinder;
+    return segIntFinder;
   }
 
-  public synchronized PointOnGeometryLocator getPointLocator() {
-    if (this.pia == null) {
-      this.pia = new IndexedPointInAreaLocator(this);
+  public PointOnGeometryLocator getPointLocator() {
+    PointOnGeometryLocator pia = this.pia;
+    if (pia == null) {
+      synchronized (this) {
+        pia = this.pia;
+        if (pia == null) {
+          pia = new IndexedPointInAreaLocator(this);
+          this.pia = pia;
+        }
+      }
     }
-
-    return this.pia;
+    return pia;
   }
 
   /**
@@ -34,16 +34,24 @@ package com.revolsys.geometry.operation.union;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import com.revolsys.collection.list.Lists;
 import com.revolsys.geometry.index.strtree.StrTree;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.Geometry;
 import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.LinearRing;
+import com.revolsys.geometry.model.Point;
 import com.revolsys.geometry.model.Polygon;
 import com.revolsys.geometry.model.Polygonal;
 import com.revolsys.geometry.model.TopologyException;
+import com.revolsys.geometry.operation.polygonize.Polygonizer;
 import com.revolsys.util.Property;
 
 /**
@@ -71,10 +79,92 @@ import com.revolsys.util.Property;
  * where there is <i>no</i> overlap between the input geometries.
  * However, this case is likely rare in practice.
  *
+ * <p>
+ * If {@link #setParallel(boolean)} is enabled the independent subtrees of the index are unioned
+ * concurrently on the common {@link ForkJoinPool}. Subtrees with fewer than
+ * {@link #getSerialThreshold()} polygons are unioned serially within a single task.
+ * <p>
+ * If {@link #setCoverage(boolean)} is enabled the polygons must form a valid coverage (they don't
+ * overlap and adjacent polygons have the same vertices along their shared edges). The union is
+ * then computed by removing the shared edges and polygonizing the remaining edges, without
+ * running an overlay.
+ *
  * @author Martin Davis
  *
  */
 public class CascadedPolygonUnion {
+  /**
+   * A line segment with the end points in a canonical order so that the segment is equal to the
+   * same segment in the opposite direction.
+   */
+  private static final class Segment {
+    private final double x1;
+
+    private final double y1;
+
+    private final double x2;
+
+    private final double y2;
+
+    private Segment(final double x1, final double y1, final double x2, final double y2) {
+      if (x1 < x2 || x1 == x2 && y1 < y2) {
+        this.x1 = x1;
+        this.y1 = y1;
+        this.x2 = x2;
+        this.y2 = y2;
+      } else {
+        this.x1 = x2;
+        this.y1 = y2;
+        this.x2 = x1;
+        this.y2 = y1;
+      }
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      } else if (obj instanceof Segment) {
+        final Segment other = (Segment)obj;
+        return this.x1 == other.x1 && this.y1 == other.y1 && this.x2 == other.x2
+          && this.y2 == other.y2;
+      } else {
+        return false;
+      }
+    }
+
+    @Override
+    public int hashCode() {
+      final int prime = 31;
+      int result = 1;
+      result = prime * result + Double.hashCode(this.x1);
+      result = prime * result + Double.hashCode(this.y1);
+      result = prime * result + Double.hashCode(this.x2);
+      result = prime * result + Double.hashCode(this.y2);
+      return result;
+    }
+  }
+
+  private class UnionTreeTask extends RecursiveTask<Polygonal> {
+    private static final long serialVersionUID = 1L;
+
+    private final int index;
+
+    private final List<?> items;
+
+    private UnionTreeTask(final int index, final List<?> items) {
+      this.index = index;
+      this.items = items;
+    }
+
+    @Override
+    protected Polygonal compute() {
+      return unionTree(this.items);
+    }
+  }
+
+  public static final int DEFAULT_SERIAL_THRESHOLD = 64;
+
   /**
    * The effectiveness of the index is somewhat sensitive
    * to the node capacity.
@@ -84,6 +174,24 @@ public class CascadedPolygonUnion {
    */
   private static final int STRTREE_NODE_CAPACITY = 4;
 
+  /**
+   * Get the number of polygons in the tree.
+   *
+   * @param items The tree of items.
+   * @return The number of polygons.
+   */
+  private static int getItemCount(final List<?> items) {
+    int count = 0;
+    for (final Object item : items) {
+      if (item instanceof List) {
+        count += getItemCount((List<?>)item);
+      } else {
+        count++;
+      }
+    }
+    return count;
+  }
+
   /**
    * Gets the element at a given list index, or
    * null if the index is out of range.
@@ -142,10 +250,42 @@ public class CascadedPolygonUnion {
     return union(Arrays.asList(polygons));
   }
 
+  /**
+   * Computes the union of a collection of {@link Polygonal}s that form a valid coverage by
+   * removing the shared edges.
+   *
+   * @param polygons a collection of non-overlapping {@link Polygonal}s
+   * @see #setCoverage(boolean)
+   */
+  public static Polygonal unionCoverage(final Iterable<? extends Polygonal> polygons) {
+    final CascadedPolygonUnion op = new CascadedPolygonUnion(polygons);
+    op.setCoverage(true);
+    return op.union();
+  }
+
+  /**
+   * Computes the union of a collection of {@link Polygonal}s, unioning the independent subtrees
+   * concurrently.
+   *
+   * @param polygons a collection of {@link Polygonal}s
+   * @see #setParallel(boolean)
+   */
+  public static Polygonal unionParallel(final Iterable<? extends Polygonal> polygons) {
+    final CascadedPolygonUnion op = new CascadedPolygonUnion(polygons);
+    op.setParallel(true);
+    return op.union();
+  }
+
+  private boolean coverage;
+
   private GeometryFactory geometryFactory;
 
+  private boolean parallel;
+
   private List<Polygon> polygons = new ArrayList<>();
 
+  private int serialThreshold = DEFAULT_SERIAL_THRESHOLD;
+
   /**
    * Creates a new instance to union
    * the given collection of {@link Polygonal}s.
@@ -223,6 +363,18 @@ public class CascadedPolygonUnion {
     }
   }
 
+  public int getSerialThreshold() {
+    return this.serialThreshold;
+  }
+
+  public boolean isCoverage() {
+    return this.coverage;
+  }
+
+  public boolean isParallel() {
+    return this.parallel;
+  }
+
   /**
    * Reduces a tree of geometries to a list of geometries
    * by recursively unioning the subtrees in the list.
@@ -232,19 +384,63 @@ public class CascadedPolygonUnion {
    */
   private List<Polygonal> reduceToGeometries(final List<?> items) {
     final List<Polygonal> geoms = new ArrayList<>();
+    List<UnionTreeTask> tasks = null;
     for (final Object item : items) {
       Polygonal polygon = null;
       if (item instanceof List) {
         final List<?> childItems = (List<?>)item;
-        polygon = unionTree(childItems);
+        if (this.parallel && getItemCount(childItems) >= this.serialThreshold) {
+          if (tasks == null) {
+            tasks = new ArrayList<>();
+          }
+          final UnionTreeTask task = new UnionTreeTask(geoms.size(), childItems);
+          task.fork();
+          tasks.add(task);
+        } else {
+          polygon = unionTree(childItems);
+        }
       } else if (item instanceof Polygonal) {
         polygon = (Polygonal)item;
       }
       geoms.add(polygon);
     }
+    if (tasks != null) {
+      for (int i = tasks.size() - 1; i >= 0; i--) {
+        final UnionTreeTask task = tasks.get(i);
+        final Polygonal polygon = task.join();
+        geoms.set(task.index, polygon);
+      }
+    }
     return geoms;
   }
 
+  /**
+   * Union a coverage of polygons using the fast path that doesn't require an overlay.
+   *
+   * @see #setCoverage(boolean)
+   */
+  public void setCoverage(final boolean coverage) {
+    this.coverage = coverage;
+  }
+
+  /**
+   * Union the independent subtrees of the index concurrently.
+   *
+   * @see #setSerialThreshold(int)
+   */
+  public void setParallel(final boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  /**
+   * Set the minimum number of polygons in a subtree before it is unioned in a separate task.
+   *
+   * @param serialThreshold The minimum number of polygons.
+   */
+  public void setSerialThreshold(final int serialThreshold) {
+    this.serialThreshold = Math.max(2, serialThreshold);
+  }
+
   /**
    * Computes the union of the input geometries.
    * <p>
@@ -266,6 +462,9 @@ public class CascadedPolygonUnion {
       return GeometryFactory.DEFAULT_2D.polygon();
     } else {
       this.geometryFactory = this.polygons.get(0).getGeometryFactory();
+      if (this.coverage) {
+        return unionCoverage();
+      }
 
       /**
        * A spatial index to organize the collection
@@ -281,7 +480,13 @@ public class CascadedPolygonUnion {
       this.polygons = null;
 
       final List<?> itemTree = index.itemsTree();
-      final Polygonal unionAll = unionTree(itemTree);
+      final Polygonal unionAll;
+      if (this.parallel && getItemCount(itemTree) >= this.serialThreshold) {
+        final UnionTreeTask task = new UnionTreeTask(0, itemTree);
+        unionAll = ForkJoinPool.commonPool().invoke(task);
+      } else {
+        unionAll = unionTree(itemTree);
+      }
       return unionAll;
     }
   }
@@ -311,6 +516,56 @@ public class CascadedPolygonUnion {
     }
   }
 
+  /**
+   * Computes the union of a coverage. Each edge shared by two polygons is in the interior of the
+   * union so is removed. The remaining edges are polygonized and the faces that are within one of
+   * the input polygons (and not gaps in the coverage) are returned.
+   *
+   * @return The union of the coverage.
+   */
+  private Polygonal unionCoverage() {
+    final Set<Segment> boundarySegments = new LinkedHashSet<>();
+    final StrTree<Polygon> index = new StrTree<>(STRTREE_NODE_CAPACITY);
+    for (final Polygon polygon : this.polygons) {
+      index.insertItem(polygon.getBoundingBox(), polygon);
+      for (final LinearRing ring : polygon.rings()) {
+        ring.forEachSegment((x1, y1, x2, y2) -> {
+          if (x1 != x2 || y1 != y2) {
+            final Segment segment = new Segment(x1, y1, x2, y2);
+            if (!boundarySegments.remove(segment)) {
+              boundarySegments.add(segment);
+            }
+          }
+        });
+      }
+    }
+    this.polygons = null;
+
+    final Polygonizer polygonizer = new Polygonizer();
+    for (final Segment segment : boundarySegments) {
+      final LineString line = this.geometryFactory.lineString(2, segment.x1, segment.y1,
+        segment.x2, segment.y2);
+      polygonizer.add(line);
+    }
+    final List<Polygon> polygons = new ArrayList<>();
+    for (final Polygon face : polygonizer.getPolygons()) {
+      final Point point = face.getInteriorPoint();
+      final double x = point.getX();
+      final double y = point.getY();
+      for (final Polygon polygon : index.query(point.getBoundingBox())) {
+        if (polygon.intersects(x, y)) {
+          polygons.add(face);
+          break;
+        }
+      }
+    }
+    if (polygons.isEmpty()) {
+      return this.geometryFactory.polygon();
+    } else {
+      return this.geometryFactory.polygonal(polygons);
+    }
+  }
+
   private Polygonal unionOptimized(final Polygonal polygonal1, final Polygonal polygonal2) {
     final BoundingBox boundingBox1 = polygonal1.getBoundingBox();
     final BoundingBox boundingBox2 = polygonal2.getBoundingBox();
@@ -0,0 +1,308 @@
+package com.revolsys.geometry.operation.valid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.revolsys.geometry.algorithm.LineIntersector;
+import com.revolsys.geometry.algorithm.RobustLineIntersector;
+import com.revolsys.geometry.algorithm.locate.IndexedPointInAreaLocator;
+import com.revolsys.geometry.index.strtree.StrTree;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.LinearRing;
+import com.revolsys.geometry.model.Location;
+import com.revolsys.geometry.model.Point;
+import com.revolsys.geometry.model.Polygon;
+import com.revolsys.geometry.model.Polygonal;
+import com.revolsys.geometry.model.impl.PointDoubleXY;
+import com.revolsys.geometry.noding.MCIndexNoder;
+import com.revolsys.geometry.noding.NodedSegmentString;
+import com.revolsys.geometry.noding.SegmentIntersector;
+import com.revolsys.geometry.noding.SegmentString;
+
+/**
+ * Validates the topology of polygons and rings without building a
+ * {@link com.revolsys.geometry.geomgraph.GeometryGraph}.
+ * <p>
+ * All the segments are intersected using a
+ * {@link com.revolsys.geometry.index.chain.MonotoneChain} index and the search stops at the first
+ * crossing, overlap or ring self-intersection. The points where rings of the same polygon touch
+ * are recorded and the interior is disconnected if the rings and touch points form a cycle.
+ * As no rings cross, the nesting of holes and shells is then tested using a single vertex of each
+ * ring that is not on the other ring, using spatial indexes to find the candidate rings.
+ * </p>
+ * <p>
+ * Only the first error is found. The closed ring and too few points checks must have been performed
+ * before using this class.
+ * </p>
+ */
+class IndexedPolygonValidator implements SegmentIntersector {
+
+  private TopologyValidationError error;
+
+  private final LineIntersector lineIntersector = new RobustLineIntersector();
+
+  private final Map<Geometry, IndexedPointInAreaLocator> locators = new IdentityHashMap<>();
+
+  private int[] parents;
+
+  private final List<Polygon> polygons = new ArrayList<>();
+
+  private final List<Integer> ringPolygonIndexes = new ArrayList<>();
+
+  private final List<LinearRing> rings = new ArrayList<>();
+
+  private final Set<Long> touches = new HashSet<>();
+
+  private final Map<Point, Integer> touchPointIndexes = new HashMap<>();
+
+  public IndexedPolygonValidator(final LinearRing ring) {
+    this.rings.add(ring);
+    this.ringPolygonIndexes.add(-1);
+  }
+
+  public IndexedPolygonValidator(final Polygonal polygonal) {
+    for (final Polygon polygon : polygonal.polygons()) {
+      final int polygonIndex = this.polygons.size();
+      this.polygons.add(polygon);
+      for (final LinearRing ring : polygon.rings()) {
+        this.rings.add(ring);
+        this.ringPolygonIndexes.add(polygonIndex);
+      }
+    }
+  }
+
+  private boolean addTouch(final int ringIndex1, final int ringIndex2, final Point point) {
+    Integer pointIndex = this.touchPointIndexes.get(point);
+    if (pointIndex == null) {
+      pointIndex = this.rings.size() + this.touchPointIndexes.size();
+      this.touchPointIndexes.put(point, pointIndex);
+    }
+    return addTouchEdge(ringIndex1, pointIndex) && addTouchEdge(ringIndex2, pointIndex);
+  }
+
+  /**
+   * Add the edge between a ring and a touch point to the touch graph.
+   *
+   * @return False if the edge creates a cycle in the graph.
+   */
+  private boolean addTouchEdge(final int ringIndex, final int pointIndex) {
+    if (this.touches.add((long)ringIndex << 32 | pointIndex)) {
+      final int ringRoot = find(ringIndex);
+      final int pointRoot = find(pointIndex);
+      if (ringRoot == pointRoot) {
+        return false;
+      } else {
+        this.parents[ringRoot] = pointRoot;
+      }
+    }
+    return true;
+  }
+
+  private boolean checkHolesInShell(final Polygon polygon) {
+    if (polygon.getHoleCount() > 0) {
+      final IndexedPointInAreaLocator locator = getLocator(polygon.getShell());
+      for (final LinearRing hole : polygon.holes()) {
+        final Point point = getVertexNotOnBoundary(hole, locator);
+        if (point != null && locator.locate(point) == Location.EXTERIOR) {
+          setError(TopologyValidationError.HOLE_OUTSIDE_SHELL, point);
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private boolean checkHolesNotNested(final Polygon polygon) {
+    if (polygon.getHoleCount() > 1) {
+      final StrTree<LinearRing> index = new StrTree<>();
+      for (final LinearRing hole : polygon.holes()) {
+        index.insertItem(hole.getBoundingBox(), hole);
+      }
+      for (final LinearRing hole : polygon.holes()) {
+        final BoundingBox boundingBox = hole.getBoundingBox();
+        for (final LinearRing otherHole : index.getItems(boundingBox)) {
+          if (hole != otherHole && otherHole.getBoundingBox().bboxCovers(boundingBox)) {
+            final IndexedPointInAreaLocator locator = getLocator(otherHole);
+            final Point point = getVertexNotOnBoundary(hole, locator);
+            if (point != null && locator.locate(point) == Location.INTERIOR) {
+              setError(TopologyValidationError.NESTED_HOLES, point);
+              return false;
+            }
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  private boolean checkShellsNotNested() {
+    if (this.polygons.size() > 1) {
+      final StrTree<Polygon> index = new StrTree<>();
+      for (final Polygon polygon : this.polygons) {
+        index.insertItem(polygon.getBoundingBox(), polygon);
+      }
+      for (final Polygon polygon : this.polygons) {
+        final LinearRing shell = polygon.getShell();
+        final BoundingBox boundingBox = shell.getBoundingBox();
+        for (final Polygon otherPolygon : index.getItems(boundingBox)) {
+          if (polygon != otherPolygon && otherPolygon.getBoundingBox().bboxCovers(boundingBox)) {
+            final IndexedPointInAreaLocator locator = getLocator(otherPolygon);
+            final Point point = getVertexNotOnBoundary(shell, locator);
+            if (point != null && locator.locate(point) == Location.INTERIOR) {
+              setError(TopologyValidationError.NESTED_SHELLS, point);
+              return false;
+            }
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  private int find(final int index) {
+    if (index >= this.parents.length) {
+      final int oldLength = this.parents.length;
+      this.parents = Arrays.copyOf(this.parents, Math.max(index + 1, oldLength * 2));
+      for (int i = oldLength; i < this.parents.length; i++) {
+        this.parents[i] = i;
+      }
+    }
+    int root = index;
+    while (this.parents[root] != root) {
+      root = this.parents[root];
+    }
+    int i = index;
+    while (i != root) {
+      final int parent = this.parents[i];
+      this.parents[i] = root;
+      i = parent;
+    }
+    return root;
+  }
+
+  public TopologyValidationError getError() {
+    return this.error;
+  }
+
+  private IndexedPointInAreaLocator getLocator(final Geometry geometry) {
+    return this.locators.computeIfAbsent(geometry, IndexedPointInAreaLocator::new);
+  }
+
+  /**
+   * Get the first vertex of the ring that is not on the boundary of the locator's geometry. As
+   * the rings don't cross the location of this vertex is the location of the whole ring.
+   *
+   * @return The vertex or null if all the vertices are on the boundary.
+   */
+  private Point getVertexNotOnBoundary(final LinearRing ring,
+    final IndexedPointInAreaLocator locator) {
+    return ring.findVertex((x, y) -> {
+      if (locator.locate(x, y) == Location.BOUNDARY) {
+        return null;
+      } else {
+        return new PointDoubleXY(x, y);
+      }
+    });
+  }
+
+  @Override
+  public boolean isDone() {
+    return this.error != null;
+  }
+
+  /**
+   * Check if the segments are adjacent segments in the same ring.
+   */
+  private boolean isAdjacent(final SegmentString segmentString, final int segmentIndex1,
+    final int segmentIndex2) {
+    final int lastSegmentIndex = segmentString.size() - 2;
+    final int delta = Math.abs(segmentIndex1 - segmentIndex2);
+    return delta == 1 || delta == lastSegmentIndex;
+  }
+
+  /**
+   * Check if the polygonal geometry is valid.
+   *
+   * @return True if the geometry is valid.
+   */
+  public boolean isValid() {
+    this.error = null;
+    this.parents = new int[this.rings.size()];
+    for (int i = 0; i < this.parents.length; i++) {
+      this.parents[i] = i;
+    }
+    this.touches.clear();
+    this.touchPointIndexes.clear();
+
+    final List<NodedSegmentString> segmentStrings = new ArrayList<>();
+    for (int ringIndex = 0; ringIndex < this.rings.size(); ringIndex++) {
+      final LinearRing ring = this.rings.get(ringIndex).removeDuplicatePoints();
+      segmentStrings.add(new NodedSegmentString(ring, ringIndex));
+    }
+    final MCIndexNoder noder = new MCIndexNoder(this);
+    noder.computeNodes(segmentStrings);
+    if (this.error != null) {
+      return false;
+    }
+    for (final Polygon polygon : this.polygons) {
+      if (!checkHolesInShell(polygon)) {
+        return false;
+      }
+    }
+    for (final Polygon polygon : this.polygons) {
+      if (!checkHolesNotNested(polygon)) {
+        return false;
+      }
+    }
+    return checkShellsNotNested();
+  }
+
+  @Override
+  public void processIntersections(final SegmentString segmentString1, final int segmentIndex1,
+    final SegmentString segmentString2, final int segmentIndex2) {
+    if (segmentString1 == segmentString2 && segmentIndex1 == segmentIndex2) {
+      return;
+    }
+    final LineString line1 = segmentString1.getLineString();
+    final LineString line2 = segmentString2.getLineString();
+    final LineIntersector lineIntersector = this.lineIntersector;
+    lineIntersector.computeIntersectionLine(line1.getX(segmentIndex1), line1.getY(segmentIndex1),
+      line1.getX(segmentIndex1 + 1), line1.getY(segmentIndex1 + 1), line2.getX(segmentIndex2),
+      line2.getY(segmentIndex2), line2.getX(segmentIndex2 + 1), line2.getY(segmentIndex2 + 1));
+    if (lineIntersector.hasIntersection()) {
+      final Point point = lineIntersector.getIntersection(0);
+      final boolean collinear = lineIntersector.getIntersectionCount() == 2;
+      if (collinear || lineIntersector.isProper()) {
+        setError(TopologyValidationError.SELF_INTERSECTION, point);
+      } else if (segmentString1 == segmentString2) {
+        if (!isAdjacent(segmentString1, segmentIndex1, segmentIndex2)) {
+          setError(TopologyValidationError.RING_SELF_INTERSECTION, point);
+        }
+      } else {
+        final int ringIndex1 = (Integer)segmentString1.getData();
+        final int ringIndex2 = (Integer)segmentString2.getData();
+        final int polygonIndex = this.ringPolygonIndexes.get(ringIndex1);
+        if (polygonIndex == this.ringPolygonIndexes.get(ringIndex2)) {
+          final Point touchPoint = new PointDoubleXY(point.getX(), point.getY());
+          if (!addTouch(ringIndex1, ringIndex2, touchPoint)) {
+            setError(TopologyValidationError.DISCONNECTED_INTERIOR, touchPoint);
+          }
+        }
+      }
+    }
+  }
+
+  private void setError(final int errorType, final Point point) {
+    if (this.error == null) {
+      this.error = new TopologyValidationError(errorType, point);
+    }
+  }
+}
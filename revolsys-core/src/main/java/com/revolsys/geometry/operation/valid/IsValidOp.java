@@ -33,9 +33,14 @@
 package com.revolsys.geometry.operation.valid;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import com.revolsys.geometry.algorithm.LineIntersector;
 import com.revolsys.geometry.algorithm.MCPointInRing;
@@ -91,6 +96,55 @@ public class IsValidOp {
     return null;
   }
 
+  /**
+   * Validate the geometries in parallel using the indexed validation. Each geometry is validated
+   * until the first error is found.
+   *
+   * @param geometries The geometries to validate.
+   * @return The errors for each geometry in the same order, the list is empty for valid or null
+   * geometries.
+   */
+  public static List<List<GeometryValidationError>> getErrors(
+    final List<? extends Geometry> geometries) {
+    return geometries.parallelStream()//
+      .map(IsValidOp::getErrorsIndexed)
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Validate the geometries of the values (e.g. records) in parallel using the indexed validation.
+   * Each geometry is validated until the first error is found.
+   *
+   * @param values The values to validate.
+   * @param geometryFunction The function to get the geometry from a value.
+   * @return The errors for the values with an invalid geometry, in the order of the values.
+   */
+  public static <V> Map<V, List<GeometryValidationError>> getErrors(final List<V> values,
+    final Function<? super V, Geometry> geometryFunction) {
+    final List<List<GeometryValidationError>> errorsList = values.parallelStream()//
+      .map(value -> getErrorsIndexed(geometryFunction.apply(value)))
+      .collect(Collectors.toList());
+    final Map<V, List<GeometryValidationError>> errorsByValue = new LinkedHashMap<>();
+    for (int i = 0; i < errorsList.size(); i++) {
+      final List<GeometryValidationError> errors = errorsList.get(i);
+      if (!errors.isEmpty()) {
+        errorsByValue.put(values.get(i), errors);
+      }
+    }
+    return errorsByValue;
+  }
+
+  private static List<GeometryValidationError> getErrorsIndexed(final Geometry geometry) {
+    if (geometry == null) {
+      return Collections.emptyList();
+    } else {
+      final IsValidOp validOp = new IsValidOp(geometry);
+      validOp.setIndexed(true);
+      validOp.isValid();
+      return validOp.getErrors();
+    }
+  }
+
   /**
    * Tests whether a {@link Geometry} is valid.
    * @param geom the Geometry to test
@@ -105,6 +159,8 @@ public class IsValidOp {
 
   private final Geometry geometry; // the base Geometry to be validated
 
+  private boolean indexed = false;
+
   /**
    * If the following condition is TRUE JTS will validate inverted shells and exverted holes
    * (the ESRI SDE model)
@@ -528,6 +584,15 @@ public class IsValidOp {
     return valid;
   }
 
+  private boolean checkValidIndexed(final IndexedPolygonValidator validator) {
+    if (validator.isValid()) {
+      return true;
+    } else {
+      addError(validator.getError());
+      return false;
+    }
+  }
+
   /**
    * Checks validity of a LinearRing.
    */
@@ -538,6 +603,9 @@ public class IsValidOp {
       if (isErrorReturn()) {
         return false;
       }
+      if (this.indexed) {
+        return valid && checkValidIndexed(new IndexedPolygonValidator(ring));
+      }
 
       final GeometryGraph graph = new GeometryGraph(0, ring);
       final LineIntersector li = new RobustLineIntersector();
@@ -567,6 +635,9 @@ public class IsValidOp {
   }
 
   private boolean checkValidMultiPolygon(final Polygonal polygonal) {
+    if (isIndexedPolygonal()) {
+      return checkValidPolygonalIndexed(polygonal);
+    }
     boolean valid = true;
     for (final Polygon polygon : polygonal.polygons()) {
       valid &= checkClosedRings(polygon);
@@ -611,11 +682,35 @@ public class IsValidOp {
     return valid;
   }
 
+  /**
+   * Checks the validity of a polygon or multi-polygon using the {@link IndexedPolygonValidator}.
+   * The rings must be closed and have enough points before the topology is checked.
+   */
+  private boolean checkValidPolygonalIndexed(final Polygonal polygonal) {
+    boolean valid = true;
+    for (final Polygon polygon : polygonal.polygons()) {
+      valid &= checkClosedRings(polygon);
+      if (isErrorReturn()) {
+        return false;
+      }
+      for (final LinearRing ring : polygon.rings()) {
+        valid &= checkTooFewVertices(ring, 4);
+        if (isErrorReturn()) {
+          return false;
+        }
+      }
+    }
+    return valid && checkValidIndexed(new IndexedPolygonValidator(polygonal));
+  }
+
   /**
    * Checks the validity of a polygon.
    * Sets the validErr flag.
    */
   private boolean checkValidPolygon(final Polygon g) {
+    if (isIndexedPolygonal()) {
+      return checkValidPolygonalIndexed(g);
+    }
     boolean valid = true;
     valid &= checkClosedRings(g);
     if (isErrorReturn()) {
@@ -688,6 +783,20 @@ public class IsValidOp {
     return this.shortCircuit && hasError();
   }
 
+  /**
+   * Is the indexed validation used for polygons and rings. The indexed validation doesn't build a
+   * {@link GeometryGraph} and stops at the first topology error.
+   *
+   * @return True if the indexed validation is used.
+   */
+  public boolean isIndexed() {
+    return this.indexed;
+  }
+
+  private boolean isIndexedPolygonal() {
+    return this.indexed && !this.isSelfTouchingRingFormingHoleValid;
+  }
+
   /**
    * Computes the validity of the geometry,
    * and returns <tt>true</tt> if it is valid.
@@ -699,6 +808,10 @@ public class IsValidOp {
     return checkValidGeometry(this.geometry);
   }
 
+  public void setIndexed(final boolean indexed) {
+    this.indexed = indexed;
+  }
+
   /**
    * Sets whether polygons using <b>Self-Touching Rings</b> to form
    * holes are reported as valid.
@@ -0,0 +1,596 @@
+package com.revolsys.geometry.simplify;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.revolsys.geometry.algorithm.LineIntersector;
+import com.revolsys.geometry.algorithm.RobustLineIntersector;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.LinearRing;
+import com.revolsys.geometry.model.Polygon;
+import com.revolsys.geometry.model.Polygonal;
+import com.revolsys.geometry.model.coordinates.LineSegmentUtil;
+import com.revolsys.geometry.model.segment.LineSegment;
+import com.revolsys.geometry.model.segment.LineSegmentDouble;
+import com.revolsys.record.Record;
+
+/**
+ * Simplify a polygon coverage so that the boundaries shared by adjacent polygons stay identical.
+ * <p>
+ * The rings are split into edges at the vertices where three or more edges meet. Each unique edge
+ * is simplified once (in parallel by default) using the Douglas-Peucker algorithm. A section of an
+ * edge is only replaced by a segment if the segment doesn't intersect the interior of any other
+ * segment of the original coverage, using a {@link LineSegmentIndex} shared by all the edges. The
+ * simplified edges are then checked against each other and any edge that crosses another, or
+ * that would collapse a ring, keeps its original vertices. Finally the polygons are rebuilt from
+ * the simplified edges.
+ * <p>
+ * The coverage must be valid, adjacent polygons must have the same vertices along their shared
+ * boundaries.
+ */
+@SuppressWarnings("deprecation")
+public class CoverageSimplifier {
+
+  private static class Edge {
+    private final int axisCount;
+
+    private final double[] coordinates;
+
+    private boolean[] keep;
+
+    private final TaggedLineString taggedLine;
+
+    private final int vertexCount;
+
+    private Edge(final GeometryFactory geometryFactory, final int axisCount,
+      final double[] coordinates) {
+      this.axisCount = axisCount;
+      this.coordinates = coordinates;
+      this.vertexCount = coordinates.length / axisCount;
+      final LineString line = geometryFactory.lineString(axisCount, coordinates);
+      if (isClosed()) {
+        this.taggedLine = new TaggedLineString(line, 4);
+      } else {
+        this.taggedLine = new TaggedLineString(line, 2);
+      }
+      revert();
+    }
+
+    private void addSegments(final LineSegmentIndex index) {
+      int previousIndex = 0;
+      for (int vertexIndex = 1; vertexIndex < this.vertexCount; vertexIndex++) {
+        if (this.keep[vertexIndex]) {
+          index.add(newSegment(previousIndex, vertexIndex));
+          previousIndex = vertexIndex;
+        }
+      }
+    }
+
+    private int findFurthestPoint(final int startIndex, final int endIndex,
+      final double[] maxDistance) {
+      final double x1 = getX(startIndex);
+      final double y1 = getY(startIndex);
+      final double x2 = getX(endIndex);
+      final double y2 = getY(endIndex);
+      double maxDist = -1.0;
+      int maxIndex = startIndex;
+      for (int vertexIndex = startIndex + 1; vertexIndex < endIndex; vertexIndex++) {
+        final double distance = LineSegmentUtil.distanceLinePoint(x1, y1, x2, y2,
+          getX(vertexIndex), getY(vertexIndex));
+        if (distance > maxDist) {
+          maxDist = distance;
+          maxIndex = vertexIndex;
+        }
+      }
+      maxDistance[0] = maxDist;
+      return maxIndex;
+    }
+
+    private int getSimplifiedVertexCount() {
+      int count = 0;
+      for (final boolean kept : this.keep) {
+        if (kept) {
+          count++;
+        }
+      }
+      return count;
+    }
+
+    private double getX(final int vertexIndex) {
+      return this.coordinates[vertexIndex * this.axisCount];
+    }
+
+    private double getY(final int vertexIndex) {
+      return this.coordinates[vertexIndex * this.axisCount + 1];
+    }
+
+    private boolean hasBadInputIntersection(final LineSegmentIndex inputIndex,
+      final LineIntersector lineIntersector, final int startIndex, final int endIndex,
+      final LineSegment candidateSegment) {
+      final List<LineSegment> segments = inputIndex.query(candidateSegment);
+      for (final LineSegment segment : segments) {
+        if (hasInteriorIntersection(lineIntersector, segment, candidateSegment)) {
+          final TaggedLineSegment taggedSegment = (TaggedLineSegment)segment;
+          final int segmentIndex = taggedSegment.getIndex();
+          if (taggedSegment.getParent() != this.taggedLine.getParent()
+            || segmentIndex < startIndex || segmentIndex >= endIndex) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    private boolean hasBadOutputIntersection(final LineSegmentIndex outputIndex,
+      final LineIntersector lineIntersector) {
+      int previousIndex = 0;
+      for (int vertexIndex = 1; vertexIndex < this.vertexCount; vertexIndex++) {
+        if (this.keep[vertexIndex]) {
+          if (vertexIndex > previousIndex + 1) {
+            final LineSegment segment = newSegment(previousIndex, vertexIndex);
+            final List<LineSegment> segments = outputIndex.query(segment);
+            for (final LineSegment outputSegment : segments) {
+              if (hasInteriorIntersection(lineIntersector, outputSegment, segment)) {
+                return true;
+              }
+            }
+          }
+          previousIndex = vertexIndex;
+        }
+      }
+      return false;
+    }
+
+    private boolean isClosed() {
+      return getX(0) == getX(this.vertexCount - 1) && getY(0) == getY(this.vertexCount - 1);
+    }
+
+    private boolean isSimplified() {
+      return getSimplifiedVertexCount() < this.vertexCount;
+    }
+
+    private LineSegment newSegment(final int startIndex, final int endIndex) {
+      return new LineSegmentDouble(2, getX(startIndex), getY(startIndex), getX(endIndex),
+        getY(endIndex));
+    }
+
+    private void revert() {
+      this.keep = new boolean[this.vertexCount];
+      Arrays.fill(this.keep, true);
+    }
+
+    private void simplify(final LineSegmentIndex inputIndex, final double distanceTolerance) {
+      final boolean[] keep = new boolean[this.vertexCount];
+      keep[0] = true;
+      keep[this.vertexCount - 1] = true;
+      final LineIntersector lineIntersector = new RobustLineIntersector();
+      simplifySection(inputIndex, lineIntersector, distanceTolerance, keep, 0,
+        this.vertexCount - 1, 0);
+      this.keep = keep;
+    }
+
+    private void simplifySection(final LineSegmentIndex inputIndex,
+      final LineIntersector lineIntersector, final double distanceTolerance, final boolean[] keep,
+      final int startIndex, final int endIndex, int depth) {
+      depth++;
+      if (startIndex + 1 == endIndex) {
+        return;
+      }
+      boolean isValidToSimplify = true;
+      // Ensure there are enough vertices left for the minimum size in the worst case
+      if (depth + 1 < this.taggedLine.getMinimumSize()) {
+        isValidToSimplify = false;
+      }
+      final double[] distance = new double[1];
+      final int furthestIndex = findFurthestPoint(startIndex, endIndex, distance);
+      if (distance[0] > distanceTolerance) {
+        isValidToSimplify = false;
+      }
+      if (isValidToSimplify) {
+        final LineSegment candidateSegment = newSegment(startIndex, endIndex);
+        if (hasBadInputIntersection(inputIndex, lineIntersector, startIndex, endIndex,
+          candidateSegment)) {
+          isValidToSimplify = false;
+        }
+      }
+      if (!isValidToSimplify) {
+        keep[furthestIndex] = true;
+        simplifySection(inputIndex, lineIntersector, distanceTolerance, keep, startIndex,
+          furthestIndex, depth);
+        simplifySection(inputIndex, lineIntersector, distanceTolerance, keep, furthestIndex,
+          endIndex, depth);
+      }
+    }
+  }
+
+  private static final class EdgeKey {
+    private final double[] coordinates;
+
+    private final int hashCode;
+
+    private EdgeKey(final double[] coordinates) {
+      this.coordinates = coordinates;
+      this.hashCode = Arrays.hashCode(coordinates);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (other instanceof EdgeKey) {
+        final EdgeKey edgeKey = (EdgeKey)other;
+        return Arrays.equals(this.coordinates, edgeKey.coordinates);
+      } else {
+        return false;
+      }
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hashCode;
+    }
+  }
+
+  private static class RingEdges {
+    private final GeometryFactory geometryFactory;
+
+    private final int axisCount;
+
+    private final List<Edge> edges = new ArrayList<>();
+
+    private final List<Boolean> forwards = new ArrayList<>();
+
+    private RingEdges(final GeometryFactory geometryFactory, final int axisCount) {
+      this.geometryFactory = geometryFactory;
+      this.axisCount = axisCount;
+    }
+
+    private int getVertexCount() {
+      int vertexCount = 1;
+      for (final Edge edge : this.edges) {
+        vertexCount += edge.getSimplifiedVertexCount() - 1;
+      }
+      return vertexCount;
+    }
+
+    private LinearRing newRing() {
+      final int axisCount = this.axisCount;
+      final double[] coordinates = new double[getVertexCount() * axisCount];
+      int coordinateIndex = 0;
+      for (int edgeIndex = 0; edgeIndex < this.edges.size(); edgeIndex++) {
+        final Edge edge = this.edges.get(edgeIndex);
+        final boolean forward = this.forwards.get(edgeIndex);
+        final int vertexCount = edge.vertexCount;
+        for (int i = 0; i < vertexCount; i++) {
+          int vertexIndex;
+          if (forward) {
+            vertexIndex = i;
+          } else {
+            vertexIndex = vertexCount - 1 - i;
+          }
+          if (edge.keep[vertexIndex] && (i > 0 || edgeIndex == 0)) {
+            System.arraycopy(edge.coordinates, vertexIndex * edge.axisCount, coordinates,
+              coordinateIndex, axisCount);
+            coordinateIndex += axisCount;
+          }
+        }
+      }
+      return this.geometryFactory.linearRing(axisCount, coordinates);
+    }
+  }
+
+  private static final class Vertex {
+    private final double x;
+
+    private final double y;
+
+    private Vertex(final double x, final double y) {
+      this.x = x;
+      this.y = y;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (other instanceof Vertex) {
+        final Vertex vertex = (Vertex)other;
+        return this.x == vertex.x && this.y == vertex.y;
+      } else {
+        return false;
+      }
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Double.hashCode(this.x) + Double.hashCode(this.y);
+    }
+  }
+
+  private static boolean hasInteriorIntersection(final LineIntersector lineIntersector,
+    final LineSegment segment1, final LineSegment segment2) {
+    lineIntersector.computeIntersectionPoints(segment1.getP0(), segment1.getP1(),
+      segment2.getP0(), segment2.getP1());
+    return lineIntersector.isInteriorIntersection();
+  }
+
+  public static List<Geometry> simplify(final List<? extends Geometry> geometries,
+    final double distanceTolerance) {
+    final CoverageSimplifier simplifier = new CoverageSimplifier(distanceTolerance);
+    return simplifier.simplify(geometries);
+  }
+
+  private double distanceTolerance;
+
+  private boolean parallel = true;
+
+  public CoverageSimplifier(final double distanceTolerance) {
+    this.distanceTolerance = distanceTolerance;
+  }
+
+  private void addRingEdges(final Map<EdgeKey, Edge> edgeMap, final RingEdges ringEdges,
+    final LinearRing ring, final Set<Vertex> nodes) {
+    final GeometryFactory geometryFactory = ring.getGeometryFactory();
+    final int axisCount = ringEdges.axisCount;
+    final double[] coordinates = ring.getCoordinates(axisCount);
+    final int vertexCount = ring.getVertexCount() - 1;
+    final List<Integer> nodeIndexes = new ArrayList<>();
+    int minIndex = 0;
+    for (int vertexIndex = 0; vertexIndex < vertexCount; vertexIndex++) {
+      final double x = coordinates[vertexIndex * axisCount];
+      final double y = coordinates[vertexIndex * axisCount + 1];
+      if (nodes.contains(new Vertex(x, y))) {
+        nodeIndexes.add(vertexIndex);
+      }
+      final double minX = coordinates[minIndex * axisCount];
+      final double minY = coordinates[minIndex * axisCount + 1];
+      if (x < minX || x == minX && y < minY) {
+        minIndex = vertexIndex;
+      }
+    }
+    if (nodeIndexes.isEmpty()) {
+      // Use the same start vertex for all the rings with this edge
+      nodeIndexes.add(minIndex);
+    }
+    final int nodeCount = nodeIndexes.size();
+    for (int i = 0; i < nodeCount; i++) {
+      final int startIndex = nodeIndexes.get(i);
+      int endIndex;
+      if (i + 1 < nodeCount) {
+        endIndex = nodeIndexes.get(i + 1);
+      } else {
+        endIndex = nodeIndexes.get(0) + vertexCount;
+      }
+      final int edgeVertexCount = endIndex - startIndex + 1;
+      final double[] edgeCoordinates = new double[edgeVertexCount * axisCount];
+      for (int j = 0; j < edgeVertexCount; j++) {
+        final int vertexIndex = (startIndex + j) % vertexCount;
+        System.arraycopy(coordinates, vertexIndex * axisCount, edgeCoordinates, j * axisCount,
+          axisCount);
+      }
+      final double[] reverseCoordinates = reverse(edgeCoordinates, axisCount);
+      final boolean forward = compareXy(edgeCoordinates, reverseCoordinates, axisCount) <= 0;
+      double[] canonicalCoordinates;
+      if (forward) {
+        canonicalCoordinates = edgeCoordinates;
+      } else {
+        canonicalCoordinates = reverseCoordinates;
+      }
+      final EdgeKey key = new EdgeKey(toXy(canonicalCoordinates, axisCount));
+      Edge edge = edgeMap.get(key);
+      if (edge == null) {
+        edge = new Edge(geometryFactory, axisCount, canonicalCoordinates);
+        edgeMap.put(key, edge);
+      }
+      ringEdges.edges.add(edge);
+      ringEdges.forwards.add(forward);
+    }
+  }
+
+  private int compareXy(final double[] coordinates1, final double[] coordinates2,
+    final int axisCount) {
+    for (int i = 0; i < coordinates1.length; i += axisCount) {
+      for (int axisIndex = 0; axisIndex < 2; axisIndex++) {
+        final int compare = Double.compare(coordinates1[i + axisIndex],
+          coordinates2[i + axisIndex]);
+        if (compare != 0) {
+          return compare;
+        }
+      }
+    }
+    return 0;
+  }
+
+  public double getDistanceTolerance() {
+    return this.distanceTolerance;
+  }
+
+  /**
+   * Get the vertices where the coverage's edges meet. A vertex is a node if it doesn't have
+   * exactly two distinct neighbouring vertices.
+   */
+  private Set<Vertex> getNodes(final List<List<LinearRing>> ringsList) {
+    final Map<Vertex, Set<Vertex>> neighboursByVertex = new HashMap<>();
+    for (final List<LinearRing> rings : ringsList) {
+      for (final LinearRing ring : rings) {
+        final int vertexCount = ring.getVertexCount();
+        for (int vertexIndex = 1; vertexIndex < vertexCount; vertexIndex++) {
+          final Vertex vertex1 = new Vertex(ring.getX(vertexIndex - 1), ring.getY(vertexIndex - 1));
+          final Vertex vertex2 = new Vertex(ring.getX(vertexIndex), ring.getY(vertexIndex));
+          neighboursByVertex.computeIfAbsent(vertex1, k -> new HashSet<>(4)).add(vertex2);
+          neighboursByVertex.computeIfAbsent(vertex2, k -> new HashSet<>(4)).add(vertex1);
+        }
+      }
+    }
+    final Set<Vertex> nodes = new HashSet<>();
+    for (final Map.Entry<Vertex, Set<Vertex>> entry : neighboursByVertex.entrySet()) {
+      if (entry.getValue().size() != 2) {
+        nodes.add(entry.getKey());
+      }
+    }
+    return nodes;
+  }
+
+  public boolean isParallel() {
+    return this.parallel;
+  }
+
+  private double[] reverse(final double[] coordinates, final int axisCount) {
+    final int vertexCount = coordinates.length / axisCount;
+    final double[] reverseCoordinates = new double[coordinates.length];
+    for (int vertexIndex = 0; vertexIndex < vertexCount; vertexIndex++) {
+      System.arraycopy(coordinates, vertexIndex * axisCount, reverseCoordinates,
+        (vertexCount - 1 - vertexIndex) * axisCount, axisCount);
+    }
+    return reverseCoordinates;
+  }
+
+  public void setDistanceTolerance(final double distanceTolerance) {
+    this.distanceTolerance = distanceTolerance;
+  }
+
+  public void setParallel(final boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  /**
+   * Simplify the polygonal geometries in the coverage. Other geometries are returned unchanged.
+   *
+   * @param geometries The geometries in the coverage.
+   * @return The simplified geometries in the same order.
+   */
+  public List<Geometry> simplify(final List<? extends Geometry> geometries) {
+    final List<List<LinearRing>> ringsList = new ArrayList<>();
+    for (final Geometry geometry : geometries) {
+      final List<LinearRing> rings = new ArrayList<>();
+      if (geometry instanceof Polygonal) {
+        for (final Polygon polygon : ((Polygonal)geometry).polygons()) {
+          for (final LinearRing ring : polygon.rings()) {
+            if (!ring.isEmpty()) {
+              rings.add(ring);
+            }
+          }
+        }
+      }
+      ringsList.add(rings);
+    }
+
+    final Set<Vertex> nodes = getNodes(ringsList);
+    final Map<EdgeKey, Edge> edgeMap = new LinkedHashMap<>();
+    final List<RingEdges> allRingEdges = new ArrayList<>();
+    final List<List<RingEdges>> ringEdgesList = new ArrayList<>();
+    for (int i = 0; i < geometries.size(); i++) {
+      final Geometry geometry = geometries.get(i);
+      final List<RingEdges> geometryRingEdges = new ArrayList<>();
+      for (final LinearRing ring : ringsList.get(i)) {
+        final RingEdges ringEdges = new RingEdges(geometry.getGeometryFactory(),
+          geometry.getAxisCount());
+        addRingEdges(edgeMap, ringEdges, ring, nodes);
+        geometryRingEdges.add(ringEdges);
+        allRingEdges.add(ringEdges);
+      }
+      ringEdgesList.add(geometryRingEdges);
+    }
+    final List<Edge> edges = new ArrayList<>(edgeMap.values());
+
+    final LineSegmentIndex inputIndex = new LineSegmentIndex();
+    for (final Edge edge : edges) {
+      inputIndex.add(edge.taggedLine);
+    }
+    final double distanceTolerance = this.distanceTolerance;
+    if (this.parallel) {
+      edges.parallelStream().forEach(edge -> edge.simplify(inputIndex, distanceTolerance));
+    } else {
+      for (final Edge edge : edges) {
+        edge.simplify(inputIndex, distanceTolerance);
+      }
+    }
+
+    // Keep the original edges of rings that would collapse
+    for (final RingEdges ringEdges : allRingEdges) {
+      if (ringEdges.getVertexCount() < 4) {
+        for (final Edge edge : ringEdges.edges) {
+          edge.revert();
+        }
+      }
+    }
+
+    // Each simplified edge only avoids the original edges, keep the original vertices of any
+    // edge that crosses an edge simplified before it
+    final LineSegmentIndex outputIndex = new LineSegmentIndex();
+    final LineIntersector lineIntersector = new RobustLineIntersector();
+    for (final Edge edge : edges) {
+      if (edge.isSimplified() && edge.hasBadOutputIntersection(outputIndex, lineIntersector)) {
+        edge.revert();
+      }
+      edge.addSegments(outputIndex);
+    }
+
+    final List<Geometry> results = new ArrayList<>();
+    for (int i = 0; i < geometries.size(); i++) {
+      final Geometry geometry = geometries.get(i);
+      if (geometry instanceof Polygonal) {
+        final List<RingEdges> geometryRingEdges = ringEdgesList.get(i);
+        final GeometryFactory geometryFactory = geometry.getGeometryFactory();
+        final List<Polygon> polygons = new ArrayList<>();
+        int ringIndex = 0;
+        for (final Polygon polygon : ((Polygonal)geometry).polygons()) {
+          final List<LinearRing> rings = new ArrayList<>();
+          for (final LinearRing ring : polygon.rings()) {
+            if (!ring.isEmpty()) {
+              rings.add(geometryRingEdges.get(ringIndex++).newRing());
+            }
+          }
+          if (!rings.isEmpty()) {
+            polygons.add(geometryFactory.polygon(rings));
+          }
+        }
+        results.add(geometryFactory.polygonal(polygons));
+      } else {
+        results.add(geometry);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Simplify the polygonal geometries of the records, replacing each record's geometry with the
+   * simplified geometry.
+   *
+   * @param records The records in the coverage.
+   */
+  public void simplifyRecords(final List<? extends Record> records) {
+    final List<Geometry> geometries = new ArrayList<>();
+    final List<Record> polygonRecords = new ArrayList<>();
+    for (final Record record : records) {
+      final Geometry geometry = record.getGeometry();
+      if (geometry != null) {
+        geometries.add(geometry);
+        polygonRecords.add(record);
+      }
+    }
+    final List<Geometry> simplifiedGeometries = simplify(geometries);
+    for (int i = 0; i < polygonRecords.size(); i++) {
+      final Record record = polygonRecords.get(i);
+      record.setGeometryValue(simplifiedGeometries.get(i));
+    }
+  }
+
+  private double[] toXy(final double[] coordinates, final int axisCount) {
+    if (axisCount == 2) {
+      return coordinates;
+    } else {
+      final int vertexCount = coordinates.length / axisCount;
+      final double[] xy = new double[vertexCount * 2];
+      for (int vertexIndex = 0; vertexIndex < vertexCount; vertexIndex++) {
+        xy[vertexIndex * 2] = coordinates[vertexIndex * axisCount];
+        xy[vertexIndex * 2 + 1] = coordinates[vertexIndex * axisCount + 1];
+      }
+      return xy;
+    }
+  }
+}
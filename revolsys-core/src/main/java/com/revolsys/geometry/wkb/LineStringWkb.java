@@ -0,0 +1,204 @@
+package com.revolsys.geometry.wkb;
+
+import java.nio.ByteBuffer;
+
+import org.jeometry.common.function.BiConsumerDouble;
+
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.impl.AbstractLineString;
+
+/**
+ * A {@link com.revolsys.geometry.model.LineString} that reads the coordinates in place from the
+ * WKB {@link ByteBuffer} it was read from instead of copying them to a double[]. The buffer is
+ * only read using absolute gets, so a single buffer can be shared by many geometries and threads.
+ * The buffer must not be modified after the geometry is created.
+ */
+public class LineStringWkb extends AbstractLineString implements WkbGeometry {
+  private static final long serialVersionUID = 1L;
+
+  private final GeometryFactory geometryFactory;
+
+  private final ByteBuffer buffer;
+
+  /** The offset of the first coordinate. */
+  private final int coordinatesOffset;
+
+  private final int vertexCount;
+
+  /** The number of bytes for each vertex. */
+  private final int vertexSize;
+
+  /** The byte offset within a vertex for each axis of the geometry factory, -1 if missing. */
+  private final int[] axisOffsets;
+
+  /** The offset of the start of the WKB geometry or -1 if it isn't a standalone geometry. */
+  private final int wkbOffset;
+
+  private final int wkbLength;
+
+  private volatile BoundingBox boundingBox;
+
+  /**
+   * Construct a new line.
+   *
+   * @param geometryFactory The geometry factory.
+   * @param buffer The buffer with the byte order of the WKB.
+   * @param coordinatesOffset The offset of the first coordinate.
+   * @param vertexCount The number of vertices.
+   * @param wkbAxisCount The number of ordinates for each vertex in the WKB.
+   * @param measureOnly True if the WKB has x, y, m ordinates.
+   * @param wkbOffset The offset of the start of the WKB geometry or -1 if it isn't a standalone
+   * geometry (e.g. a polygon ring).
+   * @param wkbLength The length of the WKB geometry.
+   */
+  public LineStringWkb(final GeometryFactory geometryFactory, final ByteBuffer buffer,
+    final int coordinatesOffset, final int vertexCount, final int wkbAxisCount,
+    final boolean measureOnly, final int wkbOffset, final int wkbLength) {
+    this.geometryFactory = geometryFactory;
+    this.buffer = buffer;
+    this.coordinatesOffset = coordinatesOffset;
+    this.vertexCount = vertexCount;
+    this.vertexSize = wkbAxisCount * 8;
+    final int axisCount = geometryFactory.getAxisCount();
+    this.axisOffsets = new int[axisCount];
+    for (int axisIndex = 0; axisIndex < axisCount; axisIndex++) {
+      int ordinateIndex = axisIndex;
+      if (measureOnly) {
+        if (axisIndex == 2) {
+          ordinateIndex = -1;
+        } else if (axisIndex == 3) {
+          ordinateIndex = 2;
+        }
+      }
+      if (ordinateIndex >= 0 && ordinateIndex < wkbAxisCount) {
+        this.axisOffsets[axisIndex] = ordinateIndex * 8;
+      } else {
+        this.axisOffsets[axisIndex] = -1;
+      }
+    }
+    if (wkbAxisCount == axisCount && !measureOnly) {
+      this.wkbOffset = wkbOffset;
+    } else {
+      this.wkbOffset = -1;
+    }
+    this.wkbLength = wkbLength;
+  }
+
+  @Override
+  public LineStringWkb clone() {
+    // The buffer is never modified so it can be shared
+    return (LineStringWkb)super.clone();
+  }
+
+  @Override
+  public void forEachVertex(final BiConsumerDouble action) {
+    final ByteBuffer buffer = this.buffer;
+    final int end = this.coordinatesOffset + this.vertexCount * this.vertexSize;
+    for (int offset = this.coordinatesOffset; offset < end; offset += this.vertexSize) {
+      final double x = buffer.getDouble(offset);
+      final double y = buffer.getDouble(offset + 8);
+      action.accept(x, y);
+    }
+  }
+
+  @Override
+  public int getAxisCount() {
+    return this.axisOffsets.length;
+  }
+
+  @Override
+  public BoundingBox getBoundingBox() {
+    BoundingBox boundingBox = this.boundingBox;
+    if (boundingBox == null) {
+      boundingBox = newBoundingBox();
+      this.boundingBox = boundingBox;
+    }
+    return boundingBox;
+  }
+
+  @Override
+  public double getCoordinate(int vertexIndex, final int axisIndex) {
+    if (axisIndex < this.axisOffsets.length) {
+      final int vertexCount = this.vertexCount;
+      if (vertexIndex < vertexCount) {
+        while (vertexIndex < 0) {
+          vertexIndex += vertexCount;
+        }
+        return getCoordinateFast(vertexIndex, axisIndex);
+      }
+    }
+    return Double.NaN;
+  }
+
+  @Override
+  public double getCoordinateFast(final int vertexIndex, final int axisIndex) {
+    if (axisIndex < this.axisOffsets.length) {
+      final int axisOffset = this.axisOffsets[axisIndex];
+      if (axisOffset >= 0) {
+        return this.buffer.getDouble(this.coordinatesOffset + vertexIndex * this.vertexSize
+          + axisOffset);
+      }
+    }
+    return Double.NaN;
+  }
+
+  @Override
+  public double[] getCoordinates() {
+    final int axisCount = this.axisOffsets.length;
+    final double[] coordinates = new double[this.vertexCount * axisCount];
+    int coordinateIndex = 0;
+    for (int vertexIndex = 0; vertexIndex < this.vertexCount; vertexIndex++) {
+      for (int axisIndex = 0; axisIndex < axisCount; axisIndex++) {
+        coordinates[coordinateIndex++] = getCoordinateFast(vertexIndex, axisIndex);
+      }
+    }
+    return coordinates;
+  }
+
+  @Override
+  public GeometryFactory getGeometryFactory() {
+    return this.geometryFactory;
+  }
+
+  @Override
+  public int getVertexCount() {
+    return this.vertexCount;
+  }
+
+  @Override
+  public ByteBuffer getWkb() {
+    if (this.wkbOffset < 0) {
+      return null;
+    } else {
+      final ByteBuffer wkb = this.buffer.asReadOnlyBuffer();
+      wkb.limit(this.wkbOffset + this.wkbLength);
+      wkb.position(this.wkbOffset);
+      return wkb.slice();
+    }
+  }
+
+  @Override
+  public double getX(final int vertexIndex) {
+    return this.buffer.getDouble(this.coordinatesOffset + vertexIndex * this.vertexSize);
+  }
+
+  @Override
+  public double getY(final int vertexIndex) {
+    return this.buffer.getDouble(this.coordinatesOffset + vertexIndex * this.vertexSize + 8);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return this.vertexCount == 0;
+  }
+
+  /**
+   * Serialize a copy with the coordinates in memory as the buffer can't be serialized.
+   *
+   * @return The copy.
+   */
+  protected Object writeReplace() {
+    return this.geometryFactory.lineString(getAxisCount(), this.vertexCount, getCoordinates());
+  }
+}
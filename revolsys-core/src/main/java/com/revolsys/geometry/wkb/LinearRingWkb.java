@@ -0,0 +1,69 @@
+package com.revolsys.geometry.wkb;
+
+import java.nio.ByteBuffer;
+
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LinearRing;
+
+/**
+ * A {@link LinearRing} for a polygon ring that reads the coordinates in place from a WKB
+ * {@link ByteBuffer}.
+ *
+ * @see LineStringWkb
+ */
+public class LinearRingWkb extends LineStringWkb implements LinearRing {
+  private static final long serialVersionUID = 1L;
+
+  public LinearRingWkb(final GeometryFactory geometryFactory, final ByteBuffer buffer,
+    final int coordinatesOffset, final int vertexCount, final int wkbAxisCount,
+    final boolean measureOnly) {
+    super(geometryFactory, buffer, coordinatesOffset, vertexCount, wkbAxisCount, measureOnly, -1,
+      0);
+    if (vertexCount >= 1 && vertexCount <= 2) {
+      throw new IllegalArgumentException("Invalid number of points in LinearRing (found "
+        + vertexCount + " - must be 0 or >= 3)");
+    } else if (!isClosed()) {
+      throw new IllegalArgumentException("Points of LinearRing do not form a closed linestring");
+    }
+  }
+
+  @Override
+  public LinearRingWkb clone() {
+    return (LinearRingWkb)super.clone();
+  }
+
+  @Override
+  public boolean isClosed() {
+    if (isEmpty()) {
+      return true;
+    } else {
+      return super.isClosed();
+    }
+  }
+
+  @Override
+  public LinearRing newGeometry(final GeometryFactory geometryFactory) {
+    return (LinearRing)super.newGeometry(geometryFactory);
+  }
+
+  @Override
+  public LinearRing reverse() {
+    final int vertexCount = getVertexCount();
+    final int axisCount = getAxisCount();
+    final double[] coordinates = new double[vertexCount * axisCount];
+    for (int vertexIndex = 0; vertexIndex < vertexCount; vertexIndex++) {
+      for (int axisIndex = 0; axisIndex < axisCount; axisIndex++) {
+        final int coordinateIndex = (vertexCount - 1 - vertexIndex) * axisCount + axisIndex;
+        coordinates[coordinateIndex] = getCoordinateFast(vertexIndex, axisIndex);
+      }
+    }
+    final GeometryFactory geometryFactory = getGeometryFactory();
+    return geometryFactory.linearRing(axisCount, coordinates);
+  }
+
+  @Override
+  protected Object writeReplace() {
+    final GeometryFactory geometryFactory = getGeometryFactory();
+    return geometryFactory.linearRing(getAxisCount(), getVertexCount(), getCoordinates());
+  }
+}
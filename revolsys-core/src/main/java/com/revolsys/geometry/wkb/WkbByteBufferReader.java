@@ -15,6 +15,12 @@ import com.revolsys.geometry.model.Polygon;
 import com.revolsys.geometry.model.Polygonal;
 import com.revolsys.geometry.model.Punctual;
 
+/**
+ * Read WKB geometries from a {@link ByteBuffer}. {@link #readGeometry(GeometryFactory, ByteBuffer)}
+ * copies the coordinates to new geometries.
+ * {@link #readGeometryLazy(GeometryFactory, ByteBuffer)} returns lines and polygon rings that read
+ * the coordinates in place from the buffer.
+ */
 public class WkbByteBufferReader {
   private static final IntHashMap<BiFunction<GeometryFactory, ByteBuffer, Geometry>> READERS = new IntHashMap<>();
 
@@ -108,6 +114,77 @@ public class WkbByteBufferReader {
     }
   }
 
+  /**
+   * Read a geometry where the line and polygon ring coordinates are read in place from the buffer
+   * when they are used instead of being copied. The buffer must not be modified while the
+   * geometry is used. Lines that have the same axis count as the geometry factory keep a
+   * reference to their WKB so {@link WkbChannelWriter} can write it without encoding it again.
+   * <p>
+   * Points are always read as normal. Fixed precision geometry factories use
+   * {@link #readGeometry(GeometryFactory, ByteBuffer)} as the coordinates must be made precise.
+   *
+   * @param geometryFactory The geometry factory.
+   * @param data The buffer positioned at the start of the geometry. The buffer is positioned after
+   * the geometry on return.
+   * @return The geometry.
+   */
+  @SuppressWarnings("unchecked")
+  public static <G extends Geometry> G readGeometryLazy(final GeometryFactory geometryFactory,
+    final ByteBuffer data) {
+    if (!geometryFactory.isFloating()) {
+      return readGeometry(geometryFactory, data);
+    }
+    final int wkbOffset = data.position();
+    ByteOrder byteOrder;
+    if (data.get() == 0) {
+      byteOrder = ByteOrder.BIG_ENDIAN;
+    } else {
+      byteOrder = ByteOrder.LITTLE_ENDIAN;
+    }
+    data.order(byteOrder);
+
+    final int geometryType = data.getInt();
+    final int dimension = geometryType / 1000;
+    int wkbAxisCount = 2;
+    if (dimension == 1 || dimension == 2) {
+      wkbAxisCount = 3;
+    } else if (dimension == 3) {
+      wkbAxisCount = 4;
+    }
+    final boolean measureOnly = dimension == 2;
+    switch (geometryType % 1000) {
+      case 2:
+        return (G)readLineStringLazy(geometryFactory, data, wkbOffset, wkbAxisCount,
+          measureOnly);
+      case 3:
+        return (G)readPolygonLazy(geometryFactory, data, wkbAxisCount, measureOnly);
+      case 5:
+        final int lineCount = data.getInt();
+        final LineString[] lines = new LineString[lineCount];
+        for (int i = 0; i < lineCount; i++) {
+          lines[i] = readGeometryLazy(geometryFactory, data);
+        }
+        return (G)geometryFactory.lineal(lines);
+      case 6:
+        final int polygonCount = data.getInt();
+        final Polygon[] polygons = new Polygon[polygonCount];
+        for (int i = 0; i < polygonCount; i++) {
+          polygons[i] = readGeometryLazy(geometryFactory, data);
+        }
+        return (G)geometryFactory.polygonal(polygons);
+      case 7:
+        final int geometryCount = data.getInt();
+        final Geometry[] geometries = new Geometry[geometryCount];
+        for (int i = 0; i < geometryCount; i++) {
+          geometries[i] = readGeometryLazy(geometryFactory, data);
+        }
+        return (G)geometryFactory.geometry(geometries);
+      default:
+        data.position(wkbOffset);
+        return readGeometry(geometryFactory, data);
+    }
+  }
+
   private static Geometry readGeometryCollection(final GeometryFactory geometryFactory,
     final ByteBuffer data) {
     final int geometryCount = data.getInt();
@@ -146,6 +223,22 @@ public class WkbByteBufferReader {
     return geometryFactory.lineString(axisCount, coordinates);
   }
 
+  private static LineString readLineStringLazy(final GeometryFactory geometryFactory,
+    final ByteBuffer data, final int wkbOffset, final int wkbAxisCount,
+    final boolean measureOnly) {
+    final int vertexCount = data.getInt();
+    if (vertexCount == 0) {
+      return geometryFactory.lineString();
+    } else {
+      final int coordinatesOffset = data.position();
+      data.position(coordinatesOffset + vertexCount * wkbAxisCount * 8);
+      final ByteBuffer buffer = data.duplicate().order(data.order());
+      final int wkbLength = data.position() - wkbOffset;
+      return new LineStringWkb(geometryFactory, buffer, coordinatesOffset, vertexCount,
+        wkbAxisCount, measureOnly, wkbOffset, wkbLength);
+    }
+  }
+
   private static Lineal readMultiLineString(final GeometryFactory geometryFactory,
     final ByteBuffer data) {
     final int lineCount = data.getInt();
@@ -221,6 +314,21 @@ public class WkbByteBufferReader {
     return geometryFactory.polygon(rings);
   }
 
+  private static Polygon readPolygonLazy(final GeometryFactory geometryFactory,
+    final ByteBuffer data, final int wkbAxisCount, final boolean measureOnly) {
+    final int ringCount = data.getInt();
+    final ByteBuffer buffer = data.duplicate().order(data.order());
+    final LinearRing[] rings = new LinearRing[ringCount];
+    for (int i = 0; i < ringCount; i++) {
+      final int vertexCount = data.getInt();
+      final int coordinatesOffset = data.position();
+      data.position(coordinatesOffset + vertexCount * wkbAxisCount * 8);
+      rings[i] = new LinearRingWkb(geometryFactory, buffer, coordinatesOffset, vertexCount,
+        wkbAxisCount, measureOnly);
+    }
+    return geometryFactory.polygon(rings);
+  }
+
   private static Polygon readPolygonM(final GeometryFactory geometryFactory,
     final ByteBuffer data) {
     final int ringCount = data.getInt();
@@ -1,6 +1,7 @@
 package com.revolsys.geometry.wkb;
 
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 
 import org.jeometry.common.function.BiConsumerDouble;
 import org.jeometry.common.function.Consumer3Double;
@@ -43,6 +44,13 @@ public class WkbChannelWriter extends ChannelWriter {
   }
 
   public void writeGeometry(final Geometry geometry) {
+    if (geometry instanceof WkbGeometry) {
+      final ByteBuffer wkb = ((WkbGeometry)geometry).getWkb();
+      if (wkb != null) {
+        writeWkb(wkb);
+        return;
+      }
+    }
     putByte((byte)0);
     if (geometry instanceof Point) {
       writePoint((Point)geometry);
@@ -129,9 +137,8 @@ public class WkbChannelWriter extends ChannelWriter {
     final int lineCount = multiLineString.getGeometryCount();
     putInt(lineCount);
     for (int lineIndex = 0; lineIndex < lineCount; lineIndex++) {
-      putByte((byte)0);
       final LineString line = multiLineString.getLineString(lineIndex);
-      writeLineString(line);
+      writeGeometry(line);
     }
   }
 
@@ -188,4 +195,13 @@ public class WkbChannelWriter extends ChannelWriter {
       }
     }
   }
+
+  /**
+   * Write the WKB for a geometry as is.
+   *
+   * @param wkb The WKB.
+   */
+  public void writeWkb(final ByteBuffer wkb) {
+    putBytes(wkb);
+  }
 }
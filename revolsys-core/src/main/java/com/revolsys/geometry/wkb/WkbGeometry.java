@@ -0,0 +1,19 @@
+package com.revolsys.geometry.wkb;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A geometry that is backed by the WKB it was read from.
+ *
+ * @see WkbByteBufferReader#readGeometryLazy(com.revolsys.geometry.model.GeometryFactory,
+ * ByteBuffer)
+ */
+public interface WkbGeometry {
+  /**
+   * Get a read only buffer containing the WKB for the geometry. The WKB can be written as is
+   * instead of encoding the geometry again.
+   *
+   * @return The WKB or null if the original WKB can't be used for this geometry.
+   */
+  ByteBuffer getWkb();
+}
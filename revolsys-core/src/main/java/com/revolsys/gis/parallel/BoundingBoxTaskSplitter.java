@@ -5,6 +5,7 @@ import org.jeometry.common.logging.Logs;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.Geometry;
 import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.prep.PreparedGeometryCache;
 import com.revolsys.parallel.process.AbstractProcess;
 
 public abstract class BoundingBoxTaskSplitter extends AbstractProcess {
@@ -48,7 +49,7 @@ public abstract class BoundingBoxTaskSplitter extends AbstractProcess {
   protected void preRun() {
     if (this.boundingBox != null) {
       if (this.boundary != null) {
-        this.preparedBoundary = this.boundary.prepare();
+        this.preparedBoundary = PreparedGeometryCache.prepareShared(this.boundary);
       }
     }
   }
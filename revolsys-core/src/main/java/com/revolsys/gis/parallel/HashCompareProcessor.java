@@ -0,0 +1,135 @@
+package com.revolsys.gis.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.parallel.channel.Channel;
+import com.revolsys.parallel.channel.ClosedException;
+import com.revolsys.parallel.channel.store.Buffer;
+import com.revolsys.parallel.process.BaseInOutProcess;
+import com.revolsys.record.Record;
+import com.revolsys.record.RecordChangeDetector;
+
+/**
+ * Compare the source records from the in channel to the target records from the other in channel
+ * using a {@link RecordChangeDetector}. The other in channel is read to the end first, then the
+ * new and modified source records and the deleted target records are written to the out channel
+ * with the {@link com.revolsys.record.RecordState} set, ready for a
+ * {@link RecordStoreUpdateProcess}. Unlike {@link OrderedEqualCompareProcessor} the records don't
+ * need to be sorted and unlike {@link CompareProcessor} only a hash per target record is held in
+ * memory.
+ */
+public class HashCompareProcessor extends BaseInOutProcess<Record, Record> {
+
+  private RecordChangeDetector detector;
+
+  private List<String> equalExclude = new ArrayList<>();
+
+  private GeometryFactory geometryFactory;
+
+  private int maxIndexSizeInMemory = RecordChangeDetector.DEFAULT_MAX_INDEX_SIZE_IN_MEMORY;
+
+  private Channel<Record> otherIn;
+
+  private int otherInBufferSize = 0;
+
+  private boolean spillToDisk = false;
+
+  public RecordChangeDetector getDetector() {
+    return this.detector;
+  }
+
+  public List<String> getEqualExclude() {
+    return this.equalExclude;
+  }
+
+  public GeometryFactory getGeometryFactory() {
+    return this.geometryFactory;
+  }
+
+  public int getMaxIndexSizeInMemory() {
+    return this.maxIndexSizeInMemory;
+  }
+
+  public Channel<Record> getOtherIn() {
+    if (this.otherIn == null) {
+      if (this.otherInBufferSize < 1) {
+        setOtherIn(new Channel<Record>());
+      } else {
+        final Buffer<Record> buffer = new Buffer<>(this.otherInBufferSize);
+        setOtherIn(new Channel<>(buffer));
+      }
+    }
+    return this.otherIn;
+  }
+
+  public int getOtherInBufferSize() {
+    return this.otherInBufferSize;
+  }
+
+  public boolean isSpillToDisk() {
+    return this.spillToDisk;
+  }
+
+  @Override
+  protected void postRun(final Channel<Record> in, final Channel<Record> out) {
+    final RecordChangeDetector detector = this.detector;
+    if (detector != null) {
+      try {
+        detector.forEachDeleted(out::write);
+      } finally {
+        detector.close();
+      }
+    }
+  }
+
+  @Override
+  protected void preRun(final Channel<Record> in, final Channel<Record> out) {
+    this.detector = new RecordChangeDetector();
+    this.detector.setExcludeFieldNames(this.equalExclude);
+    this.detector.setGeometryFactory(this.geometryFactory);
+    this.detector.setMaxIndexSizeInMemory(this.maxIndexSizeInMemory);
+    this.detector.setSpillToDisk(this.spillToDisk);
+    final Channel<Record> otherIn = getOtherIn();
+    try {
+      for (Record record = otherIn.read(); record != null; record = otherIn.read()) {
+        this.detector.addTarget(record);
+      }
+    } catch (final ClosedException e) {
+    } finally {
+      otherIn.readDisconnect();
+    }
+  }
+
+  @Override
+  protected void process(final Channel<Record> in, final Channel<Record> out,
+    final Record record) {
+    this.detector.compare(record, out::write);
+  }
+
+  public void setEqualExclude(final List<String> equalExclude) {
+    this.equalExclude = equalExclude;
+  }
+
+  public void setGeometryFactory(final GeometryFactory geometryFactory) {
+    this.geometryFactory = geometryFactory;
+  }
+
+  public void setMaxIndexSizeInMemory(final int maxIndexSizeInMemory) {
+    this.maxIndexSizeInMemory = maxIndexSizeInMemory;
+  }
+
+  public void setOtherIn(final Channel<Record> in) {
+    this.otherIn = in;
+    in.readConnect();
+  }
+
+  public void setOtherInBufferSize(final int otherInBufferSize) {
+    this.otherInBufferSize = otherInBufferSize;
+  }
+
+  public void setSpillToDisk(final boolean spillToDisk) {
+    this.spillToDisk = spillToDisk;
+  }
+}
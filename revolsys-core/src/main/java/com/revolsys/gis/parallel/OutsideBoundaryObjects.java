@@ -6,6 +6,7 @@ import java.util.Set;
 import org.jeometry.common.logging.Logs;
 
 import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.prep.PreparedGeometryCache;
 import com.revolsys.record.Record;
 
 public class OutsideBoundaryObjects {
@@ -61,7 +62,7 @@ public class OutsideBoundaryObjects {
 
   public void setBoundary(final Geometry boundary) {
     this.boundary = boundary;
-    this.preparedBoundary = boundary.prepare();
+    this.preparedBoundary = PreparedGeometryCache.prepareShared(boundary);
   }
 
   public void setObjects(final Set<Record> objects) {
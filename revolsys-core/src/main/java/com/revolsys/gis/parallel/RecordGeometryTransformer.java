@@ -0,0 +1,384 @@
+package com.revolsys.gis.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.jeometry.common.exception.Exceptions;
+
+import com.revolsys.geometry.densify.Densifier;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.Polygonal;
+import com.revolsys.geometry.operation.valid.IsValidOp;
+import com.revolsys.geometry.simplify.TopologyPreservingSimplifier;
+import com.revolsys.parallel.OrderedParallelExecutor;
+import com.revolsys.parallel.ThreadInterruptedException;
+import com.revolsys.record.Record;
+import com.revolsys.record.Records;
+import com.revolsys.record.io.RecordWriter;
+
+/**
+ * Apply a geometry operation (e.g. {@link #buffer(double)}, {@link #clip(Geometry)}) to the
+ * geometry of each record from a source and write a copy of the record with the new geometry.
+ * <p>
+ * The records are read and written on the calling thread. The operation is applied to batches of
+ * records in parallel on the executor service. At most {@link #getMaxPendingBatches()} batches are
+ * queued or running at once. The records are written in the order they were read unless
+ * {@link #setPreserveOrder(boolean)} is false, in which case each batch is written as soon as it
+ * is completed.
+ * <p>
+ * Records without a geometry are written unchanged. Records where the operation returns null or
+ * an empty geometry (e.g. a clip outside the clip geometry) are skipped. The counts and times
+ * for the last run can be used to report the throughput and latency.
+ */
+public class RecordGeometryTransformer {
+
+  private static final class Batch {
+    private final List<Record> records;
+
+    private final long submitTime = System.nanoTime();
+
+    private List<Record> results;
+
+    private Batch(final List<Record> records) {
+      this.records = records;
+    }
+  }
+
+  public static final int DEFAULT_BATCH_SIZE = 100;
+
+  public static Function<Geometry, Geometry> buffer(final double distance) {
+    return geometry -> geometry.buffer(distance);
+  }
+
+  /**
+   * Clip the geometries to the clip geometry. Geometries outside the clip geometry are skipped.
+   */
+  public static Function<Geometry, Geometry> clip(final Geometry clipGeometry) {
+    final Geometry preparedClipGeometry = clipGeometry.prepare();
+    final BoundingBox clipBoundingBox = clipGeometry.getBoundingBox();
+    return geometry -> {
+      if (!clipBoundingBox.bboxIntersects(geometry.getBoundingBox())) {
+        return null;
+      } else if (preparedClipGeometry.covers(geometry)) {
+        return geometry;
+      } else {
+        return geometry.intersection(clipGeometry);
+      }
+    };
+  }
+
+  public static Function<Geometry, Geometry> densify(final double distanceTolerance) {
+    return geometry -> Densifier.densify(geometry, distanceTolerance);
+  }
+
+  /**
+   * Replace invalid polygonal geometries with the buffer(0) of the geometry. Other geometries are
+   * returned unchanged.
+   */
+  public static Function<Geometry, Geometry> makeValid() {
+    return geometry -> {
+      if (geometry instanceof Polygonal) {
+        final IsValidOp validOp = new IsValidOp(geometry);
+        validOp.setIndexed(true);
+        if (!validOp.isValid()) {
+          return geometry.buffer(0);
+        }
+      }
+      return geometry;
+    };
+  }
+
+  public static Function<Geometry, Geometry> project(final GeometryFactory geometryFactory) {
+    return geometry -> geometry.convertGeometry(geometryFactory);
+  }
+
+  public static Function<Geometry, Geometry> simplify(final double distanceTolerance) {
+    return geometry -> TopologyPreservingSimplifier.simplify(geometry, distanceTolerance);
+  }
+
+  private int batchSize = DEFAULT_BATCH_SIZE;
+
+  private long elapsedTime;
+
+  private ExecutorService executorService = ForkJoinPool.commonPool();
+
+  private long latencyTime;
+
+  private long maxLatencyTime;
+
+  private int maxPendingBatches = Runtime.getRuntime().availableProcessors() * 2;
+
+  private final Function<? super Geometry, ? extends Geometry> operation;
+
+  private boolean parallel = true;
+
+  private boolean preserveOrder = true;
+
+  private final AtomicLong processingTime = new AtomicLong();
+
+  private long readCount;
+
+  private long skippedCount;
+
+  private long writeCount;
+
+  public RecordGeometryTransformer(final Function<? super Geometry, ? extends Geometry> operation) {
+    this.operation = operation;
+  }
+
+  private void consumeBatch(final Batch batch, final Consumer<? super Record> action) {
+    final long latency = System.nanoTime() - batch.submitTime;
+    this.latencyTime += latency;
+    this.maxLatencyTime = Math.max(this.maxLatencyTime, latency);
+    for (final Record record : batch.results) {
+      action.accept(record);
+    }
+    this.writeCount += batch.results.size();
+    this.skippedCount += batch.records.size() - batch.results.size();
+  }
+
+  /**
+   * Transform the records passing each new record to the action. The action is called on the
+   * calling thread.
+   *
+   * @param records The source records.
+   * @param action The action.
+   */
+  public void forEach(final Iterable<? extends Record> records,
+    final Consumer<? super Record> action) {
+    this.readCount = 0;
+    this.writeCount = 0;
+    this.skippedCount = 0;
+    this.latencyTime = 0;
+    this.maxLatencyTime = 0;
+    this.processingTime.set(0);
+    final long startTime = System.nanoTime();
+    try {
+      if (!this.parallel) {
+        final List<Record> batch = new ArrayList<>(1);
+        for (final Record record : records) {
+          this.readCount++;
+          batch.add(record);
+          consumeBatch(transform(new Batch(batch)), action);
+          batch.clear();
+        }
+      } else if (this.preserveOrder) {
+        forEachOrdered(records, action);
+      } else {
+        forEachUnordered(records, action);
+      }
+    } finally {
+      this.elapsedTime = System.nanoTime() - startTime;
+    }
+  }
+
+  private void forEachOrdered(final Iterable<? extends Record> records,
+    final Consumer<? super Record> action) {
+    try (
+      OrderedParallelExecutor<Batch> executor = new OrderedParallelExecutor<>(this.executorService,
+        this.maxPendingBatches, batch -> consumeBatch(batch, action))) {
+      List<Record> batchRecords = new ArrayList<>(this.batchSize);
+      for (final Record record : records) {
+        this.readCount++;
+        batchRecords.add(record);
+        if (batchRecords.size() >= this.batchSize) {
+          final Batch batch = new Batch(batchRecords);
+          executor.submit(() -> transform(batch));
+          batchRecords = new ArrayList<>(this.batchSize);
+        }
+      }
+      if (!batchRecords.isEmpty()) {
+        final Batch batch = new Batch(batchRecords);
+        executor.submit(() -> transform(batch));
+      }
+      executor.finish();
+    }
+  }
+
+  private void forEachUnordered(final Iterable<? extends Record> records,
+    final Consumer<? super Record> action) {
+    final CompletionService<Batch> completionService = new ExecutorCompletionService<>(
+      this.executorService);
+    int pendingCount = 0;
+    try {
+      List<Record> batchRecords = new ArrayList<>(this.batchSize);
+      for (final Record record : records) {
+        this.readCount++;
+        batchRecords.add(record);
+        if (batchRecords.size() >= this.batchSize) {
+          if (pendingCount >= this.maxPendingBatches) {
+            consumeBatch(completionService.take().get(), action);
+            pendingCount--;
+          }
+          final Batch batch = new Batch(batchRecords);
+          completionService.submit(() -> transform(batch));
+          pendingCount++;
+          batchRecords = new ArrayList<>(this.batchSize);
+        }
+      }
+      if (!batchRecords.isEmpty()) {
+        final Batch batch = new Batch(batchRecords);
+        completionService.submit(() -> transform(batch));
+        pendingCount++;
+      }
+      for (; pendingCount > 0; pendingCount--) {
+        consumeBatch(completionService.take().get(), action);
+      }
+    } catch (final ExecutionException e) {
+      throw Exceptions.wrap(e.getCause());
+    } catch (final InterruptedException e) {
+      throw new ThreadInterruptedException(e);
+    }
+  }
+
+  public int getBatchSize() {
+    return this.batchSize;
+  }
+
+  /**
+   * Get the elapsed time of the last run in milliseconds.
+   */
+  public double getElapsedTime() {
+    return this.elapsedTime / 1000000.0;
+  }
+
+  public ExecutorService getExecutorService() {
+    return this.executorService;
+  }
+
+  /**
+   * Get the maximum time from when a batch was submitted until it was written in milliseconds.
+   */
+  public double getMaxLatency() {
+    return this.maxLatencyTime / 1000000.0;
+  }
+
+  public int getMaxPendingBatches() {
+    return this.maxPendingBatches;
+  }
+
+  /**
+   * Get the mean time from when a batch was submitted until it was written in milliseconds.
+   */
+  public double getMeanLatency() {
+    final long batchCount = (this.readCount + this.batchSize - 1) / this.batchSize;
+    if (batchCount == 0 || !this.parallel) {
+      return 0;
+    } else {
+      return this.latencyTime / 1000000.0 / batchCount;
+    }
+  }
+
+  /**
+   * Get the total time spent applying the operation in milliseconds. This is the sum of the time
+   * for each worker thread so will be larger than the elapsed time when run in parallel.
+   */
+  public double getProcessingTime() {
+    return this.processingTime.get() / 1000000.0;
+  }
+
+  public long getReadCount() {
+    return this.readCount;
+  }
+
+  /**
+   * Get the number of records read per second for the last run.
+   */
+  public double getRecordsPerSecond() {
+    if (this.elapsedTime == 0) {
+      return 0;
+    } else {
+      return this.readCount * 1000000000.0 / this.elapsedTime;
+    }
+  }
+
+  public long getSkippedCount() {
+    return this.skippedCount;
+  }
+
+  public long getWriteCount() {
+    return this.writeCount;
+  }
+
+  public boolean isParallel() {
+    return this.parallel;
+  }
+
+  public boolean isPreserveOrder() {
+    return this.preserveOrder;
+  }
+
+  public void setBatchSize(final int batchSize) {
+    this.batchSize = Math.max(1, batchSize);
+  }
+
+  public void setExecutorService(final ExecutorService executorService) {
+    if (executorService == null) {
+      this.executorService = ForkJoinPool.commonPool();
+    } else {
+      this.executorService = executorService;
+    }
+  }
+
+  public void setMaxPendingBatches(final int maxPendingBatches) {
+    this.maxPendingBatches = Math.max(1, maxPendingBatches);
+  }
+
+  public void setParallel(final boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  public void setPreserveOrder(final boolean preserveOrder) {
+    this.preserveOrder = preserveOrder;
+  }
+
+  @Override
+  public String toString() {
+    return "read=" + this.readCount + ", written=" + this.writeCount + ", skipped="
+      + this.skippedCount + ", records/s=" + Math.round(getRecordsPerSecond()) + ", elapsed="
+      + Math.round(getElapsedTime()) + "ms, processing=" + Math.round(getProcessingTime())
+      + "ms, meanLatency=" + Math.round(getMeanLatency()) + "ms, maxLatency="
+      + Math.round(getMaxLatency()) + "ms";
+  }
+
+  private Batch transform(final Batch batch) {
+    final long startTime = System.nanoTime();
+    final List<Record> results = new ArrayList<>(batch.records.size());
+    for (final Record record : batch.records) {
+      final Geometry geometry = record.getGeometry();
+      if (geometry == null) {
+        results.add(record);
+      } else {
+        final Geometry newGeometry = this.operation.apply(geometry);
+        if (newGeometry != null && (!newGeometry.isEmpty() || geometry.isEmpty())) {
+          results.add(Records.copy(record, newGeometry));
+        }
+      }
+    }
+    batch.results = results;
+    this.processingTime.addAndGet(System.nanoTime() - startTime);
+    return batch;
+  }
+
+  /**
+   * Transform the records and write the new records to the writer.
+   *
+   * @param records The source records (e.g. a {@link com.revolsys.record.io.RecordReader}).
+   * @param writer The writer.
+   * @return The number of records written.
+   */
+  public long write(final Iterable<? extends Record> records, final RecordWriter writer) {
+    forEach(records, writer::write);
+    return this.writeCount;
+  }
+}
@@ -1,22 +1,31 @@
 package com.revolsys.gis.parallel;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
-import java.util.List;
+import java.util.Map;
 
 import com.revolsys.parallel.channel.Channel;
 import com.revolsys.parallel.process.BaseInOutProcess;
 import com.revolsys.record.Record;
+import com.revolsys.record.Records;
 import com.revolsys.record.comparator.RecordFieldComparator;
+import com.revolsys.record.io.ExternalRecordSorter;
 
+/**
+ * Sort the records using an {@link ExternalRecordSorter}, at most
+ * {@link #getMaxRecordsInMemory()} records are held in memory per run. If there is no comparator
+ * the records are written in the order they were read.
+ */
 public class Sort extends BaseInOutProcess<Record, Record> {
 
   private Comparator<Record> comparator;
 
   private String fieldName;
 
-  private final List<Record> objects = new ArrayList<>();
+  private int maxRecordsInMemory = ExternalRecordSorter.DEFAULT_MAX_RECORDS_IN_MEMORY;
+
+  private boolean parallel = true;
+
+  private ExternalRecordSorter sorter;
 
   public Comparator<Record> getComparator() {
     return this.comparator;
@@ -26,19 +35,39 @@ public class Sort extends BaseInOutProcess<Record, Record> {
     return this.fieldName;
   }
 
+  public int getMaxRecordsInMemory() {
+    return this.maxRecordsInMemory;
+  }
+
+  public boolean isParallel() {
+    return this.parallel;
+  }
+
   @Override
   protected void postRun(final Channel<Record> in, final Channel<Record> out) {
-    if (this.comparator != null) {
-      Collections.sort(this.objects, this.comparator);
+    final ExternalRecordSorter sorter = this.sorter;
+    if (sorter != null) {
+      this.sorter = null;
+      sorter.forEach(out::write);
     }
-    for (final Record object : this.objects) {
-      out.write(object);
+  }
+
+  @Override
+  protected void preRun(final Channel<Record> in, final Channel<Record> out) {
+    if (this.comparator != null) {
+      this.sorter = new ExternalRecordSorter(this.comparator);
+      this.sorter.setMaxRecordsInMemory(this.maxRecordsInMemory);
+      this.sorter.setParallel(this.parallel);
     }
   }
 
   @Override
   protected void process(final Channel<Record> in, final Channel<Record> out, final Record object) {
-    this.objects.add(object);
+    if (this.sorter == null) {
+      out.write(object);
+    } else {
+      this.sorter.add(object);
+    }
   }
 
   public void setComparator(final Comparator<Record> comparator) {
@@ -50,4 +79,22 @@ public class Sort extends BaseInOutProcess<Record, Record> {
     this.comparator = new RecordFieldComparator(fieldName);
   }
 
+  public void setMaxRecordsInMemory(final int maxRecordsInMemory) {
+    this.maxRecordsInMemory = maxRecordsInMemory;
+  }
+
+  /**
+   * Set the ORDER BY field names and ascending flags, as used by
+   * {@link com.revolsys.record.query.Query#getOrderBy()}.
+   *
+   * @param orderBy The order by.
+   */
+  public void setOrderBy(final Map<? extends CharSequence, Boolean> orderBy) {
+    this.comparator = Records.newComparatorOrderBy(orderBy);
+  }
+
+  public void setParallel(final boolean parallel) {
+    this.parallel = parallel;
+  }
+
 }
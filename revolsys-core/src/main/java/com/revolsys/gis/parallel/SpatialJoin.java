@@ -0,0 +1,386 @@
+package com.revolsys.gis.parallel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import com.revolsys.geometry.index.strtree.StrTree;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.parallel.OrderedParallelExecutor;
+import com.revolsys.record.Record;
+import com.revolsys.record.io.RecordWriter;
+import com.revolsys.record.schema.FieldDefinition;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.util.Pair;
+
+/**
+ * Join the records from a left and right source where the geometries have the
+ * {@link SpatialJoinPredicate} relationship.
+ * <p>
+ * The right records (or the left records if both sources are collections and the left is
+ * smaller) are bulk loaded into an {@link StrTree} and each geometry is prepared once. The other
+ * source is streamed in batches which are joined in parallel on the fork-join pool. The joined
+ * pairs are passed to the consumer on the calling thread in the order the probed records were
+ * read. At most a few batches are in memory at once so a probed source larger than memory can be
+ * joined.
+ * <p>
+ * For {@link SpatialJoinPredicate#NEAREST} the right records are always indexed and the k nearest
+ * right records (optionally within the distance) are joined to each left record.
+ */
+public class SpatialJoin {
+
+  private static final class IndexEntry {
+    private final Record record;
+
+    private final Geometry geometry;
+
+    private IndexEntry(final Record record, final Geometry geometry) {
+      this.record = record;
+      this.geometry = geometry.prepare();
+    }
+  }
+
+  private class JoinIndex {
+    private final boolean indexLeft;
+
+    private final StrTree<IndexEntry> tree = new StrTree<>();
+
+    private double minX = Double.POSITIVE_INFINITY;
+
+    private double minY = Double.POSITIVE_INFINITY;
+
+    private double maxX = Double.NEGATIVE_INFINITY;
+
+    private double maxY = Double.NEGATIVE_INFINITY;
+
+    private double initialRadius = 1;
+
+    private JoinIndex(final boolean indexLeft, final Iterable<? extends Record> records) {
+      this.indexLeft = indexLeft;
+      for (final Record record : records) {
+        final Geometry geometry = record.getGeometry();
+        if (geometry != null && !geometry.isEmpty()) {
+          final BoundingBox boundingBox = geometry.getBoundingBox();
+          this.tree.insertItem(boundingBox, new IndexEntry(record, geometry));
+          this.minX = Math.min(this.minX, boundingBox.getMinX());
+          this.minY = Math.min(this.minY, boundingBox.getMinY());
+          this.maxX = Math.max(this.maxX, boundingBox.getMaxX());
+          this.maxY = Math.max(this.maxY, boundingBox.getMaxY());
+        }
+      }
+      this.tree.build();
+      final int size = this.tree.size();
+      if (size > 0) {
+        final double extent = Math.max(this.maxX - this.minX, this.maxY - this.minY);
+        final double radius = extent / Math.sqrt(size);
+        if (radius > 0) {
+          this.initialRadius = radius;
+        }
+      }
+    }
+
+    private void forEachMatch(final Record probeRecord,
+      final BiConsumer<Record, Record> action) {
+      final Geometry geometry = probeRecord.getGeometry();
+      if (geometry != null && !geometry.isEmpty()) {
+        if (SpatialJoin.this.predicate == SpatialJoinPredicate.NEAREST) {
+          forEachNearest(probeRecord, geometry, action);
+        } else {
+          final BoundingBox boundingBox = geometry.getBoundingBox();
+          double distance = 0;
+          if (SpatialJoin.this.predicate == SpatialJoinPredicate.WITHIN_DISTANCE) {
+            distance = SpatialJoin.this.distance;
+          }
+          this.tree.forEach(boundingBox.getMinX() - distance, boundingBox.getMinY() - distance,
+            boundingBox.getMaxX() + distance, boundingBox.getMaxY() + distance, (entry) -> {
+              if (matches(entry.geometry, geometry)) {
+                if (this.indexLeft) {
+                  action.accept(entry.record, probeRecord);
+                } else {
+                  action.accept(probeRecord, entry.record);
+                }
+              }
+            });
+        }
+      }
+    }
+
+    private void forEachNearest(final Record probeRecord, final Geometry geometry,
+      final BiConsumer<Record, Record> action) {
+      if (this.tree.isEmpty()) {
+        return;
+      }
+      final int nearestCount = SpatialJoin.this.nearestCount;
+      double maxDistance = SpatialJoin.this.distance;
+      if (maxDistance <= 0) {
+        maxDistance = Double.POSITIVE_INFINITY;
+      }
+      final BoundingBox boundingBox = geometry.getBoundingBox();
+      final List<IndexEntry> entries = new ArrayList<>();
+      final List<Pair<Double, IndexEntry>> candidates = new ArrayList<>();
+      double radius = Math.min(this.initialRadius, maxDistance);
+      while (true) {
+        final double minX = boundingBox.getMinX() - radius;
+        final double minY = boundingBox.getMinY() - radius;
+        final double maxX = boundingBox.getMaxX() + radius;
+        final double maxY = boundingBox.getMaxY() + radius;
+        entries.clear();
+        this.tree.forEach(minX, minY, maxX, maxY, entries::add);
+        candidates.clear();
+        int withinRadiusCount = 0;
+        for (final IndexEntry entry : entries) {
+          final double distance = entry.geometry.distanceGeometry(geometry);
+          if (distance <= maxDistance) {
+            candidates.add(new Pair<>(distance, entry));
+            if (distance <= radius) {
+              withinRadiusCount++;
+            }
+          }
+        }
+        final boolean containsIndex = minX <= this.minX && minY <= this.minY && maxX >= this.maxX
+          && maxY >= this.maxY;
+        if (withinRadiusCount >= nearestCount || containsIndex || radius >= maxDistance) {
+          // Any entry closer than the radius intersects the search area so the nearest are known
+          candidates.sort((a, b) -> Double.compare(a.getValue1(), b.getValue1()));
+          final int count = Math.min(nearestCount, candidates.size());
+          for (int i = 0; i < count; i++) {
+            final IndexEntry entry = candidates.get(i).getValue2();
+            action.accept(probeRecord, entry.record);
+          }
+          return;
+        }
+        radius = Math.min(radius * 2, maxDistance);
+      }
+    }
+
+    private List<Pair<Record, Record>> join(final List<Record> probeRecords) {
+      final List<Pair<Record, Record>> pairs = new ArrayList<>();
+      for (final Record probeRecord : probeRecords) {
+        forEachMatch(probeRecord, (left, right) -> pairs.add(new Pair<>(left, right)));
+      }
+      return pairs;
+    }
+
+    private boolean matches(final Geometry indexGeometry, final Geometry probeGeometry) {
+      final SpatialJoinPredicate predicate = SpatialJoin.this.predicate;
+      if (predicate == SpatialJoinPredicate.CONTAINS) {
+        if (this.indexLeft) {
+          return indexGeometry.contains(probeGeometry);
+        } else {
+          return indexGeometry.within(probeGeometry);
+        }
+      } else if (predicate == SpatialJoinPredicate.WITHIN) {
+        if (this.indexLeft) {
+          return indexGeometry.within(probeGeometry);
+        } else {
+          return indexGeometry.contains(probeGeometry);
+        }
+      } else if (predicate == SpatialJoinPredicate.WITHIN_DISTANCE) {
+        return indexGeometry.isWithinDistance(probeGeometry, SpatialJoin.this.distance);
+      } else {
+        return indexGeometry.intersects(probeGeometry);
+      }
+    }
+  }
+
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+
+  private final Iterable<? extends Record> leftRecords;
+
+  private final Iterable<? extends Record> rightRecords;
+
+  private int batchSize = DEFAULT_BATCH_SIZE;
+
+  private double distance = 0;
+
+  private int nearestCount = 1;
+
+  private boolean parallel = true;
+
+  private SpatialJoinPredicate predicate = SpatialJoinPredicate.INTERSECTS;
+
+  private String rightFieldPrefix = "";
+
+  public SpatialJoin(final Iterable<? extends Record> leftRecords,
+    final Iterable<? extends Record> rightRecords) {
+    this.leftRecords = leftRecords;
+    this.rightRecords = rightRecords;
+  }
+
+  public SpatialJoin(final Iterable<? extends Record> leftRecords,
+    final Iterable<? extends Record> rightRecords, final SpatialJoinPredicate predicate) {
+    this(leftRecords, rightRecords);
+    setPredicate(predicate);
+  }
+
+  /**
+   * Join the records passing each pair of joined left and right records to the action. The
+   * action is called on the calling thread.
+   *
+   * @param action The action.
+   */
+  public void forEachPair(final BiConsumer<? super Record, ? super Record> action) {
+    final boolean indexLeft = isIndexLeft();
+    final JoinIndex index;
+    final Iterable<? extends Record> probeRecords;
+    if (indexLeft) {
+      index = new JoinIndex(true, this.leftRecords);
+      probeRecords = this.rightRecords;
+    } else {
+      index = new JoinIndex(false, this.rightRecords);
+      probeRecords = this.leftRecords;
+    }
+    if (this.parallel) {
+      final Consumer<List<Pair<Record, Record>>> consumer = (pairs) -> {
+        for (final Pair<Record, Record> pair : pairs) {
+          action.accept(pair.getValue1(), pair.getValue2());
+        }
+      };
+      final ForkJoinPool pool = ForkJoinPool.commonPool();
+      try (
+        OrderedParallelExecutor<List<Pair<Record, Record>>> executor = new OrderedParallelExecutor<>(
+          pool, pool.getParallelism() * 2, consumer)) {
+        List<Record> batch = new ArrayList<>(this.batchSize);
+        for (final Record record : probeRecords) {
+          batch.add(record);
+          if (batch.size() >= this.batchSize) {
+            final List<Record> records = batch;
+            executor.submit(() -> index.join(records));
+            batch = new ArrayList<>(this.batchSize);
+          }
+        }
+        if (!batch.isEmpty()) {
+          final List<Record> records = batch;
+          executor.submit(() -> index.join(records));
+        }
+        executor.finish();
+      }
+    } else {
+      for (final Record record : probeRecords) {
+        index.forEachMatch(record, action::accept);
+      }
+    }
+  }
+
+  public int getBatchSize() {
+    return this.batchSize;
+  }
+
+  public double getDistance() {
+    return this.distance;
+  }
+
+  public int getNearestCount() {
+    return this.nearestCount;
+  }
+
+  /**
+   * Get the joined pairs of left and right records. Only use for small sources as all the pairs
+   * are kept in memory.
+   *
+   * @return The pairs.
+   */
+  public List<Pair<Record, Record>> getPairs() {
+    final List<Pair<Record, Record>> pairs = new ArrayList<>();
+    forEachPair((left, right) -> pairs.add(new Pair<>(left, right)));
+    return pairs;
+  }
+
+  public SpatialJoinPredicate getPredicate() {
+    return this.predicate;
+  }
+
+  public String getRightFieldPrefix() {
+    return this.rightFieldPrefix;
+  }
+
+  private boolean isIndexLeft() {
+    if (this.predicate == SpatialJoinPredicate.NEAREST) {
+      return false;
+    } else if (this.leftRecords instanceof Collection && this.rightRecords instanceof Collection) {
+      final int leftSize = ((Collection<?>)this.leftRecords).size();
+      final int rightSize = ((Collection<?>)this.rightRecords).size();
+      return leftSize < rightSize;
+    } else {
+      return false;
+    }
+  }
+
+  public boolean isParallel() {
+    return this.parallel;
+  }
+
+  public void setBatchSize(final int batchSize) {
+    this.batchSize = Math.max(1, batchSize);
+  }
+
+  public void setDistance(final double distance) {
+    this.distance = distance;
+  }
+
+  public void setNearestCount(final int nearestCount) {
+    this.nearestCount = Math.max(1, nearestCount);
+  }
+
+  public void setParallel(final boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  public void setPredicate(final SpatialJoinPredicate predicate) {
+    if (predicate == null) {
+      this.predicate = SpatialJoinPredicate.INTERSECTS;
+    } else {
+      this.predicate = predicate;
+    }
+  }
+
+  /**
+   * Set the prefix added to the right record's field names in the joined records. Use if the left
+   * and right records have fields with the same name.
+   *
+   * @param rightFieldPrefix The prefix.
+   */
+  public void setRightFieldPrefix(final String rightFieldPrefix) {
+    if (rightFieldPrefix == null) {
+      this.rightFieldPrefix = "";
+    } else {
+      this.rightFieldPrefix = rightFieldPrefix;
+    }
+  }
+
+  /**
+   * Write a record for each joined pair to the writer. The values for each field in the writer's
+   * record definition are copied from the left record, or if the left record doesn't have that
+   * field from the right record's field without the {@link #getRightFieldPrefix()}.
+   *
+   * @param writer The writer.
+   * @return The number of records written.
+   */
+  public int write(final RecordWriter writer) {
+    final RecordDefinition recordDefinition = writer.getRecordDefinition();
+    final List<FieldDefinition> fields = recordDefinition.getFields();
+    final String prefix = this.rightFieldPrefix;
+    final int[] count = new int[1];
+    forEachPair((left, right) -> {
+      final Record record = writer.newRecord();
+      for (final FieldDefinition field : fields) {
+        final String name = field.getName();
+        if (left.hasField(name)) {
+          record.setValue(name, left.getValue(name));
+        } else if (name.startsWith(prefix)) {
+          final String rightName = name.substring(prefix.length());
+          if (right.hasField(rightName)) {
+            record.setValue(name, right.getValue(rightName));
+          }
+        }
+      }
+      writer.write(record);
+      count[0]++;
+    });
+    return count[0];
+  }
+}
@@ -0,0 +1,22 @@
+package com.revolsys.gis.parallel;
+
+/**
+ * The spatial relationship a left record must have with a right record to be joined by a
+ * {@link SpatialJoin}.
+ */
+public enum SpatialJoinPredicate {
+  /** The right geometry is within the left geometry. */
+  CONTAINS,
+
+  /** The geometries intersect. */
+  INTERSECTS,
+
+  /** The right records are the k nearest records to the left geometry. */
+  NEAREST,
+
+  /** The left geometry is within the right geometry. */
+  WITHIN,
+
+  /** The geometries are within the join distance of each other. */
+  WITHIN_DISTANCE;
+}
@@ -68,6 +68,26 @@ public class AbstractChannelWriter implements BaseCloseable {
     putBytes(bytes, bytes.length);
   }
 
+  /**
+   * Put the remaining bytes from the buffer. The position of the buffer is not changed.
+   *
+   * @param bytes The bytes.
+   */
+  public void putBytes(final ByteBuffer bytes) {
+    final ByteBuffer source = bytes.duplicate();
+    while (source.hasRemaining()) {
+      if (this.available == 0) {
+        write();
+      }
+      final int length = Math.min(this.available, source.remaining());
+      final int limit = source.limit();
+      source.limit(source.position() + length);
+      this.buffer.put(source);
+      source.limit(limit);
+      this.available -= length;
+    }
+  }
+
   public void putBytes(final byte[] bytes, final int length) {
     if (length <= this.available) {
       this.available -= length;
@@ -0,0 +1,324 @@
+package com.revolsys.io.page;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.jeometry.common.exception.Exceptions;
+
+import com.revolsys.collection.map.IntHashMap;
+import com.revolsys.collection.set.IntHashSet;
+import com.revolsys.io.BaseCloseable;
+import com.revolsys.io.FileUtil;
+
+/**
+ * A {@link PageManager} that maps the file in large regions and keeps a fixed size pool of page
+ * frames over those regions.
+ * <p>
+ * Each {@link #getPage(int)} or {@link #newPage()} pins the page's frame until the returned page
+ * is released or removed. Pinned frames are never evicted; unpinned frames are evicted using the
+ * CLOCK algorithm when the pool is full. A page can be pinned by many readers at once as each pin
+ * gets its own view of the page's bytes. Writers must be coordinated by the caller.
+ * </p>
+ * <p>
+ * The regions are memory mapped so modified pages are written back by the operating system and
+ * evicting a frame does not need any I/O. The file grows a region at a time, when an existing file
+ * is opened all the pages up to the end of the file are treated as allocated.
+ * </p>
+ */
+public class BufferPoolPageManager implements PageManager, BaseCloseable {
+  private static class Frame {
+    private ByteBuffer buffer;
+
+    private int index = -1;
+
+    private int pinCount;
+
+    private boolean referenced;
+  }
+
+  private static class PoolPage extends ByteBufferPage {
+    private final Frame frame;
+
+    private boolean pinned = true;
+
+    private PoolPage(final PageManager pageManager, final Frame frame) {
+      super(pageManager, frame.index, frame.buffer.duplicate());
+      this.frame = frame;
+    }
+  }
+
+  public static final int DEFAULT_PAGE_SIZE = 4096;
+
+  public static final int DEFAULT_POOL_SIZE = 1024;
+
+  public static final int DEFAULT_REGION_SIZE = 16 * 1024 * 1024;
+
+  private FileChannel channel;
+
+  private int clockHand;
+
+  private final boolean deleteOnClose;
+
+  private final File file;
+
+  private final IntHashSet freePageIndexes = new IntHashSet();
+
+  private final Frame[] frames;
+
+  private final IntHashMap<Frame> framesByIndex;
+
+  private int pageCount;
+
+  private final int pageSize;
+
+  private final int pagesPerRegion;
+
+  private final List<MappedByteBuffer> regions = new ArrayList<>();
+
+  /**
+   * Construct a new page manager using a temporary file that is deleted when the page manager is
+   * closed.
+   */
+  public BufferPoolPageManager() {
+    this(FileUtil.newTempFile("pages", ".pf"), true, DEFAULT_PAGE_SIZE, DEFAULT_POOL_SIZE,
+      DEFAULT_REGION_SIZE);
+  }
+
+  public BufferPoolPageManager(final File file) {
+    this(file, false, DEFAULT_PAGE_SIZE, DEFAULT_POOL_SIZE, DEFAULT_REGION_SIZE);
+  }
+
+  /**
+   * Construct a new page manager.
+   *
+   * @param file The file to store the pages in.
+   * @param deleteOnClose Delete the file when the page manager is closed.
+   * @param pageSize The size of each page in bytes, at most 32767 for a
+   *          {@link com.revolsys.collection.bplus.BPlusTreeMap}.
+   * @param poolSize The maximum number of page frames in the buffer pool.
+   * @param regionSize The size in bytes of each mapped region, rounded down to a whole number of
+   *          pages.
+   */
+  public BufferPoolPageManager(final File file, final boolean deleteOnClose, final int pageSize,
+    final int poolSize, final int regionSize) {
+    if (pageSize < 16) {
+      throw new IllegalArgumentException("pageSize must be >= 16 not " + pageSize);
+    } else if (poolSize < 1) {
+      throw new IllegalArgumentException("poolSize must be > 0 not " + poolSize);
+    }
+    this.file = file;
+    this.deleteOnClose = deleteOnClose;
+    if (deleteOnClose) {
+      file.deleteOnExit();
+    }
+    this.pageSize = pageSize;
+    this.pagesPerRegion = Math.max(1, regionSize / pageSize);
+    this.frames = new Frame[poolSize];
+    this.framesByIndex = new IntHashMap<>(poolSize * 2);
+    try {
+      this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+      this.pageCount = (int)(this.channel.size() / pageSize);
+    } catch (final IOException e) {
+      throw Exceptions.wrap("Unable to open file " + file.getAbsolutePath(), e);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    final FileChannel channel = this.channel;
+    if (channel != null) {
+      this.channel = null;
+      try {
+        flush();
+      } finally {
+        this.regions.clear();
+        this.framesByIndex.clear();
+        try {
+          channel.close();
+        } catch (final IOException e) {
+          throw Exceptions.wrap("Unable to close file " + this.file.getAbsolutePath(), e);
+        } finally {
+          if (this.deleteOnClose) {
+            FileUtil.delete(this.file);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Force the changes to all the mapped regions to be written to the file.
+   */
+  public synchronized void flush() {
+    for (final MappedByteBuffer region : this.regions) {
+      region.force();
+    }
+  }
+
+  public File getFile() {
+    return this.file;
+  }
+
+  @Override
+  public synchronized int getNumPages() {
+    return this.pageCount - this.freePageIndexes.size();
+  }
+
+  @Override
+  public synchronized Page getPage(final int index) {
+    if (index < 0 || index >= this.pageCount || this.freePageIndexes.containsInt(index)) {
+      throw new IllegalArgumentException("Page does not exist " + index);
+    } else {
+      Frame frame = this.framesByIndex.get(index);
+      if (frame == null) {
+        frame = loadFrame(index);
+      }
+      return pin(frame);
+    }
+  }
+
+  @Override
+  public int getPageSize() {
+    return this.pageSize;
+  }
+
+  public int getPoolSize() {
+    return this.frames.length;
+  }
+
+  private MappedByteBuffer getRegion(final int regionIndex) {
+    final List<MappedByteBuffer> regions = this.regions;
+    while (regions.size() <= regionIndex) {
+      final long regionBytes = (long)this.pagesPerRegion * this.pageSize;
+      final long offset = regions.size() * regionBytes;
+      try {
+        final MappedByteBuffer region = this.channel.map(MapMode.READ_WRITE, offset, regionBytes);
+        regions.add(region);
+      } catch (final IOException e) {
+        throw Exceptions.wrap("Unable to map region " + offset + " of " + this.file, e);
+      }
+    }
+    return regions.get(regionIndex);
+  }
+
+  private Frame loadFrame(final int index) {
+    final Frame frame = newFrame();
+    final int regionIndex = index / this.pagesPerRegion;
+    final int offset = index % this.pagesPerRegion * this.pageSize;
+    final ByteBuffer region = getRegion(regionIndex).duplicate();
+    region.position(offset);
+    region.limit(offset + this.pageSize);
+    frame.buffer = region.slice();
+    frame.index = index;
+    this.framesByIndex.put(index, frame);
+    return frame;
+  }
+
+  /**
+   * Get a free frame, evicting the first unpinned and unreferenced frame from the clock if the
+   * pool is full.
+   */
+  private Frame newFrame() {
+    final Frame[] frames = this.frames;
+    final int poolSize = frames.length;
+    for (int i = 0; i < poolSize * 2; i++) {
+      final int slot = this.clockHand;
+      this.clockHand = (slot + 1) % poolSize;
+      Frame frame = frames[slot];
+      if (frame == null) {
+        frame = new Frame();
+        frames[slot] = frame;
+        return frame;
+      } else if (frame.pinCount == 0) {
+        if (frame.referenced) {
+          frame.referenced = false;
+        } else {
+          this.framesByIndex.remove(frame.index);
+          frame.buffer = null;
+          frame.index = -1;
+          return frame;
+        }
+      }
+    }
+    throw new IllegalStateException("All " + poolSize + " pages in the buffer pool are pinned");
+  }
+
+  @Override
+  public synchronized Page newPage() {
+    final int index;
+    if (this.freePageIndexes.isEmpty()) {
+      index = this.pageCount++;
+    } else {
+      final Iterator<Integer> iterator = this.freePageIndexes.iterator();
+      index = iterator.next();
+      iterator.remove();
+    }
+    Frame frame = this.framesByIndex.get(index);
+    if (frame == null) {
+      frame = loadFrame(index);
+    }
+    return pin(frame);
+  }
+
+  @Override
+  public Page newTempPage() {
+    return new ByteArrayPage(this, -1, this.pageSize);
+  }
+
+  private Page pin(final Frame frame) {
+    frame.pinCount++;
+    frame.referenced = true;
+    return new PoolPage(this, frame);
+  }
+
+  @Override
+  public synchronized void releasePage(final Page page) {
+    unpin(page);
+  }
+
+  @Override
+  public synchronized void removePage(final Page page) {
+    page.clear();
+    unpin(page);
+    this.freePageIndexes.addInt(page.getIndex());
+  }
+
+  @Override
+  public String toString() {
+    return this.file.toString();
+  }
+
+  private void unpin(final Page page) {
+    if (page instanceof PoolPage) {
+      final PoolPage poolPage = (PoolPage)page;
+      if (poolPage.getPageManager() == this && poolPage.pinned) {
+        poolPage.pinned = false;
+        poolPage.frame.pinCount--;
+      }
+    }
+  }
+
+  @Override
+  public void write(final Page page) {
+    if (page.getPageManager() == this && !(page instanceof PoolPage)) {
+      final int index = page.getIndex();
+      if (index >= 0) {
+        final Page poolPage = getPage(index);
+        try {
+          poolPage.setContent(page);
+        } finally {
+          releasePage(poolPage);
+        }
+      }
+    }
+  }
+}
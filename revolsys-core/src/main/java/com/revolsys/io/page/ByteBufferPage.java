@@ -0,0 +1,240 @@
+package com.revolsys.io.page;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A page backed by a {@link ByteBuffer}. The buffer's position is the page offset, so each reader
+ * of a shared page must use its own {@link ByteBuffer#duplicate()} of the buffer.
+ */
+public class ByteBufferPage implements Page {
+  private final ByteBuffer buffer;
+
+  private final int index;
+
+  private final PageManager pageManager;
+
+  public ByteBufferPage(final PageManager pageManager, final int index, final ByteBuffer buffer) {
+    this.pageManager = pageManager;
+    this.index = index;
+    this.buffer = buffer;
+    buffer.position(0);
+  }
+
+  @Override
+  public void clear() {
+    clearBytes(0);
+  }
+
+  @Override
+  public void clearBytes(final int startIndex) {
+    final ByteBuffer buffer = this.buffer;
+    final int size = buffer.capacity();
+    for (int i = startIndex; i < size; i++) {
+      buffer.put(i, (byte)0);
+    }
+    buffer.position(startIndex);
+  }
+
+  @Override
+  public int compareTo(final Page page) {
+    return Integer.compare(getIndex(), page.getIndex());
+  }
+
+  @Override
+  public void flush() {
+  }
+
+  protected ByteBuffer getBuffer() {
+    return this.buffer;
+  }
+
+  @Override
+  public byte[] getContent() {
+    final byte[] data = new byte[getSize()];
+    this.buffer.duplicate().position(0).get(data);
+    return data;
+  }
+
+  @Override
+  public int getIndex() {
+    return this.index;
+  }
+
+  @Override
+  public int getOffset() {
+    return this.buffer.position();
+  }
+
+  @Override
+  public PageManager getPageManager() {
+    return this.pageManager;
+  }
+
+  @Override
+  public int getSize() {
+    return this.buffer.capacity();
+  }
+
+  @Override
+  public int hashCode() {
+    return this.index;
+  }
+
+  @Override
+  public byte readByte() {
+    if (getOffset() + 1 > getSize()) {
+      throw new ArrayIndexOutOfBoundsException("Unable to read past end of record");
+    } else {
+      return this.buffer.get();
+    }
+  }
+
+  @Override
+  public byte[] readBytes(final byte[] bytes, final int offset, final int count) {
+    if (getOffset() + count > getSize()) {
+      throw new ArrayIndexOutOfBoundsException("Unable to read past end of record");
+    } else {
+      this.buffer.get(bytes, offset, count);
+      return bytes;
+    }
+  }
+
+  @Override
+  public byte[] readBytes(final int size) {
+    final byte[] bytes = new byte[size];
+    return readBytes(bytes, 0, size);
+  }
+
+  @Override
+  public double readDouble() {
+    if (getOffset() + 8 > getSize()) {
+      throw new ArrayIndexOutOfBoundsException("Unable to read past end of record");
+    } else {
+      return this.buffer.getDouble();
+    }
+  }
+
+  @Override
+  public float readFloat() {
+    if (getOffset() + 4 > getSize()) {
+      throw new ArrayIndexOutOfBoundsException("Unable to read past end of record");
+    } else {
+      return this.buffer.getFloat();
+    }
+  }
+
+  @Override
+  public int readInt() {
+    if (getOffset() + 4 > getSize()) {
+      throw new ArrayIndexOutOfBoundsException("Unable to read past end of record");
+    } else {
+      return this.buffer.getInt();
+    }
+  }
+
+  @Override
+  public long readLong() {
+    if (getOffset() + 8 > getSize()) {
+      throw new ArrayIndexOutOfBoundsException("Unable to read past end of record");
+    } else {
+      return this.buffer.getLong();
+    }
+  }
+
+  @Override
+  public short readShort() {
+    if (getOffset() + 2 > getSize()) {
+      throw new ArrayIndexOutOfBoundsException("Unable to read past end of record");
+    } else {
+      return this.buffer.getShort();
+    }
+  }
+
+  @Override
+  public void setContent(final Page page) {
+    final byte[] content = page.getContent();
+    this.buffer.duplicate().position(0).put(content, 0, Math.min(content.length, getSize()));
+  }
+
+  @Override
+  public void setOffset(final int offset) {
+    if (offset > getSize()) {
+      throw new IllegalArgumentException("Cannot set offset past end of page");
+    } else {
+      this.buffer.position(offset);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return this.index + "@" + getOffset();
+  }
+
+  @Override
+  public void writeByte(final byte b) {
+    if (getOffset() + 1 > getSize()) {
+      throw new ArrayIndexOutOfBoundsException("Unable to write past end of record");
+    } else {
+      this.buffer.put(b);
+    }
+  }
+
+  @Override
+  public void writeBytes(final byte[] bytes) {
+    writeBytes(bytes, 0, bytes.length);
+  }
+
+  @Override
+  public void writeBytes(final byte[] bytes, final int offset, final int count) {
+    if (getOffset() + count > getSize()) {
+      throw new ArrayIndexOutOfBoundsException("Unable to write past end of record");
+    } else {
+      this.buffer.put(bytes, offset, count);
+    }
+  }
+
+  @Override
+  public void writeDouble(final double d) {
+    if (getOffset() + 8 > getSize()) {
+      throw new ArrayIndexOutOfBoundsException("Unable to write past end of record");
+    } else {
+      this.buffer.putDouble(d);
+    }
+  }
+
+  @Override
+  public void writeFloat(final float f) {
+    if (getOffset() + 4 > getSize()) {
+      throw new ArrayIndexOutOfBoundsException("Unable to write past end of record");
+    } else {
+      this.buffer.putFloat(f);
+    }
+  }
+
+  @Override
+  public void writeInt(final int i) {
+    if (getOffset() + 4 > getSize()) {
+      throw new ArrayIndexOutOfBoundsException("Unable to write past end of record");
+    } else {
+      this.buffer.putInt(i);
+    }
+  }
+
+  @Override
+  public void writeLong(final long l) {
+    if (getOffset() + 8 > getSize()) {
+      throw new ArrayIndexOutOfBoundsException("Unable to write past end of record");
+    } else {
+      this.buffer.putLong(l);
+    }
+  }
+
+  @Override
+  public void writeShort(final short s) {
+    if (getOffset() + 2 > getSize()) {
+      throw new ArrayIndexOutOfBoundsException("Unable to write past end of record");
+    } else {
+      this.buffer.putShort(s);
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package com.revolsys.io.page;
+
+public class DoublePageValueManager implements PageValueManager<Double> {
+  @Override
+  public void disposeBytes(final byte[] bytes) {
+  }
+
+  @Override
+  public byte[] getBytes(final Double value) {
+    return MethodPageValueManager.getValueDoubleBytes(value);
+  }
+
+  @Override
+  public byte[] getBytes(final Page page) {
+    return page.readBytes(8);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V extends Double> V getValue(final byte[] bytes) {
+    return (V)MethodPageValueManager.getDoubleValue(bytes);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V extends Double> V readFromPage(final Page page) {
+    return (V)Double.valueOf(page.readDouble());
+  }
+
+  @Override
+  public String toString() {
+    return "Double";
+  }
+}
@@ -9,11 +9,10 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
-import com.revolsys.collection.map.LruMap;
+import com.revolsys.collection.map.ConcurrentCache;
 import com.revolsys.io.FileUtil;
 
 public class FileMappedPageManager implements PageManager {
@@ -21,8 +20,7 @@ public class FileMappedPageManager implements PageManager {
 
   private final Set<Integer> freePageIndexes = new TreeSet<>();
 
-  // TODO
-  private final Map<Integer, Page> pages = new LruMap<>(1000);
+  private final ConcurrentCache<Integer, Page> pages = new ConcurrentCache<>(1000);
 
   private final Set<Page> pagesInUse = new HashSet<>();
 
@@ -45,26 +43,21 @@ public class FileMappedPageManager implements PageManager {
 
   @Override
   public int getNumPages() {
-    return this.pages.size();
+    return this.pages.getSize();
   }
 
   @Override
   public synchronized Page getPage(final int index) {
-    synchronized (this.pages) {
-      if (this.freePageIndexes.contains(index)) {
-        throw new IllegalArgumentException("Page does not exist " + index);
+    if (this.freePageIndexes.contains(index)) {
+      throw new IllegalArgumentException("Page does not exist " + index);
+    } else {
+      final Page page = this.pages.get(index, this::loadPage);
+      if (this.pagesInUse.contains(page)) {
+        throw new IllegalArgumentException("Page is currently being used " + index);
       } else {
-        Page page = this.pages.get(index);
-        if (page == null) {
-          page = loadPage(index);
-        }
-        if (this.pagesInUse.contains(page)) {
-          throw new IllegalArgumentException("Page is currently being used " + index);
-        } else {
-          this.pagesInUse.add(page);
-          page.setOffset(0);
-          return page;
-        }
+        this.pagesInUse.add(page);
+        page.setOffset(0);
+        return page;
       }
     }
   }
@@ -78,9 +71,7 @@ public class FileMappedPageManager implements PageManager {
     try {
       final MappedByteBuffer buffer = this.fileChannel.map(MapMode.READ_WRITE,
         (long)index * this.pageSize, this.pageSize);
-      final Page page = new FileMappedPage(this, index, buffer);
-      this.pages.put(index, page);
-      return page;
+      return new FileMappedPage(this, index, buffer);
     } catch (final IOException e) {
       throw new RuntimeException(e);
     }
@@ -88,30 +79,27 @@ public class FileMappedPageManager implements PageManager {
 
   @Override
   public synchronized Page newPage() {
-    synchronized (this.pages) {
-      Page page;
-      if (this.freePageIndexes.isEmpty()) {
-        try {
-          final int index = (int)(this.randomAccessFile.length() / this.pageSize);
-          final long offset = (long)index * this.pageSize;
-          this.randomAccessFile.setLength(offset + this.pageSize);
-          final FileChannel channel = this.randomAccessFile.getChannel();
-          final MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, offset, this.pageSize);
-          page = new FileMappedPage(this, index, buffer);
-
-          this.pages.put(page.getIndex(), page);
-        } catch (final IOException e) {
-          throw new RuntimeException(e);
-        }
-      } else {
-        final Iterator<Integer> iterator = this.freePageIndexes.iterator();
-        final Integer pageIndex = iterator.next();
-        iterator.remove();
-        page = loadPage(pageIndex);
+    Page page;
+    if (this.freePageIndexes.isEmpty()) {
+      try {
+        final int index = (int)(this.randomAccessFile.length() / this.pageSize);
+        final long offset = (long)index * this.pageSize;
+        this.randomAccessFile.setLength(offset + this.pageSize);
+        final FileChannel channel = this.randomAccessFile.getChannel();
+        final MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, offset, this.pageSize);
+        page = new FileMappedPage(this, index, buffer);
+      } catch (final IOException e) {
+        throw new RuntimeException(e);
       }
-      this.pagesInUse.add(page);
-      return page;
+    } else {
+      final Iterator<Integer> iterator = this.freePageIndexes.iterator();
+      final Integer pageIndex = iterator.next();
+      iterator.remove();
+      page = loadPage(pageIndex);
     }
+    this.pages.put(page.getIndex(), page);
+    this.pagesInUse.add(page);
+    return page;
   }
 
   @Override
@@ -127,11 +115,9 @@ public class FileMappedPageManager implements PageManager {
 
   @Override
   public synchronized void removePage(final Page page) {
-    synchronized (this.pages) {
-      page.clear();
-      write(page);
-      this.freePageIndexes.add(page.getIndex());
-    }
+    page.clear();
+    write(page);
+    this.freePageIndexes.add(page.getIndex());
   }
 
   @Override
@@ -0,0 +1,108 @@
+package com.revolsys.io.page;
+
+import org.jeometry.common.exception.Exceptions;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.wkb.ParseException;
+import com.revolsys.geometry.wkb.WKBReader;
+import com.revolsys.geometry.wkb.WKBWriter;
+
+/**
+ * Store geometries as a 4 byte length followed by the geometry in WKB with the SRID. A length of
+ * -1 is used for a null geometry. WKB only supports x, y and z so any m values are dropped.
+ */
+public class GeometryPageValueManager<G extends Geometry> implements PageValueManager<G> {
+  static Geometry readWkb(final GeometryFactory geometryFactory, final byte[] bytes) {
+    try {
+      return new WKBReader(geometryFactory).read(bytes);
+    } catch (final ParseException e) {
+      throw Exceptions.wrap("Invalid WKB geometry", e);
+    }
+  }
+
+  static byte[] toWkb(final Geometry geometry) {
+    final int axisCount = Math.max(2, Math.min(3, geometry.getAxisCount()));
+    return new WKBWriter(axisCount, true).write(geometry);
+  }
+
+  private final GeometryFactory geometryFactory;
+
+  public GeometryPageValueManager() {
+    this(GeometryFactory.DEFAULT_3D);
+  }
+
+  /**
+   * @param geometryFactory The geometry factory used to read the geometries, the SRID stored with
+   *          each geometry is used if it is different.
+   */
+  public GeometryPageValueManager(final GeometryFactory geometryFactory) {
+    this.geometryFactory = geometryFactory;
+  }
+
+  @Override
+  public void disposeBytes(final byte[] bytes) {
+  }
+
+  @Override
+  public byte[] getBytes(final G geometry) {
+    if (geometry == null) {
+      return MethodPageValueManager.getValueIntBytes(-1);
+    } else {
+      final byte[] wkb = toWkb(geometry);
+      final byte[] bytes = new byte[wkb.length + 4];
+      final byte[] sizeBytes = MethodPageValueManager.getValueIntBytes(wkb.length);
+      System.arraycopy(sizeBytes, 0, bytes, 0, 4);
+      System.arraycopy(wkb, 0, bytes, 4, wkb.length);
+      return bytes;
+    }
+  }
+
+  @Override
+  public byte[] getBytes(final Page page) {
+    final byte[] sizeBytes = page.readBytes(4);
+    final int size = MethodPageValueManager.getIntValue(sizeBytes);
+    if (size < 0) {
+      return sizeBytes;
+    } else {
+      final byte[] bytes = new byte[size + 4];
+      System.arraycopy(sizeBytes, 0, bytes, 0, 4);
+      page.readBytes(bytes, 4, size);
+      return bytes;
+    }
+  }
+
+  public GeometryFactory getGeometryFactory() {
+    return this.geometryFactory;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V extends G> V getValue(final byte[] bytes) {
+    final int size = MethodPageValueManager.getIntValue(bytes);
+    if (size < 0) {
+      return null;
+    } else {
+      final byte[] wkb = new byte[size];
+      System.arraycopy(bytes, 4, wkb, 0, size);
+      return (V)readWkb(this.geometryFactory, wkb);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V extends G> V readFromPage(final Page page) {
+    final int size = page.readInt();
+    if (size < 0) {
+      return null;
+    } else {
+      final byte[] wkb = page.readBytes(size);
+      return (V)readWkb(this.geometryFactory, wkb);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "Geometry";
+  }
+}
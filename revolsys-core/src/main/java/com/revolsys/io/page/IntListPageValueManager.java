@@ -0,0 +1,62 @@
+package com.revolsys.io.page;
+
+import java.nio.ByteBuffer;
+
+import com.revolsys.collection.list.IntList;
+
+/**
+ * Store {@link IntList}s as a 4 byte length followed by the values.
+ */
+public class IntListPageValueManager implements PageValueManager<IntList> {
+  @Override
+  public void disposeBytes(final byte[] bytes) {
+  }
+
+  @Override
+  public byte[] getBytes(final IntList values) {
+    final int size = values.size();
+    final ByteBuffer buffer = ByteBuffer.allocate(4 + size * 4);
+    buffer.putInt(size);
+    for (int i = 0; i < size; i++) {
+      buffer.putInt(values.getInt(i));
+    }
+    return buffer.array();
+  }
+
+  @Override
+  public byte[] getBytes(final Page page) {
+    final int size = page.readInt();
+    final byte[] bytes = new byte[4 + size * 4];
+    ByteBuffer.wrap(bytes).putInt(size);
+    page.readBytes(bytes, 4, size * 4);
+    return bytes;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V extends IntList> V getValue(final byte[] bytes) {
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    final int size = buffer.getInt();
+    final IntList values = new IntList(size);
+    for (int i = 0; i < size; i++) {
+      values.addInt(buffer.getInt());
+    }
+    return (V)values;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V extends IntList> V readFromPage(final Page page) {
+    final int size = page.readInt();
+    final IntList values = new IntList(size);
+    for (int i = 0; i < size; i++) {
+      values.addInt(page.readInt());
+    }
+    return (V)values;
+  }
+
+  @Override
+  public String toString() {
+    return "IntList";
+  }
+}
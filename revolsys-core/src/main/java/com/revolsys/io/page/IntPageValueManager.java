@@ -0,0 +1,34 @@
+package com.revolsys.io.page;
+
+public class IntPageValueManager implements PageValueManager<Integer> {
+  @Override
+  public void disposeBytes(final byte[] bytes) {
+  }
+
+  @Override
+  public byte[] getBytes(final Integer value) {
+    return MethodPageValueManager.getValueIntBytes(value);
+  }
+
+  @Override
+  public byte[] getBytes(final Page page) {
+    return page.readBytes(4);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V extends Integer> V getValue(final byte[] bytes) {
+    return (V)MethodPageValueManager.getIntValue(bytes);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V extends Integer> V readFromPage(final Page page) {
+    return (V)Integer.valueOf(page.readInt());
+  }
+
+  @Override
+  public String toString() {
+    return "Int";
+  }
+}
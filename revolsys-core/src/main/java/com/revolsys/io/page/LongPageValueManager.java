@@ -0,0 +1,34 @@
+package com.revolsys.io.page;
+
+public class LongPageValueManager implements PageValueManager<Long> {
+  @Override
+  public void disposeBytes(final byte[] bytes) {
+  }
+
+  @Override
+  public byte[] getBytes(final Long value) {
+    return MethodPageValueManager.getValueLongBytes(value);
+  }
+
+  @Override
+  public byte[] getBytes(final Page page) {
+    return page.readBytes(8);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V extends Long> V getValue(final byte[] bytes) {
+    return (V)MethodPageValueManager.getLongValue(bytes);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V extends Long> V readFromPage(final Page page) {
+    return (V)Long.valueOf(page.readLong());
+  }
+
+  @Override
+  public String toString() {
+    return "Long";
+  }
+}
@@ -1,19 +1,23 @@
 package com.revolsys.io.page;
 
+import com.revolsys.geometry.model.Geometry;
+
 public interface PageValueManager<T> {
   PageValueManager<Byte> BYTE = new MethodPageValueManager<>("Byte");
 
-  PageValueManager<Double> DOUBLE = new MethodPageValueManager<>("Double");
+  PageValueManager<Double> DOUBLE = new DoublePageValueManager();
 
   PageValueManager<Float> FLOAT = new MethodPageValueManager<>("Float");
 
-  PageValueManager<Integer> INT = new MethodPageValueManager<>("Int");
+  PageValueManager<Geometry> GEOMETRY = new GeometryPageValueManager<>();
+
+  PageValueManager<Integer> INT = new IntPageValueManager();
 
-  PageValueManager<Long> LONG = new MethodPageValueManager<>("Long");
+  PageValueManager<Long> LONG = new LongPageValueManager();
 
   PageValueManager<Short> SHORT = new MethodPageValueManager<>("Short");
 
-  PageValueManager<String> STRING = new MethodPageValueManager<>("String");
+  PageValueManager<String> STRING = new StringPageValueManager();
 
   void disposeBytes(final byte[] bytes);
 
@@ -0,0 +1,209 @@
+package com.revolsys.io.page;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Date;
+
+import org.jeometry.common.data.type.DataTypes;
+import org.jeometry.common.exception.Exceptions;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.record.Record;
+import com.revolsys.record.schema.RecordDefinition;
+
+/**
+ * Store the values of records with the same {@link RecordDefinition} as a 4 byte length followed by
+ * a type tag and value for each field. Field names and types are not stored, values that don't have
+ * a binary form are stored as strings and converted back to the field's type when read.
+ */
+public class RecordPageValueManager implements PageValueManager<Record> {
+  private static final byte BOOLEAN = 1;
+
+  private static final byte BYTE = 2;
+
+  private static final byte DATE = 10;
+
+  private static final byte DOUBLE = 7;
+
+  private static final byte FLOAT = 6;
+
+  private static final byte GEOMETRY = 9;
+
+  private static final byte INT = 4;
+
+  private static final byte LONG = 5;
+
+  private static final byte NULL = 0;
+
+  private static final byte SHORT = 3;
+
+  private static final byte STRING = 8;
+
+  private static final byte TIMESTAMP = 11;
+
+  private final GeometryFactory geometryFactory;
+
+  private final RecordDefinition recordDefinition;
+
+  public RecordPageValueManager(final RecordDefinition recordDefinition) {
+    this.recordDefinition = recordDefinition;
+    final GeometryFactory geometryFactory = recordDefinition.getGeometryFactory();
+    if (geometryFactory == null) {
+      this.geometryFactory = GeometryFactory.DEFAULT_3D;
+    } else {
+      this.geometryFactory = geometryFactory;
+    }
+  }
+
+  @Override
+  public void disposeBytes(final byte[] bytes) {
+  }
+
+  @Override
+  public byte[] getBytes(final Page page) {
+    return MethodPageValueManager.getStringBytes(page);
+  }
+
+  @Override
+  public byte[] getBytes(final Record record) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (
+      DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(0);
+      final int fieldCount = this.recordDefinition.getFieldCount();
+      for (int i = 0; i < fieldCount; i++) {
+        final Object value = record.getValue(i);
+        writeValue(out, value);
+      }
+    } catch (final IOException e) {
+      throw Exceptions.wrap(e);
+    }
+    final byte[] recordBytes = bytes.toByteArray();
+    final byte[] sizeBytes = MethodPageValueManager.getValueIntBytes(recordBytes.length - 4);
+    System.arraycopy(sizeBytes, 0, recordBytes, 0, 4);
+    return recordBytes;
+  }
+
+  public RecordDefinition getRecordDefinition() {
+    return this.recordDefinition;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V extends Record> V getValue(final byte[] bytes) {
+    final Record record = this.recordDefinition.newRecord();
+    try (
+      DataInputStream in = new DataInputStream(
+        new ByteArrayInputStream(bytes, 4, bytes.length - 4))) {
+      final int fieldCount = this.recordDefinition.getFieldCount();
+      for (int i = 0; i < fieldCount; i++) {
+        final Object value = readValue(in);
+        record.setValue(i, value);
+      }
+    } catch (final IOException e) {
+      throw Exceptions.wrap(e);
+    }
+    return (V)record;
+  }
+
+  @Override
+  public <V extends Record> V readFromPage(final Page page) {
+    final byte[] bytes = getBytes(page);
+    return getValue(bytes);
+  }
+
+  private Object readValue(final DataInputStream in) throws IOException {
+    final byte type = in.readByte();
+    switch (type) {
+      case NULL:
+        return null;
+      case BOOLEAN:
+        return in.readBoolean();
+      case BYTE:
+        return in.readByte();
+      case SHORT:
+        return in.readShort();
+      case INT:
+        return in.readInt();
+      case LONG:
+        return in.readLong();
+      case FLOAT:
+        return in.readFloat();
+      case DOUBLE:
+        return in.readDouble();
+      case STRING:
+        final byte[] stringBytes = new byte[in.readInt()];
+        in.readFully(stringBytes);
+        return new String(stringBytes, StandardCharsets.UTF_8);
+      case GEOMETRY:
+        final byte[] wkb = new byte[in.readInt()];
+        in.readFully(wkb);
+        return GeometryPageValueManager.readWkb(this.geometryFactory, wkb);
+      case DATE:
+        return new Date(in.readLong());
+      case TIMESTAMP:
+        final Timestamp timestamp = new Timestamp(in.readLong());
+        timestamp.setNanos(in.readInt());
+        return timestamp;
+      default:
+        throw new IllegalArgumentException("Unknown value type " + type);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return this.recordDefinition.getPath();
+  }
+
+  private void writeValue(final DataOutputStream out, final Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(NULL);
+    } else if (value instanceof Boolean) {
+      out.writeByte(BOOLEAN);
+      out.writeBoolean((Boolean)value);
+    } else if (value instanceof Byte) {
+      out.writeByte(BYTE);
+      out.writeByte((Byte)value);
+    } else if (value instanceof Short) {
+      out.writeByte(SHORT);
+      out.writeShort((Short)value);
+    } else if (value instanceof Integer) {
+      out.writeByte(INT);
+      out.writeInt((Integer)value);
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      out.writeLong((Long)value);
+    } else if (value instanceof Float) {
+      out.writeByte(FLOAT);
+      out.writeFloat((Float)value);
+    } else if (value instanceof Double) {
+      out.writeByte(DOUBLE);
+      out.writeDouble((Double)value);
+    } else if (value instanceof Geometry) {
+      final byte[] wkb = GeometryPageValueManager.toWkb((Geometry)value);
+      out.writeByte(GEOMETRY);
+      out.writeInt(wkb.length);
+      out.write(wkb);
+    } else if (value instanceof Timestamp) {
+      final Timestamp timestamp = (Timestamp)value;
+      out.writeByte(TIMESTAMP);
+      out.writeLong(timestamp.getTime());
+      out.writeInt(timestamp.getNanos());
+    } else if (value instanceof Date) {
+      out.writeByte(DATE);
+      out.writeLong(((Date)value).getTime());
+    } else {
+      final String string = DataTypes.toString(value);
+      final byte[] stringBytes = string.getBytes(StandardCharsets.UTF_8);
+      out.writeByte(STRING);
+      out.writeInt(stringBytes.length);
+      out.write(stringBytes);
+    }
+  }
+}
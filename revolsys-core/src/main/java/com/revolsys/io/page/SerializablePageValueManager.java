@@ -19,7 +19,7 @@ public class SerializablePageValueManager<T> implements PageValueManager<T> {
     final byte[] valueBytes = new byte[size + 4];
     System.arraycopy(bytes, 0, valueBytes, 0, 4);
     page.readBytes(valueBytes, 4, size);
-    return null;
+    return valueBytes;
   }
 
   @Override
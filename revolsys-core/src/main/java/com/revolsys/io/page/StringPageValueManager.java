@@ -0,0 +1,38 @@
+package com.revolsys.io.page;
+
+import java.nio.charset.StandardCharsets;
+
+public class StringPageValueManager implements PageValueManager<String> {
+  @Override
+  public void disposeBytes(final byte[] bytes) {
+  }
+
+  @Override
+  public byte[] getBytes(final Page page) {
+    return MethodPageValueManager.getStringBytes(page);
+  }
+
+  @Override
+  public byte[] getBytes(final String value) {
+    return MethodPageValueManager.getValueStringBytes(value);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V extends String> V getValue(final byte[] bytes) {
+    return (V)MethodPageValueManager.getStringValue(bytes);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <V extends String> V readFromPage(final Page page) {
+    final int size = page.readInt();
+    final byte[] bytes = page.readBytes(size);
+    return (V)new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public String toString() {
+    return "String";
+  }
+}
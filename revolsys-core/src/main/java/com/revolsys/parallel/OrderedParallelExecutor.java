@@ -0,0 +1,90 @@
+package com.revolsys.parallel;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import org.jeometry.common.exception.Exceptions;
+
+import com.revolsys.io.BaseCloseable;
+
+/**
+ * Execute tasks concurrently and pass the results to a consumer on the calling thread in the
+ * order the tasks were submitted. At most maxPendingCount tasks are queued or running at once so
+ * a fast producer can't use an unbounded amount of memory. Used to overlap encoding blocks of
+ * data with writing them in order.
+ *
+ * @param <V> The type of result.
+ */
+public class OrderedParallelExecutor<V> implements BaseCloseable {
+
+  private final ExecutorService executorService;
+
+  private final int maxPendingCount;
+
+  private final Consumer<V> consumer;
+
+  private final ArrayDeque<Future<V>> pending = new ArrayDeque<>();
+
+  public OrderedParallelExecutor(final Consumer<V> consumer) {
+    this(ExecutorServiceFactory.getExecutorService(),
+      Runtime.getRuntime().availableProcessors() * 2, consumer);
+  }
+
+  public OrderedParallelExecutor(final ExecutorService executorService, final int maxPendingCount,
+    final Consumer<V> consumer) {
+    this.executorService = executorService;
+    this.maxPendingCount = Math.max(1, maxPendingCount);
+    this.consumer = consumer;
+  }
+
+  /**
+   * Cancel any tasks that have not been consumed.
+   */
+  @Override
+  public void close() {
+    for (Future<V> future = this.pending.poll(); future != null; future = this.pending.poll()) {
+      future.cancel(true);
+    }
+  }
+
+  private void consumeNext() {
+    final Future<V> future = this.pending.poll();
+    try {
+      final V value = future.get();
+      this.consumer.accept(value);
+    } catch (final ExecutionException e) {
+      close();
+      throw Exceptions.wrap(e.getCause());
+    } catch (final InterruptedException e) {
+      close();
+      throw new ThreadInterruptedException(e);
+    }
+  }
+
+  /**
+   * Wait for all the submitted tasks to complete and consume their results.
+   */
+  public void finish() {
+    while (!this.pending.isEmpty()) {
+      consumeNext();
+    }
+  }
+
+  /**
+   * Submit the task, first consuming the result of the oldest task if the maximum number of
+   * tasks are pending.
+   *
+   * @param task The task.
+   */
+  public void submit(final Callable<V> task) {
+    while (this.pending.size() >= this.maxPendingCount) {
+      consumeNext();
+    }
+    final Future<V> future = this.executorService.submit(task);
+    this.pending.add(future);
+  }
+}
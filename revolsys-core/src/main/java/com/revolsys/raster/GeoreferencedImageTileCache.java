@@ -0,0 +1,577 @@
+package com.revolsys.raster;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.jeometry.common.logging.Logs;
+
+import com.revolsys.io.FileUtil;
+import com.revolsys.record.io.format.json.JsonObject;
+import com.revolsys.record.io.format.json.JsonObjectHash;
+
+/**
+ * <p>
+ * A process wide cache of decoded image tiles shared by the {@link GeoreferencedImage}
+ * implementations. Tiles are keyed by the source (normally the image resource), the overview level
+ * and the tile x, y index.
+ * </p>
+ *
+ * <p>
+ * Tiles are held in a least recently used map limited by the total bytes of the decoded pixels.
+ * When a tile is evicted from the LRU map it is moved to a soft reference map so it can still be
+ * used until the garbage collector needs the memory. If spilling is enabled evicted tiles of the
+ * standard {@link BufferedImage} types are also written to a temporary file so they can be
+ * reloaded without decoding the source image again.
+ * </p>
+ *
+ * <p>
+ * The maximum size in bytes defaults to 1/8 of the maximum heap and can be set using the
+ * <code>com.revolsys.raster.tileCacheMaxBytes</code> system property.
+ * </p>
+ */
+public class GeoreferencedImageTileCache {
+
+  private static class SoftTile extends SoftReference<BufferedImage> {
+    private final TileKey key;
+
+    private SoftTile(final TileKey key, final BufferedImage image,
+      final ReferenceQueue<BufferedImage> queue) {
+      super(image, queue);
+      this.key = key;
+    }
+  }
+
+  private static class SpillTile {
+    private final File file;
+
+    private final long byteCount;
+
+    private SpillTile(final File file, final long byteCount) {
+      this.file = file;
+      this.byteCount = byteCount;
+    }
+  }
+
+  private static class TileKey {
+    private final Object source;
+
+    private final int level;
+
+    private final int tileX;
+
+    private final int tileY;
+
+    private TileKey(final Object source, final int level, final int tileX, final int tileY) {
+      this.source = source;
+      this.level = level;
+      this.tileX = tileX;
+      this.tileY = tileY;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      } else if (obj instanceof TileKey) {
+        final TileKey other = (TileKey)obj;
+        if (this.level != other.level) {
+          return false;
+        } else if (this.tileX != other.tileX) {
+          return false;
+        } else if (this.tileY != other.tileY) {
+          return false;
+        } else {
+          return this.source.equals(other.source);
+        }
+      } else {
+        return false;
+      }
+    }
+
+    @Override
+    public int hashCode() {
+      final int prime = 31;
+      int result = 1;
+      result = prime * result + this.source.hashCode();
+      result = prime * result + this.level;
+      result = prime * result + this.tileX;
+      result = prime * result + this.tileY;
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return this.source + " " + this.level + " " + this.tileX + "," + this.tileY;
+    }
+  }
+
+  public static final int TILE_SIZE = 256;
+
+  private static final GeoreferencedImageTileCache INSTANCE = new GeoreferencedImageTileCache(
+    Long.getLong("com.revolsys.raster.tileCacheMaxBytes", Runtime.getRuntime().maxMemory() / 8));
+
+  public static GeoreferencedImageTileCache get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Get the size in bytes of the image's pixel data.
+   *
+   * @param image The image.
+   * @return The size in bytes.
+   */
+  public static long getByteCount(final BufferedImage image) {
+    final DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+    final int elementSize = DataBuffer.getDataTypeSize(dataBuffer.getDataType()) / 8;
+    return (long)dataBuffer.getSize() * dataBuffer.getNumBanks() * Math.max(1, elementSize);
+  }
+
+  private static boolean isSpillable(final BufferedImage image) {
+    final WritableRaster raster = image.getRaster();
+    if (raster.getParent() != null || raster.getDataBuffer().getNumBanks() != 1) {
+      return false;
+    } else {
+      switch (image.getType()) {
+        case BufferedImage.TYPE_INT_RGB:
+        case BufferedImage.TYPE_INT_ARGB:
+        case BufferedImage.TYPE_INT_ARGB_PRE:
+        case BufferedImage.TYPE_INT_BGR:
+        case BufferedImage.TYPE_3BYTE_BGR:
+        case BufferedImage.TYPE_4BYTE_ABGR:
+        case BufferedImage.TYPE_4BYTE_ABGR_PRE:
+        case BufferedImage.TYPE_BYTE_GRAY:
+        case BufferedImage.TYPE_USHORT_GRAY:
+          return true;
+        default:
+          return false;
+      }
+    }
+  }
+
+  private final LinkedHashMap<TileKey, BufferedImage> tiles = new LinkedHashMap<>(256, 0.75f,
+    true);
+
+  private final Map<TileKey, SoftTile> softTiles = new HashMap<>();
+
+  private final ReferenceQueue<BufferedImage> softQueue = new ReferenceQueue<>();
+
+  private final LinkedHashMap<TileKey, SpillTile> spillTiles = new LinkedHashMap<>(256, 0.75f,
+    true);
+
+  private long maxByteCount;
+
+  private long byteCount = 0;
+
+  private boolean spillEnabled = false;
+
+  private long maxSpillByteCount = 1024L * 1024 * 1024;
+
+  private long spillByteCount = 0;
+
+  private File spillDirectory;
+
+  private final AtomicLong hitCount = new AtomicLong();
+
+  private final AtomicLong softHitCount = new AtomicLong();
+
+  private final AtomicLong spillHitCount = new AtomicLong();
+
+  private final AtomicLong missCount = new AtomicLong();
+
+  private final AtomicLong evictionCount = new AtomicLong();
+
+  private final AtomicLong spillWriteCount = new AtomicLong();
+
+  public GeoreferencedImageTileCache(final long maxByteCount) {
+    this.maxByteCount = maxByteCount;
+  }
+
+  /**
+   * Remove all tiles from the cache.
+   */
+  public void clear() {
+    final List<SpillTile> spillTiles;
+    synchronized (this) {
+      this.tiles.clear();
+      this.softTiles.clear();
+      this.byteCount = 0;
+      spillTiles = new ArrayList<>(this.spillTiles.values());
+      this.spillTiles.clear();
+      this.spillByteCount = 0;
+    }
+    for (final SpillTile spillTile : spillTiles) {
+      spillTile.file.delete();
+    }
+  }
+
+  /**
+   * Remove the tiles held in memory. Any spilled tiles are kept so they can be reloaded without
+   * decoding the source image again.
+   */
+  public synchronized void clearMemory() {
+    this.tiles.clear();
+    this.softTiles.clear();
+    this.byteCount = 0;
+  }
+
+  private void expungeSoftTiles() {
+    for (Reference<? extends BufferedImage> reference = this.softQueue
+      .poll(); reference != null; reference = this.softQueue.poll()) {
+      final SoftTile softTile = (SoftTile)reference;
+      if (this.softTiles.get(softTile.key) == softTile) {
+        this.softTiles.remove(softTile.key);
+      }
+    }
+  }
+
+  public synchronized long getByteCount() {
+    return this.byteCount;
+  }
+
+  public long getEvictionCount() {
+    return this.evictionCount.get();
+  }
+
+  public long getHitCount() {
+    return this.hitCount.get();
+  }
+
+  public synchronized long getMaxByteCount() {
+    return this.maxByteCount;
+  }
+
+  public synchronized long getMaxSpillByteCount() {
+    return this.maxSpillByteCount;
+  }
+
+  public long getMissCount() {
+    return this.missCount.get();
+  }
+
+  public long getSoftHitCount() {
+    return this.softHitCount.get();
+  }
+
+  private synchronized File getSpillDirectory() {
+    if (this.spillDirectory == null) {
+      final File file = FileUtil.newTempFile("tiles", ".cache");
+      file.delete();
+      file.mkdirs();
+      file.deleteOnExit();
+      this.spillDirectory = file;
+    }
+    return this.spillDirectory;
+  }
+
+  public synchronized long getSpillByteCount() {
+    return this.spillByteCount;
+  }
+
+  public long getSpillHitCount() {
+    return this.spillHitCount.get();
+  }
+
+  public long getSpillWriteCount() {
+    return this.spillWriteCount.get();
+  }
+
+  /**
+   * Get the tile from the cache, loading it using the loader if it isn't in the cache. The loader
+   * is called without holding a lock on the cache so other tiles can be read while the tile is
+   * loading. The returned image is shared and must not be modified.
+   *
+   * @param source The source of the tile (e.g. image resource).
+   * @param level The overview level (e.g. TIFF directory index).
+   * @param tileX The tile x index.
+   * @param tileY The tile y index.
+   * @param loader The function to decode the tile.
+   * @return The tile image, or null if the loader returned null.
+   */
+  public BufferedImage getTile(final Object source, final int level, final int tileX,
+    final int tileY, final Supplier<BufferedImage> loader) {
+    final TileKey key = new TileKey(source, level, tileX, tileY);
+    SpillTile spillTile;
+    synchronized (this) {
+      expungeSoftTiles();
+      BufferedImage image = this.tiles.get(key);
+      if (image != null) {
+        this.hitCount.incrementAndGet();
+        return image;
+      }
+      final SoftTile softTile = this.softTiles.remove(key);
+      if (softTile != null) {
+        image = softTile.get();
+        if (image != null) {
+          this.softHitCount.incrementAndGet();
+          putTile(key, image);
+          return image;
+        }
+      }
+      spillTile = this.spillTiles.get(key);
+    }
+    if (spillTile != null) {
+      final BufferedImage image = readSpillTile(spillTile);
+      if (image != null) {
+        this.spillHitCount.incrementAndGet();
+        put(key, image);
+        return image;
+      }
+    }
+    this.missCount.incrementAndGet();
+    final BufferedImage image = loader.get();
+    if (image != null) {
+      put(key, image);
+    }
+    return image;
+  }
+
+  public synchronized int getTileCount() {
+    return this.tiles.size();
+  }
+
+  public synchronized boolean isSpillEnabled() {
+    return this.spillEnabled;
+  }
+
+  private void put(final TileKey key, final BufferedImage image) {
+    final List<Entry<TileKey, BufferedImage>> evicted;
+    synchronized (this) {
+      evicted = putTile(key, image);
+    }
+    spill(evicted);
+  }
+
+  private List<Entry<TileKey, BufferedImage>> putTile(final TileKey key,
+    final BufferedImage image) {
+    final BufferedImage oldImage = this.tiles.put(key, image);
+    if (oldImage != null) {
+      this.byteCount -= getByteCount(oldImage);
+    }
+    this.byteCount += getByteCount(image);
+    return removeExcess();
+  }
+
+  private BufferedImage readSpillTile(final SpillTile spillTile) {
+    try (
+      FileChannel channel = FileChannel.open(spillTile.file.toPath(), StandardOpenOption.READ)) {
+      final ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.nativeOrder());
+      while (header.hasRemaining()) {
+        if (channel.read(header) == -1) {
+          return null;
+        }
+      }
+      header.flip();
+      final int type = header.getInt();
+      final int width = header.getInt();
+      final int height = header.getInt();
+      final BufferedImage image = new BufferedImage(width, height, type);
+      final ByteBuffer data = ByteBuffer.allocate((int)(spillTile.byteCount))
+        .order(ByteOrder.nativeOrder());
+      while (data.hasRemaining()) {
+        if (channel.read(data) == -1) {
+          return null;
+        }
+      }
+      data.flip();
+      final DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+      if (dataBuffer instanceof DataBufferInt) {
+        data.asIntBuffer().get(((DataBufferInt)dataBuffer).getData());
+      } else if (dataBuffer instanceof DataBufferByte) {
+        data.get(((DataBufferByte)dataBuffer).getData());
+      } else if (dataBuffer instanceof DataBufferUShort) {
+        data.asShortBuffer().get(((DataBufferUShort)dataBuffer).getData());
+      } else {
+        return null;
+      }
+      return image;
+    } catch (final IOException | RuntimeException e) {
+      Logs.warn(this, "Unable to read spilled tile " + spillTile.file, e);
+      return null;
+    }
+  }
+
+  /**
+   * Remove all the tiles for the source (e.g. when the image file has been modified).
+   *
+   * @param source The source of the tiles.
+   */
+  public void removeAll(final Object source) {
+    final List<SpillTile> removedSpillTiles = new ArrayList<>();
+    synchronized (this) {
+      for (final Iterator<Entry<TileKey, BufferedImage>> iterator = this.tiles.entrySet()
+        .iterator(); iterator.hasNext();) {
+        final Entry<TileKey, BufferedImage> entry = iterator.next();
+        if (entry.getKey().source.equals(source)) {
+          this.byteCount -= getByteCount(entry.getValue());
+          iterator.remove();
+        }
+      }
+      this.softTiles.keySet().removeIf(key -> key.source.equals(source));
+      for (final Iterator<Entry<TileKey, SpillTile>> iterator = this.spillTiles.entrySet()
+        .iterator(); iterator.hasNext();) {
+        final Entry<TileKey, SpillTile> entry = iterator.next();
+        if (entry.getKey().source.equals(source)) {
+          final SpillTile spillTile = entry.getValue();
+          this.spillByteCount -= spillTile.byteCount;
+          removedSpillTiles.add(spillTile);
+          iterator.remove();
+        }
+      }
+    }
+    for (final SpillTile spillTile : removedSpillTiles) {
+      spillTile.file.delete();
+    }
+  }
+
+  private List<Entry<TileKey, BufferedImage>> removeExcess() {
+    List<Entry<TileKey, BufferedImage>> evicted = null;
+    for (final Iterator<Entry<TileKey, BufferedImage>> iterator = this.tiles.entrySet()
+      .iterator(); this.byteCount > this.maxByteCount && iterator.hasNext();) {
+      final Entry<TileKey, BufferedImage> entry = iterator.next();
+      final TileKey key = entry.getKey();
+      final BufferedImage image = entry.getValue();
+      iterator.remove();
+      this.byteCount -= getByteCount(image);
+      this.evictionCount.incrementAndGet();
+      this.softTiles.put(key, new SoftTile(key, image, this.softQueue));
+      if (this.spillEnabled && !this.spillTiles.containsKey(key) && isSpillable(image)) {
+        if (evicted == null) {
+          evicted = new ArrayList<>();
+        }
+        evicted.add(entry);
+      }
+    }
+    return evicted;
+  }
+
+  public void setMaxByteCount(final long maxByteCount) {
+    final List<Entry<TileKey, BufferedImage>> evicted;
+    synchronized (this) {
+      this.maxByteCount = maxByteCount;
+      evicted = removeExcess();
+    }
+    spill(evicted);
+  }
+
+  public synchronized void setMaxSpillByteCount(final long maxSpillByteCount) {
+    this.maxSpillByteCount = maxSpillByteCount;
+  }
+
+  /**
+   * Enable writing tiles evicted from memory to temporary files.
+   *
+   * @param spillEnabled True if spilling is enabled.
+   */
+  public synchronized void setSpillEnabled(final boolean spillEnabled) {
+    this.spillEnabled = spillEnabled;
+  }
+
+  private void spill(final List<Entry<TileKey, BufferedImage>> evicted) {
+    if (evicted != null) {
+      for (final Entry<TileKey, BufferedImage> entry : evicted) {
+        final TileKey key = entry.getKey();
+        final BufferedImage image = entry.getValue();
+        final SpillTile spillTile = writeSpillTile(image);
+        if (spillTile != null) {
+          final List<SpillTile> removedSpillTiles = new ArrayList<>();
+          synchronized (this) {
+            final SpillTile oldSpillTile = this.spillTiles.put(key, spillTile);
+            if (oldSpillTile != null) {
+              this.spillByteCount -= oldSpillTile.byteCount;
+              removedSpillTiles.add(oldSpillTile);
+            }
+            this.spillByteCount += spillTile.byteCount;
+            for (final Iterator<SpillTile> iterator = this.spillTiles.values()
+              .iterator(); this.spillByteCount > this.maxSpillByteCount && iterator.hasNext();) {
+              final SpillTile removedSpillTile = iterator.next();
+              iterator.remove();
+              this.spillByteCount -= removedSpillTile.byteCount;
+              removedSpillTiles.add(removedSpillTile);
+            }
+          }
+          for (final SpillTile removedSpillTile : removedSpillTiles) {
+            removedSpillTile.file.delete();
+          }
+        }
+      }
+    }
+  }
+
+  public JsonObject toMap() {
+    final JsonObject map = new JsonObjectHash();
+    map.put("tileCount", getTileCount());
+    map.put("byteCount", getByteCount());
+    map.put("maxByteCount", getMaxByteCount());
+    map.put("hitCount", getHitCount());
+    map.put("softHitCount", getSoftHitCount());
+    map.put("spillHitCount", getSpillHitCount());
+    map.put("missCount", getMissCount());
+    map.put("evictionCount", getEvictionCount());
+    map.put("spillWriteCount", getSpillWriteCount());
+    map.put("spillByteCount", getSpillByteCount());
+    return map;
+  }
+
+  @Override
+  public String toString() {
+    return toMap().toString();
+  }
+
+  private SpillTile writeSpillTile(final BufferedImage image) {
+    final DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+    final long byteCount = getByteCount(image);
+    final File file = new File(getSpillDirectory(), "tile-" + System.nanoTime() + ".raw");
+    try (
+      FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      final ByteBuffer buffer = ByteBuffer.allocate(12 + (int)byteCount)
+        .order(ByteOrder.nativeOrder());
+      buffer.putInt(image.getType());
+      buffer.putInt(image.getWidth());
+      buffer.putInt(image.getHeight());
+      if (dataBuffer instanceof DataBufferInt) {
+        buffer.asIntBuffer().put(((DataBufferInt)dataBuffer).getData());
+      } else if (dataBuffer instanceof DataBufferByte) {
+        buffer.put(((DataBufferByte)dataBuffer).getData());
+      } else if (dataBuffer instanceof DataBufferUShort) {
+        buffer.asShortBuffer().put(((DataBufferUShort)dataBuffer).getData());
+      } else {
+        return null;
+      }
+      buffer.position(0);
+      buffer.limit(12 + (int)byteCount);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      file.deleteOnExit();
+      this.spillWriteCount.incrementAndGet();
+      return new SpillTile(file, byteCount);
+    } catch (final IOException | RuntimeException e) {
+      Logs.warn(this, "Unable to spill tile to " + file, e);
+      file.delete();
+      return null;
+    }
+  }
+}
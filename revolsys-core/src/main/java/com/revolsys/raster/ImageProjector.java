@@ -2,11 +2,14 @@ package com.revolsys.raster;
 // Mesh and Warp Canvas
 
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.jeometry.coordinatesystem.operation.CoordinatesOperation;
 import org.jeometry.coordinatesystem.operation.CoordinatesOperationPoint;
@@ -19,90 +22,9 @@ import com.revolsys.util.Cancellable;
 
 public class ImageProjector {
 
-  private static interface Grid {
-    double getValue(int x, int y);
-  }
-
-  private class SourceXGrid implements Grid {
-    private final double[] percents = new double[ImageProjector.this.gridWidth + 1];
-
-    private SourceXGrid() {
-      final double max = ImageProjector.this.gridWidth;
-      for (int i = 0; i < this.percents.length; i++) {
-        this.percents[i] = i / max;
-      }
-    }
-
-    private double getValue(final int x) {
-      return this.percents[x];
-    }
-
-    @Override
-    public double getValue(final int x, final int y) {
-      return this.percents[x];
-    }
-
-    @Override
-    public String toString() {
-      return Arrays.toString(this.percents);
-    }
-  }
-
-  private class SourceYGrid implements Grid {
-    private final double[] percents = new double[ImageProjector.this.gridHeight + 1];
-
-    private SourceYGrid() {
-      final double max = ImageProjector.this.gridHeight;
-      for (int i = 0; i < this.percents.length; i++) {
-        this.percents[i] = i / max;
-      }
-    }
-
-    private double getValue(final int y) {
-      return this.percents[y];
-    }
+  private static final int TILE_SIZE = 512;
 
-    @Override
-    public double getValue(final int x, final int y) {
-      return this.percents[y];
-    }
-
-    @Override
-    public String toString() {
-      return Arrays.toString(this.percents);
-    }
-  }
-
-  private class TargetGrid implements Grid {
-    private final double[][] percentRows;
-
-    private TargetGrid() {
-      final double[][] grid = new double[ImageProjector.this.gridHeight + 1][];
-      for (int i = 0; i < grid.length; i++) {
-        grid[i] = new double[ImageProjector.this.gridWidth + 1];
-      }
-      this.percentRows = grid;
-    }
-
-    @Override
-    public double getValue(final int x, final int y) {
-      return this.percentRows[y][x];
-    }
-
-    private void setValue(final int x, final int y, final double value) {
-      this.percentRows[y][x] = value;
-    }
-
-    @Override
-    public String toString() {
-      final StringBuilder string = new StringBuilder();
-      for (final double[] percents : this.percentRows) {
-        string.append(Arrays.toString(percents));
-        string.append("\n");
-      }
-      return string.toString();
-    }
-  }
+  private static final double DEFAULT_PIXEL_TOLERANCE = 0.5;
 
   private static void gauss(final double[][] matrix) {
     final double[] scalingFactor = new double[3];
@@ -174,34 +96,12 @@ public class ImageProjector {
 
   private BufferedGeoreferencedImage targetImage;
 
-  private final ImageProjectorTriangle targetTriangle = new ImageProjectorTriangle();
-
-  private final CoordinatesOperationPoint point = new CoordinatesOperationPoint();
-
   private final CoordinatesOperation operation;
 
-  private Graphics2D g2;
-
-  private GeometryFactory targetGeometryFactory;
-
-  private final AffineTransform transform = new AffineTransform();
-
-  private final SourceXGrid sourceXGrid;
-
-  private final SourceYGrid sourceYGrid;
-
-  private final TargetGrid targetXGrid;
-
-  private final TargetGrid targetYGrid;
-
-  private final int gridWidth;
-
-  private final int gridHeight;
+  private final GeometryFactory targetGeometryFactory;
 
   private final BoundingBox sourceBoundingBox;
 
-  private final int step = 50;
-
   private final BoundingBox targetBoundingBox;
 
   private int targetImageWidth;
@@ -210,6 +110,10 @@ public class ImageProjector {
 
   private Cancellable cancellable = Cancellable.FALSE;
 
+  private double pixelTolerance = DEFAULT_PIXEL_TOLERANCE;
+
+  private boolean parallel = true;
+
   public ImageProjector(final GeoreferencedImage sourceImage,
     final GeometryFactoryProxy targetGeometryFactory) {
     this.sourceImage = sourceImage;
@@ -224,104 +128,91 @@ public class ImageProjector {
 
     this.operation = this.sourceImage.getCoordinatesOperation(targetGeometryFactory);
     this.targetBoundingBox = this.sourceBoundingBox.bboxToCs(this.targetGeometryFactory);
-
-    final int imageWidth = this.sourceImage.getImageWidth();
-    final int imageHeight = this.sourceImage.getImageHeight();
-    this.gridWidth = (int)Math.ceil(imageWidth / (double)this.step);
-    this.gridHeight = (int)Math.ceil(imageHeight / (double)this.step);
-
-    this.sourceXGrid = new SourceXGrid();
-    this.sourceYGrid = new SourceYGrid();
-    this.targetXGrid = new TargetGrid();
-    this.targetYGrid = new TargetGrid();
-
-    final CoordinatesOperationPoint point = this.point;
-    final double sourceMinX = this.sourceBoundingBox.getMinX();
-    final double sourceMaxY = this.sourceBoundingBox.getMaxY();
-    final double sourceWidth = this.sourceBoundingBox.getWidth();
-    final double sourceHeight = this.sourceBoundingBox.getHeight();
-
-    final double targetMinX = this.targetBoundingBox.getMinX();
-    final double targetMaxY = this.targetBoundingBox.getMaxY();
-    final double targetWidth = this.targetBoundingBox.getWidth();
-    final double targetHeight = this.targetBoundingBox.getHeight();
-
-    final CoordinatesOperation operation = this.operation;
-    for (int gridY = 0; gridY <= this.gridHeight; gridY++) {
-      final double yPercent = this.sourceYGrid.getValue(gridY);
-      final double sourceY = sourceMaxY - yPercent * sourceHeight;
-      for (int gridX = 0; gridX <= this.gridWidth; gridX++) {
-        final double xPercent = this.sourceXGrid.getValue(gridX);
-        final double sourceX = sourceMinX + xPercent * sourceWidth;
-        point.setPoint(sourceX, sourceY);
-        operation.perform(point);
-        final double targetPercentX = (point.x - targetMinX) / targetWidth;
-        final double targetPercentY = (targetMaxY - point.y) / targetHeight;
-        this.targetXGrid.setValue(gridX, gridY, targetPercentX);
-        this.targetYGrid.setValue(gridX, gridY, targetPercentY);
-      }
-    }
   }
 
+  /**
+   * Draw the projected source image on the graphics using the target image's pixel coordinates.
+   *
+   * @param graphics The graphics to draw to.
+   */
   public void drawImage(final Graphics2D graphics) {
-    this.g2 = graphics;
+    final Rectangle bounds = new Rectangle(0, 0, this.targetImageWidth, this.targetImageHeight);
+    final ImageProjectorMesh mesh = getMesh();
+    drawImage(graphics, mesh, bounds);
+  }
 
+  private void drawImage(final Graphics2D graphics, final ImageProjectorMesh mesh,
+    final Rectangle bounds) {
     graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
       RenderingHints.VALUE_INTERPOLATION_BICUBIC);
 
     final Shape clip = graphics.getClip();
 
-    final int imageWidth = this.sourceImage.getImageWidth();
-    final int imageHeight = this.sourceImage.getImageHeight();
-
-    final double gridCellWidth = imageWidth / 10.0;
-    final double gridCellHeight = imageHeight / 10.0;
-    for (int gridY = 0; gridY < 10 && !isCancelled(); gridY++) {
-      final double imageY = gridY * gridCellHeight;
-      final double imageY2 = imageY + gridCellHeight;
-      for (int gridX = 0; gridX < 10 && !isCancelled(); gridX++) {
-        final double imageX = gridX * gridCellWidth;
-        final double imageX2 = imageX + gridCellWidth;
-        drawTriangle(imageX2, imageY, imageX, imageY2, imageX, imageY);
-        drawTriangle(imageX2, imageY, imageX, imageY2, imageX2, imageY2);
+    final ImageProjectorTriangle targetTriangle = new ImageProjectorTriangle();
+    final AffineTransform transform = new AffineTransform();
+    final Rectangle2D.Double triangleBounds = new Rectangle2D.Double();
+    final double[][] matrix = new double[3][3];
+    final double[] bx = new double[3];
+    final double[] by = new double[3];
+    final BoundingBox targetBoundingBox = this.targetImage.getBoundingBox();
+    final double targetMinX = targetBoundingBox.getMinX();
+    final double targetMaxY = targetBoundingBox.getMaxY();
+    final double targetResolutionX = this.targetImage.getResolutionX();
+    final double targetResolutionY = this.targetImage.getResolutionY();
+    final int triangleCount = mesh.getTriangleCount();
+    for (int triangleIndex = 0; triangleIndex < triangleCount && !isCancelled(); triangleIndex++) {
+      for (int cornerIndex = 0; cornerIndex < 3; cornerIndex++) {
+        final double targetX = mesh.getCoordinate(triangleIndex, cornerIndex, 2);
+        final double targetY = mesh.getCoordinate(triangleIndex, cornerIndex, 3);
+        final double targetImageX = (targetX - targetMinX) / targetResolutionX - bounds.x;
+        final double targetImageY = (targetMaxY - targetY) / targetResolutionY - bounds.y;
+        targetTriangle.setPoint(cornerIndex, targetImageX, targetImageY);
+      }
+      targetTriangle.calculateBounds(triangleBounds);
+      if (triangleBounds.intersects(0, 0, bounds.width, bounds.height)) {
+        for (int cornerIndex = 0; cornerIndex < 3; cornerIndex++) {
+          final double[] row = matrix[cornerIndex];
+          row[0] = mesh.getCoordinate(triangleIndex, cornerIndex, 0);
+          row[1] = mesh.getCoordinate(triangleIndex, cornerIndex, 1);
+          row[2] = 1;
+          bx[cornerIndex] = targetTriangle.getX(cornerIndex);
+          by[cornerIndex] = targetTriangle.getY(cornerIndex);
+        }
+        gauss(matrix);
+        final double[] x = solve(matrix, bx);
+        final double[] y = solve(matrix, by);
+
+        transform.setTransform(x[0], y[0], x[1], y[1], x[2], y[2]);
+        graphics.setClip(targetTriangle);
+        graphics.drawImage(this.sourceBufferdImage, transform, null);
       }
     }
     graphics.setClip(clip);
   }
 
-  private void drawTriangle(final double x1, final double y1, final double x2, final double y2,
-    final double x3, final double y3) {
-    final GeoreferencedImage sourceImage = this.sourceImage;
-    final ImageProjectorTriangle targetTriangle = this.targetTriangle;
-    final CoordinatesOperationPoint point = this.point;
-    final CoordinatesOperation operation = this.operation;
-    final BufferedGeoreferencedImage targetImage = this.targetImage;
-    targetTriangle.setCorner(0, sourceImage, x1, y1, point, operation, targetImage);
-    targetTriangle.setCorner(1, sourceImage, x2, y2, point, operation, targetImage);
-    targetTriangle.setCorner(2, sourceImage, x3, y3, point, operation, targetImage);
-
-    final double[][] a = new double[][] {
-      {
-        x1, y1, 1
-      }, {
-        x2, y2, 1
-      }, {
-        x3, y3, 1
+  private void drawTile(final ImageProjectorMesh mesh, final Rectangle tile) {
+    if (!isCancelled()) {
+      final BufferedImage tileImage = this.targetImage.getBufferedImage()
+        .getSubimage(tile.x, tile.y, tile.width, tile.height);
+      final Graphics2D graphics = tileImage.createGraphics();
+      try {
+        drawImage(graphics, mesh, tile);
+      } finally {
+        graphics.dispose();
       }
-    };
-
-    gauss(a);
-
-    final double[] bx = targetTriangle.xCoordinates.clone();
-    final double[] x = solve(a, bx);
+    }
+  }
 
-    final double[] by = targetTriangle.yCoordinates.clone();
-    final double[] y = solve(a, by);
+  private ImageProjectorMesh getMesh() {
+    final double targetResolution = Math.min(this.targetImage.getResolutionX(),
+      this.targetImage.getResolutionY());
+    final double tolerance = this.pixelTolerance * targetResolution;
+    return ImageProjectorMesh.getMesh(this.sourceImage, this.targetGeometryFactory, this.operation,
+      tolerance);
+  }
 
-    this.transform.setTransform(x[0], y[0], x[1], y[1], x[2], y[2]);
-    final Graphics2D g2 = this.g2;
-    g2.setClip(targetTriangle);
-    g2.drawImage(this.sourceBufferdImage, this.transform, null);
+  public double getPixelTolerance() {
+    return this.pixelTolerance;
   }
 
   private double getResolution(final double originalDistance, final double distance1,
@@ -341,6 +232,10 @@ public class ImageProjector {
     return this.cancellable.isCancelled();
   }
 
+  public boolean isParallel() {
+    return this.parallel;
+  }
+
   public GeoreferencedImage newImage() {
     final BoundingBox sourceBoundingBox = this.sourceBoundingBox;
     final Point p1 = sourceBoundingBox.getCornerPoint(0).convertPoint2d(this.targetGeometryFactory);
@@ -369,11 +264,21 @@ public class ImageProjector {
 
     this.targetImage = BufferedGeoreferencedImage.newImage(targetBoundingBox, this.targetImageWidth,
       this.targetImageHeight);
-    final Graphics2D graphics = this.targetImage.getBufferedImage().createGraphics();
-    try {
-      drawImage(graphics);
-    } finally {
-      graphics.dispose();
+    final ImageProjectorMesh mesh = getMesh();
+    final List<Rectangle> tiles = new ArrayList<>();
+    for (int tileY = 0; tileY < this.targetImageHeight; tileY += TILE_SIZE) {
+      final int tileHeight = Math.min(TILE_SIZE, this.targetImageHeight - tileY);
+      for (int tileX = 0; tileX < this.targetImageWidth; tileX += TILE_SIZE) {
+        final int tileWidth = Math.min(TILE_SIZE, this.targetImageWidth - tileX);
+        tiles.add(new Rectangle(tileX, tileY, tileWidth, tileHeight));
+      }
+    }
+    if (this.parallel && tiles.size() > 1) {
+      tiles.parallelStream().forEach(tile -> drawTile(mesh, tile));
+    } else {
+      for (final Rectangle tile : tiles) {
+        drawTile(mesh, tile);
+      }
     }
     return this.targetImage;
   }
@@ -383,6 +288,29 @@ public class ImageProjector {
     return this;
   }
 
+  /**
+   * Set if the target image tiles are drawn in parallel (default true).
+   *
+   * @param parallel True if the tiles are drawn in parallel.
+   * @return this
+   */
+  public ImageProjector setParallel(final boolean parallel) {
+    this.parallel = parallel;
+    return this;
+  }
+
+  /**
+   * Set the maximum distance in target pixels between the projected mesh and the actual projected
+   * location before a mesh cell is subdivided.
+   *
+   * @param pixelTolerance The tolerance in pixels.
+   * @return this
+   */
+  public ImageProjector setPixelTolerance(final double pixelTolerance) {
+    this.pixelTolerance = pixelTolerance;
+    return this;
+  }
+
   public void setCorner(final ImageProjectorTriangle targetTriangle, final int i,
     final GeoreferencedImage sourceImage, final double imageX, final double imageY,
     final CoordinatesOperationPoint point, final CoordinatesOperation operation,
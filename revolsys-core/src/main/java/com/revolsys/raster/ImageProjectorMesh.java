@@ -0,0 +1,278 @@
+package com.revolsys.raster;
+
+import java.util.Arrays;
+
+import org.jeometry.coordinatesystem.operation.CoordinatesOperation;
+import org.jeometry.coordinatesystem.operation.CoordinatesOperationPoint;
+
+import com.revolsys.collection.map.ConcurrentCache;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryFactory;
+
+/**
+ * A triangle mesh mapping source image pixel coordinates to target model coordinates. The mesh
+ * starts as a regular grid of cells over the source image. Each cell is split into 4 cells if the
+ * projected midpoints of the cell's edges or centre are further than the tolerance from the
+ * linear interpolation of the projected corners.
+ *
+ * Meshes are immutable once created and are cached by the source image extent and size, the
+ * target geometry factory and tolerance, so redrawing the same image in the same view does not
+ * re-project any points.
+ */
+class ImageProjectorMesh {
+
+  private static class MeshKey {
+    private final GeometryFactory sourceGeometryFactory;
+
+    private final GeometryFactory targetGeometryFactory;
+
+    private final double minX;
+
+    private final double minY;
+
+    private final double maxX;
+
+    private final double maxY;
+
+    private final int imageWidth;
+
+    private final int imageHeight;
+
+    private final double tolerance;
+
+    private MeshKey(final BoundingBox sourceBoundingBox, final int imageWidth,
+      final int imageHeight, final GeometryFactory targetGeometryFactory,
+      final double tolerance) {
+      this.sourceGeometryFactory = sourceBoundingBox.getGeometryFactory();
+      this.minX = sourceBoundingBox.getMinX();
+      this.minY = sourceBoundingBox.getMinY();
+      this.maxX = sourceBoundingBox.getMaxX();
+      this.maxY = sourceBoundingBox.getMaxY();
+      this.imageWidth = imageWidth;
+      this.imageHeight = imageHeight;
+      this.targetGeometryFactory = targetGeometryFactory;
+      this.tolerance = tolerance;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      } else if (obj instanceof MeshKey) {
+        final MeshKey other = (MeshKey)obj;
+        if (this.imageWidth != other.imageWidth) {
+          return false;
+        } else if (this.imageHeight != other.imageHeight) {
+          return false;
+        } else if (Double.compare(this.minX, other.minX) != 0) {
+          return false;
+        } else if (Double.compare(this.minY, other.minY) != 0) {
+          return false;
+        } else if (Double.compare(this.maxX, other.maxX) != 0) {
+          return false;
+        } else if (Double.compare(this.maxY, other.maxY) != 0) {
+          return false;
+        } else if (Double.compare(this.tolerance, other.tolerance) != 0) {
+          return false;
+        } else if (!this.sourceGeometryFactory.equals(other.sourceGeometryFactory)) {
+          return false;
+        } else if (!this.targetGeometryFactory.equals(other.targetGeometryFactory)) {
+          return false;
+        } else {
+          return true;
+        }
+      } else {
+        return false;
+      }
+    }
+
+    @Override
+    public int hashCode() {
+      final int prime = 31;
+      int result = 1;
+      result = prime * result + this.sourceGeometryFactory.hashCode();
+      result = prime * result + this.targetGeometryFactory.hashCode();
+      result = prime * result + Double.hashCode(this.minX);
+      result = prime * result + Double.hashCode(this.minY);
+      result = prime * result + Double.hashCode(this.maxX);
+      result = prime * result + Double.hashCode(this.maxY);
+      result = prime * result + this.imageWidth;
+      result = prime * result + this.imageHeight;
+      result = prime * result + Double.hashCode(this.tolerance);
+      return result;
+    }
+  }
+
+  private static final int GRID_SIZE = 10;
+
+  private static final int MAX_DEPTH = 4;
+
+  private static final ConcurrentCache<MeshKey, ImageProjectorMesh> MESH_CACHE = //
+    new ConcurrentCache<>(100);
+
+  public static void clearCache() {
+    MESH_CACHE.clear();
+  }
+
+  /**
+   * Get the cached mesh or create a new mesh for the image.
+   *
+   * @param sourceImage The source image.
+   * @param targetGeometryFactory The target geometry factory.
+   * @param operation The operation to convert source to target model coordinates.
+   * @param tolerance The maximum error in target model units before a cell is refined.
+   * @return The mesh.
+   */
+  public static ImageProjectorMesh getMesh(final GeoreferencedImage sourceImage,
+    final GeometryFactory targetGeometryFactory, final CoordinatesOperation operation,
+    final double tolerance) {
+    final BoundingBox sourceBoundingBox = sourceImage.getBoundingBox();
+    final int imageWidth = sourceImage.getImageWidth();
+    final int imageHeight = sourceImage.getImageHeight();
+    final MeshKey key = new MeshKey(sourceBoundingBox, imageWidth, imageHeight,
+      targetGeometryFactory, tolerance);
+    return MESH_CACHE.get(key,
+      meshKey -> new ImageProjectorMesh(sourceImage, operation, tolerance));
+  }
+
+  /** Only used while building the mesh so cached meshes don't hold a reference to the image. */
+  private GeoreferencedImage sourceImage;
+
+  private CoordinatesOperation operation;
+
+  private CoordinatesOperationPoint point = new CoordinatesOperationPoint();
+
+  private final double toleranceSquared;
+
+  /** Source image x, source image y, target model x, target model y for each triangle corner. */
+  private double[] triangles = new double[GRID_SIZE * GRID_SIZE * 2 * 12];
+
+  private int triangleCount = 0;
+
+  private ImageProjectorMesh(final GeoreferencedImage sourceImage,
+    final CoordinatesOperation operation, final double tolerance) {
+    this.sourceImage = sourceImage;
+    this.operation = operation;
+    this.toleranceSquared = tolerance * tolerance;
+
+    final int imageWidth = sourceImage.getImageWidth();
+    final int imageHeight = sourceImage.getImageHeight();
+    final double cellWidth = imageWidth / (double)GRID_SIZE;
+    final double cellHeight = imageHeight / (double)GRID_SIZE;
+
+    final double[][] row = new double[GRID_SIZE + 1][];
+    for (int gridX = 0; gridX <= GRID_SIZE; gridX++) {
+      row[gridX] = project(gridX * cellWidth, 0);
+    }
+    for (int gridY = 0; gridY < GRID_SIZE; gridY++) {
+      final double imageY1 = gridY * cellHeight;
+      final double imageY2 = imageY1 + cellHeight;
+      double[] p01 = project(0, imageY2);
+      for (int gridX = 0; gridX < GRID_SIZE; gridX++) {
+        final double imageX1 = gridX * cellWidth;
+        final double imageX2 = imageX1 + cellWidth;
+        final double[] p00 = row[gridX];
+        final double[] p10 = row[gridX + 1];
+        final double[] p11 = project(imageX2, imageY2);
+        addCell(imageX1, imageY1, imageX2, imageY2, p00, p10, p01, p11, 0);
+        row[gridX] = p01;
+        p01 = p11;
+      }
+      row[GRID_SIZE] = p01;
+    }
+    this.triangles = Arrays.copyOf(this.triangles, this.triangleCount * 12);
+    this.sourceImage = null;
+    this.operation = null;
+    this.point = null;
+  }
+
+  private void addCell(final double imageX1, final double imageY1, final double imageX2,
+    final double imageY2, final double[] p00, final double[] p10, final double[] p01,
+    final double[] p11, final int depth) {
+    if (depth < MAX_DEPTH) {
+      final double imageXMid = (imageX1 + imageX2) / 2;
+      final double imageYMid = (imageY1 + imageY2) / 2;
+      final double[] pTop = project(imageXMid, imageY1);
+      final double[] pBottom = project(imageXMid, imageY2);
+      final double[] pLeft = project(imageX1, imageYMid);
+      final double[] pRight = project(imageX2, imageYMid);
+      final double[] pCentre = project(imageXMid, imageYMid);
+      if (isError(pTop, p00, p10) || isError(pBottom, p01, p11) || isError(pLeft, p00, p01)
+        || isError(pRight, p10, p11) || isError(pCentre, p10, p01)) {
+        final int childDepth = depth + 1;
+        addCell(imageX1, imageY1, imageXMid, imageYMid, p00, pTop, pLeft, pCentre, childDepth);
+        addCell(imageXMid, imageY1, imageX2, imageYMid, pTop, p10, pCentre, pRight, childDepth);
+        addCell(imageX1, imageYMid, imageXMid, imageY2, pLeft, pCentre, p01, pBottom, childDepth);
+        addCell(imageXMid, imageYMid, imageX2, imageY2, pCentre, pRight, pBottom, p11,
+          childDepth);
+        return;
+      }
+    }
+    addTriangle(imageX2, imageY1, p10, imageX1, imageY2, p01, imageX1, imageY1, p00);
+    addTriangle(imageX2, imageY1, p10, imageX1, imageY2, p01, imageX2, imageY2, p11);
+  }
+
+  private void addTriangle(final double imageX1, final double imageY1, final double[] p1,
+    final double imageX2, final double imageY2, final double[] p2, final double imageX3,
+    final double imageY3, final double[] p3) {
+    if (!isValid(p1) || !isValid(p2) || !isValid(p3)) {
+      // Corners that couldn't be projected are skipped
+      return;
+    }
+    int offset = this.triangleCount * 12;
+    if (offset + 12 > this.triangles.length) {
+      this.triangles = Arrays.copyOf(this.triangles, this.triangles.length * 2);
+    }
+    final double[] triangles = this.triangles;
+    triangles[offset++] = imageX1;
+    triangles[offset++] = imageY1;
+    triangles[offset++] = p1[0];
+    triangles[offset++] = p1[1];
+    triangles[offset++] = imageX2;
+    triangles[offset++] = imageY2;
+    triangles[offset++] = p2[0];
+    triangles[offset++] = p2[1];
+    triangles[offset++] = imageX3;
+    triangles[offset++] = imageY3;
+    triangles[offset++] = p3[0];
+    triangles[offset++] = p3[1];
+    this.triangleCount++;
+  }
+
+  /**
+   * Get the coordinate of the triangle's corner.
+   *
+   * @param triangleIndex The index of the triangle.
+   * @param cornerIndex The index of the corner (0-2).
+   * @param ordinateIndex 0 source image x, 1 source image y, 2 target model x, 3 target model y.
+   * @return The coordinate.
+   */
+  public double getCoordinate(final int triangleIndex, final int cornerIndex,
+    final int ordinateIndex) {
+    return this.triangles[triangleIndex * 12 + cornerIndex * 4 + ordinateIndex];
+  }
+
+  public int getTriangleCount() {
+    return this.triangleCount;
+  }
+
+  private boolean isError(final double[] projectedMid, final double[] p1, final double[] p2) {
+    final double dx = projectedMid[0] - (p1[0] + p2[0]) / 2;
+    final double dy = projectedMid[1] - (p1[1] + p2[1]) / 2;
+    final double distanceSquared = dx * dx + dy * dy;
+    return !(distanceSquared <= this.toleranceSquared);
+  }
+
+  private boolean isValid(final double[] point) {
+    return Double.isFinite(point[0]) && Double.isFinite(point[1]);
+  }
+
+  private double[] project(final double imageX, final double imageY) {
+    final CoordinatesOperationPoint point = this.point;
+    this.sourceImage.copyModelPoint(point, imageX, imageY);
+    this.operation.perform(point);
+    return new double[] {
+      point.x, point.y
+    };
+  }
+}
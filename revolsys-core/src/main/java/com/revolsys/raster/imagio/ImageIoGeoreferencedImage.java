@@ -1,9 +1,11 @@
 package com.revolsys.raster.imagio;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
 
 import com.revolsys.raster.AbstractGeoreferencedImage;
 import com.revolsys.raster.BufferedImages;
+import com.revolsys.raster.GeoreferencedImageTileCache;
 import com.revolsys.spring.resource.Resource;
 
 public class ImageIoGeoreferencedImage extends AbstractGeoreferencedImage {
@@ -14,8 +16,11 @@ public class ImageIoGeoreferencedImage extends AbstractGeoreferencedImage {
     super(worldFileExtension);
     setImageResource(imageResource);
 
-    final BufferedImage bufferedImage = BufferedImages.readImageIo(imageResource);
-    setRenderedImage(bufferedImage);
+    final BufferedImage bufferedImage = getCachedImage();
+    if (bufferedImage != null) {
+      setImageWidth(bufferedImage.getWidth());
+      setImageHeight(bufferedImage.getHeight());
+    }
 
     loadImageMetaData();
     postConstruct();
@@ -28,4 +33,25 @@ public class ImageIoGeoreferencedImage extends AbstractGeoreferencedImage {
       setHasChanges(false);
     }
   }
+
+  /**
+   * Image IO can't read part of the image so the whole image is cached as a single tile. The tile
+   * isn't held by the image so it counts against the cache size like any other tile and is read
+   * again if it was evicted.
+   */
+  private BufferedImage getCachedImage() {
+    final Resource imageResource = getImageResource();
+    return GeoreferencedImageTileCache.get()
+      .getTile(imageResource, 0, 0, 0, () -> BufferedImages.readImageIo(imageResource));
+  }
+
+  @Override
+  public RenderedImage getRenderedImage() {
+    final RenderedImage image = super.getRenderedImage();
+    if (image == null && getImageResource() != null) {
+      return getCachedImage();
+    } else {
+      return image;
+    }
+  }
 }
@@ -0,0 +1,173 @@
+package com.revolsys.raster.io.format.tiff.code;
+
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *
+ * https://www.awaresystems.be/imaging/tiff/tifftags/predictor.html
+ */
+public enum TiffPredictor {
+  NONE(1) {
+    @Override
+    public void decode(final byte[] bytes, final int byteCount, final int pixelsPerRow,
+      final int samplesPerPixel, final int bytesPerSample, final ByteOrder byteOrder) {
+    }
+  }, //
+  HORIZONTAL_DIFFERENCING(2) {
+    @Override
+    public void decode(final byte[] bytes, final int byteCount, final int pixelsPerRow,
+      final int samplesPerPixel, final int bytesPerSample, final ByteOrder byteOrder) {
+      final int samplesPerRow = pixelsPerRow * samplesPerPixel;
+      final int bytesPerRow = samplesPerRow * bytesPerSample;
+      final boolean bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
+      for (int rowOffset = 0; rowOffset + bytesPerRow <= byteCount; rowOffset += bytesPerRow) {
+        switch (bytesPerSample) {
+          case 1:
+            decodeHorizontal8(bytes, rowOffset, samplesPerRow, samplesPerPixel);
+          break;
+          case 2:
+            decodeHorizontal16(bytes, rowOffset, samplesPerRow, samplesPerPixel, bigEndian);
+          break;
+          case 4:
+            decodeHorizontal32(bytes, rowOffset, samplesPerRow, samplesPerPixel, bigEndian);
+          break;
+          default:
+            throw new IllegalArgumentException(
+              "Horizontal differencing predictor not supported for BitsPerSample="
+                + bytesPerSample * 8);
+        }
+      }
+    }
+  }, //
+  FLOATING_POINT(3) {
+    @Override
+    public void decode(final byte[] bytes, final int byteCount, final int pixelsPerRow,
+      final int samplesPerPixel, final int bytesPerSample, final ByteOrder byteOrder) {
+      final int samplesPerRow = pixelsPerRow * samplesPerPixel;
+      final int bytesPerRow = samplesPerRow * bytesPerSample;
+      final boolean bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
+      final byte[] row = new byte[bytesPerRow];
+      for (int rowOffset = 0; rowOffset + bytesPerRow <= byteCount; rowOffset += bytesPerRow) {
+        // Undo the byte differencing across the whole row
+        for (int i = rowOffset + samplesPerPixel; i < rowOffset + bytesPerRow; i++) {
+          bytes[i] += bytes[i - samplesPerPixel];
+        }
+        System.arraycopy(bytes, rowOffset, row, 0, bytesPerRow);
+        // Re-interleave the byte planes (most significant first) into samples in the file byte
+        // order
+        for (int sampleIndex = 0; sampleIndex < samplesPerRow; sampleIndex++) {
+          final int sampleOffset = rowOffset + sampleIndex * bytesPerSample;
+          for (int byteIndex = 0; byteIndex < bytesPerSample; byteIndex++) {
+            final byte b = row[byteIndex * samplesPerRow + sampleIndex];
+            if (bigEndian) {
+              bytes[sampleOffset + byteIndex] = b;
+            } else {
+              bytes[sampleOffset + bytesPerSample - byteIndex - 1] = b;
+            }
+          }
+        }
+      }
+    }
+  }//
+  ;
+
+  private static final Map<Integer, TiffPredictor> ENUM_BY_ID = new HashMap<>();
+
+  static {
+    for (final TiffPredictor value : values()) {
+      ENUM_BY_ID.put(value.id, value);
+    }
+  }
+
+  private static void decodeHorizontal16(final byte[] bytes, final int rowOffset,
+    final int samplesPerRow, final int samplesPerPixel, final boolean bigEndian) {
+    final int stride = samplesPerPixel * 2;
+    final int rowEnd = rowOffset + samplesPerRow * 2;
+    for (int i = rowOffset + stride; i < rowEnd; i += 2) {
+      final int previousIndex = i - stride;
+      int value;
+      int previous;
+      if (bigEndian) {
+        value = (bytes[i] & 0xff) << 8 | bytes[i + 1] & 0xff;
+        previous = (bytes[previousIndex] & 0xff) << 8 | bytes[previousIndex + 1] & 0xff;
+        value += previous;
+        bytes[i] = (byte)(value >>> 8);
+        bytes[i + 1] = (byte)value;
+      } else {
+        value = bytes[i] & 0xff | (bytes[i + 1] & 0xff) << 8;
+        previous = bytes[previousIndex] & 0xff | (bytes[previousIndex + 1] & 0xff) << 8;
+        value += previous;
+        bytes[i] = (byte)value;
+        bytes[i + 1] = (byte)(value >>> 8);
+      }
+    }
+  }
+
+  private static void decodeHorizontal32(final byte[] bytes, final int rowOffset,
+    final int samplesPerRow, final int samplesPerPixel, final boolean bigEndian) {
+    final int stride = samplesPerPixel * 4;
+    final int rowEnd = rowOffset + samplesPerRow * 4;
+    for (int i = rowOffset + stride; i < rowEnd; i += 4) {
+      final int value = getInt(bytes, i, bigEndian) + getInt(bytes, i - stride, bigEndian);
+      if (bigEndian) {
+        bytes[i] = (byte)(value >>> 24);
+        bytes[i + 1] = (byte)(value >>> 16);
+        bytes[i + 2] = (byte)(value >>> 8);
+        bytes[i + 3] = (byte)value;
+      } else {
+        bytes[i] = (byte)value;
+        bytes[i + 1] = (byte)(value >>> 8);
+        bytes[i + 2] = (byte)(value >>> 16);
+        bytes[i + 3] = (byte)(value >>> 24);
+      }
+    }
+  }
+
+  private static void decodeHorizontal8(final byte[] bytes, final int rowOffset,
+    final int samplesPerRow, final int samplesPerPixel) {
+    final int rowEnd = rowOffset + samplesPerRow;
+    for (int i = rowOffset + samplesPerPixel; i < rowEnd; i++) {
+      bytes[i] += bytes[i - samplesPerPixel];
+    }
+  }
+
+  public static TiffPredictor getById(final int id) {
+    return ENUM_BY_ID.get(id);
+  }
+
+  private static int getInt(final byte[] bytes, final int offset, final boolean bigEndian) {
+    if (bigEndian) {
+      return (bytes[offset] & 0xff) << 24 | (bytes[offset + 1] & 0xff) << 16
+        | (bytes[offset + 2] & 0xff) << 8 | bytes[offset + 3] & 0xff;
+    } else {
+      return bytes[offset] & 0xff | (bytes[offset + 1] & 0xff) << 8
+        | (bytes[offset + 2] & 0xff) << 16 | (bytes[offset + 3] & 0xff) << 24;
+    }
+  }
+
+  private int id;
+
+  private TiffPredictor(final int id) {
+    this.id = id;
+  }
+
+  /**
+   * Reverse the predictor in place for the rows of a decompressed strip or tile.
+   *
+   * @param bytes The decompressed bytes.
+   * @param byteCount The number of valid bytes in the array.
+   * @param pixelsPerRow The number of pixels in each row of the strip or tile.
+   * @param samplesPerPixel The number of samples per pixel (1 for planar images).
+   * @param bytesPerSample The number of bytes per sample.
+   * @param byteOrder The byte order of the file.
+   */
+  public abstract void decode(byte[] bytes, int byteCount, int pixelsPerRow, int samplesPerPixel,
+    int bytesPerSample, ByteOrder byteOrder);
+
+  public int getId() {
+    return this.id;
+  }
+
+}
@@ -0,0 +1,164 @@
+package com.revolsys.raster.io.format.tiff.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.revolsys.io.EndOfFileException;
+
+/**
+ * Decompress a DEFLATE (zlib) encoded strip or tile. The compressed bytes for the strip/tile are
+ * read in a single read and inflated into an internal buffer in blocks.
+ *
+ * {@link Inflater} instances are expensive to create and hold native memory so they are pooled
+ * per thread and returned to the pool when the stream is closed. A pool is used rather than a
+ * single instance as planar images have one stream open per sample at the same time.
+ */
+public class TiffDeflateInputStream extends InputStream {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private static final int MAX_POOL_SIZE = 8;
+
+  private static final ThreadLocal<ArrayDeque<Inflater>> INFLATERS = ThreadLocal
+    .withInitial(ArrayDeque::new);
+
+  private static Inflater acquireInflater() {
+    final Inflater inflater = INFLATERS.get().poll();
+    if (inflater == null) {
+      return new Inflater();
+    } else {
+      return inflater;
+    }
+  }
+
+  private static byte[] readAllBytes(final InputStream in) throws IOException {
+    try {
+      return in.readAllBytes();
+    } finally {
+      in.close();
+    }
+  }
+
+  private static void releaseInflater(final Inflater inflater) {
+    final ArrayDeque<Inflater> inflaters = INFLATERS.get();
+    if (inflaters.size() < MAX_POOL_SIZE) {
+      inflater.reset();
+      inflaters.push(inflater);
+    } else {
+      inflater.end();
+    }
+  }
+
+  private Inflater inflater;
+
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+
+  private int bufferIndex = 0;
+
+  private int bufferCount = 0;
+
+  public TiffDeflateInputStream(final byte[] compressedBytes) {
+    this(compressedBytes, 0, compressedBytes.length);
+  }
+
+  public TiffDeflateInputStream(final byte[] compressedBytes, final int offset, final int length) {
+    this.inflater = acquireInflater();
+    this.inflater.setInput(compressedBytes, offset, length);
+  }
+
+  public TiffDeflateInputStream(final InputStream in) throws IOException {
+    this(readAllBytes(in));
+  }
+
+  @Override
+  public int available() throws IOException {
+    return this.bufferCount - this.bufferIndex;
+  }
+
+  @Override
+  public void close() throws IOException {
+    final Inflater inflater = this.inflater;
+    if (inflater != null) {
+      this.inflater = null;
+      releaseInflater(inflater);
+    }
+  }
+
+  private boolean fillBuffer() throws IOException {
+    final Inflater inflater = this.inflater;
+    if (inflater == null) {
+      throw new IOException("Stream closed");
+    }
+    try {
+      while (true) {
+        final int count = inflater.inflate(this.buffer);
+        if (count > 0) {
+          this.bufferIndex = 0;
+          this.bufferCount = count;
+          return true;
+        } else if (inflater.finished() || inflater.needsInput()) {
+          return false;
+        } else if (inflater.needsDictionary()) {
+          throw new IOException("DEFLATE preset dictionaries are not supported");
+        }
+      }
+    } catch (final DataFormatException e) {
+      throw new IOException("Invalid DEFLATE data", e);
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (this.bufferIndex >= this.bufferCount) {
+      if (!fillBuffer()) {
+        return -1;
+      }
+    }
+    return this.buffer[this.bufferIndex++] & 0xff;
+  }
+
+  @Override
+  public int read(final byte[] bytes, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    int readCount = 0;
+    while (length > 0) {
+      if (this.bufferIndex >= this.bufferCount) {
+        if (!fillBuffer()) {
+          if (readCount == 0) {
+            return -1;
+          } else {
+            return readCount;
+          }
+        }
+      }
+      final int count = Math.min(length, this.bufferCount - this.bufferIndex);
+      System.arraycopy(this.buffer, this.bufferIndex, bytes, offset, count);
+      this.bufferIndex += count;
+      offset += count;
+      length -= count;
+      readCount += count;
+    }
+    return readCount;
+  }
+
+  /**
+   * Read exactly length bytes into the array.
+   *
+   * @throws EndOfFileException If the stream ended before the bytes were read.
+   */
+  public void readFully(final byte[] bytes, int offset, int length) throws IOException {
+    while (length > 0) {
+      final int count = read(bytes, offset, length);
+      if (count == -1) {
+        throw new EndOfFileException();
+      }
+      offset += count;
+      length -= count;
+    }
+  }
+}
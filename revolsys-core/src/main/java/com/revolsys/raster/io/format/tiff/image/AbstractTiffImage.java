@@ -6,15 +6,16 @@ import java.awt.image.ColorModel;
 import java.awt.image.DataBuffer;
 import java.awt.image.RenderedImage;
 import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.InflaterInputStream;
 
 import org.jeometry.common.exception.Exceptions;
 import org.jeometry.common.logging.Logs;
@@ -27,6 +28,7 @@ import com.revolsys.geometry.model.GeometryFactory;
 import com.revolsys.io.channels.ChannelReader;
 import com.revolsys.raster.AbstractGeoreferencedImage;
 import com.revolsys.raster.GeoreferencedImageMapTile;
+import com.revolsys.raster.GeoreferencedImageTileCache;
 import com.revolsys.raster.io.format.tiff.TiffDirectory;
 import com.revolsys.raster.io.format.tiff.TiffImageFactory;
 import com.revolsys.raster.io.format.tiff.code.GeoTiffKey;
@@ -35,11 +37,13 @@ import com.revolsys.raster.io.format.tiff.code.TiffBaselineTag;
 import com.revolsys.raster.io.format.tiff.code.TiffCompression;
 import com.revolsys.raster.io.format.tiff.code.TiffExtensionTag;
 import com.revolsys.raster.io.format.tiff.code.TiffPhotogrametricInterpretation;
+import com.revolsys.raster.io.format.tiff.code.TiffPredictor;
 import com.revolsys.raster.io.format.tiff.code.TiffPrivateTag;
 import com.revolsys.raster.io.format.tiff.compression.TiffCCITTFaxDecoderStream;
 import com.revolsys.raster.io.format.tiff.compression.TiffDecompressor;
 import com.revolsys.raster.io.format.tiff.compression.TiffDecompressorInputStreamBE;
 import com.revolsys.raster.io.format.tiff.compression.TiffDecompressorInputStreamLE;
+import com.revolsys.raster.io.format.tiff.compression.TiffDeflateInputStream;
 import com.revolsys.raster.io.format.tiff.compression.TiffLzwInputStream;
 import com.revolsys.raster.io.format.tiff.compression.TiffPackbitsInputStream;
 import com.revolsys.raster.io.format.tiff.compression.TiffThunderscanInputStream;
@@ -85,8 +89,22 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
       return result;
     }
 
+    /**
+     * Tiles are shared across all images of the same file through the
+     * {@link GeoreferencedImageTileCache} so panning back to a tile doesn't decode it again.
+     */
     @Override
     protected BufferedImage loadBuffferedImage() {
+      final TiffDirectory directory = AbstractTiffImage.this.directory;
+      Object source = directory.getResource();
+      if (source == null) {
+        source = directory;
+      }
+      return GeoreferencedImageTileCache.get()
+        .getTile(source, directory.getIndex(), this.tileX, this.tileY, this::readTile);
+    }
+
+    private BufferedImage readTile() {
       try (
         ChannelReader in = AbstractTiffImage.this.directory.newChannelReader()) {
         final int tileIndex = this.tileY * AbstractTiffImage.this.tileCountX + this.tileX;
@@ -146,6 +164,14 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
 
   private final TiffPhotogrametricInterpretation photometricInterpretation;
 
+  private final TiffPredictor predictor;
+
+  private final int bytesPerSample;
+
+  private final int samplesPerPixel;
+
+  private final int sampleFormat;
+
   private final int pixelResolutionUnit;
 
   private int pixelResolutionX;
@@ -189,6 +215,17 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
     }
     this.photometricInterpretation = directory.getPhotogrametricInterpretation();
     this.planarConfiguration = directory.getInt(TiffBaselineTag.PlanarConfiguration, 1);
+    final int predictorId = directory.getInt(TiffExtensionTag.Predictor, 1);
+    this.predictor = TiffPredictor.getById(predictorId);
+    if (this.predictor == null) {
+      throw new IllegalArgumentException("Predictor " + predictorId + " unknown");
+    }
+    final int[] bitsPerSample = directory.getIntArray(TiffBaselineTag.BitsPerSample, new int[] {
+      1
+    });
+    this.bytesPerSample = (bitsPerSample[0] + 7) / 8;
+    this.samplesPerPixel = directory.getInt(TiffBaselineTag.SamplesPerPixel, 1);
+    this.sampleFormat = directory.getInt(TiffExtensionTag.SampleFormat, 1);
     this.stripOffsets = directory.getLongArray(TiffBaselineTag.StripOffsets, Longs.EMPTY_ARRAY);
     this.rowsPerStrip = directory.getInt(TiffBaselineTag.RowsPerStrip, -1);
     final int imageWidth = getImageWidth();
@@ -268,6 +305,27 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
     }
   }
 
+  private byte[] decodePredictor(final InputStream in) throws IOException {
+    try {
+      final byte[] bytes = in.readAllBytes();
+      int pixelsPerRow;
+      if (isTiled()) {
+        pixelsPerRow = this.tileWidthPixels;
+      } else {
+        pixelsPerRow = getImageWidth();
+      }
+      int samplesPerPixel = this.samplesPerPixel;
+      if (this.planarConfiguration == 2) {
+        samplesPerPixel = 1;
+      }
+      this.predictor.decode(bytes, bytes.length, pixelsPerRow, samplesPerPixel,
+        this.bytesPerSample, this.directory.getByteOrder());
+      return bytes;
+    } finally {
+      in.close();
+    }
+  }
+
   private InputStream getInputStream(final ChannelReader in, final long[] offsets,
     final long[] counts, final int index) {
     final long offset = offsets[index];
@@ -334,10 +392,34 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
     }
   }
 
+  protected long[] getPartByteCounts() {
+    if (isTiled()) {
+      return this.tileByteCounts;
+    } else {
+      return this.stripByteCounts;
+    }
+  }
+
+  protected long[] getPartOffsets() {
+    if (isTiled()) {
+      return this.tileOffsets;
+    } else {
+      return this.stripOffsets;
+    }
+  }
+
   public TiffPhotogrametricInterpretation getPhotometricInterpretation() {
     return this.photometricInterpretation;
   }
 
+  public int getPlanarConfiguration() {
+    return this.planarConfiguration;
+  }
+
+  public TiffPredictor getPredictor() {
+    return this.predictor;
+  }
+
   @Override
   public synchronized RenderedImage getRenderedImage() {
     RenderedImage image = super.getRenderedImage();
@@ -363,6 +445,33 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
     return this.rowsPerStrip;
   }
 
+  private int getSampleInt(final ByteBuffer buffer) {
+    final boolean signed = this.sampleFormat == 2;
+    switch (this.bytesPerSample) {
+      case 1:
+        if (signed) {
+          return buffer.get();
+        } else {
+          return buffer.get() & 0xff;
+        }
+      case 2:
+        if (signed) {
+          return buffer.getShort();
+        } else {
+          return buffer.getShort() & 0xffff;
+        }
+      case 4:
+        return buffer.getInt();
+      default:
+        throw new IllegalStateException(
+          "BitsPerSample=" + this.bytesPerSample * 8 + " not supported");
+    }
+  }
+
+  public int getSamplesPerPixel() {
+    return this.samplesPerPixel;
+  }
+
   protected int getStripOrTileCount() {
     return this.stripOrTileCount;
   }
@@ -445,6 +554,67 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
     return bufferedImage;
   }
 
+  /**
+   * Create an input stream that returns the decompressed bytes for a strip or tile with any
+   * predictor reversed.
+   *
+   * @param in The compressed data for the strip or tile.
+   * @return The decompressed stream.
+   */
+  protected InputStream newDecompressedInputStream(final InputStream in) {
+    InputStream decompressedIn;
+    switch (this.compression) {
+      case NONE: // 1
+      case JPEG: // 7
+        decompressedIn = in;
+      break;
+      case CIIT_GROUP_3_FAX: // 3
+        decompressedIn = new TiffCCITTFaxDecoderStream(in, this.directory, this.compression);
+      break;
+      case CIIT_GROUP_4_FAX: // 4
+        decompressedIn = new TiffCCITTFaxDecoderStream(in, this.directory, this.compression);
+      break;
+      case LZW: // 5
+        decompressedIn = new TiffLzwInputStream(in);
+      break;
+      case ADOBE_DEFLATE: // 8
+      case DEFLATE: // 32946
+        try {
+          decompressedIn = new TiffDeflateInputStream(in);
+        } catch (final IOException e) {
+          throw Exceptions.wrap(e);
+        }
+      break;
+      case PACKBITS: // 32773
+        decompressedIn = new TiffPackbitsInputStream(in);
+      break;
+      case THUNDERSCAN:
+        if (this instanceof TiffGrayscaleImage) {
+          if (this.directory.getInt(TiffBaselineTag.BitsPerSample) != 4) {
+            throw new IllegalStateException("Thunderscan only supports 4-bit Greyscale images");
+          } else {
+            decompressedIn = new TiffThunderscanInputStream(in);
+          }
+        } else {
+          throw new IllegalStateException("Thunderscan only supports Greyscale images");
+        }
+      break;
+      default:
+        throw new IllegalArgumentException(
+          "Compression " + this.compression + " not yet supported");
+    }
+    if (this.predictor == TiffPredictor.NONE) {
+      return decompressedIn;
+    } else {
+      try {
+        final byte[] bytes = decodePredictor(decompressedIn);
+        return new ByteArrayInputStream(bytes);
+      } catch (final IOException e) {
+        throw Exceptions.wrap(e);
+      }
+    }
+  }
+
   protected TiffDecompressor newPlanarDecompressor(final ChannelReader in, final long[] offsets,
     final long[] counts, final int partIndex, final int sampleIndex) {
     if (sampleIndex < 0) {
@@ -501,43 +671,7 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
   }
 
   protected TiffDecompressor newTiffDecompressor(final InputStream in) {
-    InputStream decompressedIn;
-    switch (this.compression) {
-      case NONE: // 1
-      case JPEG: // 7
-        decompressedIn = in;
-      break;
-      case CIIT_GROUP_3_FAX: // 3
-        decompressedIn = new TiffCCITTFaxDecoderStream(in, this.directory, this.compression);
-      break;
-      case CIIT_GROUP_4_FAX: // 4
-        decompressedIn = new TiffCCITTFaxDecoderStream(in, this.directory, this.compression);
-      break;
-      case LZW: // 5
-        decompressedIn = new TiffLzwInputStream(in);
-      break;
-      case ADOBE_DEFLATE: // 8
-      case DEFLATE: // 32946
-        decompressedIn = new InflaterInputStream(in);
-      break;
-      case PACKBITS: // 32773
-        decompressedIn = new TiffPackbitsInputStream(in);
-      break;
-      case THUNDERSCAN:
-        if (this instanceof TiffGrayscaleImage) {
-          if (this.directory.getInt(TiffBaselineTag.BitsPerSample) != 4) {
-            throw new IllegalStateException("Thunderscan only supports 4-bit Greyscale images");
-          } else {
-            decompressedIn = new TiffThunderscanInputStream(in);
-          }
-        } else {
-          throw new IllegalStateException("Thunderscan only supports Greyscale images");
-        }
-      break;
-      default:
-        throw new IllegalArgumentException(
-          "Compression " + this.compression + " not yet supported");
-    }
+    final InputStream decompressedIn = newDecompressedInputStream(in);
     if (this.directory.getByteOrder() == ByteOrder.BIG_ENDIAN) {
       return new TiffDecompressorInputStreamBE(decompressedIn);
     } else {
@@ -628,6 +762,102 @@ public abstract class AbstractTiffImage extends AbstractGeoreferencedImage imple
     }
   }
 
+  /**
+   * Read the decompressed bytes for a strip or tile with any predictor reversed. The bytes are in
+   * the byte order of the file.
+   *
+   * @param in The reader for the file.
+   * @param partIndex The index of the strip or tile.
+   * @return The bytes.
+   */
+  public byte[] readPartBytes(final ChannelReader in, final int partIndex) {
+    final InputStream partIn = getInputStream(in, getPartOffsets(), getPartByteCounts(),
+      partIndex);
+    try (
+      InputStream decompressedIn = newDecompressedInputStream(partIn)) {
+      return decompressedIn.readAllBytes();
+    } catch (final IOException e) {
+      throw Exceptions.wrap(e);
+    }
+  }
+
+  /**
+   * Read the samples for a strip or tile into a float buffer. Integer samples are converted to
+   * float.
+   *
+   * @param in The reader for the file.
+   * @param partIndex The index of the strip or tile.
+   * @param samples The buffer to read into, if null or too small a new buffer will be created.
+   * @return The samples.
+   */
+  public float[] readPartSamplesFloat(final ChannelReader in, final int partIndex,
+    float[] samples) {
+    final ByteBuffer buffer = readPartSamplesBuffer(in, partIndex);
+    final int sampleCount = buffer.remaining() / this.bytesPerSample;
+    if (samples == null || samples.length < sampleCount) {
+      samples = new float[sampleCount];
+    }
+    if (this.sampleFormat == 3) {
+      if (this.bytesPerSample == 4) {
+        buffer.asFloatBuffer().get(samples, 0, sampleCount);
+      } else if (this.bytesPerSample == 8) {
+        for (int i = 0; i < sampleCount; i++) {
+          samples[i] = (float)buffer.getDouble();
+        }
+      } else {
+        throw new IllegalStateException(
+          "SampleFormat=3 not supported for BitsPerSample=" + this.bytesPerSample * 8);
+      }
+    } else {
+      for (int i = 0; i < sampleCount; i++) {
+        samples[i] = getSampleInt(buffer);
+      }
+    }
+    return samples;
+  }
+
+  private ByteBuffer readPartSamplesBuffer(final ChannelReader in, final int partIndex) {
+    final byte[] bytes = readPartBytes(in, partIndex);
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    buffer.order(this.directory.getByteOrder());
+    return buffer;
+  }
+
+  /**
+   * Read the samples for a strip or tile into an int buffer. Floating point samples are
+   * truncated.
+   *
+   * @param in The reader for the file.
+   * @param partIndex The index of the strip or tile.
+   * @param samples The buffer to read into, if null or too small a new buffer will be created.
+   * @return The samples.
+   */
+  public int[] readPartSamplesInt(final ChannelReader in, final int partIndex, int[] samples) {
+    final ByteBuffer buffer = readPartSamplesBuffer(in, partIndex);
+    final int sampleCount = buffer.remaining() / this.bytesPerSample;
+    if (samples == null || samples.length < sampleCount) {
+      samples = new int[sampleCount];
+    }
+    if (this.sampleFormat == 3) {
+      if (this.bytesPerSample == 4) {
+        for (int i = 0; i < sampleCount; i++) {
+          samples[i] = (int)buffer.getFloat();
+        }
+      } else {
+        for (int i = 0; i < sampleCount; i++) {
+          samples[i] = (int)buffer.getDouble();
+        }
+      }
+    } else if (this.bytesPerSample == 4) {
+      buffer.asIntBuffer().get(samples, 0, sampleCount);
+    } else {
+      for (int i = 0; i < sampleCount; i++) {
+        samples[i] = getSampleInt(buffer);
+      }
+    }
+    return samples;
+  }
+
   @Override
   public void setBoundingBox(final BoundingBox boundingBox) {
     super.setBoundingBox(boundingBox);
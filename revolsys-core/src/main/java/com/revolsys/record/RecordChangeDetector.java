@@ -0,0 +1,540 @@
+package com.revolsys.record;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Consumer;
+
+import org.jeometry.common.data.identifier.Identifier;
+import org.jeometry.common.data.identifier.ListIdentifier;
+import org.jeometry.common.data.type.DataTypes;
+
+import com.revolsys.collection.bplus.BPlusTreeMap;
+import com.revolsys.collection.map.LongHashMap;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.io.BaseCloseable;
+import com.revolsys.io.page.BufferPoolPageManager;
+import com.revolsys.io.page.PageValueManager;
+import com.revolsys.record.schema.RecordDefinition;
+
+/**
+ * Detect the changes between a target (e.g. the current records in a record store) and a source
+ * (e.g. a new extract) without sorting or holding either side's records in memory.
+ * <p>
+ * Each target record is added to an index of the record's identifier to a
+ * {@link RecordContentHasher} hash of its content. The source records are then streamed through
+ * {@link #compare(Record, Consumer)}; new records are passed to the action with the
+ * {@link RecordState#NEW} state and changed records with the {@link RecordState#MODIFIED} state.
+ * {@link #forEachDeleted(Consumer)} passes a record containing only the identifier with the
+ * {@link RecordState#DELETED} state for each target record not in the source. The records can be
+ * written directly to a {@link com.revolsys.gis.parallel.RecordStoreUpdateProcess}.
+ * </p>
+ * <p>
+ * The index is a pair of long arrays (key and hash) using open addressing, so there is no object
+ * per record. Single integer identifiers are stored directly, other identifiers are stored as a 64
+ * bit hash of the identifier string and the identifier strings are kept in a second index from the
+ * hash to the string. The string is compared on each lookup so identifiers with the same hash are
+ * stored under the next free hash, and is used to create the deleted records. If
+ * {@link #isSpillToDisk()} is enabled, both indexes are moved to {@link BPlusTreeMap}s in
+ * temporary files once there are more than {@link #getMaxIndexSizeInMemory()} records.
+ * </p>
+ */
+public class RecordChangeDetector implements BaseCloseable {
+  public static final int DEFAULT_MAX_INDEX_SIZE_IN_MEMORY = 10000000;
+
+  private static final long HASH_MASK = ~3L;
+
+  /** The ASCII unit separator between the values of a multi-value identifier string. */
+  private static final char ID_SEPARATOR = '\u001F';
+
+  private static final long PRESENT = 2;
+
+  private static final long SEEN = 1;
+
+  private static int slot(final long key, final int mask) {
+    final long hash = key * 0x9E3779B97F4A7C15L;
+    return (int)(hash ^ hash >>> 32) & mask;
+  }
+
+  private static String toIdString(final Identifier identifier) {
+    final List<Object> values = identifier.getValues();
+    if (values.size() == 1) {
+      return DataTypes.toString(values.get(0));
+    } else {
+      final StringBuilder idString = new StringBuilder();
+      for (final Object value : values) {
+        if (idString.length() > 0) {
+          idString.append(ID_SEPARATOR);
+        }
+        if (value != null) {
+          final Long longValue = toLong(value);
+          if (longValue == null) {
+            idString.append(DataTypes.toString(value));
+          } else {
+            idString.append(longValue.longValue());
+          }
+        }
+      }
+      return idString.toString();
+    }
+  }
+
+  private static Identifier toIdentifier(final String idString) {
+    if (idString.indexOf(ID_SEPARATOR) == -1) {
+      return Identifier.newIdentifier(idString);
+    } else {
+      final Object[] values = idString.split(String.valueOf(ID_SEPARATOR), -1);
+      return new ListIdentifier(values);
+    }
+  }
+
+  /**
+   * Convert integral identifier values to a long, so the same identifier read as an Integer from
+   * one source and a BigDecimal (e.g. an Oracle NUMBER) from the other has the same key. This
+   * matches the long values used by {@link RecordContentHasher}.
+   *
+   * @param value The identifier value.
+   * @return The long value or null if the value isn't an integer that fits in a long.
+   */
+  private static Long toLong(final Object value) {
+    if (value instanceof Long || value instanceof Integer || value instanceof Short
+      || value instanceof Byte) {
+      return ((Number)value).longValue();
+    } else if (value instanceof BigInteger && ((BigInteger)value).bitLength() < 64) {
+      return ((BigInteger)value).longValue();
+    } else if (value instanceof BigDecimal) {
+      final BigDecimal decimal = ((BigDecimal)value).stripTrailingZeros();
+      if (decimal.scale() <= 0 && decimal.precision() - decimal.scale() < 19) {
+        return decimal.longValueExact();
+      }
+    }
+    return null;
+  }
+
+  private long deleteCount;
+
+  private Map<Long, Long> diskIndex;
+
+  private long equalCount;
+
+  private Collection<String> excludeFieldNames = Collections.emptyList();
+
+  private GeometryFactory geometryFactory;
+
+  private RecordContentHasher hasher;
+
+  /** The identifier strings of the non-integer identifiers by their key in the index. */
+  private Map<Long, String> idStrings = new LongHashMap<>();
+
+  /** A B+ tree uses the first page as its root so the identifier strings have their own file. */
+  private BufferPoolPageManager idStringsPageManager;
+
+  private int indexSize;
+
+  private long insertCount;
+
+  private long[] keys = new long[1024];
+
+  private int maxIndexSizeInMemory = DEFAULT_MAX_INDEX_SIZE_IN_MEMORY;
+
+  private BufferPoolPageManager pageManager;
+
+  private boolean spillToDisk = false;
+
+  private RecordDefinition targetRecordDefinition;
+
+  private long updateCount;
+
+  /**
+   * Values are the content hash with the {@link #PRESENT} flag and the {@link #SEEN} flag once
+   * the record has been found in the source. 0 is an empty slot.
+   */
+  private long[] values = new long[1024];
+
+  public RecordChangeDetector() {
+  }
+
+  public RecordChangeDetector(final RecordContentHasher hasher) {
+    this.hasher = hasher;
+  }
+
+  /**
+   * Add a record from the target to the index.
+   *
+   * @param record The record.
+   */
+  public void addTarget(final Record record) {
+    final Identifier identifier = record.getIdentifier();
+    if (identifier == null) {
+      RecordLog.error(getClass(), "Target record has no identifier", record);
+    } else {
+      if (this.targetRecordDefinition == null) {
+        this.targetRecordDefinition = record.getRecordDefinition();
+      }
+      final long hash = getHasher(record).hash(record);
+      final long key = toKey(identifier, true);
+      if (indexPut(key, hash & HASH_MASK | PRESENT) != 0) {
+        RecordLog.error(getClass(), "Duplicate in Target", record);
+      }
+    }
+  }
+
+  public void addTargets(final Iterable<? extends Record> records) {
+    for (final Record record : records) {
+      addTarget(record);
+    }
+  }
+
+  /**
+   * Delete the temporary index file and release the index.
+   */
+  @Override
+  public void close() {
+    this.keys = null;
+    this.values = null;
+    this.diskIndex = null;
+    this.idStrings = null;
+    if (this.pageManager != null) {
+      this.pageManager.close();
+      this.pageManager = null;
+    }
+    if (this.idStringsPageManager != null) {
+      this.idStringsPageManager.close();
+      this.idStringsPageManager = null;
+    }
+  }
+
+  /**
+   * Compare all the source records to the target records. The target is read first, then each
+   * source record is compared and finally the deleted records are passed to the action.
+   *
+   * @param source The source records.
+   * @param target The target records.
+   * @param action The action for the new, modified and deleted records.
+   */
+  public void compare(final Iterable<? extends Record> source,
+    final Iterable<? extends Record> target, final Consumer<? super Record> action) {
+    addTargets(target);
+    for (final Record record : source) {
+      compare(record, action);
+    }
+    forEachDeleted(action);
+  }
+
+  /**
+   * Compare the source record to the target. If the record is new or modified its state is set
+   * and it is passed to the action.
+   *
+   * @param record The source record.
+   * @param action The action for new and modified records.
+   * @return {@link RecordState#NEW}, {@link RecordState#MODIFIED},
+   *         {@link RecordState#PERSISTED} if the record is equal to the target or null if the
+   *         record was ignored as it has no identifier or is a duplicate.
+   */
+  public RecordState compare(final Record record, final Consumer<? super Record> action) {
+    final Identifier identifier = record.getIdentifier();
+    if (identifier == null) {
+      RecordLog.error(getClass(), "Source record has no identifier", record);
+      return null;
+    } else {
+      final long key = toKey(identifier, false);
+      final long value = indexGet(key);
+      if (value == 0) {
+        this.insertCount++;
+        record.setState(RecordState.NEW);
+        action.accept(record);
+        return RecordState.NEW;
+      } else if ((value & SEEN) != 0) {
+        RecordLog.error(getClass(), "Duplicate in Source", record);
+        return null;
+      } else {
+        indexPut(key, value | SEEN);
+        final long hash = getHasher(record).hash(record);
+        if ((hash & HASH_MASK) == (value & HASH_MASK)) {
+          this.equalCount++;
+          return RecordState.PERSISTED;
+        } else {
+          this.updateCount++;
+          record.setState(RecordState.MODIFIED);
+          action.accept(record);
+          return RecordState.MODIFIED;
+        }
+      }
+    }
+  }
+
+  private void deleted(final long key, final Consumer<? super Record> action) {
+    final String idString = this.idStrings.get(key);
+    final Identifier identifier;
+    if (idString == null) {
+      identifier = Identifier.newIdentifier(key);
+    } else {
+      identifier = toIdentifier(idString);
+    }
+    final Record record = this.targetRecordDefinition.newRecord();
+    record.setIdentifier(identifier);
+    record.setState(RecordState.DELETED);
+    this.deleteCount++;
+    action.accept(record);
+  }
+
+  /**
+   * Pass a record with the {@link RecordState#DELETED} state for each target record that was not
+   * in the source to the action. The records only have the identifier fields set.
+   *
+   * @param action The action.
+   */
+  public void forEachDeleted(final Consumer<? super Record> action) {
+    if (this.diskIndex == null) {
+      final long[] keys = this.keys;
+      final long[] values = this.values;
+      for (int i = 0; i < values.length; i++) {
+        final long value = values[i];
+        if (value != 0 && (value & SEEN) == 0) {
+          deleted(keys[i], action);
+        }
+      }
+    } else {
+      for (final Entry<Long, Long> entry : this.diskIndex.entrySet()) {
+        final long value = entry.getValue();
+        if ((value & SEEN) == 0) {
+          deleted(entry.getKey(), action);
+        }
+      }
+    }
+  }
+
+  public long getDeleteCount() {
+    return this.deleteCount;
+  }
+
+  public long getEqualCount() {
+    return this.equalCount;
+  }
+
+  public Collection<String> getExcludeFieldNames() {
+    return this.excludeFieldNames;
+  }
+
+  public GeometryFactory getGeometryFactory() {
+    return this.geometryFactory;
+  }
+
+  private RecordContentHasher getHasher(final Record record) {
+    if (this.hasher == null) {
+      this.hasher = new RecordContentHasher(record.getRecordDefinition(), this.excludeFieldNames);
+      if (this.geometryFactory != null) {
+        this.hasher.setGeometryFactory(this.geometryFactory);
+      }
+    }
+    return this.hasher;
+  }
+
+  /**
+   * Get the number of target records in the index.
+   *
+   * @return The number of records.
+   */
+  public int getIndexSize() {
+    return this.indexSize;
+  }
+
+  public long getInsertCount() {
+    return this.insertCount;
+  }
+
+  public int getMaxIndexSizeInMemory() {
+    return this.maxIndexSizeInMemory;
+  }
+
+  public long getUpdateCount() {
+    return this.updateCount;
+  }
+
+  /**
+   * Calculate the 64 bit hash of the identifier string used as the key in the index.
+   *
+   * @param idString The identifier string.
+   * @return The hash.
+   */
+  protected long hashIdString(final String idString) {
+    return RecordContentHasher.hashString(idString);
+  }
+
+  private long indexGet(final long key) {
+    if (this.diskIndex == null) {
+      final long[] keys = this.keys;
+      final long[] values = this.values;
+      final int mask = keys.length - 1;
+      for (int i = slot(key, mask);; i = i + 1 & mask) {
+        final long value = values[i];
+        if (value == 0) {
+          return 0;
+        } else if (keys[i] == key) {
+          return value;
+        }
+      }
+    } else {
+      final Long value = this.diskIndex.get(key);
+      if (value == null) {
+        return 0;
+      } else {
+        return value;
+      }
+    }
+  }
+
+  /**
+   * Put the value in the index.
+   *
+   * @return The previous value or 0 if there wasn't one.
+   */
+  private long indexPut(final long key, final long value) {
+    if (this.diskIndex == null) {
+      final long[] keys = this.keys;
+      final long[] values = this.values;
+      final int mask = keys.length - 1;
+      for (int i = slot(key, mask);; i = i + 1 & mask) {
+        final long oldValue = values[i];
+        if (oldValue == 0) {
+          keys[i] = key;
+          values[i] = value;
+          this.indexSize++;
+          if (this.spillToDisk && this.indexSize > this.maxIndexSizeInMemory) {
+            spill();
+          } else if (this.indexSize * 2 > keys.length) {
+            resize(keys.length * 2);
+          }
+          return 0;
+        } else if (keys[i] == key) {
+          values[i] = value;
+          return oldValue;
+        }
+      }
+    } else {
+      final Long oldValue = this.diskIndex.put(key, value);
+      if (oldValue == null) {
+        this.indexSize++;
+        return 0;
+      } else {
+        return oldValue;
+      }
+    }
+  }
+
+  public boolean isSpillToDisk() {
+    return this.spillToDisk;
+  }
+
+  private void resize(final int capacity) {
+    final long[] oldKeys = this.keys;
+    final long[] oldValues = this.values;
+    final long[] keys = new long[capacity];
+    final long[] values = new long[capacity];
+    final int mask = capacity - 1;
+    for (int j = 0; j < oldValues.length; j++) {
+      final long value = oldValues[j];
+      if (value != 0) {
+        final long key = oldKeys[j];
+        int i = slot(key, mask);
+        while (values[i] != 0) {
+          i = i + 1 & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+      }
+    }
+    this.keys = keys;
+    this.values = values;
+  }
+
+  /**
+   * Set the fields to exclude from the content hash (e.g. last modified timestamps). The
+   * identifier fields are always excluded.
+   *
+   * @param excludeFieldNames The field names.
+   */
+  public void setExcludeFieldNames(final Collection<String> excludeFieldNames) {
+    this.excludeFieldNames = excludeFieldNames;
+  }
+
+  /**
+   * Set the geometry factory the source and target geometries are converted to before they are
+   * hashed. Defaults to the target record definition's geometry factory.
+   *
+   * @param geometryFactory The geometry factory.
+   */
+  public void setGeometryFactory(final GeometryFactory geometryFactory) {
+    this.geometryFactory = geometryFactory;
+    if (this.hasher != null) {
+      this.hasher.setGeometryFactory(geometryFactory);
+    }
+  }
+
+  public void setMaxIndexSizeInMemory(final int maxIndexSizeInMemory) {
+    this.maxIndexSizeInMemory = maxIndexSizeInMemory;
+  }
+
+  public void setSpillToDisk(final boolean spillToDisk) {
+    this.spillToDisk = spillToDisk;
+  }
+
+  private void spill() {
+    this.pageManager = new BufferPoolPageManager();
+    final Map<Long, Long> diskIndex = BPlusTreeMap.newMap(this.pageManager, PageValueManager.LONG,
+      PageValueManager.LONG);
+    final long[] keys = this.keys;
+    final long[] values = this.values;
+    for (int i = 0; i < values.length; i++) {
+      final long value = values[i];
+      if (value != 0) {
+        diskIndex.put(keys[i], value);
+      }
+    }
+    this.diskIndex = diskIndex;
+    this.keys = null;
+    this.values = null;
+
+    this.idStringsPageManager = new BufferPoolPageManager();
+    final Map<Long, String> idStrings = BPlusTreeMap.newMap(this.idStringsPageManager,
+      PageValueManager.LONG, PageValueManager.STRING);
+    idStrings.putAll(this.idStrings);
+    this.idStrings = idStrings;
+  }
+
+  private long toKey(final Identifier identifier, final boolean target) {
+    final List<Object> values = identifier.getValues();
+    if (values.size() == 1) {
+      final Long longValue = toLong(values.get(0));
+      if (longValue != null) {
+        return longValue;
+      }
+    }
+    final String idString = toIdString(identifier);
+    long key = hashIdString(idString);
+    while (true) {
+      final String existingIdString = this.idStrings.get(key);
+      if (existingIdString == null) {
+        if (target) {
+          this.idStrings.put(key, idString);
+        }
+        return key;
+      } else if (existingIdString.equals(idString)) {
+        return key;
+      } else {
+        // A different identifier has the same hash, use the next key
+        key++;
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "Changes insert=" + this.insertCount + " update=" + this.updateCount + " delete="
+      + this.deleteCount + " equal=" + this.equalCount;
+  }
+}
@@ -0,0 +1,240 @@
+package com.revolsys.record;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.jeometry.common.data.type.DataTypes;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.wkb.WKBWriter;
+import com.revolsys.record.schema.RecordDefinition;
+import com.revolsys.util.Property;
+
+/**
+ * Calculate a 64 bit hash of the content of a record. The hash only depends on the values so it is
+ * stable across runs and JVMs and can be compared between records with different
+ * {@link RecordDefinition}s.
+ * <p>
+ * The fields are hashed in field name order. Blank strings are hashed as null, integral numbers
+ * are hashed as longs and other numbers as doubles so that (for example) an Integer and a
+ * BigDecimal with the same value have the same hash. Geometries are converted to the hasher's
+ * geometry factory (if any), normalized and the WKB is hashed.
+ * </p>
+ */
+public class RecordContentHasher {
+  private static final long NULL = 0x9E3779B97F4A7C15L;
+
+  private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+
+  private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+
+  private static final long PRIME_3 = 0x165667B19E3779F9L;
+
+  private static final int TYPE_BOOLEAN = 1;
+
+  private static final int TYPE_DATE = 5;
+
+  private static final int TYPE_DOUBLE = 3;
+
+  private static final int TYPE_GEOMETRY = 6;
+
+  private static final int TYPE_LONG = 2;
+
+  private static final int TYPE_STRING = 4;
+
+  private static long hashBytes(long hash, final byte[] bytes) {
+    hash = update(hash, bytes.length);
+    final int length = bytes.length;
+    int i = 0;
+    for (; i + 8 <= length; i += 8) {
+      long value = 0;
+      for (int j = 0; j < 8; j++) {
+        value = value << 8 | bytes[i + j] & 0xFF;
+      }
+      hash = update(hash, value);
+    }
+    if (i < length) {
+      long value = 0;
+      for (; i < length; i++) {
+        value = value << 8 | bytes[i] & 0xFF;
+      }
+      hash = update(hash, value);
+    }
+    return hash;
+  }
+
+  /**
+   * Calculate the hash of a string using the same function used for string values.
+   *
+   * @param string The string.
+   * @return The hash.
+   */
+  public static long hashString(final String string) {
+    return mix(hashString(PRIME_2, string));
+  }
+
+  private static long hashString(long hash, final String string) {
+    final int length = string.length();
+    hash = update(update(hash, TYPE_STRING), length);
+    int i = 0;
+    for (; i + 4 <= length; i += 4) {
+      final long value = (long)string.charAt(i) << 48 | (long)string.charAt(i + 1) << 32
+        | (long)string.charAt(i + 2) << 16 | string.charAt(i + 3);
+      hash = update(hash, value);
+    }
+    if (i < length) {
+      long value = 0;
+      for (; i < length; i++) {
+        value = value << 16 | string.charAt(i);
+      }
+      hash = update(hash, value);
+    }
+    return hash;
+  }
+
+  private static long mix(final long value) {
+    long hash = value;
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  private static long update(final long hash, final long value) {
+    return Long.rotateLeft(hash ^ mix(value), 27) * PRIME_1 + PRIME_3;
+  }
+
+  private final String[] fieldNames;
+
+  private GeometryFactory geometryFactory;
+
+  /**
+   * @param fieldNames The fields to hash, geometry fields can be included.
+   */
+  public RecordContentHasher(final Collection<String> fieldNames) {
+    this.fieldNames = new TreeSet<>(fieldNames).toArray(new String[0]);
+  }
+
+  /**
+   * Construct a new hasher for all the fields in the record definition except the id fields and
+   * the excluded fields. The record definition's geometry factory is used for the geometries.
+   *
+   * @param recordDefinition The record definition.
+   * @param excludeFieldNames The field names to exclude.
+   */
+  public RecordContentHasher(final RecordDefinition recordDefinition,
+    final Collection<String> excludeFieldNames) {
+    final List<String> fieldNames = new ArrayList<>(recordDefinition.getFieldNames());
+    fieldNames.removeAll(recordDefinition.getIdFieldNames());
+    fieldNames.removeAll(excludeFieldNames);
+    this.fieldNames = new TreeSet<>(fieldNames).toArray(new String[0]);
+    this.geometryFactory = recordDefinition.getGeometryFactory();
+  }
+
+  public List<String> getFieldNames() {
+    return List.of(this.fieldNames);
+  }
+
+  public GeometryFactory getGeometryFactory() {
+    return this.geometryFactory;
+  }
+
+  /**
+   * Calculate the hash of the record's values.
+   *
+   * @param record The record.
+   * @return The hash.
+   */
+  public long hash(final Record record) {
+    long hash = PRIME_2;
+    for (final String fieldName : this.fieldNames) {
+      final Object value = record.getValue(fieldName);
+      hash = hashValue(hash, value);
+    }
+    return mix(hash);
+  }
+
+  private long hashGeometry(final long hash, Geometry geometry) {
+    if (geometry.isEmpty()) {
+      return update(hash, NULL);
+    } else {
+      int axisCount = geometry.getAxisCount();
+      if (this.geometryFactory != null) {
+        geometry = geometry.convertGeometry(this.geometryFactory);
+        axisCount = this.geometryFactory.getAxisCount();
+      }
+      geometry = geometry.normalize();
+      axisCount = Math.max(2, Math.min(3, axisCount));
+      final byte[] wkb = new WKBWriter(axisCount, false).write(geometry);
+      return hashBytes(update(hash, TYPE_GEOMETRY), wkb);
+    }
+  }
+
+  private long hashValue(final long hash, final Object value) {
+    if (value == null) {
+      return update(hash, NULL);
+    } else if (value instanceof String) {
+      final String string = (String)value;
+      if (Property.hasValue(string)) {
+        return hashString(hash, string);
+      } else {
+        return update(hash, NULL);
+      }
+    } else if (value instanceof Boolean) {
+      return update(update(hash, TYPE_BOOLEAN), (Boolean)value ? 1 : 0);
+    } else if (value instanceof Long || value instanceof Integer || value instanceof Short
+      || value instanceof Byte) {
+      return update(update(hash, TYPE_LONG), ((Number)value).longValue());
+    } else if (value instanceof BigInteger && ((BigInteger)value).bitLength() < 64) {
+      return update(update(hash, TYPE_LONG), ((Number)value).longValue());
+    } else if (value instanceof Number) {
+      if (value instanceof BigDecimal) {
+        final BigDecimal decimal = ((BigDecimal)value).stripTrailingZeros();
+        if (decimal.scale() <= 0 && decimal.precision() - decimal.scale() < 19) {
+          return update(update(hash, TYPE_LONG), decimal.longValueExact());
+        }
+      }
+      final double number = ((Number)value).doubleValue();
+      final long longValue = (long)number;
+      if (longValue == number && Math.abs(longValue) < Long.MAX_VALUE) {
+        return update(update(hash, TYPE_LONG), longValue);
+      } else {
+        return update(update(hash, TYPE_DOUBLE), Double.doubleToLongBits(number));
+      }
+    } else if (value instanceof Geometry) {
+      return hashGeometry(hash, (Geometry)value);
+    } else if (value instanceof Date) {
+      return update(update(hash, TYPE_DATE), ((Date)value).getTime());
+    } else {
+      final String string = DataTypes.toString(value);
+      if (Property.hasValue(string)) {
+        return hashString(hash, string);
+      } else {
+        return update(hash, NULL);
+      }
+    }
+  }
+
+  /**
+   * Set the geometry factory geometries are converted to before they are hashed. This makes the
+   * hash independent of the coordinate system and precision model of the source.
+   *
+   * @param geometryFactory The geometry factory.
+   */
+  public void setGeometryFactory(final GeometryFactory geometryFactory) {
+    this.geometryFactory = geometryFactory;
+  }
+
+  @Override
+  public String toString() {
+    return "Hash " + getFieldNames();
+  }
+}
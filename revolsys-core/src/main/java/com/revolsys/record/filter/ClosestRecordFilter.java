@@ -2,6 +2,7 @@ package com.revolsys.record.filter;
 
 import java.util.function.Predicate;
 
+import com.revolsys.geometry.index.NearestItemIterator;
 import com.revolsys.geometry.index.RecordSpatialIndex;
 import com.revolsys.geometry.model.BoundingBox;
 import com.revolsys.geometry.model.Geometry;
@@ -14,18 +15,25 @@ public class ClosestRecordFilter implements Predicate<Record> {
 
   public static ClosestRecordFilter query(final RecordSpatialIndex<Record> index,
     final Geometry geometry, final double maxDistance) {
-    final ClosestRecordFilter closestFilter = new ClosestRecordFilter(geometry, maxDistance);
-    final BoundingBox boundingBox = closestFilter.getFilterBoundingBox();
-    index.queryList(boundingBox, closestFilter);
-    return closestFilter;
+    return query(index, geometry, maxDistance, Predicates.all());
   }
 
+  /**
+   * Find the closest record using a nearest search of the index, stopping at the first record
+   * that matches the filter.
+   */
   public static ClosestRecordFilter query(final RecordSpatialIndex<Record> index,
     final Geometry geometry, final double maxDistance, final Predicate<Record> filter) {
     final ClosestRecordFilter closestFilter = new ClosestRecordFilter(geometry, maxDistance,
       filter);
-    final BoundingBox boundingBox = closestFilter.getFilterBoundingBox();
-    index.queryList(boundingBox, closestFilter);
+    final NearestItemIterator<Record> records = index.nearestRecords(geometry, maxDistance);
+    for (final Record record : records) {
+      if (filter.test(record)) {
+        closestFilter.closestRecord = record;
+        closestFilter.closestDistance = records.getDistance();
+        break;
+      }
+    }
     return closestFilter;
   }
 
@@ -0,0 +1,452 @@
+package com.revolsys.record.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import org.jeometry.common.exception.Exceptions;
+
+import com.revolsys.io.BaseCloseable;
+import com.revolsys.io.FileUtil;
+import com.revolsys.io.page.MethodPageValueManager;
+import com.revolsys.io.page.RecordPageValueManager;
+import com.revolsys.parallel.ThreadInterruptedException;
+import com.revolsys.record.Record;
+import com.revolsys.record.Records;
+import com.revolsys.record.query.Query;
+import com.revolsys.record.schema.RecordDefinition;
+
+/**
+ * Sort records in bounded memory. Records are buffered until {@link #getMaxRecordsInMemory()} are
+ * held, then the buffer is sorted and written to a temporary run file using the
+ * {@link RecordPageValueManager} binary encoding. {@link #forEach(Consumer)} merges the runs with a
+ * k-way heap. If all the records fit in memory no files are written.
+ * <p>
+ * If parallel is enabled the runs are sorted and written on the executor service while the next
+ * run is buffered, so up to {@link #getMaxPendingRuns()} + 1 buffers can be in memory at once. The
+ * sort is stable. Records read back from a run are new records created from their
+ * {@link RecordDefinition}.
+ * </p>
+ */
+public class ExternalRecordSorter implements BaseCloseable {
+  private class RunReader implements BaseCloseable {
+    private final DataInputStream in;
+
+    private Record record;
+
+    private final int runIndex;
+
+    private RunReader(final File file, final int runIndex) throws IOException {
+      this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536));
+      this.runIndex = runIndex;
+    }
+
+    @Override
+    public void close() {
+      try {
+        this.in.close();
+      } catch (final IOException e) {
+        throw Exceptions.wrap(e);
+      }
+    }
+
+    private boolean next() throws IOException {
+      this.record = readRecord(this.in);
+      return this.record != null;
+    }
+  }
+
+  public static final int DEFAULT_MAX_RECORDS_IN_MEMORY = 100000;
+
+  public static final int DEFAULT_MERGE_FACTOR = 128;
+
+  /**
+   * Construct a new sorter using the query's ORDER BY.
+   *
+   * @param query The query.
+   * @return The sorter.
+   */
+  public static ExternalRecordSorter orderBy(final Query query) {
+    return orderBy(query.getOrderBy());
+  }
+
+  /**
+   * Construct a new sorter for the ORDER BY map of field names to ascending flags.
+   *
+   * @param orderBy The order by.
+   * @return The sorter.
+   */
+  public static ExternalRecordSorter orderBy(final Map<? extends CharSequence, Boolean> orderBy) {
+    final Comparator<Record> comparator = Records.newComparatorOrderBy(orderBy);
+    return new ExternalRecordSorter(comparator);
+  }
+
+  private Record[] buffer;
+
+  private int bufferSize;
+
+  private final Comparator<? super Record> comparator;
+
+  private final Map<RecordDefinition, Integer> definitionIndexes = new IdentityHashMap<>();
+
+  private final List<RecordPageValueManager> definitionManagers = new ArrayList<>();
+
+  private ExecutorService executorService = ForkJoinPool.commonPool();
+
+  private int maxPendingRuns = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+  private int maxRecordsInMemory = DEFAULT_MAX_RECORDS_IN_MEMORY;
+
+  private int mergeFactor = DEFAULT_MERGE_FACTOR;
+
+  private boolean parallel = true;
+
+  private final Deque<Future<File>> pendingRuns = new ArrayDeque<>();
+
+  private long recordCount;
+
+  private final List<File> runFiles = new ArrayList<>();
+
+  public ExternalRecordSorter(final Comparator<? super Record> comparator) {
+    this.comparator = comparator;
+  }
+
+  /**
+   * Add a record to be sorted.
+   *
+   * @param record The record.
+   */
+  public void add(final Record record) {
+    if (this.buffer == null) {
+      this.buffer = new Record[Math.min(this.maxRecordsInMemory, 1024)];
+    } else if (this.bufferSize == this.buffer.length) {
+      if (this.bufferSize >= this.maxRecordsInMemory) {
+        spill();
+        this.buffer = new Record[this.maxRecordsInMemory];
+      } else {
+        final int newLength = (int)Math.min((long)this.bufferSize * 2, this.maxRecordsInMemory);
+        this.buffer = Arrays.copyOf(this.buffer, newLength);
+      }
+    }
+    this.buffer[this.bufferSize++] = record;
+    this.recordCount++;
+  }
+
+  public void addAll(final Iterable<? extends Record> records) {
+    for (final Record record : records) {
+      add(record);
+    }
+  }
+
+  private void awaitRun() {
+    final Future<File> future = this.pendingRuns.removeFirst();
+    try {
+      this.runFiles.add(future.get());
+    } catch (final ExecutionException e) {
+      throw Exceptions.wrap(e.getCause());
+    } catch (final InterruptedException e) {
+      throw new ThreadInterruptedException(e);
+    }
+  }
+
+  /**
+   * Delete the run files and discard any buffered records.
+   */
+  @Override
+  public void close() {
+    this.buffer = null;
+    this.bufferSize = 0;
+    this.recordCount = 0;
+    while (!this.pendingRuns.isEmpty()) {
+      try {
+        awaitRun();
+      } catch (final RuntimeException e) {
+      }
+    }
+    for (final File file : this.runFiles) {
+      FileUtil.delete(file);
+    }
+    this.runFiles.clear();
+  }
+
+  /**
+   * Sort the added records and pass each record to the action in order. The run files and buffer
+   * are deleted after all the records have been passed to the action.
+   *
+   * @param action The action.
+   */
+  public void forEach(final Consumer<? super Record> action) {
+    try {
+      final Record[] records = this.buffer;
+      final int size = this.bufferSize;
+      if (this.runFiles.isEmpty() && this.pendingRuns.isEmpty()) {
+        if (records != null) {
+          sortRecords(records, size);
+          for (int i = 0; i < size; i++) {
+            action.accept(records[i]);
+          }
+        }
+      } else {
+        if (size > 0) {
+          spill();
+        }
+        this.buffer = null;
+        while (!this.pendingRuns.isEmpty()) {
+          awaitRun();
+        }
+        while (this.runFiles.size() > this.mergeFactor) {
+          mergePass();
+        }
+        merge(this.runFiles, action);
+      }
+    } catch (final IOException e) {
+      throw Exceptions.wrap(e);
+    } finally {
+      close();
+    }
+  }
+
+  public Comparator<? super Record> getComparator() {
+    return this.comparator;
+  }
+
+  private synchronized int getDefinitionIndex(final RecordDefinition recordDefinition) {
+    Integer index = this.definitionIndexes.get(recordDefinition);
+    if (index == null) {
+      index = this.definitionManagers.size();
+      this.definitionIndexes.put(recordDefinition, index);
+      this.definitionManagers.add(new RecordPageValueManager(recordDefinition));
+    }
+    return index;
+  }
+
+  private synchronized RecordPageValueManager getDefinitionManager(final int index) {
+    return this.definitionManagers.get(index);
+  }
+
+  public ExecutorService getExecutorService() {
+    return this.executorService;
+  }
+
+  public int getMaxPendingRuns() {
+    return this.maxPendingRuns;
+  }
+
+  public int getMaxRecordsInMemory() {
+    return this.maxRecordsInMemory;
+  }
+
+  /**
+   * Get the maximum number of runs merged at once. If there are more runs they are merged into
+   * larger runs first.
+   *
+   * @return The merge factor.
+   */
+  public int getMergeFactor() {
+    return this.mergeFactor;
+  }
+
+  public long getRecordCount() {
+    return this.recordCount;
+  }
+
+  /**
+   * Get the number of runs written to disk so far.
+   *
+   * @return The number of runs.
+   */
+  public int getRunCount() {
+    return this.runFiles.size() + this.pendingRuns.size();
+  }
+
+  public boolean isParallel() {
+    return this.parallel;
+  }
+
+  private void merge(final List<File> files, final Consumer<? super Record> action)
+    throws IOException {
+    final Comparator<RunReader> readerComparator = (reader1, reader2) -> {
+      final int compare = this.comparator.compare(reader1.record, reader2.record);
+      if (compare == 0) {
+        return Integer.compare(reader1.runIndex, reader2.runIndex);
+      } else {
+        return compare;
+      }
+    };
+    final PriorityQueue<RunReader> queue = new PriorityQueue<>(files.size(), readerComparator);
+    final List<RunReader> readers = new ArrayList<>();
+    try {
+      for (int i = 0; i < files.size(); i++) {
+        final RunReader reader = new RunReader(files.get(i), i);
+        readers.add(reader);
+        if (reader.next()) {
+          queue.add(reader);
+        }
+      }
+      while (!queue.isEmpty()) {
+        final RunReader reader = queue.poll();
+        action.accept(reader.record);
+        if (reader.next()) {
+          queue.add(reader);
+        }
+      }
+    } finally {
+      for (final RunReader reader : readers) {
+        reader.close();
+      }
+    }
+  }
+
+  /**
+   * Merge each group of {@link #getMergeFactor()} consecutive runs into a single run. Keeping the
+   * runs in order keeps the sort stable.
+   */
+  private void mergePass() throws IOException {
+    final List<File> runFiles = new ArrayList<>(this.runFiles);
+    this.runFiles.clear();
+    for (int i = 0; i < runFiles.size(); i += this.mergeFactor) {
+      final List<File> mergeFiles = runFiles.subList(i,
+        Math.min(i + this.mergeFactor, runFiles.size()));
+      if (mergeFiles.size() == 1) {
+        this.runFiles.add(mergeFiles.get(0));
+      } else {
+        final File file = newRunFile();
+        this.runFiles.add(file);
+        try (
+          DataOutputStream out = newRunWriter(file)) {
+          merge(mergeFiles, record -> writeRecord(out, record));
+        }
+        for (final File mergeFile : mergeFiles) {
+          FileUtil.delete(mergeFile);
+        }
+      }
+    }
+  }
+
+  private File newRunFile() {
+    final File file = FileUtil.newTempFile("sort", ".run");
+    file.deleteOnExit();
+    return file;
+  }
+
+  private DataOutputStream newRunWriter(final File file) throws IOException {
+    return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+  }
+
+  private Record readRecord(final DataInputStream in) throws IOException {
+    final int definitionIndex;
+    try {
+      definitionIndex = in.readInt();
+    } catch (final EOFException e) {
+      return null;
+    }
+    final int size = in.readInt();
+    final byte[] bytes = new byte[size + 4];
+    System.arraycopy(MethodPageValueManager.getValueIntBytes(size), 0, bytes, 0, 4);
+    in.readFully(bytes, 4, size);
+    final RecordPageValueManager manager = getDefinitionManager(definitionIndex);
+    return manager.getValue(bytes);
+  }
+
+  public void setExecutorService(final ExecutorService executorService) {
+    this.executorService = executorService;
+  }
+
+  public void setMaxPendingRuns(final int maxPendingRuns) {
+    this.maxPendingRuns = Math.max(1, maxPendingRuns);
+  }
+
+  public void setMaxRecordsInMemory(final int maxRecordsInMemory) {
+    this.maxRecordsInMemory = Math.max(1, maxRecordsInMemory);
+  }
+
+  public void setMergeFactor(final int mergeFactor) {
+    this.mergeFactor = Math.max(2, mergeFactor);
+  }
+
+  public void setParallel(final boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  /**
+   * Sort the records and pass each record to the action in order.
+   *
+   * @param records The records to sort.
+   * @param action The action.
+   */
+  public void sort(final Iterable<? extends Record> records,
+    final Consumer<? super Record> action) {
+    addAll(records);
+    forEach(action);
+  }
+
+  private void sortRecords(final Record[] records, final int size) {
+    if (this.parallel) {
+      Arrays.parallelSort(records, 0, size, this.comparator);
+    } else {
+      Arrays.sort(records, 0, size, this.comparator);
+    }
+  }
+
+  private void spill() {
+    final Record[] records = this.buffer;
+    final int size = this.bufferSize;
+    this.buffer = null;
+    this.bufferSize = 0;
+    if (this.parallel) {
+      while (this.pendingRuns.size() >= this.maxPendingRuns) {
+        awaitRun();
+      }
+      this.pendingRuns.add(this.executorService.submit(() -> writeRun(records, size)));
+    } else {
+      this.runFiles.add(writeRun(records, size));
+    }
+  }
+
+  private void writeRecord(final DataOutputStream out, final Record record) {
+    final RecordDefinition recordDefinition = record.getRecordDefinition();
+    final int definitionIndex = getDefinitionIndex(recordDefinition);
+    final byte[] bytes = getDefinitionManager(definitionIndex).getBytes(record);
+    try {
+      out.writeInt(definitionIndex);
+      out.write(bytes);
+    } catch (final IOException e) {
+      throw Exceptions.wrap(e);
+    }
+  }
+
+  private File writeRun(final Record[] records, final int size) {
+    Arrays.sort(records, 0, size, this.comparator);
+    final File file = newRunFile();
+    try (
+      DataOutputStream out = newRunWriter(file)) {
+      for (int i = 0; i < size; i++) {
+        writeRecord(out, records[i]);
+      }
+    } catch (final IOException e) {
+      FileUtil.delete(file);
+      throw Exceptions.wrap("Unable to write sort run " + file, e);
+    }
+    return file;
+  }
+}
@@ -9,6 +9,44 @@ import java.util.NoSuchElementException;
 import com.revolsys.record.io.format.json.JsonParser.EventType;
 
 public class JsonMapIterator implements Iterator<JsonObject>, Closeable {
+  /**
+   * Move the parser to the start of the list of objects. The list is either a single object, an
+   * array of objects or an array of objects in the first attribute of the root object.
+   *
+   * @param parser The parser.
+   * @param single True if the document is a single object.
+   * @return True if there are objects to read.
+   */
+  static boolean startObjects(final JsonParser parser, final boolean single) {
+    if (single) {
+      return true;
+    } else if (parser.hasNext()) {
+      EventType event = parser.next();
+      if (event == EventType.startDocument) {
+        if (parser.hasNext()) {
+          event = parser.next();
+          if (event == EventType.startObject) {
+            parser.getString();
+            if (parser.hasNext()) {
+              event = parser.next();
+              if (event == EventType.colon) {
+                if (parser.hasNext()) {
+                  event = parser.next();
+                  if (event == EventType.startArray) {
+                    return true;
+                  }
+                }
+              }
+            }
+          } else if (event == EventType.startArray) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
   /** The current record. */
   private JsonObject currentObject;
 
@@ -23,34 +61,9 @@ public class JsonMapIterator implements Iterator<JsonObject>, Closeable {
 
   public JsonMapIterator(final Reader in, final boolean single) throws IOException {
     this.parser = new JsonParser(in);
-    if (single) {
-      this.hasNext = true;
+    this.hasNext = startObjects(this.parser, single);
+    if (this.hasNext) {
       readNextRecord();
-    } else if (this.parser.hasNext()) {
-      EventType event = this.parser.next();
-      if (event == EventType.startDocument) {
-        if (this.parser.hasNext()) {
-          event = this.parser.next();
-          if (event == EventType.startObject) {
-            this.parser.getString();
-            if (this.parser.hasNext()) {
-              event = this.parser.next();
-              if (event == EventType.colon) {
-                if (this.parser.hasNext()) {
-                  event = this.parser.next();
-                  if (event == EventType.startArray) {
-                    this.hasNext = true;
-                    readNextRecord();
-                  }
-                }
-              }
-            }
-          } else if (event == EventType.startArray) {
-            this.hasNext = true;
-            readNextRecord();
-          }
-        }
-      }
     }
     if (!this.hasNext) {
       close();
@@ -10,6 +10,7 @@ import java.math.BigDecimal;
 import java.sql.Clob;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -18,9 +19,9 @@ import java.util.NoSuchElementException;
 
 import org.jeometry.common.exception.WrappedException;
 import org.jeometry.common.logging.Logs;
-import org.jeometry.common.number.Doubles;
 import org.jeometry.common.number.Integers;
 
+import com.revolsys.collection.list.DoubleList;
 import com.revolsys.io.FileUtil;
 import com.revolsys.spring.resource.Resource;
 
@@ -29,6 +30,11 @@ public class JsonParser implements Iterator<JsonParser.EventType>, Closeable {
     booleanValue, colon, comma, endArray, endDocument, endObject, nullValue, number, startArray, startDocument, startObject, string, unknown
   }
 
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+    1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
   public static Map<String, Object> getMap(final InputStream in) {
     if (in == null) {
       return null;
@@ -92,6 +98,84 @@ public class JsonParser implements Iterator<JsonParser.EventType>, Closeable {
     return parser;
   }
 
+  /**
+   * Parse a JSON number from the characters. Numbers with at most 15 significant digits and a
+   * power of ten exponent up to 22 are converted exactly with a single multiplication or division
+   * without creating any objects. Other numbers use {@link Double#parseDouble(String)}.
+   *
+   * @param chars The characters.
+   * @param offset The offset of the first character.
+   * @param length The number of characters.
+   * @return The double value.
+   */
+  static double parseDouble(final char[] chars, final int offset, final int length) {
+    final int end = offset + length;
+    int i = offset;
+    boolean negative = false;
+    if (i < end && chars[i] == '-') {
+      negative = true;
+      i++;
+    }
+    long mantissa = 0;
+    int significantDigitCount = 0;
+    int exponent = 0;
+    for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+      mantissa = mantissa * 10 + chars[i] - '0';
+      if (mantissa != 0) {
+        significantDigitCount++;
+      }
+    }
+    if (i < end && chars[i] == '.') {
+      for (i++; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+        mantissa = mantissa * 10 + chars[i] - '0';
+        if (mantissa != 0) {
+          significantDigitCount++;
+        }
+        exponent--;
+      }
+    }
+    if (significantDigitCount > 15) {
+      return Double.parseDouble(new String(chars, offset, length));
+    }
+    if (i < end && (chars[i] == 'e' || chars[i] == 'E')) {
+      i++;
+      boolean negativeExponent = false;
+      if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+        negativeExponent = chars[i] == '-';
+        i++;
+      }
+      int exponentValue = 0;
+      for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+        if (exponentValue > 1000) {
+          return Double.parseDouble(new String(chars, offset, length));
+        }
+        exponentValue = exponentValue * 10 + chars[i] - '0';
+      }
+      if (negativeExponent) {
+        exponent -= exponentValue;
+      } else {
+        exponent += exponentValue;
+      }
+    }
+    double value;
+    if (mantissa == 0) {
+      value = 0;
+    } else if (exponent == 0) {
+      value = mantissa;
+    } else if (exponent > 0 && exponent < POWERS_OF_TEN.length) {
+      value = mantissa * POWERS_OF_TEN[exponent];
+    } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+      value = mantissa / POWERS_OF_TEN[-exponent];
+    } else {
+      return Double.parseDouble(new String(chars, offset, length));
+    }
+    if (negative) {
+      return -value;
+    } else {
+      return value;
+    }
+  }
+
   @SuppressWarnings("unchecked")
   public static <V> V read(final InputStream in) {
     return (V)read(FileUtil.newUtf8Reader(in));
@@ -150,12 +234,21 @@ public class JsonParser implements Iterator<JsonParser.EventType>, Closeable {
 
   private Object currentValue;
 
+  /** The characters of the current number, the value is only created if it is requested. */
+  private char[] currentNumber = new char[32];
+
+  private int currentNumberLength;
+
   private int depth;
 
   private EventType nextEvent = EventType.startDocument;
 
   private Object nextValue;
 
+  private char[] nextNumber = new char[32];
+
+  private int nextNumberLength;
+
   private final Reader reader;
 
   private Runnable closeAction;
@@ -219,6 +312,9 @@ public class JsonParser implements Iterator<JsonParser.EventType>, Closeable {
 
   @SuppressWarnings("unchecked")
   public <T> T getCurrentValue() {
+    if (this.currentValue == null && this.currentEvent == EventType.number) {
+      this.currentValue = new BigDecimal(this.currentNumber, 0, this.currentNumberLength);
+    }
     return (T)this.currentValue;
   }
 
@@ -226,26 +322,26 @@ public class JsonParser implements Iterator<JsonParser.EventType>, Closeable {
     return this.depth;
   }
 
+  /**
+   * Get the current number as a double without creating a {@link BigDecimal}.
+   *
+   * @return The double value or NaN if the value is null.
+   */
+  public double getDouble() {
+    if (this.currentEvent == EventType.number) {
+      return parseDouble(this.currentNumber, 0, this.currentNumberLength);
+    } else if (this.currentEvent == EventType.nullValue) {
+      return Double.NaN;
+    } else {
+      throw new IllegalStateException("Expecting a number, not: " + this);
+    }
+  }
+
   public double[] getDoubleArray() {
     if (getEvent() == EventType.startArray || hasNext() && next() == EventType.startArray) {
-      EventType event = getEvent();
-      final List<Number> list = new ArrayList<>();
-      do {
-        final Object value = getValue();
-        if (value instanceof EventType) {
-          event = (EventType)value;
-        } else if (value instanceof Number) {
-          list.add((Number)value);
-          event = next();
-        } else {
-          throw new IllegalArgumentException("Expecting number, not: " + value);
-        }
-      } while (event == EventType.comma);
-      if (event != EventType.endArray) {
-        throw new IllegalStateException("Exepecting end array, not: " + event);
-      }
-
-      return Doubles.toDoubleArray(list);
+      final DoubleList values = new DoubleList();
+      readDoubles(values);
+      return values.toDoubleArray();
     } else if (getEvent() == EventType.nullValue) {
       return null;
     } else {
@@ -344,27 +440,37 @@ public class JsonParser implements Iterator<JsonParser.EventType>, Closeable {
   public Object getValue() {
     // TODO empty array
     if (hasNext()) {
-      final EventType event = next();
-      if (event == EventType.startArray) {
-        return getArray();
-      } else if (event == EventType.startObject) {
-        return this.getMap();
-      } else if (event == EventType.booleanValue) {
-        return getCurrentValue();
-      } else if (event == EventType.nullValue) {
-        return getCurrentValue();
-      } else if (event == EventType.string) {
-        return getCurrentValue();
-      } else if (event == EventType.number) {
-        return getCurrentValue();
-      } else {
-        return event;
-      }
+      next();
+      return getValueCurrent();
     } else {
       throw new IllegalStateException("Expecting a value not EOF");
     }
   }
 
+  /**
+   * Get the value starting at the current event.
+   *
+   * @return The value or the event if it is not the start of a value.
+   */
+  public Object getValueCurrent() {
+    final EventType event = this.currentEvent;
+    if (event == EventType.startArray) {
+      return getArray();
+    } else if (event == EventType.startObject) {
+      return this.getMap();
+    } else if (event == EventType.booleanValue) {
+      return getCurrentValue();
+    } else if (event == EventType.nullValue) {
+      return getCurrentValue();
+    } else if (event == EventType.string) {
+      return getCurrentValue();
+    } else if (event == EventType.number) {
+      return getCurrentValue();
+    } else {
+      return event;
+    }
+  }
+
   @Override
   public boolean hasNext() {
     return this.currentEvent != EventType.endDocument;
@@ -471,6 +577,12 @@ public class JsonParser implements Iterator<JsonParser.EventType>, Closeable {
     if (hasNext()) {
       this.currentValue = this.nextValue;
       this.currentEvent = this.nextEvent;
+      if (this.nextEvent == EventType.number) {
+        final char[] number = this.currentNumber;
+        this.currentNumber = this.nextNumber;
+        this.currentNumberLength = this.nextNumberLength;
+        this.nextNumber = number;
+      }
       moveNext();
       return this.currentEvent;
     } else {
@@ -479,38 +591,30 @@ public class JsonParser implements Iterator<JsonParser.EventType>, Closeable {
   }
 
   private void processNumber() throws IOException {
-    final StringBuilder text = new StringBuilder();
+    this.nextNumberLength = 0;
     if (this.currentCharacter == '-') {
-      text.append((char)this.currentCharacter);
-      this.currentCharacter = this.reader.read();
+      readNumberCharacter();
     }
     while (this.currentCharacter >= '0' && this.currentCharacter <= '9') {
-      text.append((char)this.currentCharacter);
-      this.currentCharacter = this.reader.read();
+      readNumberCharacter();
     }
 
     if (this.currentCharacter == '.') {
-      text.append((char)this.currentCharacter);
-      this.currentCharacter = this.reader.read();
+      readNumberCharacter();
       while (this.currentCharacter >= '0' && this.currentCharacter <= '9') {
-        text.append((char)this.currentCharacter);
-        this.currentCharacter = this.reader.read();
+        readNumberCharacter();
       }
     }
 
     if (this.currentCharacter == 'e' || this.currentCharacter == 'E') {
-      text.append((char)this.currentCharacter);
-      this.currentCharacter = this.reader.read();
+      readNumberCharacter();
       if (this.currentCharacter == '-' || this.currentCharacter == '+') {
-        text.append((char)this.currentCharacter);
-        this.currentCharacter = this.reader.read();
+        readNumberCharacter();
       }
       while (this.currentCharacter >= '0' && this.currentCharacter <= '9') {
-        text.append((char)this.currentCharacter);
-        this.currentCharacter = this.reader.read();
+        readNumberCharacter();
       }
     }
-    this.nextValue = new BigDecimal(text.toString());
   }
 
   private void processString() throws IOException {
@@ -572,6 +676,51 @@ public class JsonParser implements Iterator<JsonParser.EventType>, Closeable {
     this.nextValue = text.toString();
   }
 
+  /**
+   * Read an array of numbers adding the values to the list. The numbers are parsed directly from
+   * the characters so no objects are created for each value.
+   *
+   * @param values The list to add the values to.
+   * @return The number of values read.
+   */
+  public int readDoubles(final DoubleList values) {
+    if (getEvent() == EventType.startArray || hasNext() && next() == EventType.startArray) {
+      int count = 0;
+      EventType event = next();
+      if (event != EventType.endArray) {
+        while (true) {
+          if (event != EventType.number) {
+            throw new IllegalArgumentException("Expecting number, not: " + this);
+          }
+          values.addDouble(getDouble());
+          count++;
+          event = next();
+          if (event == EventType.comma) {
+            event = next();
+          } else {
+            break;
+          }
+        }
+      }
+      if (event != EventType.endArray) {
+        throw new IllegalStateException("Exepecting end array, not: " + event);
+      }
+      return count;
+    } else {
+      throw new IllegalStateException("Exepecting start array, not: " + getEvent());
+    }
+  }
+
+  private void readNumberCharacter() throws IOException {
+    final int length = this.nextNumberLength;
+    if (length == this.nextNumber.length) {
+      this.nextNumber = Arrays.copyOf(this.nextNumber, length * 2);
+    }
+    this.nextNumber[length] = (char)this.currentCharacter;
+    this.nextNumberLength = length + 1;
+    this.currentCharacter = this.reader.read();
+  }
+
   @Override
   public void remove() {
   }
@@ -666,7 +815,7 @@ public class JsonParser implements Iterator<JsonParser.EventType>, Closeable {
 
   @Override
   public String toString() {
-    return this.currentEvent + " : " + this.currentValue + " "
+    return this.currentEvent + " : " + getCurrentValue() + " "
       + Character.toString((char)this.currentCharacter) + FileUtil.getString(this.reader, 80);
   }
 }
@@ -1,21 +1,34 @@
 package com.revolsys.record.io.format.json;
 
-import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
-import java.util.Map;
+import java.util.List;
 import java.util.NoSuchElementException;
 
+import org.jeometry.common.data.type.DataType;
+import org.jeometry.common.data.type.DataTypes;
+
 import com.revolsys.collection.iterator.AbstractIterator;
 import com.revolsys.io.FileUtil;
 import com.revolsys.record.ArrayRecord;
 import com.revolsys.record.Record;
 import com.revolsys.record.io.RecordReader;
+import com.revolsys.record.io.format.json.JsonParser.EventType;
+import com.revolsys.record.schema.FieldDefinition;
 import com.revolsys.record.schema.RecordDefinition;
 
+/**
+ * Read records from a JSON array of objects. The values are read directly into the record's
+ * fields without creating an intermediate map. Numbers for double and float fields are parsed
+ * from the JSON text without creating a {@link java.math.BigDecimal}.
+ */
 public class JsonRecordIterator extends AbstractIterator<Record> implements RecordReader {
 
-  private JsonMapIterator iterator;
+  private boolean[] doubleFields;
+
+  private boolean hasNext;
+
+  private JsonParser parser;
 
   private RecordDefinition recordDefinition;
 
@@ -30,32 +43,82 @@ public class JsonRecordIterator extends AbstractIterator<Record> implements Reco
   public JsonRecordIterator(final RecordDefinition recordDefinition, final Reader in,
     final boolean single) {
     this.recordDefinition = recordDefinition;
-    try {
-      this.iterator = new JsonMapIterator(in, single);
-    } catch (final IOException e) {
-      throw new IllegalArgumentException("Cannot open " + in, e);
+    final List<FieldDefinition> fields = recordDefinition.getFields();
+    this.doubleFields = new boolean[fields.size()];
+    for (int i = 0; i < this.doubleFields.length; i++) {
+      final DataType dataType = fields.get(i).getDataType();
+      this.doubleFields[i] = dataType == DataTypes.DOUBLE || dataType == DataTypes.FLOAT;
     }
+    this.parser = new JsonParser(in);
+    this.hasNext = JsonMapIterator.startObjects(this.parser, single);
   }
 
   @Override
   protected void closeDo() {
-    FileUtil.closeSilent(this.iterator);
-    this.iterator = null;
+    FileUtil.closeSilent(this.parser);
+    this.parser = null;
     this.recordDefinition = null;
   }
 
   @Override
   protected Record getNext() throws NoSuchElementException {
-    if (this.iterator.hasNext()) {
-      final Map<String, Object> map = this.iterator.next();
-      return new ArrayRecord(this.recordDefinition, map);
-    } else {
-      throw new NoSuchElementException();
+    final JsonParser parser = this.parser;
+    if (this.hasNext && parser.hasNext()) {
+      final EventType event = parser.next();
+      if (event != EventType.endArray && event != EventType.endDocument) {
+        return readRecord();
+      }
     }
+    this.hasNext = false;
+    throw new NoSuchElementException();
   }
 
   @Override
   public RecordDefinition getRecordDefinition() {
     return this.recordDefinition;
   }
+
+  private Record readRecord() {
+    final JsonParser parser = this.parser;
+    final RecordDefinition recordDefinition = this.recordDefinition;
+    if (parser.getEvent() == EventType.startObject
+      || parser.hasNext() && parser.next() == EventType.startObject) {
+      final Object[] values = new Object[this.doubleFields.length];
+      EventType event;
+      do {
+        if (parser.hasNext() && parser.next() == EventType.string) {
+          final String key = parser.getString();
+          if (parser.hasNext() && parser.next() == EventType.colon && parser.hasNext()) {
+            final EventType valueEvent = parser.next();
+            final int fieldIndex = recordDefinition.getFieldIndex(key);
+            if (fieldIndex == -1) {
+              parser.getValueCurrent();
+            } else if (valueEvent == EventType.number && this.doubleFields[fieldIndex]) {
+              values[fieldIndex] = parser.getDouble();
+            } else {
+              final Object value = parser.getValueCurrent();
+              if (value instanceof EventType) {
+                throw new IllegalStateException("Exepecting a value, not: " + key + "=" + value);
+              }
+              values[fieldIndex] = value;
+            }
+          }
+          event = parser.next();
+        } else {
+          event = parser.getEvent();
+        }
+      } while (event == EventType.comma);
+      if (event != EventType.endObject) {
+        throw new IllegalStateException("Exepecting end object, not:" + event);
+      }
+      final Record record = new ArrayRecord(recordDefinition);
+      for (int i = 0; i < values.length; i++) {
+        final FieldDefinition field = recordDefinition.getField(i);
+        field.setValue(record, values[i]);
+      }
+      return record;
+    } else {
+      throw new IllegalStateException("Exepecting start object, not:" + parser.getEvent());
+    }
+  }
 }
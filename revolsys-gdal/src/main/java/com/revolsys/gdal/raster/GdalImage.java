@@ -1,6 +1,7 @@
 package com.revolsys.gdal.raster;
 
 import java.awt.Dimension;
+import java.awt.Graphics2D;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
@@ -17,6 +18,7 @@ import com.revolsys.geometry.model.GeometryFactory;
 import com.revolsys.raster.AbstractGeoreferencedImage;
 import com.revolsys.raster.BufferedGeoreferencedImage;
 import com.revolsys.raster.GeoreferencedImage;
+import com.revolsys.raster.GeoreferencedImageTileCache;
 import com.revolsys.spring.resource.Resource;
 import com.revolsys.util.Cancellable;
 
@@ -87,7 +89,6 @@ public class GdalImage extends AbstractGeoreferencedImage {
 
       final double scaleX = srcWidth / imageBoundingBox.getWidth();
       final double scaleY = srcHeight / imageBoundingBox.getHeight();
-      final double minX = imageBoundingBox.getMinX();
       final double maxY = imageBoundingBox.getMaxY();
 
       final int clipXoff = (int)Math.max(0,
@@ -96,30 +97,86 @@ public class GdalImage extends AbstractGeoreferencedImage {
         Math.floor((maxY - imageViewClipBbox.getMaxY()) * scaleY));
       final int clipWidth = (int)Math.min(srcWidth, Math.ceil(clipModelWidth * scaleX));
       final int clipHeight = (int)Math.min(srcHeight, Math.ceil(clipModelHeight * scaleY));
-      final BufferedImage bufferedImage = Gdal.getBufferedImage(dataset, bestOverviewIdx, clipXoff,
-        clipYoff, clipWidth, clipHeight, targetWidth, targetHeight);
-
-      if (isSameCoordinateSystem(viewBoundingBox)) {
-        super.drawRenderedImage(renderer, bufferedImage, imageViewClipBbox, viewBoundingBox,
-          viewWidth, useTransform);
+      if (clipWidth > targetWidth * 2 || clipHeight > targetHeight * 2) {
+        // No suitable overview, read the clip scaled to the view without caching
+        final BufferedImage bufferedImage = Gdal.getBufferedImage(dataset, bestOverviewIdx,
+          clipXoff, clipYoff, clipWidth, clipHeight, targetWidth, targetHeight);
+        drawImage(cancellable, renderer, viewBoundingBox, viewWidth, viewHeight, useTransform,
+          bufferedImage, clipXoff, clipYoff, clipWidth, clipHeight, scaleX, scaleY);
       } else {
-        final double newMinX = minX + clipXoff / scaleX;
-        final double newMaxY = maxY - clipYoff / scaleY;
-        final double newMaxX = newMinX + clipWidth / scaleX;
-        final double newMinY = newMaxY - clipHeight / scaleY;
-        final BoundingBox newBoundingBox = getGeometryFactory().newBoundingBox(newMinX, newMinY,
-          newMaxX, newMaxY);
-        final GeoreferencedImage newImage = new BufferedGeoreferencedImage(newBoundingBox,
-          bufferedImage);
-        newImage.drawImage(cancellable, renderer, viewBoundingBox, viewWidth, viewHeight,
-          useTransform);
+        // Read the tile aligned blocks of the overview through the shared tile cache
+        final int tileSize = GeoreferencedImageTileCache.TILE_SIZE;
+        final int minTileX = clipXoff / tileSize;
+        final int minTileY = clipYoff / tileSize;
+        final int maxTileX = (Math.min(srcWidth, clipXoff + clipWidth) - 1) / tileSize;
+        final int maxTileY = (Math.min(srcHeight, clipYoff + clipHeight) - 1) / tileSize;
+        final int regionXoff = minTileX * tileSize;
+        final int regionYoff = minTileY * tileSize;
+        final int regionWidth = Math.min(srcWidth, (maxTileX + 1) * tileSize) - regionXoff;
+        final int regionHeight = Math.min(srcHeight, (maxTileY + 1) * tileSize) - regionYoff;
+        final BufferedImage bufferedImage = new BufferedImage(regionWidth, regionHeight,
+          BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = bufferedImage.createGraphics();
+        try {
+          final GeoreferencedImageTileCache tileCache = GeoreferencedImageTileCache.get();
+          final Resource resource = getImageResource();
+          final int overviewIndex = bestOverviewIdx;
+          final int overviewWidth = srcWidth;
+          final int overviewHeight = srcHeight;
+          for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
+            for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+              if (cancellable != null && cancellable.isCancelled()) {
+                return;
+              }
+              final int tileXoff = tileX * tileSize;
+              final int tileYoff = tileY * tileSize;
+              final int tileWidth = Math.min(tileSize, overviewWidth - tileXoff);
+              final int tileHeight = Math.min(tileSize, overviewHeight - tileYoff);
+              final BufferedImage tile = tileCache.getTile(resource, overviewIndex, tileX, tileY,
+                () -> Gdal.getBufferedImage(dataset, overviewIndex, tileXoff, tileYoff, tileWidth,
+                  tileHeight));
+              if (tile != null) {
+                graphics.drawImage(tile, tileXoff - regionXoff, tileYoff - regionYoff, null);
+              }
+            }
+          }
+        } finally {
+          graphics.dispose();
+        }
+        drawImage(cancellable, renderer, viewBoundingBox, viewWidth, viewHeight, useTransform,
+          bufferedImage, regionXoff, regionYoff, regionWidth, regionHeight, scaleX, scaleY);
       }
-
     } catch (final Throwable e) {
       e.printStackTrace();
     }
   }
 
+  private void drawImage(final Cancellable cancellable,
+    final Consumer3<RenderedImage, BoundingBox, AffineTransform> renderer,
+    final BoundingBox viewBoundingBox, final int viewWidth, final int viewHeight,
+    final boolean useTransform, final BufferedImage bufferedImage, final int xOffset,
+    final int yOffset, final int width, final int height, final double scaleX,
+    final double scaleY) {
+    final BoundingBox imageBoundingBox = getBoundingBox();
+    final double minX = imageBoundingBox.getMinX();
+    final double maxY = imageBoundingBox.getMaxY();
+    final double newMinX = minX + xOffset / scaleX;
+    final double newMaxY = maxY - yOffset / scaleY;
+    final double newMaxX = newMinX + width / scaleX;
+    final double newMinY = newMaxY - height / scaleY;
+    final BoundingBox newBoundingBox = getGeometryFactory().newBoundingBox(newMinX, newMinY,
+      newMaxX, newMaxY);
+    if (isSameCoordinateSystem(viewBoundingBox)) {
+      super.drawRenderedImage(renderer, bufferedImage, newBoundingBox, viewBoundingBox, viewWidth,
+        useTransform);
+    } else {
+      final GeoreferencedImage newImage = new BufferedGeoreferencedImage(newBoundingBox,
+        bufferedImage);
+      newImage.drawImage(cancellable, renderer, viewBoundingBox, viewWidth, viewHeight,
+        useTransform);
+    }
+  }
+
   @Override
   protected void finalize() throws Throwable {
     super.finalize();
@@ -62,7 +62,7 @@ public class GeoPackageGeometryJdbcFieldDefinition extends JdbcFieldDefinition {
         for (int i = 0; i < envelopeCoordinateCount; i++) {
           buffer.getDouble();
         }
-        return WkbByteBufferReader.readGeometry(geometryFactory, buffer);
+        return WkbByteBufferReader.readGeometryLazy(geometryFactory, buffer);
       }
     }
     throw new IllegalArgumentException(
@@ -967,7 +967,7 @@ public class LayerGroup extends AbstractLayer implements Parent<Layer>, Iterable
     Layer layer;
     if (IoFactory.hasFactory(TriangulatedIrregularNetworkReaderFactory.class, url)) {
       layer = new TriangulatedIrregularNetworkLayer(properties);
-    } else if (IoFactory.hasFactory(GriddedElevationModelReaderFactory.class, url)) {
+    } else if (GriddedElevationModelReaderFactory.hasGriddedElevationModel(url)) {
       layer = new GriddedElevationModelLayer(properties);
     } else if (IoFactory.hasFactory(GeoreferencedImageReadFactory.class, url)) {
       layer = new GeoreferencedImageLayer(properties);
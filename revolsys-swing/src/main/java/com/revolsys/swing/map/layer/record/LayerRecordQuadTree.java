@@ -2,11 +2,11 @@ package com.revolsys.swing.map.layer.record;
 
 import com.revolsys.geometry.index.RecordSpatialIndex;
 import com.revolsys.geometry.index.SpatialIndex;
-import com.revolsys.geometry.index.quadtree.QuadTree;
+import com.revolsys.geometry.index.quadtree.ConcurrentQuadTree;
 import com.revolsys.geometry.model.GeometryFactory;
 import com.revolsys.swing.map.layer.Layer;
 
-public class LayerRecordQuadTree extends QuadTree<LayerRecord> {
+public class LayerRecordQuadTree extends ConcurrentQuadTree<LayerRecord> {
   private static final long serialVersionUID = 1L;
 
   public static RecordSpatialIndex<LayerRecord> newIndex(final GeometryFactory geometryFactory) {
@@ -0,0 +1,122 @@
+package com.revolsys.core.test.collection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.collection.map.ConcurrentCache;
+import com.revolsys.collection.map.ConcurrentCache.RemovalCause;
+
+public class ConcurrentCacheTest {
+
+  @Test
+  public void testConcurrentLoad() throws Exception {
+    final ConcurrentCache<Integer, String> cache = new ConcurrentCache<>(1000);
+    final AtomicInteger loadCount = new AtomicInteger();
+    final CountDownLatch startLatch = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<String>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> {
+          startLatch.await();
+          return cache.get(1, key -> {
+            loadCount.incrementAndGet();
+            try {
+              Thread.sleep(50);
+            } catch (final InterruptedException e) {
+            }
+            return "one";
+          });
+        }));
+      }
+      startLatch.countDown();
+      for (final Future<String> future : futures) {
+        Assert.assertEquals("one", future.get(10, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    Assert.assertEquals(1, loadCount.get());
+    Assert.assertEquals(1, cache.getLoadCount());
+    Assert.assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  public void testEviction() {
+    final ConcurrentCache<Integer, String> cache = new ConcurrentCache<>(100);
+    final List<Integer> evictedKeys = new ArrayList<>();
+    cache.setRemovalListener((key, value, cause) -> {
+      if (cause == RemovalCause.EVICTED) {
+        evictedKeys.add(key);
+      }
+    });
+    for (int i = 0; i < 1000; i++) {
+      cache.put(i, Integer.toString(i));
+      Assert.assertTrue(cache.getSize() <= 100);
+    }
+    Assert.assertEquals(100, cache.getSize());
+    Assert.assertEquals(100, cache.getWeight());
+    Assert.assertEquals(900, evictedKeys.size());
+    Assert.assertEquals(900, cache.getEvictionCount());
+  }
+
+  @Test
+  public void testFrequentKeysRetained() {
+    final ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<>(100);
+    for (int i = 0; i < 50; i++) {
+      for (int j = 0; j < 5; j++) {
+        cache.get(i, key -> key);
+      }
+    }
+    for (int i = 1000; i < 1500; i++) {
+      cache.get(i, key -> key);
+    }
+    for (int i = 0; i < 50; i++) {
+      Assert.assertTrue("Frequent key evicted " + i, cache.containsKey(i));
+    }
+    Assert.assertTrue(cache.getSize() <= 100);
+  }
+
+  @Test
+  public void testRemovalListener() {
+    final ConcurrentCache<String, String> cache = new ConcurrentCache<>(10);
+    final List<String> removed = new ArrayList<>();
+    cache.setRemovalListener((key, value, cause) -> removed.add(key + "=" + value + " " + cause));
+    cache.put("a", "1");
+    cache.put("a", "2");
+    cache.put("a", "2");
+    cache.put("b", "3");
+    Assert.assertEquals("3", cache.remove("b"));
+    Assert.assertNull(cache.remove("b"));
+    cache.clear();
+    Assert.assertEquals(0, cache.getSize());
+    Assert.assertEquals(0, cache.getWeight());
+    Assert.assertEquals(List.of("a=1 REPLACED", "b=3 EXPLICIT", "a=2 EXPLICIT"), removed);
+  }
+
+  @Test
+  public void testWeigher() {
+    final ConcurrentCache<Integer, byte[]> cache = new ConcurrentCache<>(10000,
+      (key, value) -> value.length);
+    for (int i = 0; i < 100; i++) {
+      cache.put(i, new byte[1000]);
+      Assert.assertTrue(cache.getWeight() <= 10000);
+    }
+    Assert.assertEquals(10, cache.getSize());
+    Assert.assertNull(cache.get(0));
+    Assert.assertNotNull(cache.get(99));
+    Assert.assertEquals(1, cache.getMissCount());
+    Assert.assertEquals(1, cache.getHitCount());
+    cache.setMaxWeight(5000);
+    Assert.assertEquals(5, cache.getSize());
+  }
+}
@@ -0,0 +1,174 @@
+package com.revolsys.core.test.collection;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.collection.list.IntList;
+import com.revolsys.collection.list.LongList;
+import com.revolsys.collection.map.IntHashMap;
+import com.revolsys.collection.map.LongHashMap;
+import com.revolsys.collection.set.IntHashSet;
+import com.revolsys.collection.set.LongHashSet;
+
+public class PrimitiveCollectionsTest {
+
+  private static void assertMapEquals(final Map<Integer, String> expected,
+    final IntHashMap<String> map) {
+    Assert.assertEquals(expected.size(), map.size());
+    Assert.assertEquals(expected, new HashMap<>(map));
+    for (final Integer key : expected.keySet()) {
+      Assert.assertTrue(map.containsKey(key.intValue()));
+      Assert.assertEquals(expected.get(key), map.get(key.intValue()));
+    }
+    final Set<Integer> keys = new HashSet<>();
+    map.forEachEntry((value, key) -> {
+      Assert.assertEquals(expected.get(key), value);
+      keys.add(key);
+    });
+    Assert.assertEquals(expected.keySet(), keys);
+    Assert.assertEquals(expected.size(), map.getKeys().length);
+  }
+
+  @Test
+  public void testIntHashMap() {
+    final Random random = new Random(1);
+    final Map<Integer, String> expected = new HashMap<>();
+    final IntHashMap<String> map = new IntHashMap<>(0);
+    for (int i = 0; i < 20000; i++) {
+      final int key = random.nextInt(2000) - 1000;
+      if (random.nextInt(3) == 0) {
+        Assert.assertEquals(expected.remove(key), map.remove(key));
+      } else {
+        final String value = key % 10 == 0 ? null : Integer.toString(i);
+        Assert.assertEquals(expected.put(key, value), map.putInt(key, value));
+      }
+    }
+    assertMapEquals(expected, map);
+    Assert.assertTrue(map.containsValue(null));
+    Assert.assertFalse(map.containsKey(5000));
+    Assert.assertNull(map.get(5000));
+  }
+
+  @Test
+  public void testIntHashMapIteratorRemove() {
+    final Random random = new Random(2);
+    for (int run = 0; run < 100; run++) {
+      final Map<Integer, String> expected = new HashMap<>();
+      final IntHashMap<String> map = new IntHashMap<>(4, 1f);
+      for (int i = 0; i < 60; i++) {
+        final int key = random.nextInt(100);
+        expected.put(key, "v" + key);
+        map.putInt(key, "v" + key);
+      }
+      final Set<Integer> keys = new HashSet<>(expected.keySet());
+      final Set<Integer> visited = new HashSet<>();
+      for (final Iterator<Integer> iterator = map.keySet().iterator(); iterator.hasNext();) {
+        final Integer key = iterator.next();
+        Assert.assertTrue("Duplicate " + key, visited.add(key));
+        if (random.nextBoolean()) {
+          iterator.remove();
+          expected.remove(key);
+        }
+      }
+      Assert.assertEquals(keys, visited);
+      assertMapEquals(expected, map);
+    }
+  }
+
+  @Test
+  public void testIntHashSet() {
+    final Random random = new Random(3);
+    final Set<Integer> expected = new HashSet<>();
+    final IntHashSet set = new IntHashSet(0);
+    for (int i = 0; i < 20000; i++) {
+      final int value = random.nextInt(2000) - 1000;
+      if (random.nextInt(3) == 0) {
+        Assert.assertEquals(expected.remove(value), set.removeInt(value));
+      } else {
+        Assert.assertEquals(expected.add(value), set.addInt(value));
+      }
+    }
+    Assert.assertEquals(expected, new HashSet<>(set));
+    Assert.assertEquals(expected.size(), set.toIntArray().length);
+    final Set<Integer> values = new HashSet<>();
+    set.forEachInt(values::add);
+    Assert.assertEquals(expected, values);
+
+    for (final Iterator<Integer> iterator = set.iterator(); iterator.hasNext();) {
+      final Integer value = iterator.next();
+      if (value % 2 == 0) {
+        iterator.remove();
+        expected.remove(value);
+      }
+    }
+    Assert.assertEquals(expected, new HashSet<>(set));
+    Assert.assertFalse(set.containsInt(0));
+  }
+
+  @Test
+  public void testLists() {
+    final IntList intList = new IntList();
+    for (int i = 0; i < 100; i++) {
+      intList.addInt(i);
+    }
+    Assert.assertEquals(100, intList.size());
+    Assert.assertEquals(10, intList.removeIndex(10));
+    Assert.assertEquals(99, intList.size());
+    Assert.assertEquals(11, intList.getInt(10));
+    Assert.assertTrue(intList.remove(Integer.valueOf(50)));
+    Assert.assertEquals(-1, intList.indexOfInt(50));
+    intList.addInt(0, -1);
+    Assert.assertEquals(-1, intList.getInt(0));
+    Assert.assertEquals(intList, new IntList(intList));
+    final IntList sortList = new IntList(3, 1, 2);
+    sortList.sort();
+    Assert.assertArrayEquals(new int[] {
+      1, 2, 3
+    }, sortList.toIntArray());
+
+    final LongList longList = new LongList(0);
+    longList.addLong(Long.MAX_VALUE);
+    longList.addLong(1);
+    Assert.assertEquals(Long.MAX_VALUE, longList.getLong(0));
+    Assert.assertTrue(longList.containsLong(1));
+    Assert.assertTrue(longList.removeLong(Long.MAX_VALUE));
+    Assert.assertArrayEquals(new long[] {
+      1
+    }, longList.toLongArray());
+  }
+
+  @Test
+  public void testLongKeys() {
+    final LongHashMap<String> map = new LongHashMap<>();
+    final LongHashSet set = new LongHashSet();
+    final long key1 = 1L << 40;
+    final long key2 = (1L << 40) + 1;
+    final long key3 = 1L << 41;
+    map.putLong(key1, "a");
+    map.put(key2, "b");
+    map.putLong(key3, "c");
+    map.putLong(0, "zero");
+    Assert.assertEquals(4, map.size());
+    Assert.assertEquals("a", map.get(key1));
+    Assert.assertEquals("b", map.get(Long.valueOf(key2)));
+    Assert.assertEquals("c", map.remove(key3));
+    Assert.assertNull(map.get(key3));
+    Assert.assertEquals("zero", map.get(0));
+
+    Assert.assertTrue(set.addLong(key1));
+    Assert.assertTrue(set.addLong(key2));
+    Assert.assertTrue(set.addLong(0));
+    Assert.assertFalse(set.addLong(key1));
+    Assert.assertEquals(3, set.size());
+    Assert.assertTrue(set.removeLong(0));
+    Assert.assertTrue(set.containsLong(key2));
+    Assert.assertFalse(set.containsLong(key3));
+  }
+}
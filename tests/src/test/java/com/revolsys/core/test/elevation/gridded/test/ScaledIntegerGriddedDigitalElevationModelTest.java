@@ -17,10 +17,40 @@ import org.junit.Test;
 import com.revolsys.elevation.gridded.GriddedElevationModel;
 import com.revolsys.elevation.gridded.scaledint.ScaledIntegerGriddedDigitalElevation;
 import com.revolsys.elevation.gridded.scaledint.ScaledIntegerGriddedDigitalElevationModelFile;
+import com.revolsys.elevation.gridded.scaledint.ScaledIntegerGriddedDigitalElevationModelWriter;
+import com.revolsys.elevation.gridded.scaledint.compressed.CompressedScaledIntegerGriddedDigitalElevation;
+import com.revolsys.elevation.gridded.scaledint.compressed.CompressedScaledIntegerGriddedDigitalElevationModelWriter;
 import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.spring.resource.PathResource;
 
 public class ScaledIntegerGriddedDigitalElevationModelTest extends GriddedElevationModelTest {
 
+  private static Path writeModel(final GriddedElevationModel model, final String filePath,
+    final boolean parallel) {
+    final Path path = Paths.get(filePath);
+    com.revolsys.io.file.Paths.createParentDirectories(path);
+    final PathResource resource = new PathResource(path);
+    if (filePath.endsWith(CompressedScaledIntegerGriddedDigitalElevation.FILE_EXTENSION)) {
+      try (
+        CompressedScaledIntegerGriddedDigitalElevationModelWriter writer = (CompressedScaledIntegerGriddedDigitalElevationModelWriter)new CompressedScaledIntegerGriddedDigitalElevation()
+          .newGriddedElevationModelWriter(resource)) {
+        writer.setParallel(parallel);
+        // Not a multiple of the grid height so the last block is partial
+        writer.setBlockRowCount(10);
+        writer.write(model);
+      }
+    } else {
+      try (
+        ScaledIntegerGriddedDigitalElevationModelWriter writer = (ScaledIntegerGriddedDigitalElevationModelWriter)new ScaledIntegerGriddedDigitalElevation()
+          .newGriddedElevationModelWriter(resource)) {
+        writer.setParallel(parallel);
+        writer.setBlockRowCount(10);
+        writer.write(model);
+      }
+    }
+    return path;
+  }
+
   @Override
   public List<String> getFileExtensions() {
     return Arrays.asList(ScaledIntegerGriddedDigitalElevation.FILE_EXTENSION,
@@ -100,4 +130,24 @@ public class ScaledIntegerGriddedDigitalElevationModelTest extends GriddedElevat
     assertModelEquals(expectedModel, actualModel);
   }
 
+  @Test
+  public void test300ParallelWriteSameBytes() throws IOException {
+    final GriddedElevationModel model = GriddedElevationModelTest
+      .newIntArrayModelNaNOnDiagonal(3005);
+    for (final String fileExtension : Arrays.asList(
+      ScaledIntegerGriddedDigitalElevation.FILE_EXTENSION,
+      CompressedScaledIntegerGriddedDigitalElevation.FILE_EXTENSION)) {
+      final Path serialPath = writeModel(model, "target/test/elevation/serial." + fileExtension,
+        false);
+      final Path parallelPath = writeModel(model,
+        "target/test/elevation/parallel." + fileExtension, true);
+      Assert.assertArrayEquals(fileExtension + " bytes", Files.readAllBytes(serialPath),
+        Files.readAllBytes(parallelPath));
+
+      final GriddedElevationModel actualModel = GriddedElevationModel
+        .newGriddedElevationModel(parallelPath);
+      assertModelEquals(model, actualModel);
+    }
+  }
+
 }
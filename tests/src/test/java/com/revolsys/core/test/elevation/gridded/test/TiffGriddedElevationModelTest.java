@@ -0,0 +1,242 @@
+package com.revolsys.core.test.elevation.gridded.test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.elevation.gridded.GriddedElevationModel;
+import com.revolsys.elevation.gridded.GriddedElevationModelReaderFactory;
+import com.revolsys.elevation.gridded.tiff.TiffGriddedElevation;
+import com.revolsys.elevation.gridded.tiff.TiffGriddedElevationModel;
+import com.revolsys.elevation.gridded.tiff.TiffGriddedElevationModelReader;
+import com.revolsys.spring.resource.PathResource;
+
+public class TiffGriddedElevationModelTest {
+
+  private static final int HEIGHT = 24;
+
+  private static final double MIN_X = 1000000;
+
+  private static final double MAX_Y = 500000;
+
+  private static final int TILE_SIZE = 16;
+
+  private static final int WIDTH = 40;
+
+  private static boolean isNoData(final int imageX, final int imageY) {
+    return (imageX + imageY) % 7 == 0;
+  }
+
+  private static float newValue(final int imageX, final int imageY) {
+    return imageX + imageY * 100 + 0.25f;
+  }
+
+  /**
+   * Write a tiled, uncompressed, little endian GeoTIFF with 32-bit float samples in BC Albers
+   * with a 2m cell size.
+   */
+  private static void writeTiff(final Path file, final String noData) throws IOException {
+    final float noDataValue = (float)Double.parseDouble(noData);
+    final int tileCountX = (WIDTH + TILE_SIZE - 1) / TILE_SIZE;
+    final int tileCountY = (HEIGHT + TILE_SIZE - 1) / TILE_SIZE;
+    final int tileCount = tileCountX * tileCountY;
+    final int tileByteCount = TILE_SIZE * TILE_SIZE * 4;
+    final byte[] noDataBytes = (noData + "\0").getBytes(StandardCharsets.US_ASCII);
+    final int entryCount = 16;
+
+    final int ifdOffset = 8;
+    final int tileOffsetsOffset = ifdOffset + 2 + entryCount * 12 + 4;
+    final int tileByteCountsOffset = tileOffsetsOffset + tileCount * 4;
+    final int pixelScaleOffset = tileByteCountsOffset + tileCount * 4;
+    final int tiePointOffset = pixelScaleOffset + 3 * 8;
+    final int geoKeysOffset = tiePointOffset + 6 * 8;
+    final int noDataOffset = geoKeysOffset + 12 * 2;
+    final int dataOffset = noDataOffset + noDataBytes.length + 1 & ~1;
+
+    final ByteBuffer buffer = ByteBuffer.allocate(dataOffset + tileCount * tileByteCount)
+      .order(ByteOrder.LITTLE_ENDIAN);
+    buffer.put((byte)'I').put((byte)'I').putShort((short)42).putInt(ifdOffset);
+    buffer.putShort((short)entryCount);
+    writeEntry(buffer, 256, 3, 1, WIDTH); // ImageWidth
+    writeEntry(buffer, 257, 3, 1, HEIGHT); // ImageLength
+    writeEntry(buffer, 258, 3, 1, 32); // BitsPerSample
+    writeEntry(buffer, 259, 3, 1, 1); // Compression = None
+    writeEntry(buffer, 262, 3, 1, 1); // PhotometricInterpretation = BlackIsZero
+    writeEntry(buffer, 277, 3, 1, 1); // SamplesPerPixel
+    writeEntry(buffer, 284, 3, 1, 1); // PlanarConfiguration = Chunky
+    writeEntry(buffer, 322, 3, 1, TILE_SIZE); // TileWidth
+    writeEntry(buffer, 323, 3, 1, TILE_SIZE); // TileLength
+    writeEntry(buffer, 324, 4, tileCount, tileOffsetsOffset); // TileOffsets
+    writeEntry(buffer, 325, 4, tileCount, tileByteCountsOffset); // TileByteCounts
+    writeEntry(buffer, 339, 3, 1, 3); // SampleFormat = IEEE floating point
+    writeEntry(buffer, 33550, 12, 3, pixelScaleOffset); // ModelPixelScale
+    writeEntry(buffer, 33922, 12, 6, tiePointOffset); // ModelTiepoint
+    writeEntry(buffer, 34735, 3, 12, geoKeysOffset); // GeoKeyDirectory
+    // GDAL_NODATA, values up to 4 bytes are stored in the entry
+    if (noDataBytes.length <= 4) {
+      buffer.putShort((short)42113).putShort((short)2).putInt(noDataBytes.length);
+      buffer.put(Arrays.copyOf(noDataBytes, 4));
+    } else {
+      writeEntry(buffer, 42113, 2, noDataBytes.length, noDataOffset);
+    }
+    buffer.putInt(0);
+
+    for (int i = 0; i < tileCount; i++) {
+      buffer.putInt(dataOffset + i * tileByteCount);
+    }
+    for (int i = 0; i < tileCount; i++) {
+      buffer.putInt(tileByteCount);
+    }
+    buffer.putDouble(2).putDouble(2).putDouble(0);
+    buffer.putDouble(0).putDouble(0).putDouble(0).putDouble(MIN_X).putDouble(MAX_Y).putDouble(0);
+    final short[] geoKeys = {
+      1, 1, 0, 2, //
+      1024, 0, 1, 1, // GTModelTypeGeoKey = Projected
+      3072, 0, 1, 3005 // ProjectedCSTypeGeoKey = BC Albers
+    };
+    for (final short geoKey : geoKeys) {
+      buffer.putShort(geoKey);
+    }
+    buffer.put(noDataBytes);
+
+    buffer.position(dataOffset);
+    for (int tileY = 0; tileY < tileCountY; tileY++) {
+      for (int tileX = 0; tileX < tileCountX; tileX++) {
+        for (int y = 0; y < TILE_SIZE; y++) {
+          for (int x = 0; x < TILE_SIZE; x++) {
+            final int imageX = tileX * TILE_SIZE + x;
+            final int imageY = tileY * TILE_SIZE + y;
+            if (isNoData(imageX, imageY)) {
+              buffer.putFloat(noDataValue);
+            } else {
+              buffer.putFloat(newValue(imageX, imageY));
+            }
+          }
+        }
+      }
+    }
+    Files.write(file, buffer.array());
+  }
+
+  /**
+   * Write a single strip, uncompressed, little endian RGB TIFF with 8-bit samples.
+   */
+  private static void writeRgbTiff(final Path file) throws IOException {
+    final int width = 4;
+    final int height = 4;
+    final int entryCount = 10;
+    final int ifdOffset = 8;
+    final int bitsPerSampleOffset = ifdOffset + 2 + entryCount * 12 + 4;
+    final int dataOffset = bitsPerSampleOffset + 3 * 2;
+    final int byteCount = width * height * 3;
+
+    final ByteBuffer buffer = ByteBuffer.allocate(dataOffset + byteCount)
+      .order(ByteOrder.LITTLE_ENDIAN);
+    buffer.put((byte)'I').put((byte)'I').putShort((short)42).putInt(ifdOffset);
+    buffer.putShort((short)entryCount);
+    writeEntry(buffer, 256, 3, 1, width); // ImageWidth
+    writeEntry(buffer, 257, 3, 1, height); // ImageLength
+    writeEntry(buffer, 258, 3, 3, bitsPerSampleOffset); // BitsPerSample
+    writeEntry(buffer, 259, 3, 1, 1); // Compression = None
+    writeEntry(buffer, 262, 3, 1, 2); // PhotometricInterpretation = RGB
+    writeEntry(buffer, 273, 4, 1, dataOffset); // StripOffsets
+    writeEntry(buffer, 277, 3, 1, 3); // SamplesPerPixel
+    writeEntry(buffer, 278, 3, 1, height); // RowsPerStrip
+    writeEntry(buffer, 279, 4, 1, byteCount); // StripByteCounts
+    writeEntry(buffer, 284, 3, 1, 1); // PlanarConfiguration = Chunky
+    buffer.putInt(0);
+    buffer.putShort((short)8).putShort((short)8).putShort((short)8);
+    for (int i = 0; i < byteCount; i++) {
+      buffer.put((byte)i);
+    }
+    Files.write(file, buffer.array());
+  }
+
+  private static void writeEntry(final ByteBuffer buffer, final int tag, final int type,
+    final int count, final int value) {
+    buffer.putShort((short)tag);
+    buffer.putShort((short)type);
+    buffer.putInt(count);
+    if (type == 3 && count == 1) {
+      buffer.putShort((short)value);
+      buffer.putShort((short)0);
+    } else {
+      buffer.putInt(value);
+    }
+  }
+
+  private void assertNoData(final String noData) throws IOException {
+    final Path file = Files.createTempFile("dem", ".tif");
+    try {
+      writeTiff(file, noData);
+      final TiffGriddedElevationModelReader reader = new TiffGriddedElevationModelReader(
+        new PathResource(file), Collections.emptyMap());
+      final GriddedElevationModel elevationModel = reader.read();
+      Assert.assertTrue("Lazy model", elevationModel instanceof TiffGriddedElevationModel);
+      Assert.assertEquals("No data", Double.parseDouble(noData), reader.getNoDataValue(), 0);
+      Assert.assertEquals("Width", WIDTH, elevationModel.getGridWidth());
+      Assert.assertEquals("Height", HEIGHT, elevationModel.getGridHeight());
+      Assert.assertEquals("Min X", MIN_X, elevationModel.getGridMinX(), 0);
+      Assert.assertEquals("Min Y", MAX_Y - HEIGHT * 2, elevationModel.getGridMinY(), 0);
+      for (int imageY = 0; imageY < HEIGHT; imageY++) {
+        for (int imageX = 0; imageX < WIDTH; imageX++) {
+          final int gridY = HEIGHT - 1 - imageY;
+          final double value = elevationModel.getValue(imageX, gridY);
+          final String message = imageX + "," + imageY;
+          if (isNoData(imageX, imageY)) {
+            Assert.assertTrue(message + " NaN not " + value, Double.isNaN(value));
+          } else {
+            Assert.assertEquals(message, newValue(imageX, imageY), value, 0);
+          }
+        }
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testNoDataExactFloat() throws IOException {
+    assertNoData("-9999");
+  }
+
+  @Test
+  public void testNoDataNotExactFloat() throws IOException {
+    // GDAL writes -FLT_MAX with 15 significant digits, which isn't exactly a float
+    assertNoData("-3.40282346638529e+38");
+    assertNoData("0.1");
+  }
+
+  @Test
+  public void testRgbImageNotElevation() throws IOException {
+    final Path file = Files.createTempFile("image", ".tif");
+    try {
+      writeRgbTiff(file);
+      final PathResource resource = new PathResource(file);
+      final TiffGriddedElevation factory = new TiffGriddedElevation();
+      Assert.assertFalse("RGB image", factory.isGriddedElevationModel(resource));
+      Assert.assertFalse("RGB image",
+        GriddedElevationModelReaderFactory.hasGriddedElevationModel(resource));
+      final TiffGriddedElevationModelReader reader = new TiffGriddedElevationModelReader(resource,
+        Collections.emptyMap());
+      try {
+        reader.read();
+        Assert.fail("RGB image read as elevation model");
+      } catch (final IllegalArgumentException e) {
+      }
+
+      writeTiff(file, "-9999");
+      Assert.assertTrue("Float DEM", factory.isGriddedElevationModel(resource));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
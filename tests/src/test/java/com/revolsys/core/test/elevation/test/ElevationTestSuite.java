@@ -6,11 +6,13 @@ import org.junit.runners.Suite.SuiteClasses;
 
 import com.revolsys.core.test.elevation.gridded.test.EsriAsciiGriddedElevationModelTest;
 import com.revolsys.core.test.elevation.gridded.test.ScaledIntegerGriddedDigitalElevationModelTest;
+import com.revolsys.core.test.elevation.gridded.test.TiffGriddedElevationModelTest;
 
 @RunWith(Suite.class)
 @SuiteClasses({
   ScaledIntegerGriddedDigitalElevationModelTest.class, //
-  EsriAsciiGriddedElevationModelTest.class //
+  EsriAsciiGriddedElevationModelTest.class, //
+  TiffGriddedElevationModelTest.class //
 })
 public class ElevationTestSuite {
 
@@ -0,0 +1,71 @@
+package com.revolsys.core.test.geometry.test.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.index.quadtree.ConcurrentQuadTree;
+import com.revolsys.geometry.model.GeometryFactory;
+
+public class ConcurrentQuadTreeTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.DEFAULT_2D;
+
+  @Test
+  public void testQueryDuringInsertAndRemove() throws InterruptedException {
+    final ConcurrentQuadTree<Integer> tree = new ConcurrentQuadTree<>(GEOMETRY_FACTORY);
+    // Fixed items that must always be visible to the readers
+    final int fixedCount = 1000;
+    for (int i = 0; i < fixedCount; i++) {
+      final double x = i % 100 * 10;
+      final double y = i / 100 * 10;
+      tree.insertItem(x, y, x + 1, y + 1, i);
+    }
+
+    final AtomicBoolean running = new AtomicBoolean(true);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final List<Thread> readers = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      final Thread reader = new Thread(() -> {
+        try {
+          while (running.get()) {
+            final int[] count = new int[1];
+            tree.forEach(0, 0, 1000, 1000, item -> {
+              if (item < fixedCount) {
+                count[0]++;
+              }
+            });
+            Assert.assertEquals(fixedCount, count[0]);
+          }
+        } catch (final Throwable e) {
+          failure.compareAndSet(null, e);
+        }
+      });
+      reader.start();
+      readers.add(reader);
+    }
+
+    for (int round = 0; round < 20; round++) {
+      for (int i = 0; i < 1000; i++) {
+        final double x = i % 100 * 10 + 5;
+        final double y = i / 100 * 10 + 5;
+        tree.insertItem(x, y, x + 2, y + 2, fixedCount + i);
+      }
+      for (int i = 0; i < 1000; i++) {
+        final double x = i % 100 * 10 + 5;
+        final double y = i / 100 * 10 + 5;
+        Assert.assertTrue(tree.removeItem(x, y, x + 2, y + 2, fixedCount + i));
+      }
+    }
+    running.set(false);
+    for (final Thread reader : readers) {
+      reader.join();
+    }
+    Assert.assertNull(failure.get());
+    Assert.assertEquals(fixedCount, tree.getSize());
+  }
+}
@@ -0,0 +1,205 @@
+package com.revolsys.core.test.geometry.test.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.index.NearestItemIterator;
+import com.revolsys.geometry.index.SpatialIndex;
+import com.revolsys.geometry.index.kdtree.KdNode;
+import com.revolsys.geometry.index.kdtree.KdTree;
+import com.revolsys.geometry.index.quadtree.IdObjectQuadTree;
+import com.revolsys.geometry.index.quadtree.PointQuadTree;
+import com.revolsys.geometry.index.quadtree.QuadTree;
+import com.revolsys.geometry.index.rstartree.RStarTree;
+import com.revolsys.geometry.index.rtree.PackedHilbertRTree;
+import com.revolsys.geometry.index.rtree.RTree;
+import com.revolsys.geometry.index.strtree.StrTree;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryFactory;
+
+public class NearestItemsTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.DEFAULT_2D;
+
+  private static List<BoundingBox> newBoundingBoxes(final int count) {
+    final Random random = new Random(42);
+    final List<BoundingBox> boundingBoxes = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      final double x = random.nextDouble() * 1000;
+      final double y = random.nextDouble() * 1000;
+      final double width = random.nextDouble() * 10;
+      final double height = random.nextDouble() * 10;
+      boundingBoxes.add(GEOMETRY_FACTORY.newBoundingBox(x, y, x + width, y + height));
+    }
+    return boundingBoxes;
+  }
+
+  private void assertNearest(final List<BoundingBox> boundingBoxes,
+    final SpatialIndex<Integer> index) {
+    for (int i = 0; i < boundingBoxes.size(); i++) {
+      index.insertItem(boundingBoxes.get(i), i);
+    }
+    final Random random = new Random(7);
+    for (int i = 0; i < 50; i++) {
+      final double x = random.nextDouble() * 1200 - 100;
+      final double y = random.nextDouble() * 1200 - 100;
+      final double maxDistance = i % 2 == 0 ? Double.POSITIVE_INFINITY : 30;
+      final ToDoubleFunction<Integer> itemDistance = item -> boundingBoxes.get(item)
+        .bboxDistance(x, y);
+
+      final List<Double> expected = new ArrayList<>();
+      for (final BoundingBox boundingBox : boundingBoxes) {
+        final double distance = boundingBox.bboxDistance(x, y);
+        if (distance <= maxDistance) {
+          expected.add(distance);
+        }
+      }
+      expected.sort(Comparator.naturalOrder());
+
+      final NearestItemIterator<Integer> nearestItems = index.nearestItems(x, y, maxDistance,
+        itemDistance);
+      final List<Double> actual = new ArrayList<>();
+      while (actual.size() < 10 && nearestItems.hasNext()) {
+        final Integer item = nearestItems.next();
+        Assert.assertEquals(itemDistance.applyAsDouble(item), nearestItems.getDistance(), 0);
+        actual.add(nearestItems.getDistance());
+      }
+      Assert.assertEquals(expected.subList(0, Math.min(10, expected.size())), actual);
+
+      final List<Integer> items = index.getNearestItems(x, y, 3, maxDistance, itemDistance);
+      Assert.assertEquals(Math.min(3, expected.size()), items.size());
+    }
+  }
+
+  @Test
+  public void testIdObjectQuadTree() {
+    final List<BoundingBox> boundingBoxes = newBoundingBoxes(2000);
+    // Crosses the axes so is stored in the root node
+    boundingBoxes.add(GEOMETRY_FACTORY.newBoundingBox(-5, -5, 5, 5));
+    final IdObjectQuadTree<Integer> tree = new IdObjectQuadTree<>(GEOMETRY_FACTORY) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected BoundingBox getBoundingBox(final Integer item) {
+        return boundingBoxes.get(item);
+      }
+
+      @Override
+      protected boolean intersectsBounds(final Object id, final double x, final double y) {
+        return boundingBoxes.get((Integer)id).bboxIntersects(x, y);
+      }
+
+      @Override
+      protected boolean intersectsBounds(final Object id, final double minX, final double minY,
+        final double maxX, final double maxY) {
+        return boundingBoxes.get((Integer)id).bboxIntersects(minX, minY, maxX, maxY);
+      }
+    };
+    assertNearest(boundingBoxes, tree);
+
+    // Without an item distance the items are ordered by the distance to their bounding box
+    final NearestItemIterator<Integer> nearestItems = tree.nearestItems(500, 500, 50, null);
+    double previousDistance = 0;
+    int count = 0;
+    for (final Integer item : nearestItems) {
+      final double distance = boundingBoxes.get(item).bboxDistance(500, 500);
+      Assert.assertEquals(distance, nearestItems.getDistance(), 0);
+      Assert.assertTrue(distance >= previousDistance);
+      previousDistance = distance;
+      count++;
+    }
+    int expectedCount = 0;
+    for (final BoundingBox boundingBox : boundingBoxes) {
+      if (boundingBox.bboxDistance(500, 500) <= 50) {
+        expectedCount++;
+      }
+    }
+    Assert.assertEquals(expectedCount, count);
+    Assert.assertEquals("Root item", boundingBoxes.size() - 1,
+      (int)tree.nearestItems(-20, 0, 100, null).next());
+  }
+
+  @Test
+  public void testKdTree() {
+    final KdTree tree = new KdTree();
+    final Random random = new Random(42);
+    for (int i = 0; i < 1000; i++) {
+      tree.insertPoint(random.nextDouble() * 1000, random.nextDouble() * 1000);
+    }
+    final List<KdNode> nodes = tree.getNearestNodes(500, 500, 5, Double.POSITIVE_INFINITY);
+    Assert.assertEquals(5, nodes.size());
+    final List<KdNode> allNodes = tree
+      .getItems(GEOMETRY_FACTORY.newBoundingBox(-1, -1, 1001, 1001));
+    allNodes.sort(Comparator.comparingDouble(node -> node.distancePoint(500, 500)));
+    for (int i = 0; i < nodes.size(); i++) {
+      Assert.assertEquals(allNodes.get(i).distancePoint(500, 500),
+        nodes.get(i).distancePoint(500, 500), 0);
+    }
+    Assert.assertNull(tree.getNearestNode(-100, -100, 1));
+  }
+
+  @Test
+  public void testPackedHilbertRTree() {
+    assertNearest(newBoundingBoxes(2000), new PackedHilbertRTree<>());
+  }
+
+  @Test
+  public void testPointQuadTree() {
+    final PointQuadTree<Integer> tree = new PointQuadTree<>(GEOMETRY_FACTORY);
+    final Random random = new Random(42);
+    final List<double[]> points = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      final double x = random.nextDouble() * 1000;
+      final double y = random.nextDouble() * 1000;
+      points.add(new double[] {
+        x, y
+      });
+      tree.put(x, y, i);
+    }
+    final NearestItemIterator<Integer> nearestItems = tree.nearestItems(250, 750, 100);
+    double previousDistance = 0;
+    int count = 0;
+    for (final Integer item : nearestItems) {
+      final double[] point = points.get(item);
+      final double distance = Math.hypot(point[0] - 250, point[1] - 750);
+      Assert.assertEquals(distance, nearestItems.getDistance(), 1e-9);
+      Assert.assertTrue(distance >= previousDistance);
+      Assert.assertTrue(distance <= 100);
+      previousDistance = distance;
+      count++;
+    }
+    int expectedCount = 0;
+    for (final double[] point : points) {
+      if (Math.hypot(point[0] - 250, point[1] - 750) <= 100) {
+        expectedCount++;
+      }
+    }
+    Assert.assertEquals(expectedCount, count);
+  }
+
+  @Test
+  public void testQuadTree() {
+    assertNearest(newBoundingBoxes(2000), new QuadTree<>(GEOMETRY_FACTORY));
+  }
+
+  @Test
+  public void testRStarTree() {
+    assertNearest(newBoundingBoxes(2000), new RStarTree<>(GEOMETRY_FACTORY));
+  }
+
+  @Test
+  public void testRTree() {
+    assertNearest(newBoundingBoxes(2000), new RTree<>());
+  }
+
+  @Test
+  public void testStrTree() {
+    assertNearest(newBoundingBoxes(2000), new StrTree<>());
+  }
+}
@@ -0,0 +1,87 @@
+package com.revolsys.core.test.geometry.test.index;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.index.rtree.PackedHilbertRTree;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryFactory;
+
+public class PackedHilbertRTreeTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.DEFAULT_2D;
+
+  private static List<BoundingBox> newBoundingBoxes(final int count) {
+    final Random random = new Random(42);
+    final List<BoundingBox> boundingBoxes = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      final double x = random.nextDouble() * 1000;
+      final double y = random.nextDouble() * 1000;
+      final double width = random.nextDouble() * 10;
+      final double height = random.nextDouble() * 10;
+      boundingBoxes.add(GEOMETRY_FACTORY.newBoundingBox(x, y, x + width, y + height));
+    }
+    return boundingBoxes;
+  }
+
+  private void assertQueries(final List<BoundingBox> boundingBoxes,
+    final PackedHilbertRTree<Integer> tree) {
+    Assert.assertEquals(boundingBoxes.size(), tree.getSize());
+    Assert.assertEquals(boundingBoxes.size(), tree.getItems().size());
+    final Random random = new Random(7);
+    for (int i = 0; i < 100; i++) {
+      final double x = random.nextDouble() * 1000;
+      final double y = random.nextDouble() * 1000;
+      final BoundingBox query = GEOMETRY_FACTORY.newBoundingBox(x, y, x + 50, y + 50);
+      final List<Integer> expected = new ArrayList<>();
+      for (int id = 0; id < boundingBoxes.size(); id++) {
+        if (boundingBoxes.get(id).bboxIntersects(query)) {
+          expected.add(id);
+        }
+      }
+      final List<Integer> actual = tree.getItems(query);
+      Collections.sort(actual);
+      Assert.assertEquals(expected, actual);
+    }
+  }
+
+  @Test
+  public void testQuery() {
+    for (final int count : new int[] {
+      0, 1, 15, 16, 17, 1000, 10000
+    }) {
+      final List<BoundingBox> boundingBoxes = newBoundingBoxes(count);
+      final PackedHilbertRTree<Integer> tree = new PackedHilbertRTree<>();
+      for (int id = 0; id < count; id++) {
+        tree.insertItem(boundingBoxes.get(id), id);
+      }
+      assertQueries(boundingBoxes, tree);
+    }
+  }
+
+  @Test
+  public void testWriteOpen() throws IOException {
+    final List<BoundingBox> boundingBoxes = newBoundingBoxes(5000);
+    final PackedHilbertRTree<Integer> tree = new PackedHilbertRTree<>(8);
+    for (int id = 0; id < boundingBoxes.size(); id++) {
+      tree.insertItem(boundingBoxes.get(id), id);
+    }
+    final Path file = Files.createTempFile("rtree", ".hprt");
+    try {
+      tree.write(file);
+      final PackedHilbertRTree<Integer> mappedTree = PackedHilbertRTree.open(file, id -> id);
+      Assert.assertEquals(8, mappedTree.getNodeSize());
+      assertQueries(boundingBoxes, mappedTree);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -9,8 +9,11 @@ import org.junit.Test;
 import com.revolsys.geometry.algorithm.LineStringLocation;
 import com.revolsys.geometry.model.GeometryFactory;
 import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.LinearRing;
 import com.revolsys.geometry.model.Point;
 import com.revolsys.geometry.model.Side;
+import com.revolsys.geometry.model.impl.LineStringIntGf;
+import com.revolsys.geometry.model.impl.LinearRingIntGf;
 import com.revolsys.geometry.model.impl.PointDouble;
 import com.revolsys.geometry.model.metrics.PointLineStringMetrics;
 import com.revolsys.testapi.GeometryAssert;
@@ -417,6 +420,37 @@ public class LineStringTest {
 
   }
 
+  @Test
+  public void testScaledIntCoordinates() {
+    final GeometryFactory geometryFactory = GeometryFactory.fixed3d(EpsgId.nad83Utm(10), 1000.0,
+      1000.0, 1000.0);
+    final LineString line = geometryFactory.lineString(3, START_X + 0.001, START_Y - 0.002, 1.5,
+      START_X + 10.123, START_Y + 20.456, Double.NaN, START_X + 30, START_Y, 2);
+    Assert.assertTrue("Scaled int line", line instanceof LineStringIntGf);
+    Assert.assertEquals("X", START_X + 10.123, line.getX(1), 0);
+    Assert.assertEquals("Y", START_Y - 0.002, line.getY(0), 0);
+    Assert.assertEquals("Z", 2, line.getZ(2), 0);
+    Assert.assertTrue("Z NaN", Double.isNaN(line.getZ(1)));
+    Assert.assertArrayEquals("Coordinates", new double[] {
+      START_X + 0.001, START_Y - 0.002, 1.5, START_X + 10.123, START_Y + 20.456, Double.NaN,
+      START_X + 30, START_Y, 2
+    }, line.getCoordinates(), 0);
+
+    final LineString doubleLine = GeometryFactory.floating3d(EpsgId.nad83Utm(10))
+      .lineString(line);
+    Assert.assertTrue("Equals double line", line.equals(2, doubleLine));
+
+    final LinearRing ring = geometryFactory.linearRing(2, START_X, START_Y, START_X + 10.5,
+      START_Y, START_X + 10.5, START_Y + 10.25, START_X, START_Y);
+    Assert.assertTrue("Scaled int ring", ring instanceof LinearRingIntGf);
+    Assert.assertEquals("Ring Y", START_Y + 10.25, ring.getY(2), 0);
+
+    // Lines with an extent too large for an int use double coordinates
+    final LineString largeLine = geometryFactory.lineString(2, 1e10, 0, 2e10, 0);
+    Assert.assertFalse("Large line", largeLine instanceof LineStringIntGf);
+    Assert.assertEquals("Large X", 2e10, largeLine.getX(1), 0);
+  }
+
   @Test
   public void testSplit() {
     final GeometryFactory geometryFactory = GeometryFactory.fixed3d(EpsgId.nad83Utm(10), 1000.0,
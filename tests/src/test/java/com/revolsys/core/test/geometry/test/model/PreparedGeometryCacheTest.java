@@ -0,0 +1,96 @@
+package com.revolsys.core.test.geometry.test.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.LinearRing;
+import com.revolsys.geometry.model.Point;
+import com.revolsys.geometry.model.Polygon;
+import com.revolsys.geometry.model.prep.PreparedGeometryCache;
+import com.revolsys.geometry.model.prep.PreparedLineString;
+import com.revolsys.geometry.model.prep.PreparedLinearRing;
+import com.revolsys.geometry.model.prep.PreparedPolygon;
+
+public class PreparedGeometryCacheTest {
+
+  private static void assertCollected(final PreparedGeometryCache cache)
+    throws InterruptedException {
+    for (int i = 0; i < 100 && cache.size() > 0; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    Assert.assertEquals("Collected", 0, cache.size());
+  }
+
+  /**
+   * Prepare the geometries in a separate method so the test doesn't have a reference to them.
+   */
+  private static void prepareLines(final PreparedGeometryCache cache) {
+    final LineString line = GeometryFactory.DEFAULT_2D.lineString(2, 0, 0, 10, 10, 20, 0);
+    final LinearRing ring = GeometryFactory.DEFAULT_2D.linearRing(2, 0, 0, 10, 0, 10, 10, 0, 0);
+    final Geometry preparedLine = cache.prepare(line);
+    final Geometry preparedRing = cache.prepare(ring);
+    Assert.assertTrue(preparedLine instanceof PreparedLineString);
+    Assert.assertTrue(preparedRing instanceof PreparedLinearRing);
+    Assert.assertSame("Cached", preparedLine, cache.prepare(line));
+    Assert.assertSame("Cached", preparedRing, cache.prepare(ring));
+    Assert.assertEquals(2, cache.size());
+  }
+
+  private static Polygon newSquare(final double x, final double y) {
+    return GeometryFactory.DEFAULT_2D.polygon(2, x, y, x + 10, y, x + 10, y + 10, x, y + 10, x, y);
+  }
+
+  @Test
+  public void testEviction() {
+    final PreparedGeometryCache cache = new PreparedGeometryCache(2);
+    final Polygon square1 = newSquare(0, 0);
+    final Polygon square2 = newSquare(10, 0);
+    final Polygon square3 = newSquare(20, 0);
+    final Geometry prepared1 = cache.prepare(square1);
+    final Geometry prepared2 = cache.prepare(square2);
+    final Geometry prepared3 = cache.prepare(square3);
+    Assert.assertEquals(2, cache.size());
+    Assert.assertNotSame("Evicted", prepared1, cache.prepare(square1));
+    // The prepared geometries are weakly referenced so must be in use to stay in the cache
+    Assert.assertSame("Cached", prepared3, cache.prepare(square3));
+    Assert.assertNotSame(prepared2, prepared3);
+  }
+
+  @Test
+  public void testGarbageCollected() throws InterruptedException {
+    // The prepared lines reference the source line so they mustn't stop it being collected
+    final PreparedGeometryCache cache = new PreparedGeometryCache(10);
+    prepareLines(cache);
+    assertCollected(cache);
+  }
+
+  @Test
+  public void testIdentity() {
+    final PreparedGeometryCache cache = new PreparedGeometryCache(10);
+    final Polygon square = newSquare(0, 0);
+    final Geometry prepared = cache.prepare(square);
+    Assert.assertTrue(prepared instanceof PreparedPolygon);
+    Assert.assertSame("Cached", prepared, cache.prepare(square));
+    Assert.assertEquals(1, cache.getHitCount());
+
+    // Equal but not the same geometry
+    final Polygon equalSquare = newSquare(0, 0);
+    Assert.assertNotSame("Equal geometry", prepared, cache.prepare(equalSquare));
+    Assert.assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  public void testPreparedNotCached() {
+    final PreparedGeometryCache cache = new PreparedGeometryCache(10);
+    final LineString line = GeometryFactory.DEFAULT_2D.lineString(2, 0, 0, 10, 10);
+    final Geometry prepared = line.prepare();
+    Assert.assertSame("Already prepared", prepared, cache.prepare(prepared));
+    final Point point = GeometryFactory.DEFAULT_2D.point(1, 2);
+    Assert.assertSame("Point", point, cache.prepare(point));
+    Assert.assertEquals(0, cache.size());
+  }
+}
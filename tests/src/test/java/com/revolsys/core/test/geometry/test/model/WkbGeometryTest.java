@@ -0,0 +1,81 @@
+package com.revolsys.core.test.geometry.test.model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.jeometry.coordinatesystem.model.systems.EpsgId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+import com.revolsys.geometry.model.Polygon;
+import com.revolsys.geometry.wkb.LineStringWkb;
+import com.revolsys.geometry.wkb.WkbByteBufferReader;
+import com.revolsys.geometry.wkb.WkbChannelWriter;
+
+public class WkbGeometryTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory
+    .floating3d(EpsgId.nad83Utm(10));
+
+  private static byte[] toWkb(final Geometry geometry) {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (
+      WkbChannelWriter writer = new WkbChannelWriter(out)) {
+      writer.writeGeometry(geometry);
+    }
+    return out.toByteArray();
+  }
+
+  private void assertLazy(final Geometry geometry) {
+    final byte[] wkb = toWkb(geometry);
+    final Geometry eager = WkbByteBufferReader.readGeometry(GEOMETRY_FACTORY,
+      ByteBuffer.wrap(wkb));
+    final Geometry lazy = WkbByteBufferReader.readGeometryLazy(GEOMETRY_FACTORY,
+      ByteBuffer.wrap(wkb));
+    Assert.assertEquals(eager, lazy);
+    Assert.assertEquals(eager.getBoundingBox(), lazy.getBoundingBox());
+    Assert.assertTrue(eager.equals(3, lazy));
+    Assert.assertArrayEquals(wkb, toWkb(lazy));
+  }
+
+  @Test
+  public void testLineString() {
+    final LineString line = GEOMETRY_FACTORY.lineString(3, 500000.0, 5000000, 1, 500010, 5000020,
+      2, 500030, 5000010, 3);
+    assertLazy(line);
+
+    final byte[] wkb = toWkb(line);
+    final LineString lazy = WkbByteBufferReader.readGeometryLazy(GEOMETRY_FACTORY,
+      ByteBuffer.wrap(wkb));
+    Assert.assertTrue(lazy instanceof LineStringWkb);
+    Assert.assertEquals(500010, lazy.getX(1), 0);
+    Assert.assertEquals(5000020, lazy.getY(1), 0);
+    Assert.assertEquals(2, lazy.getZ(1), 0);
+    Assert.assertEquals(3, lazy.getCoordinate(-1, 2), 0);
+    Assert.assertArrayEquals(line.getCoordinates(), lazy.getCoordinates(), 0);
+
+    final ByteBuffer lazyWkb = ((LineStringWkb)lazy).getWkb();
+    final byte[] lazyBytes = new byte[lazyWkb.remaining()];
+    lazyWkb.get(lazyBytes);
+    Assert.assertTrue(Arrays.equals(wkb, lazyBytes));
+  }
+
+  @Test
+  public void testMultiGeometries() {
+    final LineString line1 = GEOMETRY_FACTORY.lineString(3, 0.0, 0, 1, 10, 10, 2);
+    final LineString line2 = GEOMETRY_FACTORY.lineString(3, 20.0, 20, 1, 30, 30, 2, 40, 20, 3);
+    assertLazy(GEOMETRY_FACTORY.lineal(line1, line2));
+
+    final Polygon polygon1 = GEOMETRY_FACTORY.polygon(3, 0.0, 0, 1, 10, 0, 1, 10, 10, 1, 0, 10, 1,
+      0, 0, 1);
+    final Polygon polygon2 = GEOMETRY_FACTORY.polygon(3, 20.0, 0, 1, 30, 0, 1, 30, 10, 1, 20, 10, 1,
+      20, 0, 1);
+    assertLazy(polygon1);
+    assertLazy(GEOMETRY_FACTORY.polygonal(polygon1, polygon2));
+    assertLazy(GEOMETRY_FACTORY.geometry(line1, polygon2, GEOMETRY_FACTORY.point(1, 2, 3)));
+  }
+}
@@ -8,6 +8,7 @@ import com.revolsys.core.test.geometry.test.old.junit.GeometryUtils;
 import com.revolsys.geometry.model.Geometry;
 import com.revolsys.geometry.model.GeometryFactory;
 import com.revolsys.geometry.model.Polygon;
+import com.revolsys.geometry.model.Polygonal;
 import com.revolsys.geometry.operation.union.CascadedPolygonUnion;
 
 import junit.framework.TestCase;
@@ -62,6 +63,22 @@ public class CascadedPolygonUnionTest extends TestCase {
     runTest(polygons, CascadedPolygonUnionTester.MIN_SIMILARITY_MEAURE);
   }
 
+  public void testCoverage() throws Exception {
+    final List<Polygon> squares = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      for (int j = 0; j < 10; j++) {
+        // Leave a hole in the middle of the coverage
+        if (i != 5 || j != 5) {
+          squares.add(this.geomFactory.polygon(2, i, j, i + 1, j, i + 1, j + 1, i, j + 1, i, j));
+        }
+      }
+    }
+    final Polygonal union = CascadedPolygonUnion.unionCoverage(squares);
+    assertEquals(1, union.getGeometryCount());
+    assertEquals(99.0, union.getArea(), 0.0);
+    assertEquals(2, ((Polygon)union.getGeometry(0)).getRingCount());
+  }
+
   public void testDiscs1() throws Exception {
     final Collection<Polygon> geoms = newDiscs(5, 0.7);
 
@@ -77,4 +94,14 @@ public class CascadedPolygonUnionTest extends TestCase {
 
     runTest(geoms, CascadedPolygonUnionTester.MIN_SIMILARITY_MEAURE);
   }
+
+  public void testParallel() throws Exception {
+    final Collection<Polygon> geoms = newDiscs(20, 0.7);
+    final CascadedPolygonUnion op = new CascadedPolygonUnion(geoms);
+    op.setParallel(true);
+    op.setSerialThreshold(8);
+    final Polygonal parallelUnion = op.union();
+    final Polygonal serialUnion = CascadedPolygonUnion.union(geoms);
+    assertEquals(serialUnion.getArea(), parallelUnion.getArea(), 1e-6);
+  }
 }
@@ -0,0 +1,78 @@
+package com.revolsys.core.test.geometry.test.operation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.operation.valid.GeometryValidationError;
+import com.revolsys.geometry.operation.valid.IsValidOp;
+import com.revolsys.geometry.operation.valid.TopologyValidationError;
+
+public class IsValidIndexedTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.floating2d(3005);
+
+  private void assertValid(final String wkt, final int errorType) {
+    final Geometry geometry = GEOMETRY_FACTORY.geometry(wkt);
+    final IsValidOp graphOp = new IsValidOp(geometry);
+    final IsValidOp indexedOp = new IsValidOp(geometry);
+    indexedOp.setIndexed(true);
+    final boolean valid = errorType < 0;
+    Assert.assertEquals(wkt, valid, graphOp.isValid());
+    Assert.assertEquals(wkt, valid, indexedOp.isValid());
+    if (!valid) {
+      final TopologyValidationError error = (TopologyValidationError)indexedOp
+        .getValidationError();
+      Assert.assertEquals(wkt, errorType, error.getErrorType());
+    }
+  }
+
+  @Test
+  public void testBatch() {
+    final List<Geometry> geometries = Arrays.asList(
+      GEOMETRY_FACTORY.geometry("POLYGON((0 0,10 0,10 10,0 10,0 0))"), null,
+      GEOMETRY_FACTORY.geometry("POLYGON((0 0,10 10,10 0,0 10,0 0))"));
+    final List<List<GeometryValidationError>> errors = IsValidOp.getErrors(geometries);
+    Assert.assertEquals(3, errors.size());
+    Assert.assertTrue(errors.get(0).isEmpty());
+    Assert.assertTrue(errors.get(1).isEmpty());
+    Assert.assertEquals(1, errors.get(2).size());
+
+    final Map<Geometry, List<GeometryValidationError>> errorsByGeometry = IsValidOp
+      .getErrors(Arrays.asList(geometries.get(0), geometries.get(2)), geometry -> geometry);
+    Assert.assertEquals(1, errorsByGeometry.size());
+    Assert.assertTrue(errorsByGeometry.containsKey(geometries.get(2)));
+  }
+
+  @Test
+  public void testPolygons() {
+    assertValid("POLYGON((0 0,10 0,10 10,0 10,0 0))", -1);
+    assertValid("POLYGON((0 0,10 0,10 10,0 10,0 0),(2 2,4 2,4 4,2 4,2 2),(6 6,8 6,8 8,6 8,6 6))",
+      -1);
+    assertValid("POLYGON((0 0,10 0,10 10,0 10,0 0),(0 5,5 5,5 8,0 5))", -1);
+    assertValid("POLYGON((0 0,10 0,10 10,0 10,0 0),(2 2,5 2,5 5,2 2),(5 5,8 5,8 8,5 5))", -1);
+    assertValid("POLYGON((0 0,10 10,10 0,0 10,0 0))", TopologyValidationError.SELF_INTERSECTION);
+    assertValid("POLYGON((0 0,10 0,10 10,0 10,0 0),(12 2,14 2,14 4,12 4,12 2))",
+      TopologyValidationError.HOLE_OUTSIDE_SHELL);
+    assertValid("POLYGON((0 0,10 0,10 10,0 10,0 0),(1 1,9 1,9 9,1 9,1 1),(2 2,4 2,4 4,2 4,2 2))",
+      TopologyValidationError.NESTED_HOLES);
+    assertValid("POLYGON((0 0,10 0,10 10,0 10,0 0),(0 5,5 0,10 5,5 10,0 5))",
+      TopologyValidationError.DISCONNECTED_INTERIOR);
+    assertValid("POLYGON((0 0,10 0,10 10,5 0,0 10,0 0))",
+      TopologyValidationError.RING_SELF_INTERSECTION);
+    assertValid("MULTIPOLYGON(((0 0,10 0,10 10,0 10,0 0)),((10 0,20 0,20 10,10 10,10 0)))",
+      TopologyValidationError.SELF_INTERSECTION);
+    assertValid("MULTIPOLYGON(((0 0,10 0,10 10,0 10,0 0)),((2 2,4 2,4 4,2 4,2 2)))",
+      TopologyValidationError.NESTED_SHELLS);
+    assertValid(
+      "MULTIPOLYGON(((0 0,10 0,10 10,0 10,0 0),(1 1,9 1,9 9,1 9,1 1)),((2 2,4 2,4 4,2 4,2 2)))",
+      -1);
+    assertValid("MULTIPOLYGON(((0 0,10 0,10 10,0 10,0 0)),((10 10,20 10,20 20,10 20,10 10)))",
+      -1);
+  }
+}
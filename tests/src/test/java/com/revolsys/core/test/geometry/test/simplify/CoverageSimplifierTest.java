@@ -0,0 +1,61 @@
+package com.revolsys.core.test.geometry.test.simplify;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.simplify.CoverageSimplifier;
+
+public class CoverageSimplifierTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.floating2d(3005);
+
+  private List<Geometry> simplify(final boolean parallel, final String... wkts) {
+    final List<Geometry> geometries = Arrays.asList(wkts)
+      .stream()
+      .map(wkt -> (Geometry)GEOMETRY_FACTORY.geometry(wkt))
+      .collect(Collectors.toList());
+    final CoverageSimplifier simplifier = new CoverageSimplifier(2);
+    simplifier.setParallel(parallel);
+    final List<Geometry> simplified = simplifier.simplify(geometries);
+    Assert.assertEquals(geometries.size(), simplified.size());
+    for (int i = 0; i < geometries.size(); i++) {
+      final Geometry geometry = simplified.get(i);
+      Assert.assertTrue(geometry.toString(), geometry.isValid());
+      Assert.assertTrue(geometry.getVertexCount() <= geometries.get(i).getVertexCount());
+    }
+    return simplified;
+  }
+
+  @Test
+  public void testSharedEdge() {
+    for (final boolean parallel : Arrays.asList(false, true)) {
+      final List<Geometry> simplified = simplify(parallel,
+        "POLYGON((0 0,0 100,50 101,100 100,100 50,101 25,100 0,50 -1,0 0))",
+        "POLYGON((100 0,101 25,100 50,100 100,150 101,200 100,200 0,100 0))");
+      final Geometry left = simplified.get(0);
+      final Geometry right = simplified.get(1);
+      Assert.assertEquals(5, left.getVertexCount());
+      Assert.assertEquals(5, right.getVertexCount());
+      Assert.assertEquals(10000, left.getArea(), 0);
+      Assert.assertEquals(10000, right.getArea(), 0);
+      final Geometry sharedEdge = left.intersection(right);
+      Assert.assertEquals(0, sharedEdge.getArea(), 0);
+      Assert.assertEquals(100, sharedEdge.getLength(), 0);
+    }
+  }
+
+  @Test
+  public void testSmallRingKept() {
+    final List<Geometry> simplified = simplify(true,
+      "POLYGON((0 0,0 100,100 100,100 0,0 0),(10 10,11 10,11 11,10 11,10 10))",
+      "POLYGON((10 10,11 10,11 11,10 11,10 10))");
+    Assert.assertEquals(5, simplified.get(1).getVertexCount());
+    Assert.assertEquals(10, simplified.get(0).getVertexCount());
+  }
+}
@@ -0,0 +1,162 @@
+package com.revolsys.core.test.gis.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.graph.Graph;
+import com.revolsys.geometry.graph.compact.CompactGraph;
+import com.revolsys.geometry.graph.compact.CompactGraphBuilder;
+import com.revolsys.geometry.graph.compact.CompactShortestPath;
+import com.revolsys.geometry.model.GeometryFactory;
+
+public class CompactGraphTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.fixed2d(3005, 1000.0,
+    1000.0);
+
+  private static final int GRID_SIZE = 20;
+
+  /**
+   * Calculate the distances using Bellman-Ford to check the results.
+   */
+  private static double[] bellmanFord(final CompactGraph graph, final int source) {
+    final double[] distances = new double[graph.getNodeCount()];
+    Arrays.fill(distances, Double.POSITIVE_INFINITY);
+    distances[source] = 0;
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (int node = 0; node < graph.getNodeCount(); node++) {
+        for (int arc = graph.getArcStart(node); arc < graph.getArcEnd(node); arc++) {
+          final double distance = distances[node] + graph.getArcWeight(arc);
+          final int target = graph.getArcTarget(arc);
+          if (distance < distances[target]) {
+            distances[target] = distance;
+            changed = true;
+          }
+        }
+      }
+    }
+    return distances;
+  }
+
+  /**
+   * Construct a grid where the weight of each edge is between its length and twice its length.
+   */
+  private static CompactGraph newGridGraph() {
+    final Random random = new Random(42);
+    final CompactGraphBuilder builder = new CompactGraphBuilder(GEOMETRY_FACTORY);
+    int edgeId = 0;
+    for (int y = 0; y < GRID_SIZE; y++) {
+      for (int x = 0; x < GRID_SIZE; x++) {
+        if (x < GRID_SIZE - 1) {
+          builder.addEdge(x * 100, y * 100, x * 100 + 100, y * 100,
+            100 + random.nextInt(100), edgeId++);
+        }
+        if (y < GRID_SIZE - 1) {
+          builder.addEdge(x * 100, y * 100, x * 100, y * 100 + 100,
+            100 + random.nextInt(100), edgeId++);
+        }
+      }
+    }
+    // One way short cut
+    builder.addArc(0, 0, 1900, 1900, 1, edgeId++);
+    return builder.newGraph();
+  }
+
+  @Test
+  public void testAStarMatchesDijkstra() {
+    final CompactGraph graph = newGridGraph();
+    final CompactShortestPath shortestPath = graph.newShortestPath();
+    final Random random = new Random(1);
+    for (int i = 0; i < 50; i++) {
+      final int source = random.nextInt(graph.getNodeCount());
+      final int target = random.nextInt(graph.getNodeCount());
+      final double expected = shortestPath.searchDijkstra(source, target);
+      final int dijkstraSettledCount = shortestPath.getSettledNodeCount();
+      final double actual = shortestPath.searchAStar(source, target);
+      Assert.assertEquals("A* distance", expected, actual, 1e-9);
+      Assert.assertTrue("A* settled", shortestPath.getSettledNodeCount() <= dijkstraSettledCount);
+
+      double pathWeight = 0;
+      final int[] nodes = shortestPath.getPathNodes(target);
+      Assert.assertEquals("Path source", source, nodes[0]);
+      Assert.assertEquals("Path target", target, nodes[nodes.length - 1]);
+      Assert.assertEquals("Edge count", nodes.length - 1,
+        shortestPath.getPathEdgeIds(target).length);
+      for (int j = 1; j < nodes.length; j++) {
+        double arcWeight = Double.POSITIVE_INFINITY;
+        for (int arc = graph.getArcStart(nodes[j - 1]); arc < graph
+          .getArcEnd(nodes[j - 1]); arc++) {
+          if (graph.getArcTarget(arc) == nodes[j]) {
+            arcWeight = Math.min(arcWeight, graph.getArcWeight(arc));
+          }
+        }
+        pathWeight += arcWeight;
+      }
+      Assert.assertEquals("Path weight", actual, pathWeight, 1e-9);
+    }
+  }
+
+  @Test
+  public void testDistances() {
+    final CompactGraph graph = newGridGraph();
+    Assert.assertEquals("Node count", GRID_SIZE * GRID_SIZE, graph.getNodeCount());
+    final int[] sources = {
+      graph.getNode(0, 0), graph.getNode(1900, 1900), graph.getNode(500, 700), 3, 77
+    };
+    final int[] targets = {
+      graph.getNode(0, 0), graph.getNode(1000, 1000), 399, 12, -1
+    };
+    final double[][] distances = graph.getDistances(sources, targets);
+    for (int i = 0; i < sources.length; i++) {
+      final double[] expected = bellmanFord(graph, sources[i]);
+      for (int j = 0; j < targets.length; j++) {
+        final int target = targets[j];
+        if (target == -1) {
+          Assert.assertEquals(Double.POSITIVE_INFINITY, distances[i][j], 0);
+        } else {
+          Assert.assertEquals("Distance", expected[target], distances[i][j], 1e-9);
+        }
+      }
+    }
+    // The short cut is one way
+    final CompactShortestPath shortestPath = graph.newShortestPath();
+    Assert.assertEquals(1, shortestPath.searchDijkstra(sources[0], sources[1]), 0);
+    Assert.assertTrue(shortestPath.searchDijkstra(sources[1], sources[0]) > 1);
+  }
+
+  @Test
+  public void testNewGraphFromGraph() {
+    final Graph<String> graph = new Graph<>();
+    graph.setGeometryFactory(GEOMETRY_FACTORY);
+    for (int y = 0; y < 5; y++) {
+      for (int x = 0; x < 5; x++) {
+        final double x1 = x * 100;
+        final double y1 = y * 100;
+        graph.addEdge("H", GEOMETRY_FACTORY.lineString(2, x1, y1, x1 + 100, y1));
+        graph.addEdge("V", GEOMETRY_FACTORY.lineString(2, x1, y1, x1, y1 + 100));
+      }
+    }
+    final CompactGraph compactGraph = CompactGraph.newGraph(graph);
+    Assert.assertEquals("Node count", graph.getNodeCount(), compactGraph.getNodeCount());
+    Assert.assertEquals("Arc count", graph.getEdgeCount() * 2, compactGraph.getArcCount());
+
+    final int source = compactGraph.getNode(GEOMETRY_FACTORY.point(0, 0));
+    final int target = compactGraph.getNode(300.0001, 200);
+    final CompactShortestPath shortestPath = compactGraph.newShortestPath();
+    Assert.assertEquals("Distance", 500, shortestPath.searchAStar(source, target), 1e-9);
+    for (final int edgeId : shortestPath.getPathEdgeIds(target)) {
+      Assert.assertNotNull("Edge", graph.getEdge(edgeId));
+    }
+    Assert.assertEquals("Missing node", -1, compactGraph.getNode(50, 50));
+
+    shortestPath.searchWithin(source, 200);
+    Assert.assertEquals("Service area", 6, shortestPath.getSettledNodeCount());
+    Assert.assertFalse(shortestPath.isSettled(target));
+    graph.close();
+  }
+}
@@ -0,0 +1,97 @@
+package com.revolsys.core.test.gis.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.graph.Edge;
+import com.revolsys.geometry.graph.EdgeGridIndex;
+import com.revolsys.geometry.graph.Graph;
+import com.revolsys.geometry.graph.Node;
+import com.revolsys.geometry.model.BoundingBox;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.geometry.model.LineString;
+
+public class GraphOutOfCoreTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.fixed2d(3005, 1000.0,
+    1000.0);
+
+  private static TreeSet<Integer> edgeIds(final List<Edge<String>> edges) {
+    final TreeSet<Integer> ids = new TreeSet<>();
+    for (final Edge<String> edge : edges) {
+      Assert.assertTrue("Duplicate edge " + edge.getId(), ids.add(edge.getId()));
+    }
+    return ids;
+  }
+
+  private static Graph<String> newGraph(final int maxEdgesInMemory) {
+    final Graph<String> graph = new Graph<>();
+    graph.setGeometryFactory(GEOMETRY_FACTORY);
+    graph.setMaxEdgesInMemory(maxEdgesInMemory);
+    graph.setSpatialIndexCellSize(250);
+    for (int y = 0; y < 40; y++) {
+      for (int x = 0; x < 40; x++) {
+        final double x1 = x * 100;
+        final double y1 = y * 100;
+        final LineString horizontal = GEOMETRY_FACTORY.lineString(2, x1, y1, x1 + 100, y1);
+        graph.addEdge("H" + x + "_" + y, horizontal);
+        final LineString vertical = GEOMETRY_FACTORY.lineString(2, x1, y1, x1, y1 + 100);
+        graph.addEdge("V" + x + "_" + y, vertical);
+      }
+    }
+    return graph;
+  }
+
+  @Test
+  public void testEdgeIndexMatchesInMemory() {
+    final Graph<String> inMemoryGraph = newGraph(Integer.MAX_VALUE);
+    final Graph<String> diskGraph = newGraph(100);
+    try {
+      Assert.assertTrue("Disk index", diskGraph.getEdgeIndex() instanceof EdgeGridIndex);
+      final double[][] queries = {
+        {
+          50, 50, 450, 450
+        }, {
+          1234, 567, 1890, 2345
+        }, {
+          -100, -100, 5000, 5000
+        }, {
+          3999, 3999, 4001, 4001
+        }
+      };
+      for (final double[] query : queries) {
+        final BoundingBox boundingBox = GEOMETRY_FACTORY.newBoundingBox(query[0], query[1],
+          query[2], query[3]);
+        final TreeSet<Integer> expected = edgeIds(inMemoryGraph.getEdges(boundingBox));
+        final TreeSet<Integer> actual = edgeIds(diskGraph.getEdges(boundingBox));
+        Assert.assertEquals("Edges " + boundingBox, expected, actual);
+      }
+    } finally {
+      inMemoryGraph.close();
+      diskGraph.close();
+    }
+  }
+
+  @Test
+  public void testFindNodeAndRemove() {
+    final Graph<String> graph = newGraph(100);
+    try {
+      final Node<String> node = graph.findNode(GEOMETRY_FACTORY.point(1200, 1300));
+      Assert.assertNotNull("Node", node);
+      Assert.assertEquals("Node degree", 4, node.getDegree());
+
+      final BoundingBox boundingBox = GEOMETRY_FACTORY.newBoundingBox(1150, 1250, 1250, 1350);
+      final List<Edge<String>> edges = new ArrayList<>(graph.getEdges(boundingBox));
+      Assert.assertEquals("Edges before remove", 4, edges.size());
+      graph.remove(edges.get(0));
+      Assert.assertEquals("Edges after remove", 3, graph.getEdges(boundingBox).size());
+      Assert.assertNull("Missing node", graph.findNode(GEOMETRY_FACTORY.point(1250, 1250)));
+    } finally {
+      graph.close();
+    }
+  }
+}
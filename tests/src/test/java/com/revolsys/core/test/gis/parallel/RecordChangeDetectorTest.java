@@ -0,0 +1,306 @@
+package com.revolsys.core.test.gis.parallel;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.jeometry.common.data.type.DataTypes;
+import org.jeometry.common.io.PathName;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.RecordChangeDetector;
+import com.revolsys.record.RecordContentHasher;
+import com.revolsys.record.RecordState;
+import com.revolsys.record.schema.RecordDefinitionImpl;
+
+public class RecordChangeDetectorTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.fixed2d(1000, 1000);
+
+  private static final RecordDefinitionImpl DECIMAL_ID_RECORD_DEFINITION = new RecordDefinitionImpl(
+    PathName.newPathName("/TestDecimalId"));
+
+  static {
+    DECIMAL_ID_RECORD_DEFINITION.addField("ID", DataTypes.DECIMAL);
+    DECIMAL_ID_RECORD_DEFINITION.addField("NAME", DataTypes.STRING);
+    DECIMAL_ID_RECORD_DEFINITION.addField("GEOMETRY", GeometryDataTypes.GEOMETRY);
+    DECIMAL_ID_RECORD_DEFINITION.setIdFieldName("ID");
+    DECIMAL_ID_RECORD_DEFINITION.setGeometryFactory(GEOMETRY_FACTORY);
+  }
+
+  private static final RecordDefinitionImpl RECORD_DEFINITION = new RecordDefinitionImpl(
+    PathName.newPathName("/Test"));
+
+  static {
+    RECORD_DEFINITION.addField("ID", DataTypes.INT);
+    RECORD_DEFINITION.addField("NAME", DataTypes.STRING);
+    RECORD_DEFINITION.addField("GEOMETRY", GeometryDataTypes.GEOMETRY);
+    RECORD_DEFINITION.setIdFieldName("ID");
+    RECORD_DEFINITION.setGeometryFactory(GEOMETRY_FACTORY);
+  }
+
+  private static final RecordDefinitionImpl STRING_ID_RECORD_DEFINITION = new RecordDefinitionImpl(
+    PathName.newPathName("/TestStringId"));
+
+  static {
+    STRING_ID_RECORD_DEFINITION.addField("ID", DataTypes.STRING);
+    STRING_ID_RECORD_DEFINITION.addField("NAME", DataTypes.STRING);
+    STRING_ID_RECORD_DEFINITION.setIdFieldName("ID");
+  }
+
+  private static Record newDecimalIdRecord(final BigDecimal id, final String name,
+    final double x) {
+    final Record record = new ArrayRecord(DECIMAL_ID_RECORD_DEFINITION);
+    record.setValue("ID", id);
+    record.setValue("NAME", name);
+    record.setGeometryValue(GEOMETRY_FACTORY.lineString(2, x, 0.0, x + 1, 1.0));
+    return record;
+  }
+
+  private static Record newRecord(final int id, final String name, final double x) {
+    final Record record = new ArrayRecord(RECORD_DEFINITION);
+    record.setValue("ID", id);
+    record.setValue("NAME", name);
+    record.setGeometryValue(GEOMETRY_FACTORY.lineString(2, x, 0.0, x + 1, 1.0));
+    return record;
+  }
+
+  private static Record newStringIdRecord(final String id, final String name) {
+    final Record record = new ArrayRecord(STRING_ID_RECORD_DEFINITION);
+    record.setValue("ID", id);
+    record.setValue("NAME", name);
+    return record;
+  }
+
+  private static List<Record> newRecords(final int count) {
+    final List<Record> records = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      records.add(newRecord(i, "Name " + i, i));
+    }
+    return records;
+  }
+
+  private void assertChanges(final boolean spillToDisk) {
+    final List<Record> target = newRecords(5000);
+    final List<Record> source = new ArrayList<>();
+    final TreeSet<Integer> expectedInserted = new TreeSet<>();
+    final TreeSet<Integer> expectedUpdated = new TreeSet<>();
+    final TreeSet<Integer> expectedDeleted = new TreeSet<>();
+    for (int i = 0; i < 5000; i++) {
+      if (i % 10 == 0) {
+        expectedDeleted.add(i);
+      } else if (i % 10 == 1) {
+        source.add(newRecord(i, "Changed " + i, i));
+        expectedUpdated.add(i);
+      } else if (i % 10 == 2) {
+        source.add(newRecord(i, "Name " + i, i + 0.5));
+        expectedUpdated.add(i);
+      } else {
+        // Reversed geometries are equal after normalization
+        final Record record = newRecord(i, "Name " + i, i);
+        record.setGeometryValue(record.getGeometry().reverse());
+        source.add(record);
+      }
+    }
+    for (int i = 5000; i < 5100; i++) {
+      source.add(newRecord(i, "Name " + i, i));
+      expectedInserted.add(i);
+    }
+    Collections.shuffle(source);
+
+    final TreeSet<Integer> inserted = new TreeSet<>();
+    final TreeSet<Integer> updated = new TreeSet<>();
+    final TreeSet<Integer> deleted = new TreeSet<>();
+    try (
+      RecordChangeDetector detector = new RecordChangeDetector()) {
+      detector.setSpillToDisk(spillToDisk);
+      detector.setMaxIndexSizeInMemory(1000);
+      detector.compare(source, target, record -> {
+        final Integer id = record.getInteger("ID");
+        final RecordState state = record.getState();
+        if (state == RecordState.NEW) {
+          inserted.add(id);
+        } else if (state == RecordState.MODIFIED) {
+          updated.add(id);
+        } else if (state == RecordState.DELETED) {
+          deleted.add(id);
+        } else {
+          Assert.fail("Unexpected state " + state);
+        }
+      });
+      Assert.assertEquals("Equal", 3500, detector.getEqualCount());
+    }
+    Assert.assertEquals("Inserted", expectedInserted, inserted);
+    Assert.assertEquals("Updated", expectedUpdated, updated);
+    Assert.assertEquals("Deleted", expectedDeleted, deleted);
+  }
+
+  private void assertStringIdChanges(final RecordChangeDetector detector,
+    final boolean spillToDisk) {
+    final List<Record> target = new ArrayList<>();
+    final List<Record> source = new ArrayList<>();
+    final TreeSet<String> expectedInserted = new TreeSet<>();
+    final TreeSet<String> expectedUpdated = new TreeSet<>();
+    final TreeSet<String> expectedDeleted = new TreeSet<>();
+    for (int i = 0; i < 500; i++) {
+      final String id = "ID-" + i;
+      target.add(newStringIdRecord(id, "Name " + i));
+      if (i % 5 == 0) {
+        expectedDeleted.add(id);
+      } else if (i % 5 == 1) {
+        source.add(newStringIdRecord(id, "Changed " + i));
+        expectedUpdated.add(id);
+      } else {
+        source.add(newStringIdRecord(id, "Name " + i));
+      }
+    }
+    for (int i = 0; i < 20; i++) {
+      final String id = "NEW-" + i;
+      source.add(newStringIdRecord(id, "Name " + i));
+      expectedInserted.add(id);
+    }
+    Collections.shuffle(source);
+
+    final TreeSet<String> inserted = new TreeSet<>();
+    final TreeSet<String> updated = new TreeSet<>();
+    final TreeSet<String> deleted = new TreeSet<>();
+    try (
+      detector) {
+      detector.setSpillToDisk(spillToDisk);
+      detector.setMaxIndexSizeInMemory(100);
+      detector.compare(source, target, record -> {
+        final String id = record.getString("ID");
+        final RecordState state = record.getState();
+        if (state == RecordState.NEW) {
+          inserted.add(id);
+        } else if (state == RecordState.MODIFIED) {
+          updated.add(id);
+        } else if (state == RecordState.DELETED) {
+          deleted.add(id);
+        } else {
+          Assert.fail("Unexpected state " + state);
+        }
+      });
+      Assert.assertEquals("Index size", 500, detector.getIndexSize());
+      Assert.assertEquals("Equal", 300, detector.getEqualCount());
+    }
+    Assert.assertEquals("Inserted", expectedInserted, inserted);
+    Assert.assertEquals("Updated", expectedUpdated, updated);
+    Assert.assertEquals("Deleted", expectedDeleted, deleted);
+  }
+
+  @Test
+  public void testChanges() {
+    assertChanges(false);
+  }
+
+  @Test
+  public void testChangesSpillToDisk() {
+    assertChanges(true);
+  }
+
+  @Test
+  public void testDecimalTargetIdentifiers() {
+    // e.g. an Oracle NUMBER(10) target read as BigDecimal and an Integer source
+    for (final boolean spillToDisk : new boolean[] {
+      false, true
+    }) {
+      final List<Record> target = new ArrayList<>();
+      final List<Record> source = new ArrayList<>();
+      final TreeSet<Integer> expectedUpdated = new TreeSet<>();
+      final TreeSet<Integer> expectedDeleted = new TreeSet<>();
+      for (int i = 0; i < 500; i++) {
+        // Some of the decimals have trailing zeros (e.g. 3.00)
+        final BigDecimal id = BigDecimal.valueOf(i).setScale(i % 3);
+        target.add(newDecimalIdRecord(id, "Name " + i, i));
+        if (i % 5 == 0) {
+          expectedDeleted.add(i);
+        } else if (i % 5 == 1) {
+          source.add(newRecord(i, "Changed " + i, i));
+          expectedUpdated.add(i);
+        } else {
+          source.add(newRecord(i, "Name " + i, i));
+        }
+      }
+      final TreeSet<Integer> inserted = new TreeSet<>();
+      final TreeSet<Integer> updated = new TreeSet<>();
+      final TreeSet<Integer> deleted = new TreeSet<>();
+      try (
+        RecordChangeDetector detector = new RecordChangeDetector()) {
+        detector.setSpillToDisk(spillToDisk);
+        detector.setMaxIndexSizeInMemory(100);
+        detector.compare(source, target, record -> {
+          final int id = record.getInteger("ID");
+          final RecordState state = record.getState();
+          if (state == RecordState.NEW) {
+            inserted.add(id);
+          } else if (state == RecordState.MODIFIED) {
+            updated.add(id);
+          } else if (state == RecordState.DELETED) {
+            deleted.add(id);
+          } else {
+            Assert.fail("Unexpected state " + state);
+          }
+        });
+        Assert.assertEquals("Equal", 300, detector.getEqualCount());
+      }
+      Assert.assertEquals("Inserted", Collections.emptySet(), inserted);
+      Assert.assertEquals("Updated", expectedUpdated, updated);
+      Assert.assertEquals("Deleted", expectedDeleted, deleted);
+    }
+  }
+
+  @Test
+  public void testHashNormalizesValues() {
+    final RecordContentHasher hasher = new RecordContentHasher(RECORD_DEFINITION,
+      Collections.emptyList());
+    final Record record1 = newRecord(1, "A", 1);
+    final Record record2 = newRecord(2, "A", 1);
+    Assert.assertEquals("Id excluded", hasher.hash(record1), hasher.hash(record2));
+
+    record1.setValue("NAME", "");
+    record2.setValue("NAME", null);
+    Assert.assertEquals("Blank string", hasher.hash(record1), hasher.hash(record2));
+
+    final RecordContentHasher valueHasher = new RecordContentHasher(
+      Collections.singletonList("NAME"));
+    final Record record3 = new ArrayRecord(RECORD_DEFINITION);
+    final Record record4 = new ArrayRecord(RECORD_DEFINITION);
+    record3.setValue("NAME", "A");
+    record4.setValue("NAME", "B");
+    Assert.assertNotEquals("Different", valueHasher.hash(record3), valueHasher.hash(record4));
+  }
+
+  @Test
+  public void testStringIdentifierHashCollisions() {
+    for (final boolean spillToDisk : new boolean[] {
+      false, true
+    }) {
+      // All the identifiers with the same length have the same hash
+      final RecordChangeDetector detector = new RecordChangeDetector() {
+        @Override
+        protected long hashIdString(final String idString) {
+          return idString.length();
+        }
+      };
+      assertStringIdChanges(detector, spillToDisk);
+    }
+  }
+
+  @Test
+  public void testStringIdentifiers() {
+    assertStringIdChanges(new RecordChangeDetector(), false);
+  }
+
+  @Test
+  public void testStringIdentifiersSpillToDisk() {
+    assertStringIdChanges(new RecordChangeDetector(), true);
+  }
+}
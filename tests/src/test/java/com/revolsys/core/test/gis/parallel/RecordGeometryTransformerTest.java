@@ -0,0 +1,91 @@
+package com.revolsys.core.test.gis.parallel;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jeometry.common.data.type.DataTypes;
+import org.jeometry.common.io.PathName;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.gis.parallel.RecordGeometryTransformer;
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.schema.RecordDefinitionImpl;
+
+public class RecordGeometryTransformerTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.fixed2d(1000, 1000);
+
+  private static final RecordDefinitionImpl RECORD_DEFINITION = new RecordDefinitionImpl(
+    PathName.newPathName("/Test"));
+
+  static {
+    RECORD_DEFINITION.addField("ID", DataTypes.INT);
+    RECORD_DEFINITION.addField("GEOMETRY", GeometryDataTypes.GEOMETRY);
+  }
+
+  private static List<Record> newLines() {
+    final List<Record> lines = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      final Record record = new ArrayRecord(RECORD_DEFINITION);
+      record.setValue("ID", i);
+      if (i % 100 != 0) {
+        record.setGeometryValue(GEOMETRY_FACTORY.lineString(2, i, 0.0, i, 10));
+      }
+      lines.add(record);
+    }
+    return lines;
+  }
+
+  @Test
+  public void testClipOrdered() {
+    final Geometry clipGeometry = GEOMETRY_FACTORY.polygon(2, 0.0, 0, 500, 0, 500, 5, 0, 5, 0, 0);
+    final RecordGeometryTransformer transformer = new RecordGeometryTransformer(
+      RecordGeometryTransformer.clip(clipGeometry));
+    transformer.setBatchSize(7);
+    final List<Record> results = new ArrayList<>();
+    transformer.forEach(newLines(), results::add);
+
+    Assert.assertEquals(1000, transformer.getReadCount());
+    // 495 lines intersect the clip polygon plus the 10 records without a geometry
+    Assert.assertEquals(505, transformer.getWriteCount());
+    Assert.assertEquals(495, transformer.getSkippedCount());
+    Assert.assertEquals(505, results.size());
+    int previousId = -1;
+    for (final Record record : results) {
+      final int id = record.getInteger("ID");
+      Assert.assertTrue(id > previousId);
+      previousId = id;
+      final Geometry geometry = record.getGeometry();
+      if (geometry != null) {
+        Assert.assertEquals(5, geometry.getLength(), 0);
+      }
+    }
+  }
+
+  @Test
+  public void testUnordered() {
+    final RecordGeometryTransformer transformer = new RecordGeometryTransformer(
+      RecordGeometryTransformer.buffer(1));
+    transformer.setPreserveOrder(false);
+    transformer.setBatchSize(10);
+    transformer.setMaxPendingBatches(3);
+    final Set<Integer> ids = new HashSet<>();
+    transformer.forEach(newLines(), record -> {
+      ids.add(record.getInteger("ID"));
+      final Geometry geometry = record.getGeometry();
+      if (geometry != null) {
+        Assert.assertEquals(2, geometry.getDimension());
+      }
+    });
+    Assert.assertEquals(1000, ids.size());
+    Assert.assertEquals(1000, transformer.getWriteCount());
+    Assert.assertEquals(0, transformer.getSkippedCount());
+  }
+}
@@ -0,0 +1,135 @@
+package com.revolsys.core.test.gis.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jeometry.common.data.type.DataTypes;
+import org.jeometry.common.io.PathName;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.geometry.model.Geometry;
+import com.revolsys.geometry.model.GeometryDataTypes;
+import com.revolsys.geometry.model.GeometryFactory;
+import com.revolsys.gis.parallel.SpatialJoin;
+import com.revolsys.gis.parallel.SpatialJoinPredicate;
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.schema.RecordDefinitionImpl;
+import com.revolsys.util.Pair;
+
+public class SpatialJoinTest {
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactory.fixed2d(1000, 1000);
+
+  private static final RecordDefinitionImpl RECORD_DEFINITION = new RecordDefinitionImpl(
+    PathName.newPathName("/Test"));
+
+  static {
+    RECORD_DEFINITION.addField("ID", DataTypes.INT);
+    RECORD_DEFINITION.addField("GEOMETRY", GeometryDataTypes.GEOMETRY);
+  }
+
+  private static Record newRecord(final int id, final Geometry geometry) {
+    final Record record = new ArrayRecord(RECORD_DEFINITION);
+    record.setValue("ID", id);
+    record.setGeometryValue(geometry);
+    return record;
+  }
+
+  private static List<Record> newPoints() {
+    final List<Record> points = new ArrayList<>();
+    int id = 0;
+    for (int y = 0; y < 100; y++) {
+      for (int x = 0; x < 100; x++) {
+        points.add(newRecord(id++, GEOMETRY_FACTORY.point(x + 0.5, y + 0.5)));
+      }
+    }
+    return points;
+  }
+
+  private static List<Record> newSquares() {
+    final List<Record> squares = new ArrayList<>();
+    int id = 0;
+    for (int y = 0; y < 100; y += 10) {
+      for (int x = 0; x < 100; x += 10) {
+        squares.add(newRecord(id++, GEOMETRY_FACTORY.polygon(2, x, y, x + 10, y, x + 10, y + 10, x,
+          y + 10, x, y)));
+      }
+    }
+    return squares;
+  }
+
+  private void assertPointsInSquares(final List<Pair<Record, Record>> pairs) {
+    Assert.assertEquals(10000, pairs.size());
+    int pointId = 0;
+    for (final Pair<Record, Record> pair : pairs) {
+      final Record point = pair.getValue1();
+      final Record square = pair.getValue2();
+      Assert.assertEquals("Probe order", pointId++, point.getInteger("ID").intValue());
+      final Geometry squareGeometry = square.getGeometry();
+      Assert.assertTrue(squareGeometry.contains(point.getGeometry()));
+    }
+  }
+
+  @Test
+  public void testNearest() {
+    final List<Record> points = newPoints();
+    final List<Record> targets = new ArrayList<>();
+    targets.add(newRecord(0, GEOMETRY_FACTORY.point(0, 0)));
+    targets.add(newRecord(1, GEOMETRY_FACTORY.point(100, 100)));
+    targets.add(newRecord(2, GEOMETRY_FACTORY.point(0, 100)));
+
+    final SpatialJoin join = new SpatialJoin(points, targets, SpatialJoinPredicate.NEAREST);
+    join.setNearestCount(2);
+    final List<Pair<Record, Record>> pairs = join.getPairs();
+    Assert.assertEquals(20000, pairs.size());
+    for (int i = 0; i < pairs.size(); i += 2) {
+      final Record point = pairs.get(i).getValue1();
+      final Geometry geometry = point.getGeometry();
+      final double distance1 = geometry.distanceGeometry(pairs.get(i).getValue2().getGeometry());
+      final double distance2 = geometry
+        .distanceGeometry(pairs.get(i + 1).getValue2().getGeometry());
+      Assert.assertTrue(distance1 <= distance2);
+      for (final Record target : targets) {
+        final double distance = geometry.distanceGeometry(target.getGeometry());
+        if (target != pairs.get(i).getValue2() && target != pairs.get(i + 1).getValue2()) {
+          Assert.assertTrue("Nearest", distance >= distance2);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testPointsInPolygons() {
+    final List<Record> points = newPoints();
+    final List<Record> squares = newSquares();
+
+    final SpatialJoin join = new SpatialJoin(points, squares, SpatialJoinPredicate.WITHIN);
+    join.setBatchSize(100);
+    assertPointsInSquares(join.getPairs());
+
+    join.setParallel(false);
+    assertPointsInSquares(join.getPairs());
+
+    // The smaller left side is indexed but the pairs are still left, right
+    final SpatialJoin containsJoin = new SpatialJoin(squares, points,
+      SpatialJoinPredicate.CONTAINS);
+    final List<Pair<Record, Record>> pairs = containsJoin.getPairs();
+    Assert.assertEquals(10000, pairs.size());
+    for (final Pair<Record, Record> pair : pairs) {
+      Assert.assertEquals(4, pair.getValue1().getGeometry().getVertexCount() - 1);
+    }
+  }
+
+  @Test
+  public void testWithinDistance() {
+    final List<Record> points = newPoints();
+    final List<Record> lines = new ArrayList<>();
+    lines.add(newRecord(0, GEOMETRY_FACTORY.lineString(2, 0.0, 50, 100, 50)));
+
+    final SpatialJoin join = new SpatialJoin(points, lines, SpatialJoinPredicate.WITHIN_DISTANCE);
+    join.setDistance(1);
+    Assert.assertEquals(200, join.getPairs().size());
+  }
+}
@@ -0,0 +1,156 @@
+package com.revolsys.core.test.io.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.collection.bplus.BPlusTreeMap;
+import com.revolsys.io.FileUtil;
+import com.revolsys.io.page.BufferPoolPageManager;
+import com.revolsys.io.page.Page;
+import com.revolsys.io.page.PageValueManager;
+
+public class BufferPoolPageManagerTest {
+
+  private static BufferPoolPageManager newPageManager() {
+    final File file = FileUtil.newTempFile("pages", ".pf");
+    return new BufferPoolPageManager(file, true, 512, 16, 64 * 1024);
+  }
+
+  @Test
+  public void testBPlusTreeMap() {
+    try (
+      BufferPoolPageManager pageManager = newPageManager()) {
+      final Map<Integer, String> map = BPlusTreeMap.newMap(pageManager, PageValueManager.INT,
+        PageValueManager.STRING);
+      final Map<Integer, String> expected = new TreeMap<>();
+      final List<Integer> keys = new ArrayList<>();
+      for (int i = 0; i < 5000; i++) {
+        keys.add(i);
+      }
+      Collections.shuffle(keys, new Random(1));
+      for (final Integer key : keys) {
+        final String value = "value" + key;
+        Assert.assertNull(map.put(key, value));
+        expected.put(key, value);
+      }
+      Assert.assertEquals("value10", map.put(10, "ten"));
+      expected.put(10, "ten");
+
+      Assert.assertEquals(expected.size(), map.size());
+      for (final Integer key : keys) {
+        Assert.assertEquals(expected.get(key), map.get(key));
+      }
+      Assert.assertNull(map.get(-1));
+      Assert.assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet()));
+
+      for (int i = 0; i < 5000; i += 3) {
+        Assert.assertEquals(expected.remove(i), map.remove(i));
+      }
+      Assert.assertEquals(expected.size(), map.size());
+      Assert.assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+    }
+  }
+
+  @Test
+  public void testConcurrentReaders() {
+    try (
+      BufferPoolPageManager pageManager = newPageManager()) {
+      final Page page = pageManager.newPage();
+      page.writeInt(42);
+      page.writeLong(Long.MIN_VALUE);
+      pageManager.releasePage(page);
+
+      final Page reader1 = pageManager.getPage(page.getIndex());
+      final Page reader2 = pageManager.getPage(page.getIndex());
+      Assert.assertEquals(42, reader1.readInt());
+      Assert.assertEquals(0, reader2.getOffset());
+      Assert.assertEquals(42, reader2.readInt());
+      Assert.assertEquals(Long.MIN_VALUE, reader1.readLong());
+      pageManager.releasePage(reader1);
+      pageManager.releasePage(reader2);
+    }
+  }
+
+  @Test
+  public void testEviction() {
+    try (
+      BufferPoolPageManager pageManager = newPageManager()) {
+      final int pageCount = pageManager.getPoolSize() * 20;
+      for (int i = 0; i < pageCount; i++) {
+        final Page page = pageManager.newPage();
+        Assert.assertEquals(i, page.getIndex());
+        page.writeInt(i);
+        pageManager.releasePage(page);
+      }
+      Assert.assertEquals(pageCount, pageManager.getNumPages());
+      for (int i = pageCount - 1; i >= 0; i--) {
+        final Page page = pageManager.getPage(i);
+        Assert.assertEquals(i, page.readInt());
+        pageManager.releasePage(page);
+      }
+
+      final Page removedPage = pageManager.getPage(5);
+      pageManager.removePage(removedPage);
+      Assert.assertEquals(pageCount - 1, pageManager.getNumPages());
+      final Page page = pageManager.newPage();
+      Assert.assertEquals(5, page.getIndex());
+      Assert.assertEquals(0, page.readInt());
+      pageManager.releasePage(page);
+    }
+  }
+
+  @Test
+  public void testPinnedPagesNotEvicted() {
+    try (
+      BufferPoolPageManager pageManager = newPageManager()) {
+      final List<Page> pages = new ArrayList<>();
+      for (int i = 0; i < pageManager.getPoolSize(); i++) {
+        pages.add(pageManager.newPage());
+      }
+      try {
+        pageManager.newPage();
+        Assert.fail("Expected all pages to be pinned");
+      } catch (final IllegalStateException e) {
+      }
+      pageManager.releasePage(pages.get(3));
+      final Page page = pageManager.newPage();
+      pageManager.releasePage(page);
+      for (final Page pinnedPage : pages) {
+        pageManager.releasePage(pinnedPage);
+      }
+    }
+  }
+
+  @Test
+  public void testTempDiskMap() {
+    final Map<Long, Double> values = new TreeMap<>();
+    for (long i = 0; i < 2000; i++) {
+      values.put(i * 1000000000L, i / 3.0);
+    }
+    final Map<Long, Double> map = BPlusTreeMap.newTempDisk(PageValueManager.LONG,
+      PageValueManager.DOUBLE);
+    map.putAll(values);
+    Assert.assertEquals(values.size(), map.size());
+    for (final Long key : values.keySet()) {
+      Assert.assertEquals(values.get(key), map.get(key));
+    }
+
+    final Map<Integer, List<String>> lists = BPlusTreeMap.newIntSeralizableTempDisk();
+    final List<String> list = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      list.add("item" + i);
+    }
+    lists.put(1, list);
+    lists.put(2, Collections.singletonList("two"));
+    Assert.assertEquals(list, lists.get(1));
+    Assert.assertEquals(Collections.singletonList("two"), lists.get(2));
+  }
+}
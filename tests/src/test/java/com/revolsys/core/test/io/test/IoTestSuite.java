@@ -6,6 +6,7 @@ import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
 @SuiteClasses({
+  BufferPoolPageManagerTest.class, //
   PathTest.class
 })
 public class IoTestSuite {
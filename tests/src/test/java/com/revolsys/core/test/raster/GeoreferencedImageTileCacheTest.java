@@ -0,0 +1,106 @@
+package com.revolsys.core.test.raster;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.raster.GeoreferencedImageTileCache;
+
+public class GeoreferencedImageTileCacheTest {
+
+  private static BufferedImage newImage(final int type) {
+    final BufferedImage image = new BufferedImage(37, 23, type);
+    final Random random = new Random(type);
+    final DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+    if (dataBuffer instanceof DataBufferInt) {
+      final int[] data = ((DataBufferInt)dataBuffer).getData();
+      for (int i = 0; i < data.length; i++) {
+        data[i] = random.nextInt();
+      }
+    } else if (dataBuffer instanceof DataBufferByte) {
+      random.nextBytes(((DataBufferByte)dataBuffer).getData());
+    } else {
+      final short[] data = ((DataBufferUShort)dataBuffer).getData();
+      for (int i = 0; i < data.length; i++) {
+        data[i] = (short)random.nextInt();
+      }
+    }
+    return image;
+  }
+
+  private void assertSpillRoundTrip(final int type) {
+    final GeoreferencedImageTileCache cache = new GeoreferencedImageTileCache(1);
+    cache.setSpillEnabled(true);
+    try {
+      final BufferedImage image = newImage(type);
+      // The tile is larger than the cache so it is spilled as soon as it is added
+      Assert.assertSame(image, cache.getTile("test", 0, 1, 2, () -> image));
+      Assert.assertEquals("Spill write", 1, cache.getSpillWriteCount());
+      cache.clearMemory();
+
+      final BufferedImage spilledImage = cache.getTile("test", 0, 1, 2, () -> {
+        Assert.fail("Tile should be read from the spill file");
+        return null;
+      });
+      Assert.assertEquals("Spill hit", 1, cache.getSpillHitCount());
+      Assert.assertEquals("Type", type, spilledImage.getType());
+      Assert.assertEquals("Width", image.getWidth(), spilledImage.getWidth());
+      Assert.assertEquals("Height", image.getHeight(), spilledImage.getHeight());
+      final DataBuffer expected = image.getRaster().getDataBuffer();
+      final DataBuffer actual = spilledImage.getRaster().getDataBuffer();
+      Assert.assertEquals("Size", expected.getSize(), actual.getSize());
+      for (int i = 0; i < expected.getSize(); i++) {
+        Assert.assertEquals("Pixel " + i, expected.getElem(i), actual.getElem(i));
+      }
+    } finally {
+      cache.clear();
+    }
+  }
+
+  @Test
+  public void testSetMaxByteCountSpills() {
+    final GeoreferencedImageTileCache cache = new GeoreferencedImageTileCache(1024 * 1024);
+    cache.setSpillEnabled(true);
+    try {
+      final BufferedImage image = newImage(BufferedImage.TYPE_INT_ARGB);
+      cache.getTile("test", 0, 1, 2, () -> image);
+      Assert.assertEquals("Spill write", 0, cache.getSpillWriteCount());
+
+      // Reducing the size evicts the tile which must be spilled like a normal eviction
+      cache.setMaxByteCount(1);
+      Assert.assertEquals("Tile count", 0, cache.getTileCount());
+      Assert.assertEquals("Spill write", 1, cache.getSpillWriteCount());
+      cache.clearMemory();
+      final BufferedImage spilledImage = cache.getTile("test", 0, 1, 2, () -> {
+        Assert.fail("Tile should be read from the spill file");
+        return null;
+      });
+      Assert.assertEquals("Spill hit", 1, cache.getSpillHitCount());
+      Assert.assertEquals("Width", image.getWidth(), spilledImage.getWidth());
+    } finally {
+      cache.clear();
+    }
+  }
+
+  @Test
+  public void testSpillByte() {
+    assertSpillRoundTrip(BufferedImage.TYPE_3BYTE_BGR);
+    assertSpillRoundTrip(BufferedImage.TYPE_BYTE_GRAY);
+  }
+
+  @Test
+  public void testSpillInt() {
+    assertSpillRoundTrip(BufferedImage.TYPE_INT_ARGB);
+  }
+
+  @Test
+  public void testSpillUShort() {
+    assertSpillRoundTrip(BufferedImage.TYPE_USHORT_GRAY);
+  }
+}
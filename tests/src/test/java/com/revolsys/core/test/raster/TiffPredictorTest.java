@@ -0,0 +1,95 @@
+package com.revolsys.core.test.raster;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.Deflater;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.raster.io.format.tiff.code.TiffPredictor;
+import com.revolsys.raster.io.format.tiff.compression.TiffDeflateInputStream;
+
+public class TiffPredictorTest {
+
+  private static final ByteOrder[] BYTE_ORDERS = {
+    ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN
+  };
+
+  private byte[] deflateInflate(final byte[] bytes) throws IOException {
+    final Deflater deflater = new Deflater();
+    deflater.setInput(bytes);
+    deflater.finish();
+    final byte[] compressed = new byte[bytes.length * 2 + 64];
+    final int compressedCount = deflater.deflate(compressed);
+    deflater.end();
+    try (
+      TiffDeflateInputStream in = new TiffDeflateInputStream(compressed, 0, compressedCount)) {
+      return in.readAllBytes();
+    }
+  }
+
+  @Test
+  public void testFloatingPoint() throws IOException {
+    final float[] values = {
+      1.5f, 2.25f, -3f, 100f, 0.001f, 1234.5678f
+    };
+    final int count = values.length;
+    for (final ByteOrder byteOrder : BYTE_ORDERS) {
+      final byte[] bytes = new byte[count * 4];
+      for (int i = 0; i < count; i++) {
+        final int bits = Float.floatToIntBits(values[i]);
+        for (int b = 0; b < 4; b++) {
+          bytes[b * count + i] = (byte)(bits >>> 24 - 8 * b);
+        }
+      }
+      for (int i = bytes.length - 1; i > 0; i--) {
+        bytes[i] -= bytes[i - 1];
+      }
+      final byte[] decoded = deflateInflate(bytes);
+      TiffPredictor.FLOATING_POINT.decode(decoded, decoded.length, count, 1, 4, byteOrder);
+      final ByteBuffer buffer = ByteBuffer.wrap(decoded).order(byteOrder);
+      for (int i = 0; i < count; i++) {
+        Assert.assertEquals(byteOrder + " " + i, values[i], buffer.getFloat(), 0);
+      }
+    }
+  }
+
+  @Test
+  public void testHorizontal16() {
+    final short[] values = {
+      100, -5, 300, 7, 30000, -30000
+    };
+    for (final ByteOrder byteOrder : BYTE_ORDERS) {
+      final ByteBuffer encoded = ByteBuffer.allocate(values.length * 2).order(byteOrder);
+      short previous = 0;
+      for (final short value : values) {
+        encoded.putShort((short)(value - previous));
+        previous = value;
+      }
+      final byte[] bytes = encoded.array();
+      TiffPredictor.HORIZONTAL_DIFFERENCING.decode(bytes, bytes.length, values.length, 1, 2,
+        byteOrder);
+      final ByteBuffer decoded = ByteBuffer.wrap(bytes).order(byteOrder);
+      for (int i = 0; i < values.length; i++) {
+        Assert.assertEquals(byteOrder + " " + i, values[i], decoded.getShort());
+      }
+    }
+  }
+
+  @Test
+  public void testHorizontal8Rgb() {
+    final byte[] bytes = {
+      10, 20, 30, 1, 2, 3, -1, -2, -3, //
+      5, 6, 7, 1, 1, 1, 1, 1, 1
+    };
+    TiffPredictor.HORIZONTAL_DIFFERENCING.decode(bytes, bytes.length, 3, 3, 1,
+      ByteOrder.BIG_ENDIAN);
+    final byte[] expected = {
+      10, 20, 30, 11, 22, 33, 10, 20, 30, //
+      5, 6, 7, 6, 7, 8, 7, 8, 9
+    };
+    Assert.assertArrayEquals(expected, bytes);
+  }
+}
@@ -0,0 +1,132 @@
+package com.revolsys.core.test.record.io.test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.jeometry.common.data.type.DataTypes;
+import org.jeometry.common.io.PathName;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.record.ArrayRecord;
+import com.revolsys.record.Record;
+import com.revolsys.record.io.ExternalRecordSorter;
+import com.revolsys.record.schema.RecordDefinitionImpl;
+
+public class ExternalRecordSorterTest {
+
+  private static final RecordDefinitionImpl RECORD_DEFINITION = new RecordDefinitionImpl(
+    PathName.newPathName("/Test"));
+
+  static {
+    RECORD_DEFINITION.addField("ID", DataTypes.INT);
+    RECORD_DEFINITION.addField("GROUP", DataTypes.STRING);
+    RECORD_DEFINITION.addField("VALUE", DataTypes.DOUBLE);
+  }
+
+  private static void assertSorted(final List<Record> expected, final List<Record> actual) {
+    Assert.assertEquals("Record Count", expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      final Record expectedRecord = expected.get(i);
+      final Record actualRecord = actual.get(i);
+      for (final String fieldName : RECORD_DEFINITION.getFieldNames()) {
+        Assert.assertEquals(fieldName + " " + i, expectedRecord.getValue(fieldName),
+          actualRecord.getValue(fieldName));
+      }
+    }
+  }
+
+  private static Record newRecord(final int id, final String group, final double value) {
+    final Record record = new ArrayRecord(RECORD_DEFINITION);
+    record.setValue("ID", id);
+    record.setValue("GROUP", group);
+    record.setValue("VALUE", value);
+    return record;
+  }
+
+  private static List<Record> newRecords(final int count) {
+    final Random random = new Random(42);
+    final List<Record> records = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      final String group = "G" + random.nextInt(20);
+      final double value = random.nextInt(100);
+      records.add(newRecord(i, group, value));
+    }
+    return records;
+  }
+
+  private static Map<String, Boolean> orderBy() {
+    final Map<String, Boolean> orderBy = new LinkedHashMap<>();
+    orderBy.put("GROUP", true);
+    orderBy.put("VALUE", false);
+    return orderBy;
+  }
+
+  private List<Record> sort(final ExternalRecordSorter sorter, final List<Record> records) {
+    final List<Record> sorted = new ArrayList<>();
+    sorter.sort(records, sorted::add);
+    return sorted;
+  }
+
+  @Test
+  public void testInMemory() {
+    final List<Record> records = newRecords(500);
+    final ExternalRecordSorter sorter = ExternalRecordSorter.orderBy(orderBy());
+    sorter.addAll(records);
+    Assert.assertEquals("Run Count", 0, sorter.getRunCount());
+
+    final List<Record> expected = new ArrayList<>(records);
+    expected.sort(sorter.getComparator());
+    final List<Record> actual = new ArrayList<>();
+    sorter.forEach(actual::add);
+    assertSorted(expected, actual);
+    for (int i = 0; i < expected.size(); i++) {
+      Assert.assertSame("In memory record " + i, expected.get(i), actual.get(i));
+    }
+  }
+
+  @Test
+  public void testMultiPassMerge() {
+    final List<Record> records = newRecords(5000);
+    for (final boolean parallel : new boolean[] {
+      false, true
+    }) {
+      final ExternalRecordSorter sorter = ExternalRecordSorter.orderBy(orderBy());
+      sorter.setParallel(parallel);
+      sorter.setMaxRecordsInMemory(100);
+      sorter.setMergeFactor(4);
+
+      final List<Record> expected = new ArrayList<>(records);
+      expected.sort(sorter.getComparator());
+      assertSorted(expected, sort(sorter, records));
+      Assert.assertEquals("Run Count after sort", 0, sorter.getRunCount());
+    }
+  }
+
+  @Test
+  public void testStable() {
+    final List<Record> records = newRecords(2000);
+    final Comparator<Record> comparator = Comparator
+      .comparing((final Record record) -> record.getString("GROUP"));
+    final ExternalRecordSorter sorter = new ExternalRecordSorter(comparator);
+    sorter.setMaxRecordsInMemory(64);
+    sorter.setMergeFactor(3);
+
+    final List<Record> sorted = sort(sorter, records);
+    Assert.assertEquals("Record Count", records.size(), sorted.size());
+    for (int i = 1; i < sorted.size(); i++) {
+      final Record previous = sorted.get(i - 1);
+      final Record record = sorted.get(i);
+      final int compare = comparator.compare(previous, record);
+      Assert.assertTrue("Sorted " + i, compare <= 0);
+      if (compare == 0) {
+        Assert.assertTrue("Stable " + i,
+          previous.getInteger("ID").intValue() < record.getInteger("ID").intValue());
+      }
+    }
+  }
+}
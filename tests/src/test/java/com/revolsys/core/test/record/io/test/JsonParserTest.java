@@ -0,0 +1,48 @@
+package com.revolsys.core.test.record.io.test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.revolsys.collection.list.DoubleList;
+import com.revolsys.record.io.format.json.JsonParser;
+import com.revolsys.record.io.format.json.JsonParser.EventType;
+
+public class JsonParserTest {
+
+  @Test
+  public void testNumberValue() {
+    final List<Object> values = JsonParser.read("[1.25, -3e2, 12345678901234567890]");
+    Assert.assertEquals(new BigDecimal("1.25"), values.get(0));
+    Assert.assertEquals(new BigDecimal("-3e2"), values.get(1));
+    Assert.assertEquals(new BigDecimal("12345678901234567890"), values.get(2));
+  }
+
+  @Test
+  public void testReadDoubles() {
+    final String[] numbers = {
+      "0", "-0.5", "123.456", "1e10", "-2.5E-3", "-122.123456789", "3.141592653589793",
+      "12345678901234567890", "1.7976931348623157e308"
+    };
+    final StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < numbers.length; i++) {
+      if (i > 0) {
+        json.append(",");
+      }
+      json.append(numbers[i]);
+    }
+    json.append("]");
+    try (
+      JsonParser parser = JsonParser.newParser(json)) {
+      Assert.assertEquals(EventType.startDocument, parser.next());
+      final DoubleList values = new DoubleList();
+      Assert.assertEquals(numbers.length, parser.readDoubles(values));
+      Assert.assertEquals(EventType.endArray, parser.getEvent());
+      for (int i = 0; i < numbers.length; i++) {
+        Assert.assertEquals(numbers[i], Double.parseDouble(numbers[i]), values.getDouble(i), 0);
+      }
+    }
+  }
+}
@@ -42,8 +42,8 @@ import junit.framework.TestSuite;
 
 @RunWith(Suite.class)
 @SuiteClasses({
-  GeoJsonIoTest.class, GmlIoTest.class, KmlIoTest.class, ShapefileIoTest.class, WktlIoTest.class,
-  XBaseIoTest.class
+  ExternalRecordSorterTest.class, GeoJsonIoTest.class, GmlIoTest.class, KmlIoTest.class,
+  ShapefileIoTest.class, WktlIoTest.class, XBaseIoTest.class
 })
 public class RecordIoTestSuite {
   public static void addGeometryTestSuites(final TestSuite suite, final String namePrefix,